@@ -0,0 +1,114 @@
+package Benchmarks;
+
+import Entities.IdGenerator;
+import Entities.Task;
+import Entities.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of concurrent access to shared tasks.
+ * <p>
+ * Every benchmark thread does operations on tasks picked at random among a small shared
+ * set, so that threads regularly meet on the same tasks and lock stripes.
+ * {@code reschedule} only moves tasks; {@code read} reads their dates and status, moving
+ * one task in ten. {@code id} generates task IDs with the shared {@link IdGenerator}, and
+ * {@code idLegacy} as Task did before it, with a new {@link java.util.Random} per ID.
+ * <p>
+ * The benchmarks run on as many threads as there are processors; compare thread counts
+ * with JMH's {@code -t} option, for example
+ * {@code java -jar target/benchmarks.jar ContentionBenchmarks -t 32}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Threads(Threads.MAX)
+public class ContentionBenchmarks {
+
+    private static final int TASK_COUNT = 1024;
+    private static final int WRITE_PERCENT = 10;
+
+    private Task[] tasks;
+
+    /**
+     * Creates the shared tasks.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = new Task[TASK_COUNT];
+        for (int i = 0; i < TASK_COUNT; i++) {
+            tasks[i] = new Task("Shared task " + i, 1 + i % 5, new ArrayList<>(), new ArrayList<>(),
+                    Workspace.FIRST_DAY, new ArrayList<>(), new ArrayList<>(), Workspace.FIRST_DAY.plusDays(5),
+                    TaskStatus.IN_PROGRESS);
+        }
+    }
+
+    /**
+     * The random numbers of one benchmark thread, each thread with its own seed.
+     */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        private static final AtomicLong SEEDS = new AtomicLong();
+
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            random = new SplittableRandom(SEEDS.getAndIncrement());
+        }
+    }
+
+    @Benchmark
+    public long reschedule(ThreadRandom state) {
+        return work(state.random, 100);
+    }
+
+    @Benchmark
+    public long read(ThreadRandom state) {
+        return work(state.random, WRITE_PERCENT);
+    }
+
+    @Benchmark
+    public String id() {
+        return IdGenerator.nextId(Task.class);
+    }
+
+    @Benchmark
+    public String idLegacy() {
+        return EntityBenchmarks.legacyTaskId();
+    }
+
+    /**
+     * Does one operation on a random task. A move gives the task new dates within the
+     * first month, which the two date setters could reject in either order when the new
+     * dates do not overlap the old ones.
+     */
+    private long work(SplittableRandom random, int writePercent) {
+        Task task = tasks[random.nextInt(TASK_COUNT)];
+        if (random.nextInt(100) < writePercent) {
+            LocalDate start = Workspace.FIRST_DAY.plusDays(random.nextInt(30));
+            task.reschedule(start, start.plusDays(random.nextInt(10)));
+            return start.toEpochDay();
+        }
+        return task.getEndDate().toEpochDay() - task.getStartDate().toEpochDay() + task.getStatus().ordinal();
+    }
+}
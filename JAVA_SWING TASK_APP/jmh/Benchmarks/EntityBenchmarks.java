@@ -0,0 +1,429 @@
+package Benchmarks;
+
+import Entities.IdGenerator;
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Notification;
+import Entities.NotificationType;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Entities.WorkOrder;
+import Entities.WorkspaceSnapshot;
+import Security.CredentialService;
+import Security.PasswordHasher;
+import Validation.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the core entities: construction of each type with its ID, the shared ID
+ * generator against the generators each class used to have, the list getters against
+ * the copies they used to return, rescheduling a task with and without an open
+ * {@link WorkspaceSnapshot}, the validating setters of users, the validation of a batch
+ * of users and the status translations.
+ * <p>
+ * Users are restored with an already encoded password, as when they are loaded, so that
+ * the construction is measured rather than the password hash, which has a benchmark of
+ * its own, as have logins with and without a recent verification.
+ * <p>
+ * Build with {@code mvn -P jmh package} and run for example
+ * {@code java -jar target/benchmarks.jar EntityBenchmarks -prof gc} for the allocations
+ * of each operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EntityBenchmarks {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 5);
+    private static final LocalDate END = LocalDate.of(2026, 2, 20);
+    private static final String PASSWORD = "Passw0rd@x";
+    private static final String ID_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int VALIDATED_USERS = 10_000;
+
+    private String encoded;
+    private Skill skill;
+    private Member member;
+    private Task task;
+    private Material material;
+    private Objective objective;
+    private Project project;
+    private User user;
+    private User loginUser;
+    private TaskStatus[] statuses;
+    private List<List<?>> taskLists;
+    private List<Objective> objectiveList;
+    private List<Task> taskList;
+    private List<Task> materialTasks;
+
+    /**
+     * Builds a task with one entity of every type around it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoded = PasswordHasher.getDefault().hash(PASSWORD);
+        skill = new Skill("Java", "Senior");
+        member = Member.restore(null, "member", encoded, "Member Name", "+33 6 12 34 56 78",
+                LocalDate.of(1990, 1, 1), "member@example.com", "Developer", Sex.FEMALE, skill);
+        task = new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), START,
+                List.of(member), new ArrayList<>(), END, TaskStatus.IN_PROGRESS);
+        material = new Material(List.of(task), "Laptop", "Hardware");
+        task.setMaterials(List.of(material));
+        task.setWorkOrders(List.of(new WorkOrder("Order", "Order the parts")));
+        task.setNotifications(List.of(new Notification(LocalDateTime.of(2026, 1, 4, 9, 0),
+                NotificationType.EMAIL, task, "Starts tomorrow")));
+        objective = new Objective(END, List.of(task), START, "Deliver the report");
+        project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        user = User.restore(null, "user", encoded, "User Name", "+33 6 12 34 56 78",
+                LocalDate.of(1990, 1, 1), "user@example.com", "Developer", Sex.MALE);
+        loginUser = User.restore(null, "login", encoded, "User Name", "+33 6 12 34 56 78",
+                LocalDate.of(1990, 1, 1), "login@example.com", "Developer", Sex.MALE);
+        statuses = TaskStatus.values();
+        taskLists = List.of(new ArrayList<>(task.getMaterials()), new ArrayList<>(task.getMembers()),
+                new ArrayList<>(task.getWorkOrders()), new ArrayList<>(task.getNotifications()));
+        objectiveList = new ArrayList<>(project.getObjectiveList());
+        taskList = new ArrayList<>(objective.getTaskList());
+        materialTasks = new ArrayList<>(material.getTasks());
+    }
+
+    /**
+     * A snapshot of the project, open while the task is rescheduled.
+     */
+    @State(Scope.Thread)
+    public static class SnapshotState {
+        WorkspaceSnapshot snapshot;
+
+        @Setup(Level.Trial)
+        public void setUp(EntityBenchmarks entities) {
+            snapshot = WorkspaceSnapshot.open(List.of(entities.project));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            snapshot.close();
+        }
+    }
+
+    /**
+     * A credential service keeping no verification, so that every login hashes.
+     */
+    @State(Scope.Thread)
+    public static class LoginState {
+        CredentialService credentials;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            credentials = new CredentialService(1, Duration.ZERO);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            credentials.close();
+        }
+    }
+
+    /**
+     * A credential service which has just verified the login user.
+     */
+    @State(Scope.Thread)
+    public static class CachedLoginState {
+        CredentialService credentials;
+
+        @Setup(Level.Trial)
+        public void setUp(EntityBenchmarks entities) {
+            credentials = new CredentialService(1, Duration.ofMinutes(5));
+            credentials.authenticate(entities.loginUser, PASSWORD).join();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            credentials.close();
+        }
+    }
+
+    /**
+     * A batch of valid users.
+     */
+    @State(Scope.Thread)
+    public static class UsersState {
+        List<User> users;
+
+        @Setup(Level.Trial)
+        public void setUp(EntityBenchmarks entities) {
+            users = new ArrayList<>(VALIDATED_USERS);
+            for (int i = 0; i < VALIDATED_USERS; i++) {
+                users.add(User.restore(null, "user" + i, entities.encoded, "User Name", "+33 6 12 34 56 78",
+                        LocalDate.of(1990, 1, 1), "user" + i + "@example.com", "Developer", Sex.MALE));
+            }
+        }
+    }
+
+    // IDs
+
+    @Benchmark
+    public String idNext() {
+        return IdGenerator.nextId(Task.class);
+    }
+
+    @Benchmark
+    public String idLegacyTask() {
+        return legacyTaskId();
+    }
+
+    @Benchmark
+    public String idLegacyObjective() {
+        return legacyObjectiveId();
+    }
+
+    @Benchmark
+    public String idLegacyMaterial() {
+        return legacyMaterialId();
+    }
+
+    // Construction
+
+    @Benchmark
+    public User newUser() {
+        return User.restore(null, "user", encoded, "User Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                "user@example.com", "Developer", Sex.MALE);
+    }
+
+    @Benchmark
+    public Member newMember() {
+        return Member.restore(null, "member", encoded, "Member Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                "member@example.com", "Developer", Sex.FEMALE, skill);
+    }
+
+    @Benchmark
+    public Manager newManager() {
+        return Manager.restore(null, "manager", encoded, "Manager Name", "+33 6 12 34 56 78",
+                LocalDate.of(1980, 1, 1), "manager@example.com", "Manager", Sex.MALE, skill,
+                new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Benchmark
+    public Project newProject() {
+        return new Project(null, null, END, List.of(objective), START, "Reporting");
+    }
+
+    @Benchmark
+    public Objective newObjective() {
+        return new Objective(END, List.of(task), START, "Deliver the report");
+    }
+
+    @Benchmark
+    public Task newTask() {
+        return new Task("Write the report", 2, List.of(material), List.of(), START, List.of(member), List.of(), END,
+                TaskStatus.TO_DO);
+    }
+
+    @Benchmark
+    public Material newMaterial() {
+        return new Material(List.of(task), "Laptop", "Hardware");
+    }
+
+    @Benchmark
+    public WorkOrder newWorkOrder() {
+        return new WorkOrder("Order", "Order the parts");
+    }
+
+    @Benchmark
+    public Notification newNotification() {
+        return new Notification(LocalDateTime.of(2026, 1, 4, 9, 0), NotificationType.EMAIL, task, "Starts tomorrow");
+    }
+
+    // List getters
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void getTaskLists(Blackhole blackhole) {
+        blackhole.consume(task.getMaterials());
+        blackhole.consume(task.getMembers());
+        blackhole.consume(task.getWorkOrders());
+        blackhole.consume(task.getNotifications());
+    }
+
+    @Benchmark
+    public List<Objective> getProjectObjectiveList() {
+        return project.getObjectiveList();
+    }
+
+    @Benchmark
+    public List<Task> getObjectiveTaskList() {
+        return objective.getTaskList();
+    }
+
+    @Benchmark
+    public List<Task> getMaterialTasks() {
+        return material.getTasks();
+    }
+
+    // List getters as they were, copying the lists of the entity: the allocation baseline
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void getTaskListsLegacy(Blackhole blackhole) {
+        for (List<?> list : taskLists) {
+            blackhole.consume(new ArrayList<>(list));
+        }
+    }
+
+    @Benchmark
+    public List<Objective> getProjectObjectiveListLegacy() {
+        return new ArrayList<>(objectiveList);
+    }
+
+    @Benchmark
+    public List<Task> getObjectiveTaskListLegacy() {
+        return new ArrayList<>(taskList);
+    }
+
+    @Benchmark
+    public List<Task> getMaterialTasksLegacy() {
+        return new ArrayList<>(materialTasks);
+    }
+
+    // Rescheduling
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Task taskReschedule() {
+        task.reschedule(START.plusDays(1), END.plusDays(1));
+        task.reschedule(START, END);
+        return task;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Object taskRescheduleSnapshot(SnapshotState state) {
+        task.reschedule(START.plusDays(1), END.plusDays(1));
+        task.reschedule(START, END);
+        return state.snapshot.get(task);
+    }
+
+    // Users
+
+    @Benchmark
+    public User userSetUsername() {
+        user.setUsername("user.name");
+        return user;
+    }
+
+    @Benchmark
+    public User userSetFullName() {
+        user.setFullName("User Full Name");
+        return user;
+    }
+
+    @Benchmark
+    public User userSetPhoneNumber() {
+        user.setPhoneNumber("+33 6 12 34 56 78");
+        return user;
+    }
+
+    @Benchmark
+    public User userSetEmail() {
+        user.setEmail("user.name@example.com");
+        return user;
+    }
+
+    @Benchmark
+    public String userSetPassword() {
+        user.setPassword(PASSWORD);
+        return user.getPassword();
+    }
+
+    @Benchmark
+    public Object userLogin(LoginState state) {
+        return state.credentials.authenticate(loginUser, PASSWORD).join();
+    }
+
+    @Benchmark
+    public Object userLoginCached(CachedLoginState state) {
+        return state.credentials.authenticate(loginUser, PASSWORD).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALIDATED_USERS)
+    public int userValidateAll(UsersState state) {
+        return UserValidator.DEFAULT.validateAll(state.users).size();
+    }
+
+    /**
+     * Translates every status; the score covers all of them.
+     */
+    @Benchmark
+    public void statusGetInFrench(Blackhole blackhole) {
+        for (TaskStatus status : statuses) {
+            blackhole.consume(status.getInFrench());
+        }
+    }
+
+    /**
+     * Generates an ID as Task did before the shared generator: ten random characters
+     * drawn from a new Random.
+     */
+    static String legacyTaskId() {
+        Random random = new Random();
+        StringBuilder generatedId = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            generatedId.append(ID_CHARACTERS.charAt(random.nextInt(ID_CHARACTERS.length())));
+        }
+        return generatedId.toString();
+    }
+
+    /**
+     * Generates an ID as Objective did before the shared generator: four random characters
+     * in an array.
+     */
+    private static String legacyObjectiveId() {
+        Random random = new Random();
+        char[] generatedId = new char[4];
+        for (int i = 0; i < generatedId.length; i++) {
+            generatedId[i] = ID_CHARACTERS.charAt(random.nextInt(ID_CHARACTERS.length()));
+        }
+        return new String(generatedId);
+    }
+
+    /**
+     * Generates an ID as Material did before the shared generator: four random characters
+     * appended by string concatenation.
+     */
+    private static String legacyMaterialId() {
+        Random random = new Random();
+        String generatedId = "";
+        for (int i = 0; i < 4; i++) {
+            generatedId += ID_CHARACTERS.charAt(random.nextInt(ID_CHARACTERS.length()));
+        }
+        return generatedId;
+    }
+}
@@ -0,0 +1,253 @@
+package Benchmarks;
+
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Server.WorkspaceClient;
+import Server.WorkspaceServer;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of the {@link WorkspaceServer} on localhost: simulated clients send requests
+ * as fast as the server answers them, keeping a few in flight each, and the throughput
+ * and latency percentiles are reported.
+ * <p>
+ * Options, all optional:
+ * <ul>
+ *     <li>{@code -clients <count>}: simulated clients, 200 by default;</li>
+ *     <li>{@code -pipeline <count>}: requests in flight per client, 4 by default;</li>
+ *     <li>{@code -writes <percent>}: share of status changes and reschedules, the others
+ *     being pings, 20 by default;</li>
+ *     <li>{@code -subscribers <count>}: clients receiving the pushed changes, 20 by default;</li>
+ *     <li>{@code -tasks <count>}: size of the hosted workspace, 10000 by default;</li>
+ *     <li>{@code -warmup <seconds>} and {@code -seconds <seconds>}: durations of the
+ *     warmup and of the measurement, 3 and 10 by default.</li>
+ * </ul>
+ * The latency of a request is measured by its client, from the call to the completion
+ * of its future, for the requests made during the measurement. The test is built with the
+ * benchmarks, by {@code mvn -P jmh package}, and runs with
+ * {@code java -cp target/benchmarks.jar Benchmarks.ServerLoadTest}.
+ */
+public final class ServerLoadTest {
+
+    private ServerLoadTest() {
+    }
+
+    /**
+     * The driver of a simulated client and the latencies it measured.
+     */
+    private static final class SimulatedClient {
+        final WorkspaceClient client;
+        final Semaphore inFlight;
+        final SplittableRandom random;
+        long[] latencies = new long[1024];
+        int count;
+        long errors;
+
+        SimulatedClient(WorkspaceClient client, int pipeline, long seed) {
+            this.client = client;
+            this.inFlight = new Semaphore(pipeline);
+            this.random = new SplittableRandom(seed);
+        }
+
+        /**
+         * Records a latency. Called by the single thread of the client completing its
+         * requests.
+         */
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    /**
+     * Runs the load test and prints its results.
+     *
+     * @param args The options.
+     * @throws Exception if the server cannot be started or a client cannot connect.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int clientCount = 200;
+        int pipeline = 4;
+        int writePercent = 20;
+        int subscriberCount = 20;
+        int taskCount = 10_000;
+        int warmupSeconds = 3;
+        int seconds = 10;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + option);
+                return;
+            }
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "-clients":
+                        clientCount = Integer.parseInt(value);
+                        break;
+                    case "-pipeline":
+                        pipeline = Integer.parseInt(value);
+                        break;
+                    case "-writes":
+                        writePercent = Integer.parseInt(value);
+                        break;
+                    case "-subscribers":
+                        subscriberCount = Integer.parseInt(value);
+                        break;
+                    case "-tasks":
+                        taskCount = Integer.parseInt(value);
+                        break;
+                    case "-warmup":
+                        warmupSeconds = Integer.parseInt(value);
+                        break;
+                    case "-seconds":
+                        seconds = Integer.parseInt(value);
+                        break;
+                    default:
+                        usage("Unknown option " + option);
+                        return;
+                }
+            } catch (NumberFormatException e) {
+                usage("Invalid value for " + option + ": " + value);
+                return;
+            }
+        }
+
+        Workspace workspace = new Workspace(taskCount, Math.max(10, taskCount / 50), 1);
+        List<User> users = new ArrayList<>(workspace.members);
+        users.add(workspace.manager);
+        List<Task> tasks = workspace.tasks;
+        try (WorkspaceServer server = new WorkspaceServer(users, workspace.projects)) {
+            InetSocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            LongAdder pushes = new LongAdder();
+            List<SimulatedClient> clients = new ArrayList<>();
+            for (int i = 0; i < clientCount; i++) {
+                SimulatedClient simulated = new SimulatedClient(WorkspaceClient.connect(address), pipeline, i);
+                simulated.client.login(workspace.manager.getUsername(), Workspace.PASSWORD).join();
+                if (i < subscriberCount) {
+                    simulated.client.subscribe(change -> pushes.increment()).join();
+                }
+                clients.add(simulated);
+            }
+            System.out.printf(Locale.ROOT, "%d clients connected to %s:%d, %d tasks, %d requests in flight each%n",
+                    clientCount, address.getHostString(), address.getPort(), tasks.size(), pipeline);
+
+            long measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+            long measureTo = measureFrom + seconds * 1_000_000_000L;
+            List<Thread> drivers = new ArrayList<>();
+            for (int i = 0; i < clientCount; i++) {
+                SimulatedClient simulated = clients.get(i);
+                int writes = writePercent;
+                Thread driver = new Thread(() -> drive(simulated, tasks, writes, measureFrom, measureTo),
+                        "load-client-" + (i + 1));
+                driver.setDaemon(true);
+                driver.start();
+                drivers.add(driver);
+            }
+            Thread.sleep(Math.max(0, (measureFrom - System.nanoTime()) / 1_000_000));
+            long pushesBefore = pushes.sum();
+            long requestsBefore = server.getRequestCount();
+            for (Thread driver : drivers) {
+                driver.join();
+            }
+            long requests = server.getRequestCount() - requestsBefore;
+            report(clients, seconds, requests, pushes.sum() - pushesBefore);
+            for (SimulatedClient simulated : clients) {
+                simulated.client.close();
+            }
+        }
+    }
+
+    /**
+     * Sends requests until the end of the measurement, keeping the pipeline full, then
+     * waits for the last responses.
+     */
+    private static void drive(SimulatedClient simulated, List<Task> tasks, int writePercent,
+                              long measureFrom, long measureTo) {
+        TaskStatus[] statuses = TaskStatus.values();
+        int pipeline = simulated.inFlight.availablePermits();
+        try {
+            while (System.nanoTime() < measureTo) {
+                simulated.inFlight.acquire();
+                long start = System.nanoTime();
+                CompletableFuture<Void> response;
+                int operation = simulated.random.nextInt(100);
+                if (operation >= writePercent) {
+                    response = simulated.client.ping();
+                } else {
+                    String taskId = tasks.get(simulated.random.nextInt(tasks.size())).getId();
+                    if (operation % 2 == 0) {
+                        response = simulated.client.setStatus(taskId, statuses[simulated.random.nextInt(statuses.length)]);
+                    } else {
+                        LocalDate startDate = Workspace.FIRST_DAY.plusDays(simulated.random.nextInt(300));
+                        response = simulated.client.reschedule(taskId, startDate,
+                                startDate.plusDays(simulated.random.nextInt(30)));
+                    }
+                }
+                response.whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        simulated.errors++;
+                    } else if (start >= measureFrom && start < measureTo) {
+                        simulated.record(System.nanoTime() - start);
+                    }
+                    simulated.inFlight.release();
+                });
+            }
+            simulated.inFlight.acquire(pipeline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void report(List<SimulatedClient> clients, int seconds, long serverRequests, long pushes) {
+        int total = 0;
+        long errors = 0;
+        for (SimulatedClient simulated : clients) {
+            total += simulated.count;
+            errors += simulated.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (SimulatedClient simulated : clients) {
+            System.arraycopy(simulated.latencies, 0, latencies, offset, simulated.count);
+            offset += simulated.count;
+        }
+        Arrays.sort(latencies);
+        System.out.printf(Locale.ROOT, "%,d requests in %d s: %,.0f requests/s (server: %,.0f requests/s), %d errors%n",
+                total, seconds, total / (double) seconds, serverRequests / (double) seconds, errors);
+        System.out.printf(Locale.ROOT, "latency p50 %s, p90 %s, p99 %s, p99.9 %s, max %s%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1));
+        System.out.printf(Locale.ROOT, "%,d changes pushed to the subscribers%n", pushes);
+    }
+
+    private static String percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return String.format(Locale.ROOT, "%.2f ms", sorted[Math.max(0, index)] / 1e6);
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: ServerLoadTest [-clients count] [-pipeline count] [-writes percent]"
+                + " [-subscribers count] [-tasks count] [-warmup seconds] [-seconds seconds]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,131 @@
+package Benchmarks;
+
+import Entities.Project;
+import UI.TaskTableModel;
+
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * A task table painted off screen through the clip of a viewport, as a scrolled window
+ * would paint it, to time scrolling and repainting without a display.
+ * <p>
+ * Only the visible rows are rendered, as in a {@link javax.swing.JScrollPane}. Models and
+ * painting are used on the event dispatch thread only; the benchmark thread waits for it.
+ */
+final class TableViewport implements AutoCloseable {
+
+    private static final int WIDTH = 1024;
+    private static final int VISIBLE_ROWS = 40;
+
+    private final TaskTableModel model;
+    private final JTable table;
+    private final BufferedImage image;
+    private final int rowCount;
+
+    private TableViewport(TaskTableModel model, JTable table, int rowCount) {
+        this.model = model;
+        this.table = table;
+        this.rowCount = rowCount;
+        this.image = new BufferedImage(WIDTH, VISIBLE_ROWS * table.getRowHeight(), BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Creates the table of the tasks of a list of projects and waits until its rows are
+     * counted.
+     *
+     * @param projects The projects whose tasks are shown.
+     * @return The viewport, scrolled to the top.
+     * @throws Exception if the event dispatch thread fails.
+     */
+    static TableViewport open(List<Project> projects) throws Exception {
+        TaskTableModel[] model = new TaskTableModel[1];
+        SwingUtilities.invokeAndWait(() -> model[0] = new TaskTableModel(projects));
+        int[] rowCount = new int[1];
+        while (rowCount[0] == 0) {
+            SwingUtilities.invokeAndWait(() -> rowCount[0] = model[0].getRowCount());
+        }
+        JTable[] table = new JTable[1];
+        SwingUtilities.invokeAndWait(() -> {
+            table[0] = new JTable(model[0]);
+            table[0].setSize(WIDTH, table[0].getRowHeight() * rowCount[0]);
+            table[0].doLayout();
+        });
+        return new TableViewport(model[0], table[0], rowCount[0]);
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Scrolls the viewport and paints the frame the user would see first, where the rows
+     * of pages not fetched yet are empty.
+     *
+     * @param firstRow The first visible row.
+     * @return The number of visible rows still being fetched.
+     * @throws Exception if the event dispatch thread fails.
+     */
+    int scroll(int firstRow) throws Exception {
+        int first = clamp(firstRow);
+        int[] missing = new int[1];
+        SwingUtilities.invokeAndWait(() -> missing[0] = paint(first));
+        return missing[0];
+    }
+
+    /**
+     * Scrolls the viewport and waits until every visible row is fetched and painted.
+     *
+     * @param firstRow The first visible row.
+     * @return The pixel painted at the top left of the last frame.
+     * @throws Exception if the event dispatch thread fails.
+     */
+    int scrollUntilLoaded(int firstRow) throws Exception {
+        int first = clamp(firstRow);
+        int[] missing = new int[1];
+        SwingUtilities.invokeAndWait(() -> missing[0] = paint(first));
+        while (missing[0] > 0) {
+            SwingUtilities.invokeAndWait(() -> missing[0] = missingRows(first));
+        }
+        SwingUtilities.invokeAndWait(() -> paint(first));
+        return image.getRGB(0, 0);
+    }
+
+    /**
+     * Stops the thread fetching the pages of the table.
+     */
+    @Override
+    public void close() {
+        model.close();
+    }
+
+    private int clamp(int firstRow) {
+        return Math.max(0, Math.min(firstRow, rowCount - VISIBLE_ROWS));
+    }
+
+    private int paint(int first) {
+        int rowHeight = table.getRowHeight();
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.translate(0, -first * rowHeight);
+            graphics.setClip(0, first * rowHeight, WIDTH, VISIBLE_ROWS * rowHeight);
+            table.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return missingRows(first);
+    }
+
+    private int missingRows(int first) {
+        int missing = 0;
+        for (int row = first; row < Math.min(rowCount, first + VISIBLE_ROWS); row++) {
+            if (model.getRow(row) == null) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,691 @@
+package Benchmarks;
+
+import Entities.DateRange;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Export.CsvExporter;
+import Export.ICalendarExporter;
+import Export.JsonExporter;
+import Import.BulkImporter;
+import Import.ImportFormat;
+import Import.ImportKind;
+import Import.ImportSource;
+import Notifications.ReminderPolicy;
+import Notifications.ReminderScheduler;
+import Persistence.EntityStore;
+import Persistence.GraphSerializer;
+import Persistence.MutationJournal;
+import Repositories.TaskRepository;
+import Repositories.TaskTable;
+import Scheduling.Progress;
+import Scheduling.ProgressRollup;
+import Scheduling.ResourceLeveler;
+import Search.SearchHit;
+import Search.SearchIndex;
+import Sync.SyncLog;
+import Sync.SyncReplica;
+import UI.TaskRowSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks of the services working on a whole workspace: leveling, table scrolling and
+ * repainting, search, dashboard counts, progress roll-up, reminders, import, export,
+ * snapshots, journaling and sync.
+ * <p>
+ * The durable edits of {@code journalCommit} and {@code journalGroupCommit} compare with
+ * {@code journalRewrite}, which persists a change by rewriting the whole store: edits
+ * per second are the inverse of their times per operation.
+ * <p>
+ * At scale 1 the workspace holds 100k tasks shared by 2k members. The sizes targeted by
+ * the services are reached with larger scales: 5 for leveling 500k tasks among 10k
+ * members, 10 for importing 1M rows and 18 for searching 2M documents, which need a heap
+ * of several gigabytes, for example
+ * {@code java -jar target/benchmarks.jar WorkloadBenchmarks.importTasks -p scale=10 -jvmArgsAppend -Xmx8g}.
+ * <p>
+ * Each benchmark only sets up the fixtures it takes as parameters. The fixtures are
+ * shared by the benchmark threads; the benchmarks are meant to run on one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class WorkloadBenchmarks {
+
+    private static final int TASKS_PER_SCALE = 100_000;
+    private static final int MEMBERS_PER_SCALE = 2_000;
+    private static final int PAGE_SIZE = 40;
+    private static final int CHANGES_PER_SYNC = 100;
+    private static final int EDITS_PER_COMMIT = 100;
+    private static final int PLAINTEXT_USERS = 64;
+
+    /**
+     * The generated workspace the other fixtures work on.
+     */
+    @State(Scope.Benchmark)
+    public static class WorkspaceState {
+        @Param("1")
+        public double scale;
+
+        Workspace workspace;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int memberCount = Math.max(PLAINTEXT_USERS, (int) Math.round(MEMBERS_PER_SCALE * scale));
+            workspace = new Workspace((int) Math.round(TASKS_PER_SCALE * scale), memberCount, 42);
+        }
+
+        List<User> users() {
+            List<User> users = new ArrayList<>();
+            users.add(workspace.manager);
+            users.addAll(workspace.members);
+            return users;
+        }
+    }
+
+    /**
+     * The rows of the task table.
+     */
+    @State(Scope.Benchmark)
+    public static class RowSourceState {
+        TaskRowSource rows;
+        int size;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) {
+            rows = new TaskRowSource(state.workspace.projects);
+            size = rows.size();
+            random = new Random(1);
+        }
+    }
+
+    /**
+     * The task table painted off screen.
+     */
+    @State(Scope.Benchmark)
+    public static class ViewportState {
+        TableViewport viewport;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) throws Exception {
+            viewport = TableViewport.open(state.workspace.projects);
+            random = new Random(6);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            viewport.close();
+        }
+    }
+
+    /**
+     * The search index of every project.
+     */
+    @State(Scope.Benchmark)
+    public static class SearchState {
+        SearchIndex index;
+        List<Objective> objectives;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) {
+            index = new SearchIndex();
+            objectives = new ArrayList<>();
+            for (Project project : state.workspace.projects) {
+                objectives.addAll(project.getObjectiveList());
+            }
+            index.addAll(state.workspace.projects);
+            random = new Random(2);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            index.close();
+        }
+    }
+
+    /**
+     * The columns of every task.
+     */
+    @State(Scope.Benchmark)
+    public static class TaskTableState {
+        TaskTable table;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) {
+            table = new TaskTable(state.workspace.tasks);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            table.close();
+        }
+    }
+
+    /**
+     * The repository of every task.
+     */
+    @State(Scope.Benchmark)
+    public static class RepositoryState {
+        TaskRepository repository;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) {
+            repository = new TaskRepository();
+            repository.addAll(state.workspace.projects);
+            random = new Random(6);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            repository.close();
+        }
+    }
+
+    /**
+     * The progress of every project.
+     */
+    @State(Scope.Benchmark)
+    public static class RollupState {
+        ProgressRollup rollup;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) {
+            rollup = new ProgressRollup();
+            for (Project project : state.workspace.projects) {
+                rollup.addProject(project);
+            }
+            random = new Random(4);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            rollup.close();
+        }
+    }
+
+    /**
+     * The reminders of every task, sent nowhere.
+     */
+    @State(Scope.Benchmark)
+    public static class ReminderState {
+        ReminderScheduler scheduler;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) {
+            scheduler = new ReminderScheduler(ReminderPolicy.DEFAULT, notification -> { }, Clock.systemDefaultZone());
+            for (Project project : state.workspace.projects) {
+                scheduler.addProject(project);
+            }
+            random = new Random(5);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scheduler.close();
+        }
+    }
+
+    /**
+     * The files to import: the projects, objectives and tasks of the workspace, the
+     * members with their encoded hashes, and a few members with plaintext passwords.
+     */
+    @State(Scope.Benchmark)
+    public static class ImportState {
+        Path directory;
+        List<ImportSource> tasks;
+        List<ImportSource> encodedUsers;
+        List<ImportSource> plaintextUsers;
+        BulkImporter importer;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) throws IOException {
+            directory = Files.createTempDirectory("import-benchmark");
+            tasks = writeImportFiles(directory, state.workspace.projects);
+            List<Member> members = state.workspace.members;
+            encodedUsers = writeUserFile(directory.resolve("users.csv"), members, false);
+            plaintextUsers = writeUserFile(directory.resolve("plaintext-users.csv"),
+                    members.subList(0, PLAINTEXT_USERS), true);
+            importer = new BulkImporter(null);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            deleteTree(directory);
+        }
+    }
+
+    /**
+     * The workspace written to an entity store and opened again.
+     */
+    @State(Scope.Benchmark)
+    public static class StoreState {
+        Path directory;
+        EntityStore store;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) throws IOException {
+            directory = Files.createTempDirectory("export-benchmark");
+            EntityStore.write(directory, state.users(), state.workspace.projects);
+            store = EntityStore.open(directory);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            deleteTree(directory);
+        }
+    }
+
+    /**
+     * A journal starting from a snapshot of the workspace, so that it only records the
+     * edits.
+     */
+    @State(Scope.Benchmark)
+    public static class JournalState {
+        Path directory;
+        MutationJournal journal;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) throws IOException {
+            directory = Files.createTempDirectory("journal-benchmark");
+            journal = MutationJournal.open(directory);
+            journal.compact(state.users(), state.workspace.projects);
+            random = new Random(42);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                journal.close();
+            } finally {
+                deleteTree(directory);
+            }
+        }
+    }
+
+    /**
+     * A directory where the whole store is rewritten.
+     */
+    @State(Scope.Benchmark)
+    public static class RewriteState {
+        Path directory;
+        List<User> users;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) throws IOException {
+            directory = Files.createTempDirectory("rewrite-benchmark");
+            users = state.users();
+            random = new Random(42);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            deleteTree(directory);
+        }
+    }
+
+    /**
+     * A replica of the workspace following its sync log.
+     */
+    @State(Scope.Benchmark)
+    public static class SyncState {
+        SyncLog log;
+        SyncReplica replica;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setUp(WorkspaceState state) throws IOException {
+            List<Project> projects = state.workspace.projects;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            GraphSerializer.write(new ArrayList<>(projects), bytes);
+            log = new SyncLog("server", Collections.emptyList(), projects);
+            replica = new SyncReplica("desktop", GraphSerializer.read(new ByteArrayInputStream(bytes.toByteArray())),
+                    log.getSequence());
+            random = new Random(42);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            replica.close();
+            log.close();
+        }
+    }
+
+    // Leveling and table
+
+    @Benchmark
+    public int level(WorkspaceState state) {
+        return new ResourceLeveler().level(state.workspace.tasks).getConflicts().size();
+    }
+
+    @Benchmark
+    public List<Task> tableScroll(RowSourceState state) {
+        return state.rows.fetch(state.random.nextInt(Math.max(1, state.size - PAGE_SIZE)), PAGE_SIZE);
+    }
+
+    /**
+     * Time from a jump of the scroll bar to the first frame, which the user sees at once.
+     */
+    @Benchmark
+    public int tableRepaint(ViewportState state) throws Exception {
+        return state.viewport.scroll(state.random.nextInt(state.viewport.getRowCount()));
+    }
+
+    /**
+     * Time from a jump of the scroll bar to the frame showing every visible row.
+     */
+    @Benchmark
+    public int tableScrollLoaded(ViewportState state) throws Exception {
+        return state.viewport.scrollUntilLoaded(state.random.nextInt(state.viewport.getRowCount()));
+    }
+
+    // Search
+
+    @Benchmark
+    public List<SearchHit> searchWords(SearchState state) {
+        return state.index.search(Workspace.word(state.random.nextInt()) + " "
+                + Workspace.word(state.random.nextInt()) + " ", 20);
+    }
+
+    @Benchmark
+    public List<SearchHit> searchPrefix(SearchState state) {
+        return state.index.search(Workspace.word(state.random.nextInt()).substring(0, 4), 20);
+    }
+
+    /**
+     * A task moved to another objective: two list changes followed by the index.
+     */
+    @Benchmark
+    public int searchMove(SearchState state) {
+        List<Objective> objectives = state.objectives;
+        Objective from = objectives.get(state.random.nextInt(objectives.size()));
+        Objective to = objectives.get(state.random.nextInt(objectives.size()));
+        List<Task> tasks = new ArrayList<>(from.getTaskList());
+        if (tasks.isEmpty() || from == to) {
+            return state.index.size();
+        }
+        Task task = tasks.remove(state.random.nextInt(tasks.size()));
+        from.setTaskList(tasks);
+        List<Task> moved = new ArrayList<>(to.getTaskList());
+        moved.add(task);
+        to.setTaskList(moved);
+        return state.index.size();
+    }
+
+    // Dashboard counts and repository
+
+    @Benchmark
+    public int overdueObjects(WorkspaceState state) {
+        int count = 0;
+        for (Task task : state.workspace.tasks) {
+            TaskStatus status = task.getStatus();
+            if (task.getEndDate() != null && task.getEndDate().isBefore(Workspace.TODAY)
+                    && status != TaskStatus.DONE && status != TaskStatus.CANCELED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int overdueTaskTable(TaskTableState state) {
+        return state.table.countOverdue(Workspace.TODAY);
+    }
+
+    @Benchmark
+    public long overdueRepository(RepositoryState state) {
+        return state.repository.query().overdueOn(Workspace.TODAY).count();
+    }
+
+    @Benchmark
+    public long repositoryActiveWeek(RepositoryState state) {
+        LocalDate monday = Workspace.TODAY.minusDays(Workspace.TODAY.getDayOfWeek().getValue() - 1);
+        return state.repository.query().activeBetween(monday, monday.plusDays(6)).count();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Task repositoryReschedule(WorkspaceState workspace, RepositoryState state) {
+        List<Task> tasks = workspace.workspace.tasks;
+        Task task = tasks.get(state.random.nextInt(tasks.size()));
+        DateRange dates = task.getDates();
+        task.reschedule(dates.getStartDate().plusDays(7), dates.getEndDate().plusDays(7));
+        task.reschedule(dates.getStartDate(), dates.getEndDate());
+        return task;
+    }
+
+    // Roll-up and reminders
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Task rollupStatusChange(WorkspaceState workspace, RollupState state) {
+        List<Task> tasks = workspace.workspace.tasks;
+        Task task = tasks.get(state.random.nextInt(tasks.size()));
+        TaskStatus status = task.getStatus();
+        task.setStatus(status == TaskStatus.DONE ? TaskStatus.IN_PROGRESS : TaskStatus.DONE);
+        task.setStatus(status);
+        return task;
+    }
+
+    @Benchmark
+    public Progress rollupProjectProgress(WorkspaceState workspace, RollupState state) {
+        List<Project> projects = workspace.workspace.projects;
+        return state.rollup.getProgress(projects.get(state.random.nextInt(projects.size())));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Task remindersReschedule(WorkspaceState workspace, ReminderState state) {
+        List<Task> tasks = workspace.workspace.tasks;
+        Task task = tasks.get(state.random.nextInt(tasks.size()));
+        LocalDate endDate = task.getEndDate();
+        task.setEndDate(endDate.plusDays(1));
+        task.setEndDate(endDate);
+        return task;
+    }
+
+    // Import and export
+
+    @Benchmark
+    public int importTasks(ImportState state) throws IOException {
+        return state.importer.run(state.tasks).getImportedCount(ImportKind.TASKS);
+    }
+
+    /**
+     * Imports every member of the workspace; the score covers the whole file.
+     */
+    @Benchmark
+    public int importUsersEncoded(ImportState state) throws IOException {
+        return state.importer.run(state.encodedUsers).getImportedCount(ImportKind.USERS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PLAINTEXT_USERS)
+    public int importUsersPlaintext(ImportState state) throws IOException {
+        return state.importer.run(state.plaintextUsers).getImportedCount(ImportKind.USERS);
+    }
+
+    @Benchmark
+    public int exportCsv(WorkspaceState state) throws IOException {
+        return new CsvExporter().export(state.workspace.projects, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int exportJson(WorkspaceState state) throws IOException {
+        return new JsonExporter().export(state.workspace.projects, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int exportIcalendar(WorkspaceState state) throws IOException {
+        return new ICalendarExporter().export(state.workspace.projects, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int exportCsvStore(StoreState state) throws IOException {
+        return new CsvExporter().export(state.store.scanProjects(), OutputStream.nullOutputStream());
+    }
+
+    // Snapshots, journaling and sync
+
+    @Benchmark
+    public int snapshotWrite(WorkspaceState state) throws IOException {
+        return GraphSerializer.write(state.workspace.projects, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Task journalCommit(WorkspaceState workspace, JournalState state) throws IOException {
+        return journaledEdits(workspace.workspace.tasks, state, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDITS_PER_COMMIT)
+    public Task journalGroupCommit(WorkspaceState workspace, JournalState state) throws IOException {
+        return journaledEdits(workspace.workspace.tasks, state, EDITS_PER_COMMIT);
+    }
+
+    @Benchmark
+    public Task journalRewrite(WorkspaceState workspace, RewriteState state) throws IOException {
+        List<Task> tasks = workspace.workspace.tasks;
+        Task task = tasks.get(state.random.nextInt(tasks.size()));
+        task.setPriority(task.getPriority() % 5 + 1);
+        EntityStore.write(state.directory, state.users, workspace.workspace.projects);
+        return task;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHANGES_PER_SYNC)
+    public int syncDelta(WorkspaceState workspace, SyncState state) {
+        List<Task> tasks = workspace.workspace.tasks;
+        for (int i = 0; i < CHANGES_PER_SYNC; i++) {
+            Task task = tasks.get(state.random.nextInt(tasks.size()));
+            task.setPriority(task.getPriority() % 5 + 1);
+        }
+        return state.replica.apply(state.log.changesSince(state.replica.getCursor()));
+    }
+
+    /**
+     * Edits random tasks, then waits until the journal has synced them.
+     */
+    private static Task journaledEdits(List<Task> tasks, JournalState state, int editsPerCommit) throws IOException {
+        Task task = null;
+        for (int i = 0; i < editsPerCommit; i++) {
+            task = tasks.get(state.random.nextInt(tasks.size()));
+            task.setPriority(task.getPriority() % 5 + 1);
+        }
+        state.journal.commit();
+        return task;
+    }
+
+    /**
+     * Writes members to a user file, with their encoded hashes or with the plaintext
+     * password they were created with.
+     */
+    private static List<ImportSource> writeUserFile(Path userFile, List<Member> members, boolean plaintext)
+            throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(userFile, StandardCharsets.UTF_8)) {
+            out.write("id,type,username,password,fullName,phoneNumber,birthDay,email,role,sex\n");
+            for (int i = 0; i < members.size(); i++) {
+                Member member = members.get(i);
+                out.write("U" + i + ",MEMBER," + member.getUsername() + ","
+                        + (plaintext ? Workspace.PASSWORD : member.getPassword()) + "," + member.getFullName() + ","
+                        + member.getPhoneNumber() + "," + member.getBirthDay() + "," + member.getEmail() + ","
+                        + member.getRole() + "," + member.getSex() + "\n");
+            }
+        }
+        return List.of(new ImportSource(userFile, ImportKind.USERS, ImportFormat.CSV));
+    }
+
+    /**
+     * Writes the projects, objectives and tasks of a workspace as CSV files to import,
+     * with new IDs so that the imported entities do not collide with the workspace.
+     */
+    private static List<ImportSource> writeImportFiles(Path directory, List<Project> projects) throws IOException {
+        Path projectFile = directory.resolve("projects.csv");
+        Path objectiveFile = directory.resolve("objectives.csv");
+        Path taskFile = directory.resolve("tasks.csv");
+        int count = 0;
+        try (BufferedWriter projectOut = Files.newBufferedWriter(projectFile, StandardCharsets.UTF_8);
+             BufferedWriter objectiveOut = Files.newBufferedWriter(objectiveFile, StandardCharsets.UTF_8);
+             BufferedWriter taskOut = Files.newBufferedWriter(taskFile, StandardCharsets.UTF_8)) {
+            projectOut.write("id,description,startDate,endDate\n");
+            objectiveOut.write("id,project,description,startDate,endDate\n");
+            taskOut.write("id,objective,description,priority,status,startDate,endDate\n");
+            for (Project project : projects) {
+                String projectId = "P" + count++;
+                projectOut.write(projectId + "," + project.getDescription() + "," + project.getStartDate()
+                        + "," + project.getEndDate() + "\n");
+                for (Objective objective : project.getObjectiveList()) {
+                    String objectiveId = "O" + count++;
+                    objectiveOut.write(objectiveId + "," + projectId + "," + objective.getDescription() + ","
+                            + objective.getStartDate() + "," + objective.getEndDate() + "\n");
+                    for (Task task : objective.getTaskList()) {
+                        taskOut.write("T" + count++ + "," + objectiveId + "," + task.getDescription() + ","
+                                + task.getPriority() + "," + task.getStatus().getDescription() + ","
+                                + task.getStartDate() + "," + task.getEndDate() + "\n");
+                    }
+                }
+            }
+        }
+        List<ImportSource> sources = new ArrayList<>();
+        sources.add(new ImportSource(projectFile, ImportKind.PROJECTS, ImportFormat.CSV));
+        sources.add(new ImportSource(objectiveFile, ImportKind.OBJECTIVES, ImportFormat.CSV));
+        sources.add(new ImportSource(taskFile, ImportKind.TASKS, ImportFormat.CSV));
+        return sources;
+    }
+
+    private static void deleteTree(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            List<Path> sorted = new ArrayList<>();
+            paths.forEach(sorted::add);
+            sorted.sort(Comparator.reverseOrder());
+            for (Path path : sorted) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package Benchmarks;
+
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.WorkOrder;
+import Security.PasswordHasher;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A generated workspace of the size of a large installation: projects of 10 objectives of
+ * 50 tasks, each task assigned to one member, using one material in four and holding one
+ * work order in ten, over a year of dates. The generation is seeded, so runs compare.
+ */
+final class Workspace {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+    static final LocalDate TODAY = FIRST_DAY.plusDays(180);
+    static final String PASSWORD = "Passw0rd@x";
+
+    private static final int OBJECTIVES_PER_PROJECT = 10;
+    private static final int TASKS_PER_OBJECTIVE = 50;
+    private static final String[] WORDS = {
+        "prepare", "quarterly", "budget", "review", "deploy", "server", "migration", "update",
+        "customer", "onboarding", "security", "audit", "design", "mockups", "database", "backup",
+        "release", "notes", "training", "session", "invoice", "supplier", "network", "upgrade",
+        "marketing", "campaign", "report", "analysis", "hiring", "interviews", "warehouse", "inventory"
+    };
+
+    final Manager manager;
+    final List<Member> members = new ArrayList<>();
+    final List<Material> materials = new ArrayList<>();
+    final List<Project> projects = new ArrayList<>();
+    final List<Task> tasks = new ArrayList<>();
+
+    /**
+     * Generates a workspace.
+     *
+     * @param taskCount   The approximate number of tasks, rounded to whole objectives.
+     * @param memberCount The number of members sharing the tasks.
+     * @param seed        The seed of the generation.
+     */
+    Workspace(int taskCount, int memberCount, long seed) {
+        Random random = new Random(seed);
+        String password = PasswordHasher.getDefault().hash(PASSWORD);
+        Skill skill = new Skill("Java", "Senior");
+        manager = Manager.restore(null, "manager", password, "Manager Name", "+33 6 12 34 56 78",
+                LocalDate.of(1980, 1, 1), "manager@example.com", "Manager", Sex.MALE, skill,
+                new ArrayList<>(), new ArrayList<>());
+        for (int i = 0; i < memberCount; i++) {
+            members.add(Member.restore(null, "member" + i, password, "Member " + i, "+33 6 12 34 56 78",
+                    LocalDate.of(1990, 1, 1), "member" + i + "@example.com", "Developer",
+                    i % 2 == 0 ? Sex.FEMALE : Sex.MALE, skill));
+        }
+        for (int i = 0; i < Math.max(1, memberCount / 10); i++) {
+            materials.add(new Material(List.of(), WORDS[i % WORDS.length] + " kit " + i, "Hardware"));
+        }
+        Map<Member, List<Task>> tasksByMember = new IdentityHashMap<>();
+        Map<Material, List<Task>> tasksByMaterial = new IdentityHashMap<>();
+        TaskStatus[] statuses = TaskStatus.values();
+        int objectiveCount = Math.max(1, taskCount / TASKS_PER_OBJECTIVE);
+        List<Objective> objectives = new ArrayList<>();
+        for (int o = 0; o < objectiveCount; o++) {
+            List<Task> objectiveTasks = new ArrayList<>(TASKS_PER_OBJECTIVE);
+            for (int t = 0; t < TASKS_PER_OBJECTIVE; t++) {
+                LocalDate start = FIRST_DAY.plusDays(random.nextInt(365));
+                Member member = members.get(random.nextInt(members.size()));
+                List<Material> taskMaterials = new ArrayList<>();
+                if (random.nextInt(4) == 0) {
+                    Material material = materials.get(random.nextInt(materials.size()));
+                    taskMaterials.add(material);
+                }
+                List<WorkOrder> workOrders = new ArrayList<>();
+                if (random.nextInt(10) == 0) {
+                    workOrders.add(new WorkOrder("Order " + words(random, 2), words(random, 6)));
+                }
+                Task task = new Task(words(random, 5), 1 + random.nextInt(5), taskMaterials, List.of(), start,
+                        List.of(member), workOrders, start.plusDays(random.nextInt(20)),
+                        statuses[random.nextInt(statuses.length)]);
+                tasksByMember.computeIfAbsent(member, key -> new ArrayList<>()).add(task);
+                for (Material material : taskMaterials) {
+                    tasksByMaterial.computeIfAbsent(material, key -> new ArrayList<>()).add(task);
+                }
+                objectiveTasks.add(task);
+                tasks.add(task);
+            }
+            objectives.add(new Objective(FIRST_DAY.plusDays(365), objectiveTasks, FIRST_DAY, words(random, 3)));
+            if (objectives.size() == OBJECTIVES_PER_PROJECT || o == objectiveCount - 1) {
+                projects.add(new Project(null, manager, FIRST_DAY.plusDays(400), objectives, FIRST_DAY,
+                        "Project " + projects.size() + " " + words(random, 3)));
+                objectives = new ArrayList<>();
+            }
+        }
+        manager.setProjects(new ArrayList<>(projects));
+        manager.setMaterials(new ArrayList<>(materials));
+        for (Member member : members) {
+            member.setTasks(tasksByMember.getOrDefault(member, new ArrayList<>()));
+        }
+        for (Material material : materials) {
+            material.setTasks(tasksByMaterial.getOrDefault(material, new ArrayList<>()));
+        }
+    }
+
+    /**
+     * Gets a word of the vocabulary of the descriptions.
+     *
+     * @param index Any number.
+     * @return A word.
+     */
+    static String word(int index) {
+        return WORDS[Math.floorMod(index, WORDS.length)];
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package Entities;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Represents the start and end dates of a task, as read or changed together.
+ * <p>
+ * The dates of a task are reported to the {@link EntityEvents} listeners as a single
+ * {@code "dates"} change holding the ranges before and after, so that moving both dates
+ * with {@link Task#reschedule(LocalDate, LocalDate)} is seen as one change, never as a
+ * task whose start date moved and whose end date did not yet.
+ */
+public final class DateRange {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    /**
+     * Constructs a DateRange object with the specified parameters.
+     *
+     * @param startDate The start date, or null.
+     * @param endDate   The end date, or null.
+     */
+    public DateRange(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof DateRange)) {
+            return false;
+        }
+        DateRange range = (DateRange) other;
+        return Objects.equals(startDate, range.startDate) && Objects.equals(endDate, range.endDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(startDate) + Objects.hashCode(endDate);
+    }
+
+    @Override
+    public String toString() {
+        return startDate + ".." + endDate;
+    }
+
+    // Getters
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+}
@@ -0,0 +1,84 @@
+package Entities;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dispatches the changes made through the entity setters to the registered listeners.
+ * <p>
+ * Listeners are shared by all the entities and called synchronously on the thread
+ * calling the setter, after the new value has been stored. The source of each event
+ * is the modified entity and its property name is the name of the modified field.
+ * Setters notify once they have released the lock of the entity, so the events of two
+ * setters racing on the same property may come in the opposite order to their writes: a
+ * listener keeping the last value reads it again from the entity rather than from the
+ * event, as the mutation journal and the task repository do.
+ * <p>
+ * The changes made by a thread within {@link #runSilently(Runnable)} are not notified,
+ * so that entities being built, such as a graph being read, are not taken by the
+ * listeners for edits of the workspace.
+ */
+public final class EntityEvents {
+
+    private static final CopyOnWriteArrayList<PropertyChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<int[]> silentDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private EntityEvents() {
+    }
+
+    /**
+     * Registers a listener notified of every entity change.
+     *
+     * @param listener The listener to add.
+     */
+    public static void addListener(PropertyChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public static void removeListener(PropertyChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Runs an action without notifying the listeners of the changes it makes on the
+     * calling thread. Changes made meanwhile by other threads are notified as usual.
+     *
+     * @param action The action to run.
+     */
+    public static void runSilently(Runnable action) {
+        int[] depth = silentDepth.get();
+        depth[0]++;
+        try {
+            action.run();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * Notifies the listeners that a property of an entity changed. Nothing is allocated
+     * when no listener is registered, when the value did not change or when the calling
+     * thread runs {@link #runSilently(Runnable) silently}.
+     *
+     * @param source   The modified entity.
+     * @param property The name of the modified property.
+     * @param oldValue The previous value.
+     * @param newValue The new value.
+     */
+    static void fire(Object source, String property, Object oldValue, Object newValue) {
+        if (listeners.isEmpty() || Objects.equals(oldValue, newValue) || silentDepth.get()[0] > 0) {
+            return;
+        }
+        PropertyChangeEvent event = new PropertyChangeEvent(source, property, oldValue, newValue);
+        for (PropertyChangeListener listener : listeners) {
+            listener.propertyChange(event);
+        }
+    }
+}
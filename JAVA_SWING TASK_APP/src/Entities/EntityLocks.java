@@ -0,0 +1,111 @@
+package Entities;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Striped locks guarding the fields of entities that are modified together.
+ * <p>
+ * Entities do not own a lock each: the lock of an entity is one of a fixed set of
+ * {@link StampedLock stripes}, chosen by the hash of its ID, so a workspace of millions
+ * of tasks costs a few kilobytes of locks and two threads only contend when they modify
+ * entities falling on the same stripe.
+ * <p>
+ * Setters validate and store their values under the write lock of the stripe, released
+ * in a finally block, and getters read them optimistically with {@link #read}, retrying
+ * under the read lock only if a write happened in between. The locks are not reentrant:
+ * {@link EntityEvents} are fired once the lock is released, so listeners may read and
+ * modify the entity that changed.
+ */
+public final class EntityLocks {
+
+    private static final StampedLock[] STRIPES = createStripes();
+    private static final int MASK = STRIPES.length - 1;
+
+    private EntityLocks() {
+    }
+
+    /**
+     * Gets the lock guarding an entity.
+     *
+     * @param id The ID of the entity.
+     * @return The lock of the stripe of the ID.
+     */
+    public static StampedLock forId(String id) {
+        int hash = id.hashCode();
+        return STRIPES[(hash ^ (hash >>> 16)) & MASK];
+    }
+
+    /**
+     * Reads a field of an entity without blocking, or under the read lock of the entity if
+     * a setter wrote in the meantime. The field is given as a lambda which captures nothing,
+     * so that reading allocates nothing.
+     *
+     * @param id     The ID of the entity.
+     * @param entity The entity.
+     * @param field  The function reading the field.
+     * @param <E>    The type of the entity.
+     * @param <V>    The type of the field.
+     * @return The value of the field, as last written by a setter.
+     */
+    static <E, V> V read(String id, E entity, Function<? super E, ? extends V> field) {
+        StampedLock lock = forId(id);
+        long stamp = lock.tryOptimisticRead();
+        V value = field.apply(entity);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = field.apply(entity);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reads an integer field of an entity as {@link #read} does, without boxing it.
+     *
+     * @param id     The ID of the entity.
+     * @param entity The entity.
+     * @param field  The function reading the field.
+     * @param <E>    The type of the entity.
+     * @return The value of the field, as last written by a setter.
+     */
+    static <E> int readInt(String id, E entity, ToIntFunction<? super E> field) {
+        StampedLock lock = forId(id);
+        long stamp = lock.tryOptimisticRead();
+        int value = field.applyAsInt(entity);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = field.applyAsInt(entity);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Counts the stripes.
+     *
+     * @return The number of locks shared by the entities.
+     */
+    public static int getStripeCount() {
+        return STRIPES.length;
+    }
+
+    /**
+     * Creates four stripes per processor, at least 64, rounded up to a power of two.
+     */
+    private static StampedLock[] createStripes() {
+        int count = Math.max(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+        StampedLock[] stripes = new StampedLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new StampedLock();
+        }
+        return stripes;
+    }
+}
@@ -0,0 +1,195 @@
+package Entities;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the unique identifiers shared by all the entities of the system.
+ * <p>
+ * The numeric value behind an ID comes from a pluggable {@link Strategy} and is
+ * encoded in compact base-36 (digits and upper case letters, like the old random IDs).
+ * Both provided strategies are lock-free and never hand out the same value twice
+ * within a process.
+ * <p>
+ * Entities loaded back from storage keep their original ID by being constructed
+ * through their {@code restore} factories, which advance the strategy past the restored
+ * ID, so that new IDs never collide with loaded ones.
+ */
+public final class IdGenerator {
+
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    /**
+     * Strategy producing the numeric value of the next ID for a given entity type.
+     */
+    public interface Strategy {
+
+        /**
+         * Returns the next value for the given entity type.
+         *
+         * @param type The entity type the ID is generated for.
+         * @return A positive value never returned before for that type.
+         */
+        long next(Class<?> type);
+
+        /**
+         * Makes sure the strategy will not return values lower than or equal to the
+         * specified one for the given type, typically an ID loaded from storage.
+         *
+         * @param type  The entity type.
+         * @param value The value already in use.
+         */
+        void advanceTo(Class<?> type, long value);
+    }
+
+    /**
+     * Monotonic counters, one per entity type, starting at 1.
+     */
+    public static final class CounterStrategy implements Strategy {
+        private final ConcurrentHashMap<Class<?>, AtomicLong> counters = new ConcurrentHashMap<>();
+
+        @Override
+        public long next(Class<?> type) {
+            return counter(type).incrementAndGet();
+        }
+
+        @Override
+        public void advanceTo(Class<?> type, long value) {
+            counter(type).accumulateAndGet(value, Math::max);
+        }
+
+        private AtomicLong counter(Class<?> type) {
+            AtomicLong counter = counters.get(type);
+            return counter != null ? counter : counters.computeIfAbsent(type, t -> new AtomicLong());
+        }
+    }
+
+    /**
+     * Time-ordered 64-bit values: milliseconds since 2024-01-01 in the high bits and a
+     * sequence in the low 22 bits. IDs sort by creation time.
+     * <p>
+     * Values are unique within a process even if the clock moves back. Across restarts
+     * they are unique only as long as the clock does not move back behind the IDs issued
+     * before: a restart with the clock set back may issue values again, unless the IDs in
+     * use are restored first, which advances the strategy past them.
+     */
+    public static final class TimeOrderedStrategy implements Strategy {
+        private static final long EPOCH = 1704067200000L;
+        private static final int SEQUENCE_BITS = 22;
+
+        private final AtomicLong last = new AtomicLong();
+
+        @Override
+        public long next(Class<?> type) {
+            long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+            while (true) {
+                long previous = last.get();
+                long next = Math.max(now, previous + 1);
+                if (last.compareAndSet(previous, next)) {
+                    return next;
+                }
+            }
+        }
+
+        @Override
+        public void advanceTo(Class<?> type, long value) {
+            last.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    private static volatile Strategy strategy = new TimeOrderedStrategy();
+
+    private IdGenerator() {
+    }
+
+    /**
+     * Generates a new ID for the given entity type with the current strategy.
+     *
+     * @param type The entity type the ID is generated for.
+     * @return The new ID, encoded in base-36.
+     */
+    public static String nextId(Class<?> type) {
+        return encode(strategy.next(type));
+    }
+
+    /**
+     * Gets the ID of an entity being restored: the given one, past which the current
+     * strategy advances, or a new one if the entity had none. IDs which are not base-36
+     * values, such as those of imported files, cannot collide with generated ones and do
+     * not advance the strategy.
+     *
+     * @param type The entity type.
+     * @param id   The ID to keep, or null to generate one.
+     * @return The ID of the entity.
+     * @throws IllegalArgumentException if the ID is empty.
+     */
+    static String restore(Class<?> type, String id) {
+        if (id == null) {
+            return nextId(type);
+        }
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("ID cannot be empty");
+        }
+        long value;
+        try {
+            value = decode(id);
+        } catch (NumberFormatException e) {
+            return id;
+        }
+        if (value > 0) {
+            strategy.advanceTo(type, value);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the strategy currently used to generate IDs.
+     *
+     * @return The current strategy.
+     */
+    public static Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Replaces the strategy used to generate IDs.
+     *
+     * @param strategy The new strategy.
+     */
+    public static void setStrategy(Strategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Strategy cannot be null");
+        }
+        IdGenerator.strategy = strategy;
+    }
+
+    /**
+     * Encodes a positive value in compact base-36.
+     *
+     * @param value The value to encode.
+     * @return The encoded value.
+     */
+    public static String encode(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must be positive");
+        }
+        char[] buffer = new char[13];
+        int position = buffer.length;
+        do {
+            buffer[--position] = DIGITS[(int) (value % 36)];
+            value /= 36;
+        } while (value != 0);
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Decodes a base-36 ID back to its numeric value.
+     *
+     * @param id The encoded ID.
+     * @return The numeric value of the ID.
+     * @throws NumberFormatException if the ID is not valid base-36.
+     */
+    public static long decode(String id) {
+        return Long.parseLong(id, 36);
+    }
+}
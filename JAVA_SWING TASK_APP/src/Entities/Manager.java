@@ -1,10 +1,19 @@
 package Entities;
 import java.io.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a manager in the system, extending the User class.
+ * <p>
+ * The lists of projects and materials are read-only copies of the lists given to the
+ * constructor and the setters, replaced instead of modified under the
+ * {@link EntityLocks lock} of the manager, so that another thread reading them never
+ * sees a list being changed.
  */
 public class Manager extends User {
     private List<Project> projects;
@@ -13,36 +22,134 @@ public class Manager extends User {
 
     public Manager(String username, String password, String fullName, String phoneNumber,
                    LocalDate birthDay, String email, String role, Sex sex, Skill skill, List<Project> projects, List<Material> materials) {
-        super(username, password, fullName, phoneNumber, birthDay, email, role, sex, skill);
-        this.skill = skill;
-        this.projects = projects;
-        this.materials = materials;
+        this(IdGenerator.nextId(User.class), username, password, false, fullName, phoneNumber, birthDay, email,
+                role, sex, skill, projects, materials);
+    }
+
+    private Manager(String id, String username, String password, boolean encoded, String fullName,
+                    String phoneNumber, LocalDate birthDay, String email, String role, Sex sex, Skill skill,
+                    List<Project> projects, List<Material> materials) {
+        super(id, username, password, encoded, fullName, phoneNumber, birthDay, email, role, sex);
+        this.skill = ValueRegistry.skill(skill);
+        this.projects = readOnlyCopy(projects);
+        this.materials = readOnlyCopy(materials);
+    }
+
+    /**
+     * Constructs a Manager loaded from storage or from an import, keeping its ID.
+     *
+     * @param id           The ID of the manager, or null to generate one.
+     * @param username     The username of the manager.
+     * @param passwordHash The encoded hash of the password of the manager, or null if the
+     *                     credentials were left out.
+     * @param fullName     The full name of the manager.
+     * @param phoneNumber  The phone number of the manager.
+     * @param birthDay     The birthday of the manager.
+     * @param email        The email address of the manager.
+     * @param role         The role of the manager.
+     * @param sex          The gender of the manager.
+     * @param skill        The skill of the manager.
+     * @param projects     The projects of the manager.
+     * @param materials    The materials of the manager.
+     * @return The manager.
+     * @throws IllegalArgumentException if the ID is empty, the hash is not an encoded hash
+     *                                  or a field is invalid.
+     */
+    public static Manager restore(String id, String username, String passwordHash, String fullName,
+                                  String phoneNumber, LocalDate birthDay, String email, String role, Sex sex,
+                                  Skill skill, List<Project> projects, List<Material> materials) {
+        return new Manager(IdGenerator.restore(User.class, id), username, passwordHash, true, fullName, phoneNumber,
+                birthDay, email, role, sex, skill, projects, materials);
     }
 
     // Getters and setters
 
     public List<Project> getProjects() {
-        return projects;
+        return EntityLocks.read(getId(), this, manager -> manager.projects);
     }
 
     public void setProjects(List<Project> projects) {
-        this.projects = projects;
+        List<Project> newValue = readOnlyCopy(projects);
+        StampedLock lock = EntityLocks.forId(getId());
+        long stamp = lock.writeLock();
+        List<Project> oldValue;
+        try {
+            oldValue = this.projects;
+            this.projects = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "projects", oldValue, newValue);
     }
 
     public Skill getSkill() {
-        return skill;
+        return EntityLocks.read(getId(), this, manager -> manager.skill);
     }
 
     public void setSkill(Skill skill) {
-        this.skill = skill;
+        Skill newValue = ValueRegistry.skill(skill);
+        replaceSkill(current -> newValue);
+    }
+
+    /**
+     * Changes the level of the skill of the manager. The skill is shared with the other
+     * users having the same one, so it is replaced by the shared skill with the new level
+     * rather than modified.
+     *
+     * @param level The level to be set.
+     */
+    public void setSkillLevel(String level) {
+        replaceSkill(current -> current == null ? ValueRegistry.skill(null, level) : current.withLevel(level));
+    }
+
+    /**
+     * Changes the name of the skill of the manager, replacing the shared skill by the one
+     * with the new name.
+     *
+     * @param name The name to be set.
+     */
+    public void setSkillName(String name) {
+        replaceSkill(current -> current == null ? ValueRegistry.skill(name, null) : current.withName(name));
+    }
+
+    private void replaceSkill(UnaryOperator<Skill> change) {
+        StampedLock lock = EntityLocks.forId(getId());
+        long stamp = lock.writeLock();
+        Skill oldValue;
+        Skill newValue;
+        try {
+            oldValue = this.skill;
+            newValue = change.apply(oldValue);
+            this.skill = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "skill", oldValue, newValue);
     }
 
     public List<Material> getMaterials() {
-        return materials;
+        return EntityLocks.read(getId(), this, manager -> manager.materials);
     }
 
     public void setMaterials(List<Material> materials) {
-        this.materials = materials;
+        List<Material> newValue = readOnlyCopy(materials);
+        StampedLock lock = EntityLocks.forId(getId());
+        long stamp = lock.writeLock();
+        List<Material> oldValue;
+        try {
+            oldValue = this.materials;
+            this.materials = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "materials", oldValue, newValue);
+    }
+
+    /**
+     * Copies a list into a read-only list, so that the caller can keep modifying its own.
+     */
+    private static <T> List<T> readOnlyCopy(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(new ArrayList<>(list));
     }
 
 
@@ -1,15 +1,19 @@
 package Entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents a material with various properties such as materialId, tasks, etc.
+ * <p>
+ * Setters store their value under the {@link EntityLocks lock} of the material and
+ * getters read without blocking.
  */
 public class Material {
 
-    private String materialId;
+    private final String materialId;
     private List<Task> tasks;
     private String name;
     private String type;
@@ -22,10 +26,29 @@ public class Material {
      * @param type  The type of the material.
      */
     public Material(List<Task> tasks, String name, String type) {
-        this.materialId = generateId();
-        this.tasks = new ArrayList<>(tasks);
+        this(IdGenerator.nextId(Material.class), tasks, name, type);
+    }
+
+    private Material(String materialId, List<Task> tasks, String name, String type) {
+        this.materialId = materialId;
+        this.tasks = Collections.unmodifiableList(new ArrayList<>(tasks));
         this.name = name;
-        this.type = type;
+        this.type = ValueRegistry.materialType(type);
+    }
+
+    /**
+     * Constructs a Material loaded from storage, an import or another replica, keeping
+     * its ID.
+     *
+     * @param materialId The ID of the material, or null to generate one.
+     * @param tasks      The list of tasks associated with the material.
+     * @param name       The name of the material.
+     * @param type       The type of the material.
+     * @return The material.
+     * @throws IllegalArgumentException if the ID is empty.
+     */
+    public static Material restore(String materialId, List<Task> tasks, String name, String type) {
+        return new Material(IdGenerator.restore(Material.class, materialId), tasks, name, type);
     }
 
     // Getters and setters
@@ -34,46 +57,62 @@ public class Material {
         return materialId;
     }
 
+    /**
+     * Gets the tasks using the material. The list is read-only and is replaced, not modified,
+     * by {@link #setTasks(List)}, so it can be kept without copying.
+     *
+     * @return The read-only list of the tasks using the material.
+     */
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks);
+        return EntityLocks.read(materialId, this, material -> material.tasks);
     }
 
     public void setTasks(List<Task> tasks) {
-        this.tasks = new ArrayList<>(tasks);
+        List<Task> newValue = Collections.unmodifiableList(new ArrayList<>(tasks));
+        StampedLock lock = EntityLocks.forId(materialId);
+        long stamp = lock.writeLock();
+        List<Task> oldValue;
+        try {
+            oldValue = this.tasks;
+            this.tasks = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "tasks", oldValue, newValue);
     }
 
     public String getName() {
-        return name;
+        return EntityLocks.read(materialId, this, material -> material.name);
     }
 
     public void setName(String name) {
-        this.name = name;
+        StampedLock lock = EntityLocks.forId(materialId);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.name;
+            this.name = name;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "name", oldValue, name);
     }
 
     public String getType() {
-        return type;
+        return EntityLocks.read(materialId, this, material -> material.type);
     }
 
     public void setType(String type) {
-        this.type = type;
-    }
-
-    /**
-     * Generates a random ID for the material.
-     *
-     * @return A randomly generated material ID.
-     */
-    private static String generateId() {
-        int length = 4;
-        Random random = new Random();
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        String generatedId = "";
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId += characters.charAt(randomIndex);
+        String newValue = ValueRegistry.materialType(type);
+        StampedLock lock = EntityLocks.forId(materialId);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.type;
+            this.type = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-
-        return generatedId;
+        EntityEvents.fire(this, "type", oldValue, newValue);
     }
 }
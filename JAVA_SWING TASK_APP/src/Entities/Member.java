@@ -1,10 +1,18 @@
 package Entities;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a member in the system, extending the User class.
+ * <p>
+ * The list of tasks is a read-only copy of the list given to {@link #setTasks(List)},
+ * replaced instead of modified under the {@link EntityLocks lock} of the member, so that
+ * another thread reading it never sees a list being changed.
  */
 public class Member extends User {
     private Skill skill;
@@ -12,25 +20,111 @@ public class Member extends User {
 
     public Member(String username, String password, String fullName, String phoneNumber,
                   LocalDate birthDay, String email, String role, Sex sex, Skill skill) {
-        super(username, password, fullName, phoneNumber, birthDay, email, role, sex, skill);
-        this.skill = skill;
+        this(IdGenerator.nextId(User.class), username, password, false, fullName, phoneNumber, birthDay, email,
+                role, sex, skill);
+    }
+
+    private Member(String id, String username, String password, boolean encoded, String fullName,
+                   String phoneNumber, LocalDate birthDay, String email, String role, Sex sex, Skill skill) {
+        super(id, username, password, encoded, fullName, phoneNumber, birthDay, email, role, sex);
+        this.skill = ValueRegistry.skill(skill);
+    }
+
+    /**
+     * Constructs a Member loaded from storage or from an import, keeping its ID.
+     *
+     * @param id           The ID of the member, or null to generate one.
+     * @param username     The username of the member.
+     * @param passwordHash The encoded hash of the password of the member, or null if the
+     *                     credentials were left out.
+     * @param fullName     The full name of the member.
+     * @param phoneNumber  The phone number of the member.
+     * @param birthDay     The birthday of the member.
+     * @param email        The email address of the member.
+     * @param role         The role of the member.
+     * @param sex          The gender of the member.
+     * @param skill        The skill of the member.
+     * @return The member.
+     * @throws IllegalArgumentException if the ID is empty, the hash is not an encoded hash
+     *                                  or a field is invalid.
+     */
+    public static Member restore(String id, String username, String passwordHash, String fullName,
+                                 String phoneNumber, LocalDate birthDay, String email, String role, Sex sex,
+                                 Skill skill) {
+        return new Member(IdGenerator.restore(User.class, id), username, passwordHash, true, fullName, phoneNumber,
+                birthDay, email, role, sex, skill);
     }
 
     // Getters and setters
 
     public Skill getSkill() {
-        return skill;
+        return EntityLocks.read(getId(), this, member -> member.skill);
     }
 
     public void setSkill(Skill skill) {
-        this.skill = skill;
+        Skill newValue = ValueRegistry.skill(skill);
+        replaceSkill(current -> newValue);
+    }
+
+    /**
+     * Changes the level of the skill of the member. The skill is shared with the other
+     * users having the same one, so it is replaced by the shared skill with the new level
+     * rather than modified.
+     *
+     * @param level The level to be set.
+     */
+    public void setSkillLevel(String level) {
+        replaceSkill(current -> current == null ? ValueRegistry.skill(null, level) : current.withLevel(level));
+    }
+
+    /**
+     * Changes the name of the skill of the member, replacing the shared skill by the one
+     * with the new name.
+     *
+     * @param name The name to be set.
+     */
+    public void setSkillName(String name) {
+        replaceSkill(current -> current == null ? ValueRegistry.skill(name, null) : current.withName(name));
+    }
+
+    private void replaceSkill(UnaryOperator<Skill> change) {
+        StampedLock lock = EntityLocks.forId(getId());
+        long stamp = lock.writeLock();
+        Skill oldValue;
+        Skill newValue;
+        try {
+            oldValue = this.skill;
+            newValue = change.apply(oldValue);
+            this.skill = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "skill", oldValue, newValue);
     }
 
     public List<Task> getTasks() {
-        return tasks;
+        return EntityLocks.read(getId(), this, member -> member.tasks);
     }
 
     public void setTasks(List<Task> tasks) {
-        this.tasks = tasks;
+        List<Task> newValue = readOnlyCopy(tasks);
+        StampedLock lock = EntityLocks.forId(getId());
+        long stamp = lock.writeLock();
+        List<Task> oldValue;
+        try {
+            oldValue = this.tasks;
+            this.tasks = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "tasks", oldValue, newValue);
     }
+
+    /**
+     * Copies a list into a read-only list, so that the caller can keep modifying its own.
+     */
+    private static <T> List<T> readOnlyCopy(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
 }
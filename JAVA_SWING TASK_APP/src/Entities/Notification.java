@@ -1,13 +1,12 @@
 package Entities;
 import java.time.LocalDateTime;
-import java.util.Random;
 
 /**
  * Represents a notification associated with a task.
  */
 public class Notification {
 
-    private String id;
+    private final String id;
     private LocalDateTime date;
     private NotificationType type;
     private Task task;
@@ -22,15 +21,39 @@ public class Notification {
      * @param description The description of the notification.
      */
     public Notification(LocalDateTime date, NotificationType type, Task task, String description) {
-        this.id = generatedId();
+        this(IdGenerator.nextId(Notification.class), date, type, task, description);
+    }
+
+    private Notification(String id, LocalDateTime date, NotificationType type, Task task, String description) {
+        this.id = id;
         this.date = date;
         this.type = type;
         this.task = task;
         this.description = description;
     }
 
+    /**
+     * Constructs a Notification loaded from storage, keeping its ID.
+     *
+     * @param id          The ID of the notification, or null to generate one.
+     * @param date        The date and time of the notification.
+     * @param type        The type of the notification (e.g., EMAIL, SMS).
+     * @param task        The task associated with the notification.
+     * @param description The description of the notification.
+     * @return The notification.
+     * @throws IllegalArgumentException if the ID is empty.
+     */
+    public static Notification restore(String id, LocalDateTime date, NotificationType type, Task task,
+                                       String description) {
+        return new Notification(IdGenerator.restore(Notification.class, id), date, type, task, description);
+    }
+
     // Getters and setters
 
+    public String getId() {
+        return id;
+    }
+
     public LocalDateTime getDate() {
         return date;
     }
@@ -63,24 +86,5 @@ public class Notification {
         this.description = description;
     }
 
-    /**
-     * Generates a random alphanumeric ID.
-     *
-     * @return The randomly generated alphanumeric ID.
-     */
-    private String generatedId() {
-        int length = 4;
-        Random random = new Random();
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        String generatedId = "";
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId += characters.charAt(randomIndex);
-        }
-
-        return generatedId;
-    }
-
 }
 
@@ -2,15 +2,20 @@ package Entities;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents an objective with various properties such as id, end date, etc.
+ * <p>
+ * Setters change the objective under its {@link EntityLocks lock}, so that a
+ * {@link WorkspaceSnapshot} reads it as it was when the snapshot was opened, and
+ * getters read it without blocking.
  */
 public class Objective {
 
-    private String id;
+    private final String id;
     private LocalDate endDate;
     private List<Task> taskList;
     private LocalDate startDate;
@@ -25,13 +30,34 @@ public class Objective {
      * @param description The description of the objective.
      */
     public Objective(LocalDate endDate, List<Task> taskList,LocalDate startDate, String description) {
-        this.id = generateId();
+        this(IdGenerator.nextId(Objective.class), endDate, taskList, startDate, description);
+    }
+
+    private Objective(String id, LocalDate endDate, List<Task> taskList, LocalDate startDate, String description) {
+        this.id = id;
         this.endDate = endDate;
-        this.taskList = new ArrayList<>(taskList);
+        this.taskList = Collections.unmodifiableList(new ArrayList<>(taskList));
         this.startDate = startDate;
         this.description = description;
     }
 
+    /**
+     * Constructs an Objective loaded from storage, an import or another replica, keeping
+     * its ID.
+     *
+     * @param id          The ID of the objective, or null to generate one.
+     * @param endDate     The end date of the objective.
+     * @param taskList    The list of tasks associated with the objective.
+     * @param startDate   The start date of the objective.
+     * @param description The description of the objective.
+     * @return The objective.
+     * @throws IllegalArgumentException if the ID is empty.
+     */
+    public static Objective restore(String id, LocalDate endDate, List<Task> taskList, LocalDate startDate,
+                                    String description) {
+        return new Objective(IdGenerator.restore(Objective.class, id), endDate, taskList, startDate, description);
+    }
+
     // Getters and setters
 
     public String getId() {
@@ -39,53 +65,100 @@ public class Objective {
     }
 
     public LocalDate getEndDate() {
-        return endDate;
+        return EntityLocks.read(id, this, objective -> objective.endDate);
     }
 
     public void setEndDate(LocalDate endDate) {
-        this.endDate = endDate;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        LocalDate oldValue;
+        try {
+            oldValue = this.endDate;
+            preserve();
+            this.endDate = endDate;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "endDate", oldValue, endDate);
     }
 
+    /**
+     * Gets the tasks of the objective. The list is read-only and is replaced, not modified,
+     * by {@link #setTaskList(List)}, so it can be kept without copying.
+     *
+     * @return The read-only list of the tasks of the objective.
+     */
     public List<Task> getTaskList() {
-        return new ArrayList<>(taskList);
+        return EntityLocks.read(id, this, objective -> objective.taskList);
     }
 
     public void setTaskList(List<Task> taskList) {
-        this.taskList = new ArrayList<>(taskList);
+        List<Task> newValue = Collections.unmodifiableList(new ArrayList<>(taskList));
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        List<Task> oldValue;
+        try {
+            oldValue = this.taskList;
+            preserve();
+            this.taskList = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "taskList", oldValue, newValue);
     }
 
     public LocalDate getStartDate() {
-        return startDate;
+        return EntityLocks.read(id, this, objective -> objective.startDate);
     }
 
     public void setStartDate(LocalDate startDate) {
-        this.startDate = startDate;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        LocalDate oldValue;
+        try {
+            oldValue = this.startDate;
+            preserve();
+            this.startDate = startDate;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "startDate", oldValue, startDate);
     }
 
     public String getDescription() {
-        return description;
+        return EntityLocks.read(id, this, objective -> objective.description);
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.description;
+            preserve();
+            this.description = description;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "description", oldValue, description);
     }
 
     /**
-     * Generates a random ID for the objective.
-     *
-     * @return A randomly generated objective ID.
+     * Keeps the current values in the open snapshots before a setter changes them, under
+     * the write lock.
      */
-    private static String generateId() {
-        int length = 4;
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        Random random = new Random();
-        char[] generatedId = new char[length];
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId[i] = characters.charAt(randomIndex);
+    private void preserve() {
+        if (WorkspaceSnapshot.needsVersion(this)) {
+            WorkspaceSnapshot.preserve(this, version());
         }
+    }
 
-        return new String(generatedId);
+    /**
+     * Copies the current values, read without locking.
+     *
+     * @return The version of the objective.
+     */
+    ObjectiveVersion version() {
+        return new ObjectiveVersion(this, endDate, taskList, startDate, description);
     }
-}
+}
\ No newline at end of file
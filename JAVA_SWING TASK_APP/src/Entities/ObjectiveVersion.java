@@ -0,0 +1,65 @@
+package Entities;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Represents the values of an objective as seen by a {@link WorkspaceSnapshot}.
+ */
+public class ObjectiveVersion {
+
+    private final Objective objective;
+    private final LocalDate endDate;
+    private final List<Task> taskList;
+    private final LocalDate startDate;
+    private final String description;
+
+    /**
+     * Constructs an ObjectiveVersion object with the specified parameters.
+     *
+     * @param objective   The objective.
+     * @param endDate     The end date of the objective.
+     * @param taskList    The read-only list of the tasks of the objective.
+     * @param startDate   The start date of the objective.
+     * @param description The description of the objective.
+     */
+    ObjectiveVersion(Objective objective, LocalDate endDate, List<Task> taskList, LocalDate startDate,
+                     String description) {
+        this.objective = objective;
+        this.endDate = endDate;
+        this.taskList = taskList;
+        this.startDate = startDate;
+        this.description = description;
+    }
+
+    /**
+     * Gets the ID of the objective.
+     *
+     * @return The ID of the objective, which never changes.
+     */
+    public String getId() {
+        return objective.getId();
+    }
+
+    // Getters
+
+    public Objective getObjective() {
+        return objective;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<Task> getTaskList() {
+        return taskList;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -2,15 +2,20 @@ package Entities;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents a project with various properties such as manager, id, end date, etc.
+ * <p>
+ * Setters change the project under its {@link EntityLocks lock}, so that a
+ * {@link WorkspaceSnapshot} reads it as it was when the snapshot was opened, and
+ * getters read it without blocking.
  */
 public class Project {
 
-    private String id;
+    private final String id;
     private Manager manager;
     private LocalDate endDate;
     private List<Objective> objectiveList;
@@ -20,7 +25,8 @@ public class Project {
     /**
      * Constructs a Project object with the specified parameters.
      *
-     * @param id           The unique identifier for the project.
+     * @param id           Ignored, a new ID is generated; {@link #restore} keeps the ID of a
+     *                     loaded project.
      * @param manager      The manager associated with the project.
      * @param endDate      The end date of the project.
      * @param objectiveList The list of objectives associated with the project.
@@ -29,14 +35,37 @@ public class Project {
      */
     public Project(String id, Manager manager, LocalDate endDate, List<Objective> objectiveList,
                    LocalDate startDate, String description) {
-        this.id = generateId();
+        this(manager, endDate, objectiveList, startDate, description, IdGenerator.nextId(Project.class));
+    }
+
+    private Project(Manager manager, LocalDate endDate, List<Objective> objectiveList, LocalDate startDate,
+                    String description, String id) {
+        this.id = id;
         this.manager = manager;
         this.endDate = endDate;
-        this.objectiveList = new ArrayList<>(objectiveList);
+        this.objectiveList = Collections.unmodifiableList(new ArrayList<>(objectiveList));
         this.startDate = startDate;
         this.description = description;
     }
 
+    /**
+     * Constructs a Project loaded from storage, an import or another replica, keeping its ID.
+     *
+     * @param id            The ID of the project, or null to generate one.
+     * @param manager       The manager associated with the project.
+     * @param endDate       The end date of the project.
+     * @param objectiveList The list of objectives associated with the project.
+     * @param startDate     The start date of the project.
+     * @param description   The description of the project.
+     * @return The project.
+     * @throws IllegalArgumentException if the ID is empty.
+     */
+    public static Project restore(String id, Manager manager, LocalDate endDate, List<Objective> objectiveList,
+                                  LocalDate startDate, String description) {
+        return new Project(manager, endDate, objectiveList, startDate, description,
+                IdGenerator.restore(Project.class, id));
+    }
+
 
     // Getters and setters
 
@@ -45,62 +74,118 @@ public class Project {
     }
 
     public Manager getManager() {
-        return manager;
+        return EntityLocks.read(id, this, project -> project.manager);
     }
 
     public void setManager(Manager manager) {
-        this.manager = manager;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        Manager oldValue;
+        try {
+            oldValue = this.manager;
+            preserve();
+            this.manager = manager;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "manager", oldValue, manager);
     }
 
     public LocalDate getEndDate() {
-        return endDate;
+        return EntityLocks.read(id, this, project -> project.endDate);
     }
 
     public void setEndDate(LocalDate endDate) {
-        this.endDate = endDate;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        LocalDate oldValue;
+        try {
+            oldValue = this.endDate;
+            preserve();
+            this.endDate = endDate;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "endDate", oldValue, endDate);
     }
 
+    /**
+     * Gets the objectives of the project. The list is read-only and is replaced, not modified,
+     * by {@link #setObjectiveList(List)}, so it can be kept without copying.
+     *
+     * @return The read-only list of the objectives of the project.
+     */
     public List<Objective> getObjectiveList() {
-        return new ArrayList<>(objectiveList);
+        return EntityLocks.read(id, this, project -> project.objectiveList);
     }
 
     public void setObjectiveList(List<Objective> objectiveList) {
-        this.objectiveList = new ArrayList<>(objectiveList);
+        List<Objective> newValue = Collections.unmodifiableList(new ArrayList<>(objectiveList));
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        List<Objective> oldValue;
+        try {
+            oldValue = this.objectiveList;
+            preserve();
+            this.objectiveList = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "objectiveList", oldValue, newValue);
     }
 
     public LocalDate getStartDate() {
-        return startDate;
+        return EntityLocks.read(id, this, project -> project.startDate);
     }
 
     public void setStartDate(LocalDate startDate) {
-        this.startDate = startDate;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        LocalDate oldValue;
+        try {
+            oldValue = this.startDate;
+            preserve();
+            this.startDate = startDate;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "startDate", oldValue, startDate);
     }
 
     public String getDescription() {
-        return description;
+        return EntityLocks.read(id, this, project -> project.description);
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.description;
+            preserve();
+            this.description = description;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "description", oldValue, description);
     }
 
     /**
-     * Generates a random ID for the project.
-     *
-     * @return A randomly generated project ID.
+     * Keeps the current values in the open snapshots before a setter changes them, under
+     * the write lock.
      */
-    private String generateId() {
-        int length = 4;
-        Random random = new Random();
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        String generatedId = "";
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId += characters.charAt(randomIndex);
+    private void preserve() {
+        if (WorkspaceSnapshot.needsVersion(this)) {
+            WorkspaceSnapshot.preserve(this, version());
         }
-
-        return generatedId;
     }
 
+    /**
+     * Copies the current values, read without locking.
+     *
+     * @return The version of the project.
+     */
+    ProjectVersion version() {
+        return new ProjectVersion(this, manager, endDate, objectiveList, startDate, description);
+    }
 }
@@ -0,0 +1,72 @@
+package Entities;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Represents the values of a project as seen by a {@link WorkspaceSnapshot}.
+ */
+public class ProjectVersion {
+
+    private final Project project;
+    private final Manager manager;
+    private final LocalDate endDate;
+    private final List<Objective> objectiveList;
+    private final LocalDate startDate;
+    private final String description;
+
+    /**
+     * Constructs a ProjectVersion object with the specified parameters.
+     *
+     * @param project       The project.
+     * @param manager       The manager associated with the project.
+     * @param endDate       The end date of the project.
+     * @param objectiveList The read-only list of the objectives of the project.
+     * @param startDate     The start date of the project.
+     * @param description   The description of the project.
+     */
+    ProjectVersion(Project project, Manager manager, LocalDate endDate, List<Objective> objectiveList,
+                   LocalDate startDate, String description) {
+        this.project = project;
+        this.manager = manager;
+        this.endDate = endDate;
+        this.objectiveList = objectiveList;
+        this.startDate = startDate;
+        this.description = description;
+    }
+
+    /**
+     * Gets the ID of the project.
+     *
+     * @return The ID of the project, which never changes.
+     */
+    public String getId() {
+        return project.getId();
+    }
+
+    // Getters
+
+    public Project getProject() {
+        return project;
+    }
+
+    public Manager getManager() {
+        return manager;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<Objective> getObjectiveList() {
+        return objectiveList;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
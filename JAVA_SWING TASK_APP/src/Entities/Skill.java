@@ -2,15 +2,57 @@ package Entities;
 
 /**
  * Represents a skill associated with users in the system.
+ * <p>
+ * Members and managers hold the shared skill of the {@link ValueRegistry} equal to the
+ * one they are given. A shared skill is never modified, since all the users with the
+ * same skill would change: {@link Member#setSkillLevel(String)} and the like replace the
+ * skill of one user by the shared skill with the change, which {@link #withLevel(String)}
+ * and {@link #withName(String)} return.
  */
 public class Skill {
     private String name;
     private String level;
+    private boolean shared;
 
     public Skill(String name) {
         this.name = name;
     }
 
+    /**
+     * Constructs a Skill object with the specified parameters.
+     *
+     * @param name  The name of the skill.
+     * @param level The level of the skill.
+     */
+    public Skill(String name, String level) {
+        this.name = name;
+        this.level = level;
+    }
+
+    /**
+     * Gets the shared skill with the same name and another level.
+     *
+     * @param level The level of the skill.
+     * @return The shared skill.
+     */
+    public Skill withLevel(String level) {
+        return ValueRegistry.skill(name, level);
+    }
+
+    /**
+     * Gets the shared skill with the same level and another name.
+     *
+     * @param name The name of the skill.
+     * @return The shared skill.
+     */
+    public Skill withName(String name) {
+        return ValueRegistry.skill(name, level);
+    }
+
+    void share() {
+        this.shared = true;
+    }
+
     // Getter and setter
     public String getName() {
         return name;
@@ -20,12 +62,45 @@ public class Skill {
         return level;
     }
 
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Sets the level of a skill not held by a user yet.
+     *
+     * @param level The level to be set.
+     * @throws UnsupportedOperationException if the skill is shared.
+     * @deprecated The skill of a user is shared with the users having the same one:
+     * change it with {@link Member#setSkillLevel(String)} or
+     * {@link Manager#setSkillLevel(String)}, or build the skill with its level.
+     */
+    @Deprecated
     public void setLevel(String level) {
+        checkNotShared();
         this.level = level;
     }
 
+    /**
+     * Sets the name of a skill not held by a user yet.
+     *
+     * @param name The name to be set.
+     * @throws UnsupportedOperationException if the skill is shared.
+     * @deprecated The skill of a user is shared with the users having the same one:
+     * change it with {@link Member#setSkillName(String)} or
+     * {@link Manager#setSkillName(String)}, or build the skill with its name.
+     */
+    @Deprecated
     public void setName(String name) {
+        checkNotShared();
         this.name = name;
     }
 
+    private void checkNotShared() {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared skills cannot be modified; use setSkillLevel or setSkillName"
+                    + " of the member or manager");
+        }
+    }
+
 }
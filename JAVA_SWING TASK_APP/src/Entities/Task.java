@@ -2,15 +2,26 @@ package Entities;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents a task with various properties such as description, priority, materials, etc.
+ * <p>
+ * The list getters return read-only lists that the setters replace instead of modifying,
+ * so callers can keep them without copying.
+ * <p>
+ * The task can be modified by several threads: setters store their value under the
+ * {@link EntityLocks lock} of the task, so the start date never ends up after the end
+ * date, and getters read without blocking. {@link #reschedule(LocalDate, LocalDate)}
+ * moves both dates at once, and a {@link WorkspaceSnapshot} reads the task as it was
+ * when the snapshot was opened. Changes of either date are notified as a single
+ * {@code "dates"} change holding {@link DateRange date ranges}.
  */
 public class Task {
 
-    private String id;
+    private final String id;
     private String description;
     private int priority;
     private List<Material> materials;
@@ -20,6 +31,7 @@ public class Task {
     private List<WorkOrder> workOrders;
     private LocalDate endDate;
     private TaskStatus status;
+    private boolean initialized;
 
     /**
      * Constructs a Task object with a randomly generated ID.
@@ -38,7 +50,14 @@ public class Task {
     public Task(String description, int priority, List<Material> materials,
                 List<Notification> notifications, LocalDate startDate, List<Member> members,
                 List<WorkOrder> workOrders, LocalDate endDate, TaskStatus status) {
-        this.id = generateRandomId();
+        this(IdGenerator.nextId(Task.class), description, priority, materials, notifications, startDate, members,
+                workOrders, endDate, status);
+    }
+
+    private Task(String id, String description, int priority, List<Material> materials,
+                 List<Notification> notifications, LocalDate startDate, List<Member> members,
+                 List<WorkOrder> workOrders, LocalDate endDate, TaskStatus status) {
+        this.id = id;
         this.description = description;
         setPriority(priority);
         setMaterials(materials);
@@ -48,17 +67,60 @@ public class Task {
         setWorkOrders(workOrders);
         setEndDate(endDate);
         setStatus(status);
+        this.initialized = true;
+    }
+
+    /**
+     * Constructs a Task loaded from storage, an import or another replica, keeping its ID.
+     *
+     * @param id            The ID of the task, or null to generate one.
+     * @param description   The description of the task.
+     * @param priority      The priority level of the task (must be greater than or equal to 1).
+     * @param materials     The list of materials associated with the task.
+     * @param notifications The list of notifications associated with the task.
+     * @param startDate     The start date of the task (must not be after the end date).
+     * @param members       The list of members assigned to the task.
+     * @param workOrders    The list of work orders related to the task.
+     * @param endDate       The end date of the task.
+     * @param status        The status of the task.
+     * @return The task.
+     * @throws IllegalArgumentException if the ID is empty, if priority is less than 1 or if
+     *                                  startDate is after endDate.
+     */
+    public static Task restore(String id, String description, int priority, List<Material> materials,
+                               List<Notification> notifications, LocalDate startDate, List<Member> members,
+                               List<WorkOrder> workOrders, LocalDate endDate, TaskStatus status) {
+        return new Task(IdGenerator.restore(Task.class, id), description, priority, materials, notifications,
+                startDate, members, workOrders, endDate, status);
     }
 
     // Getters and setters with validation
 
+    /**
+     * Gets the ID of the task.
+     *
+     * @return The ID of the task.
+     */
+    public String getId() {
+        return id;
+    }
+
     /**
      * Gets the description of the task.
      *
      * @return The description of the task.
      */
     public String getDescription() {
-        return description;
+        return EntityLocks.read(id, this, task -> task.description);
+    }
+
+    /**
+     * Gets the list of notifications associated with the task.
+     *
+     * @return The read-only list of notifications associated with the task.
+     */
+    public List<Notification> getNotifications() {
+        return EntityLocks.read(id, this, task -> task.notifications);
     }
 
     /**
@@ -67,7 +129,18 @@ public class Task {
      * @param notifications The list of notifications to be set.
      */
     public void setNotifications(List<Notification> notifications) {
-        this.notifications = new ArrayList<>(notifications);
+        List<Notification> newValue = Collections.unmodifiableList(new ArrayList<>(notifications));
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        List<Notification> oldValue;
+        try {
+            oldValue = this.notifications;
+            preserve();
+            this.notifications = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("notifications", oldValue, newValue);
     }
 
 
@@ -77,7 +150,17 @@ public class Task {
      * @param description The description to be set.
      */
     public void setDescription(String description) {
-        this.description = description;
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.description;
+            preserve();
+            this.description = description;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("description", oldValue, description);
     }
 
     /**
@@ -86,7 +169,7 @@ public class Task {
      * @return The priority level of the task.
      */
     public int getPriority() {
-        return priority;
+        return EntityLocks.readInt(id, this, task -> task.priority);
     }
 
     /**
@@ -99,16 +182,26 @@ public class Task {
         if (priority < 1) {
             throw new IllegalArgumentException("Priority must be greater than or equal to 1.");
         }
-        this.priority = priority;
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        int oldValue;
+        try {
+            oldValue = this.priority;
+            preserve();
+            this.priority = priority;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("priority", oldValue, priority);
     }
 
     /**
      * Gets the list of materials associated with the task.
      *
-     * @return The list of materials associated with the task.
+     * @return The read-only list of materials associated with the task.
      */
     public List<Material> getMaterials() {
-        return new ArrayList<>(materials);
+        return EntityLocks.read(id, this, task -> task.materials);
     }
 
     /**
@@ -117,7 +210,18 @@ public class Task {
      * @param materials The list of materials to be set.
      */
     public void setMaterials(List<Material> materials) {
-        this.materials = new ArrayList<>(materials);
+        List<Material> newValue = Collections.unmodifiableList(new ArrayList<>(materials));
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        List<Material> oldValue;
+        try {
+            oldValue = this.materials;
+            preserve();
+            this.materials = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("materials", oldValue, newValue);
     }
 
     /**
@@ -126,29 +230,42 @@ public class Task {
      * @return The start date of the task.
      */
     public LocalDate getStartDate() {
-        return startDate;
+        return EntityLocks.read(id, this, task -> task.startDate);
     }
 
     /**
-     * Sets the start date of the task.
+     * Sets the start date of the task. The change is notified as a change of the
+     * {@code "dates"} of the task.
      *
      * @param startDate The start date to be set.
      * @throws IllegalArgumentException if startDate is after the end date.
      */
     public void setStartDate(LocalDate startDate) {
-        if (endDate != null && startDate.isAfter(endDate)) {
-            throw new IllegalArgumentException("Start date cannot be after the end date.");
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        DateRange oldValue;
+        DateRange newValue;
+        try {
+            if (endDate != null && startDate.isAfter(endDate)) {
+                throw new IllegalArgumentException("Start date cannot be after the end date.");
+            }
+            oldValue = new DateRange(this.startDate, endDate);
+            preserve();
+            this.startDate = startDate;
+            newValue = new DateRange(startDate, endDate);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        this.startDate = startDate;
+        fireChange("dates", oldValue, newValue);
     }
 
     /**
      * Gets the list of members assigned to the task.
      *
-     * @return The list of members assigned to the task.
+     * @return The read-only list of members assigned to the task.
      */
     public List<Member> getMembers() {
-        return new ArrayList<>(members);
+        return EntityLocks.read(id, this, task -> task.members);
     }
 
     /**
@@ -157,16 +274,27 @@ public class Task {
      * @param members The list of members to be set.
      */
     public void setMembers(List<Member> members) {
-        this.members = new ArrayList<>(members);
+        List<Member> newValue = Collections.unmodifiableList(new ArrayList<>(members));
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        List<Member> oldValue;
+        try {
+            oldValue = this.members;
+            preserve();
+            this.members = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("members", oldValue, newValue);
     }
 
     /**
      * Gets the list of work orders related to the task.
      *
-     * @return The list of work orders related to the task.
+     * @return The read-only list of work orders related to the task.
      */
     public List<WorkOrder> getWorkOrders() {
-        return new ArrayList<>(workOrders);
+        return EntityLocks.read(id, this, task -> task.workOrders);
     }
 
     /**
@@ -175,7 +303,18 @@ public class Task {
      * @param workOrders The list of work orders to be set.
      */
     public void setWorkOrders(List<WorkOrder> workOrders) {
-        this.workOrders = new ArrayList<>(workOrders);
+        List<WorkOrder> newValue = Collections.unmodifiableList(new ArrayList<>(workOrders));
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        List<WorkOrder> oldValue;
+        try {
+            oldValue = this.workOrders;
+            preserve();
+            this.workOrders = newValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("workOrders", oldValue, newValue);
     }
 
     /**
@@ -184,20 +323,71 @@ public class Task {
      * @return The end date of the task.
      */
     public LocalDate getEndDate() {
-        return endDate;
+        return EntityLocks.read(id, this, task -> task.endDate);
     }
 
     /**
-     * Sets the end date of the task.
+     * Sets the end date of the task. The change is notified as a change of the
+     * {@code "dates"} of the task.
      *
      * @param endDate The end date to be set.
      * @throws IllegalArgumentException if endDate is before the start date.
      */
     public void setEndDate(LocalDate endDate) {
-        if (startDate != null && endDate.isBefore(startDate)) {
-            throw new IllegalArgumentException("End date cannot be before the start date.");
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        DateRange oldValue;
+        DateRange newValue;
+        try {
+            if (startDate != null && endDate.isBefore(startDate)) {
+                throw new IllegalArgumentException("End date cannot be before the start date.");
+            }
+            oldValue = new DateRange(startDate, this.endDate);
+            preserve();
+            this.endDate = endDate;
+            newValue = new DateRange(startDate, endDate);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        this.endDate = endDate;
+        fireChange("dates", oldValue, newValue);
+    }
+
+    /**
+     * Gets the start and end dates of the task, read together so that they are never
+     * those of two different {@link #reschedule(LocalDate, LocalDate) reschedulings}.
+     *
+     * @return The dates of the task.
+     */
+    public DateRange getDates() {
+        return EntityLocks.read(id, this, task -> new DateRange(task.startDate, task.endDate));
+    }
+
+    /**
+     * Moves the task to new start and end dates at once. Unlike two calls to the date
+     * setters, the change cannot fail because of the dates being replaced, no other
+     * thread sees one date moved without the other, and the listeners are notified of a
+     * single change of the {@code "dates"} of the task.
+     *
+     * @param startDate The new start date, or null.
+     * @param endDate   The new end date, or null.
+     * @throws IllegalArgumentException if startDate is after endDate.
+     */
+    public void reschedule(LocalDate startDate, LocalDate endDate) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date cannot be after the end date.");
+        }
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        DateRange oldValue;
+        try {
+            oldValue = new DateRange(this.startDate, this.endDate);
+            preserve();
+            this.startDate = startDate;
+            this.endDate = endDate;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("dates", oldValue, new DateRange(startDate, endDate));
     }
 
     /**
@@ -206,7 +396,7 @@ public class Task {
      * @return The status of the task.
      */
     public TaskStatus getStatus() {
-        return status;
+        return EntityLocks.read(id, this, task -> task.status);
     }
 
     /**
@@ -215,25 +405,54 @@ public class Task {
      * @param status The status to be set.
      */
     public void setStatus(TaskStatus status) {
-        this.status = status;
+        StampedLock lock = lock();
+        long stamp = lock.writeLock();
+        TaskStatus oldValue;
+        try {
+            oldValue = this.status;
+            preserve();
+            this.status = status;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("status", oldValue, status);
+    }
+
+    private StampedLock lock() {
+        return EntityLocks.forId(id);
     }
 
     /**
-     * Generates a random ID using the specified logic.
+     * Keeps the current values in the open snapshots before a setter changes them, under
+     * the write lock.
+     */
+    private void preserve() {
+        if (initialized && WorkspaceSnapshot.needsVersion(this)) {
+            WorkspaceSnapshot.preserve(this, version());
+        }
+    }
+
+    /**
+     * Copies the current values, read without locking.
      *
-     * @return A randomly generated ID.
+     * @return The version of the task.
      */
-    private static String generateRandomId() {
-        int length = 10;
-        Random random = new Random();
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder generatedId = new StringBuilder();
+    TaskVersion version() {
+        return new TaskVersion(this, description, priority, materials, notifications, startDate, members,
+                workOrders, endDate, status);
+    }
 
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId.append(characters.charAt(randomIndex));
+    /**
+     * Notifies the entity listeners of a change, once the task is fully constructed. It
+     * is called after the lock is released, since listeners read the task.
+     *
+     * @param property The name of the modified property.
+     * @param oldValue The previous value.
+     * @param newValue The new value.
+     */
+    private void fireChange(String property, Object oldValue, Object newValue) {
+        if (initialized) {
+            EntityEvents.fire(this, property, oldValue, newValue);
         }
-
-        return generatedId.toString();
     }
 }
@@ -0,0 +1,101 @@
+package Entities;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Represents the values of a task as seen by a {@link WorkspaceSnapshot}.
+ */
+public class TaskVersion {
+
+    private final Task task;
+    private final String description;
+    private final int priority;
+    private final List<Material> materials;
+    private final List<Notification> notifications;
+    private final LocalDate startDate;
+    private final List<Member> members;
+    private final List<WorkOrder> workOrders;
+    private final LocalDate endDate;
+    private final TaskStatus status;
+
+    /**
+     * Constructs a TaskVersion object with the specified parameters.
+     *
+     * @param task          The task.
+     * @param description   The description of the task.
+     * @param priority      The priority level of the task.
+     * @param materials     The read-only list of materials associated with the task.
+     * @param notifications The read-only list of notifications associated with the task.
+     * @param startDate     The start date of the task.
+     * @param members       The read-only list of members assigned to the task.
+     * @param workOrders    The read-only list of work orders related to the task.
+     * @param endDate       The end date of the task.
+     * @param status        The status of the task.
+     */
+    TaskVersion(Task task, String description, int priority, List<Material> materials,
+                List<Notification> notifications, LocalDate startDate, List<Member> members,
+                List<WorkOrder> workOrders, LocalDate endDate, TaskStatus status) {
+        this.task = task;
+        this.description = description;
+        this.priority = priority;
+        this.materials = materials;
+        this.notifications = notifications;
+        this.startDate = startDate;
+        this.members = members;
+        this.workOrders = workOrders;
+        this.endDate = endDate;
+        this.status = status;
+    }
+
+    /**
+     * Gets the ID of the task.
+     *
+     * @return The ID of the task, which never changes.
+     */
+    public String getId() {
+        return task.getId();
+    }
+
+    // Getters
+
+    public Task getTask() {
+        return task;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public List<Material> getMaterials() {
+        return materials;
+    }
+
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public List<WorkOrder> getWorkOrders() {
+        return workOrders;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+}
@@ -1,23 +1,37 @@
 package Entities;
 
+import Security.PasswordHasher;
+import Validation.UserField;
+import Validation.UserValidator;
+
 import java.time.LocalDate;
-import java.util.Random;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents a user in the system.
+ * <p>
+ * Setters validate their value, then store it under the {@link EntityLocks lock} of the
+ * user; getters read without blocking.
+ * <p>
+ * A password is only kept as a salted hash, computed on the threads of the
+ * {@link PasswordHasher} so that creating a user or changing a password returns at once.
+ * A hash loaded from storage or from an import is taken by the {@code restore} factories
+ * only: {@link #setPassword(String)} always treats its value as a password. A user
+ * received from a server has no hash, which no password matches.
  */
 public class User  {
     private final String id;
     private String username;
-    private String password;
+    private CompletableFuture<String> password;
     private String fullName;
     private String phoneNumber;
     private LocalDate birthDay;
     private String email;
-    private String role;
+    private final String role;
     private final LocalDate registrationDate;
-    private Sex sex;
+    private final Sex sex;
+    private boolean initialized;
 
     /**
      * Constructs a new User with the specified parameters.
@@ -33,40 +47,63 @@ public class User  {
      * @param skill
      */
     public User(String username, String password, String fullName, String phoneNumber, LocalDate birthDay, String email, String role, Sex sex, Skill skill) {
-        this.id = generateRandomId();
+        this(IdGenerator.nextId(User.class), username, password, false, fullName, phoneNumber, birthDay, email, role,
+                sex);
+    }
+
+    /**
+     * Constructs a User, with a password or an encoded hash of it.
+     */
+    User(String id, String username, String password, boolean encoded, String fullName, String phoneNumber,
+         LocalDate birthDay, String email, String role, Sex sex) {
+        this.id = id;
         setUsername(username);
-        setPassword(password);
+        if (encoded) {
+            if (password != null && !PasswordHasher.isEncoded(password)) {
+                throw new IllegalArgumentException("Password hash is not a valid encoded hash");
+            }
+        } else {
+            UserValidator.DEFAULT.require(UserField.PASSWORD, password);
+        }
         setFullName(fullName);
         setPhoneNumber(phoneNumber);
         setBirthDay(birthDay);
         setEmail(email);
-        this.role = role;
+        this.password = encoded ? CompletableFuture.completedFuture(password)
+                : PasswordHasher.getDefault().hashAsync(password);
+        this.role = ValueRegistry.role(role);
         this.registrationDate = LocalDate.now();
         this.sex = sex;
+        this.initialized = true;
     }
 
-
     /**
-     * Generates a random alphanumeric ID.
+     * Constructs a User loaded from storage or from an import, keeping its ID.
      *
-     * @return The randomly generated alphanumeric ID.
+     * @param id           The ID of the user, or null to generate one.
+     * @param username     The username of the user.
+     * @param passwordHash The encoded hash of the password of the user, as returned by
+     *                     {@link #getPassword()}, or null if the credentials were left out.
+     * @param fullName     The full name of the user.
+     * @param phoneNumber  The phone number of the user.
+     * @param birthDay     The birthday of the user.
+     * @param email        The email address of the user.
+     * @param role         The role of the user.
+     * @param sex          The gender of the user.
+     * @return The user.
+     * @throws IllegalArgumentException if the ID is empty, the hash is not an encoded hash
+     *                                  or a field is invalid.
      */
-    private String generateRandomId() {
-        int length = 4;
-        Random random = new Random();
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        String generatedId = "";
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId += characters.charAt(randomIndex);
-        }
-
-        return generatedId;
+    public static User restore(String id, String username, String passwordHash, String fullName, String phoneNumber,
+                               LocalDate birthDay, String email, String role, Sex sex) {
+        return new User(IdGenerator.restore(User.class, id), username, passwordHash, true, fullName, phoneNumber,
+                birthDay, email, role, sex);
     }
 
 
 
+
+
     /**
      * Sets the phone number of the user.
      *
@@ -74,26 +111,23 @@ public class User  {
      * @throws IllegalArgumentException if the phone number is invalid.
      */
     public void setPhoneNumber(String phoneNumber) {
-        if (!isValidPhoneNumber(phoneNumber)) {
-            throw new IllegalArgumentException("Invalid phone number");
+        UserValidator.DEFAULT.require(UserField.PHONE_NUMBER, phoneNumber);
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.phoneNumber;
+            this.phoneNumber = phoneNumber;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        this.phoneNumber = phoneNumber;
+        fireChange("phoneNumber", oldValue, phoneNumber);
     }
 
     public String getId() {
         return id;
     }
 
-    /**
-     * Checks if the provided phone number is valid.
-     *
-     * @param phoneNumber The phone number to be validated.
-     * @return true if the phone number is valid, false otherwise.
-     */
-    private boolean isValidPhoneNumber(String phoneNumber) {
-        return Pattern.matches("\\+?[0-9. ()-]{10,25}", phoneNumber);
-    }
-
     /**
      * Sets the full name of the user.
      *
@@ -101,10 +135,17 @@ public class User  {
      * @throws IllegalArgumentException if the full name is null or empty.
      */
     public void setFullName(String fullName) {
-        if (fullName == null || fullName.isEmpty()) {
-            throw new IllegalArgumentException("Full name cannot be null or empty");
+        UserValidator.DEFAULT.require(UserField.FULL_NAME, fullName);
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.fullName;
+            this.fullName = fullName;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        this.fullName = fullName;
+        fireChange("fullName", oldValue, fullName);
     }
 
     /**
@@ -114,34 +155,58 @@ public class User  {
      * @throws IllegalArgumentException if the username is null or empty.
      */
     public void setUsername(String username) {
-        if (username == null || username.isEmpty()) {
-            throw new IllegalArgumentException("Username cannot be null or empty");
+        UserValidator.DEFAULT.require(UserField.USERNAME, username);
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.username;
+            this.username = username;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        this.username = username;
+        fireChange("username", oldValue, username);
     }
 
     public String getUsername() {
-        return username;
+        return EntityLocks.read(id, this, user -> user.username);
     }
 
+    /**
+     * Gets the encoded hash of the password of the user, waiting for it to be computed if
+     * the password was just set.
+     *
+     * @return The encoded password hash, or null if the credentials of the user were left
+     * out.
+     * @see PasswordHasher#verify(String, String)
+     */
     public String getPassword() {
-        return password;
+        return getPasswordHash().join();
+    }
+
+    /**
+     * Gets the encoded hash of the password of the user without waiting for it.
+     *
+     * @return A future completed with the encoded password hash.
+     */
+    public CompletableFuture<String> getPasswordHash() {
+        return EntityLocks.read(id, this, user -> user.password);
     }
 
     public String getFullName() {
-        return fullName;
+        return EntityLocks.read(id, this, user -> user.fullName);
     }
 
     public String getPhoneNumber() {
-        return phoneNumber;
+        return EntityLocks.read(id, this, user -> user.phoneNumber);
     }
 
     public LocalDate getBirthDay() {
-        return birthDay;
+        return EntityLocks.read(id, this, user -> user.birthDay);
     }
 
     public String getEmail() {
-        return email;
+        return EntityLocks.read(id, this, user -> user.email);
     }
 
     public String getRole() {
@@ -166,7 +231,16 @@ public class User  {
         if (birthDay.isAfter(LocalDate.now())) {
             throw new IllegalArgumentException("Birthday cannot be in the future");
         }
-        this.birthDay = birthDay;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        LocalDate oldValue;
+        try {
+            oldValue = this.birthDay;
+            this.birthDay = birthDay;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireChange("birthDay", oldValue, birthDay);
     }
 
     /**
@@ -176,53 +250,49 @@ public class User  {
      * @throws IllegalArgumentException if the email address is invalid.
      */
     public void setEmail(String email) {
-        if (!isValidEmail(email)) {
-            throw new IllegalArgumentException("Invalid email format");
+        UserValidator.DEFAULT.require(UserField.EMAIL, email);
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.email;
+            this.email = email;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        this.email = email;
+        fireChange("email", oldValue, email);
     }
 
     /**
-     * Checks if the provided email address is valid.
-     *
-     * @param email The email address to be validated.
-     * @return true if the email address is valid, false otherwise.
-     */
-    private boolean isValidEmail(String email) {
-        return Pattern.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$", email);
-    }
-
-    /**
-     * Sets the password of the user.
+     * Sets the password of the user. Only a salted hash of the password is kept, computed
+     * on the hashing threads; {@link #getPassword()} waits for it.
      *
      * @param password The password to be set.
      * @throws IllegalArgumentException if the password is null, empty, or doesn't meet the criteria.
      */
     public void setPassword(String password) {
-        if (password == null || password.isEmpty()) {
-            throw new IllegalArgumentException("Password cannot be null or empty");
-        }
-
-        if (password.length() < 8) {
-            throw new IllegalArgumentException("Password must be at least 8 characters long");
-        }
-
-        if (!isValidPassword(password)) {
-            throw new IllegalArgumentException("Password must include at least one uppercase letter, one lowercase letter, one digit, and one special character");
+        UserValidator.DEFAULT.require(UserField.PASSWORD, password);
+        CompletableFuture<String> hash = PasswordHasher.getDefault().hashAsync(password);
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        try {
+            this.password = hash;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-
-        this.password = password;
     }
 
     /**
-     * Checks if the provided password meets the criteria.
+     * Notifies the entity listeners of a change, once the user is fully constructed.
+     * Password changes are not notified, so that hashes are not handed to listeners.
      *
-     * @param password The password to be validated.
-     * @return true if the password is valid, false otherwise.
+     * @param property The name of the modified property.
+     * @param oldValue The previous value.
+     * @param newValue The new value.
      */
-    private boolean isValidPassword(String password) {
-        return password.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@#$%^&+=]).+$");
+    private void fireChange(String property, Object oldValue, Object newValue) {
+        if (initialized) {
+            EntityEvents.fire(this, property, oldValue, newValue);
+        }
     }
-
-
 }
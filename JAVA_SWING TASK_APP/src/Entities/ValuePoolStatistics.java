@@ -0,0 +1,52 @@
+package Entities;
+
+/**
+ * Represents the counters of one pool of the {@link ValueRegistry}.
+ */
+public class ValuePoolStatistics {
+
+    private final String name;
+    private final int distinct;
+    private final long lookups;
+    private final long duplicates;
+    private final long bytesSaved;
+
+    /**
+     * Constructs a ValuePoolStatistics object with the specified parameters.
+     *
+     * @param name       The name of the pool.
+     * @param distinct   The number of canonical values in the pool.
+     * @param lookups    The number of values canonicalized by the pool.
+     * @param duplicates The number of values replaced by an equal canonical instance.
+     * @param bytesSaved The estimated heap size of the replaced values.
+     */
+    ValuePoolStatistics(String name, int distinct, long lookups, long duplicates, long bytesSaved) {
+        this.name = name;
+        this.distinct = distinct;
+        this.lookups = lookups;
+        this.duplicates = duplicates;
+        this.bytesSaved = bytesSaved;
+    }
+
+    // Getters
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDistinct() {
+        return distinct;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+}
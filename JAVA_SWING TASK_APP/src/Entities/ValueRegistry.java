@@ -0,0 +1,227 @@
+package Entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonical instances of the values repeated across many entities: user roles, material
+ * types and skills. Equal values share a single instance, so a directory of 200k users
+ * keeps one "Developer" string and one skill object per distinct name and level.
+ * <p>
+ * Canonical skills are shared and cannot be modified; {@link Skill#withLevel(String)} and
+ * {@link Skill#withName(String)} return the canonical copy with the change, which the
+ * owner then sets in place of the shared one.
+ * <p>
+ * The heap saved is estimated when a value is replaced by its canonical instance, from
+ * the size of the replaced objects on a 64-bit JVM with compressed references, assuming
+ * they are dropped by the caller.
+ */
+public final class ValueRegistry {
+
+    private static final int STRING_SIZE = 24;
+    private static final int ARRAY_HEADER_SIZE = 16;
+    private static final int SKILL_SIZE = 24;
+
+    private static final Pool<String, String> ROLES = new Pool<>("Roles");
+    private static final Pool<String, String> MATERIAL_TYPES = new Pool<>("Material types");
+    private static final Pool<SkillKey, Skill> SKILLS = new Pool<>("Skills");
+
+    /**
+     * The canonical values of one kind, with their counters.
+     */
+    private static final class Pool<K, V> {
+        final String name;
+        final ConcurrentHashMap<K, V> values = new ConcurrentHashMap<>();
+        final LongAdder lookups = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        final LongAdder bytesSaved = new LongAdder();
+
+        Pool(String name) {
+            this.name = name;
+        }
+
+        void replaced(long size) {
+            duplicates.increment();
+            bytesSaved.add(size);
+        }
+
+        ValuePoolStatistics statistics() {
+            return new ValuePoolStatistics(name, values.size(), lookups.sum(), duplicates.sum(), bytesSaved.sum());
+        }
+    }
+
+    /**
+     * The name and level identifying a skill.
+     */
+    private static final class SkillKey {
+        final String name;
+        final String level;
+
+        SkillKey(String name, String level) {
+            this.name = name;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof SkillKey)) {
+                return false;
+            }
+            SkillKey key = (SkillKey) other;
+            return Objects.equals(name, key.name) && Objects.equals(level, key.level);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, level);
+        }
+    }
+
+    private ValueRegistry() {
+    }
+
+    /**
+     * Gets the canonical instance of a user role.
+     *
+     * @param role The role, which may be null.
+     * @return The canonical role equal to the given one, or null.
+     */
+    public static String role(String role) {
+        return intern(ROLES, role);
+    }
+
+    /**
+     * Gets the canonical instance of a material type.
+     *
+     * @param type The type, which may be null.
+     * @return The canonical type equal to the given one, or null.
+     */
+    public static String materialType(String type) {
+        return intern(MATERIAL_TYPES, type);
+    }
+
+    /**
+     * Gets the shared skill with a name and a level.
+     *
+     * @param name  The name of the skill.
+     * @param level The level of the skill, which may be null.
+     * @return The shared skill.
+     */
+    public static Skill skill(String name, String level) {
+        return intern(name, level, 0);
+    }
+
+    /**
+     * Gets the shared skill equal to a skill.
+     *
+     * @param skill The skill, which may be null or already shared.
+     * @return The shared skill with the same name and level, or null.
+     */
+    public static Skill skill(Skill skill) {
+        if (skill == null || skill.isShared()) {
+            return skill;
+        }
+        return intern(skill.getName(), skill.getLevel(), SKILL_SIZE);
+    }
+
+    /**
+     * Gets the counters of each pool.
+     *
+     * @return The counters of the roles, material types and skills.
+     */
+    public static List<ValuePoolStatistics> getStatistics() {
+        List<ValuePoolStatistics> statistics = new ArrayList<>();
+        statistics.add(ROLES.statistics());
+        statistics.add(MATERIAL_TYPES.statistics());
+        statistics.add(SKILLS.statistics());
+        return statistics;
+    }
+
+    /**
+     * Formats the counters of each pool and the total heap saved, one pool per line.
+     *
+     * @return The report.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        long total = 0;
+        for (ValuePoolStatistics pool : getStatistics()) {
+            report.append(String.format(Locale.ROOT, "%-15s %,12d lookups %,10d distinct %,12d shared %12s saved%n",
+                    pool.getName(), pool.getLookups(), pool.getDistinct(), pool.getDuplicates(),
+                    formatBytes(pool.getBytesSaved())));
+            total += pool.getBytesSaved();
+        }
+        report.append(String.format(Locale.ROOT, "%-15s %s saved%n", "Total", formatBytes(total)));
+        return report.toString();
+    }
+
+    private static String intern(Pool<String, String> pool, String value) {
+        if (value == null) {
+            return null;
+        }
+        pool.lookups.increment();
+        String canonical = pool.values.putIfAbsent(value, value);
+        if (canonical == null) {
+            return value;
+        }
+        if (canonical != value) {
+            pool.replaced(sizeOf(value));
+        }
+        return canonical;
+    }
+
+    /**
+     * Gets the shared skill with a name and a level, counting the replaced skill object
+     * and its strings when they are not the ones of the shared skill.
+     */
+    private static Skill intern(String name, String level, int skillSize) {
+        SKILLS.lookups.increment();
+        SkillKey key = new SkillKey(name, level);
+        Skill canonical = SKILLS.values.get(key);
+        if (canonical == null) {
+            Skill created = new Skill(name, level);
+            created.share();
+            canonical = SKILLS.values.putIfAbsent(key, created);
+            if (canonical == null) {
+                return created;
+            }
+        }
+        long size = skillSize;
+        if (name != null && name != canonical.getName()) {
+            size += sizeOf(name);
+        }
+        if (level != null && level != canonical.getLevel()) {
+            size += sizeOf(level);
+        }
+        SKILLS.replaced(size);
+        return canonical;
+    }
+
+    /**
+     * Estimates the heap size of a string: the string object and its byte array, holding
+     * one byte per character for Latin-1 text and two otherwise.
+     */
+    private static long sizeOf(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_SIZE + ((ARRAY_HEADER_SIZE + (long) value.length() * bytesPerChar + 7) & ~7L);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -1,15 +1,18 @@
 package Entities;
 
-import java.util.Random;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Represents a work order with various properties such as title, description .
+ * <p>
+ * Setters store their value under the {@link EntityLocks lock} of the work order and
+ * getters read without blocking.
  */
 public class WorkOrder {
 
     private String title;
     private String description;
-    private String id;
+    private final String id;
 
     /**
      * Constructs a WorkOrder object with a generated ID and the specified parameters.
@@ -18,50 +21,66 @@ public class WorkOrder {
      * @param description The description of the work order.
      */
     public WorkOrder(String title, String description) {
+        this(IdGenerator.nextId(WorkOrder.class), title, description);
+    }
+
+    private WorkOrder(String id, String title, String description) {
         this.title = title;
         this.description = description;
-        this.id = generateId();
+        this.id = id;
+    }
+
+    /**
+     * Constructs a WorkOrder loaded from storage or from another replica, keeping its ID.
+     *
+     * @param id          The ID of the work order, or null to generate one.
+     * @param title       The title of the work order.
+     * @param description The description of the work order.
+     * @return The work order.
+     * @throws IllegalArgumentException if the ID is empty.
+     */
+    public static WorkOrder restore(String id, String title, String description) {
+        return new WorkOrder(IdGenerator.restore(WorkOrder.class, id), title, description);
     }
 
     // Getters and setters
 
     public String getTitle() {
-        return title;
+        return EntityLocks.read(id, this, workOrder -> workOrder.title);
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.title;
+            this.title = title;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "title", oldValue, title);
     }
 
     public String getDescription() {
-        return description;
+        return EntityLocks.read(id, this, workOrder -> workOrder.description);
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.writeLock();
+        String oldValue;
+        try {
+            oldValue = this.description;
+            this.description = description;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        EntityEvents.fire(this, "description", oldValue, description);
     }
 
     public String getId() {
         return id;
     }
-
-    /**
-     * Generates a random ID for the work order.
-     *
-     * @return A randomly generated work order ID.
-     */
-    private static String generateId() {
-        int length = 8;  // Set the desired length of the ID
-        Random random = new Random();
-        String characters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        String generatedId = "";
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = random.nextInt(characters.length());
-            generatedId += characters.charAt(randomIndex);
-        }
-
-        return generatedId;
-    }
 }
 
@@ -0,0 +1,226 @@
+package Entities;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A point-in-time view of projects, their objectives and their tasks, read without
+ * locking while other threads keep modifying them.
+ * <p>
+ * Opening a snapshot copies nothing but the list of projects. While it is open, the first
+ * change of a project, objective or task keeps the values it had before in the snapshot,
+ * and the snapshot reads those instead of the current ones: a report walking the
+ * snapshot sees every entity as it was when the snapshot was opened, never half of an
+ * edit. Entities that are not changed are read directly.
+ * <p>
+ * Writers only pay for the open snapshots: when there is none, a setter checks an empty
+ * list, and each snapshot copies an entity once however many times it changes. The old
+ * values belong to the snapshot, so they are garbage collected once it is closed, or
+ * once it is no longer referenced if it was never closed; the next setter then drops it
+ * from the open snapshots.
+ */
+public final class WorkspaceSnapshot implements AutoCloseable {
+
+    private static final CopyOnWriteArrayList<WeakReference<WorkspaceSnapshot>> OPEN = new CopyOnWriteArrayList<>();
+
+    private final WeakReference<WorkspaceSnapshot> reference = new WeakReference<>(this);
+    private final ConcurrentHashMap<Object, Object> versions = new ConcurrentHashMap<>();
+    private final List<Project> projects;
+    private volatile boolean closed;
+
+    private WorkspaceSnapshot(List<Project> projects) {
+        OPEN.add(reference);
+        this.projects = Collections.unmodifiableList(new ArrayList<>(projects));
+    }
+
+    /**
+     * Opens a snapshot of projects and of everything reachable from them.
+     *
+     * @param projects The projects.
+     * @return The snapshot, to be closed once read.
+     */
+    public static WorkspaceSnapshot open(List<Project> projects) {
+        return new WorkspaceSnapshot(projects);
+    }
+
+    /**
+     * Gets the projects given when the snapshot was opened.
+     *
+     * @return The read-only list of the projects.
+     */
+    public List<Project> getProjects() {
+        return projects;
+    }
+
+    /**
+     * Gets the values of a project when the snapshot was opened.
+     *
+     * @param project The project.
+     * @return The version of the project seen by the snapshot.
+     * @throws IllegalStateException if the snapshot is closed.
+     */
+    public ProjectVersion get(Project project) {
+        return read(project.getId(), project, ProjectVersion.class, project::version);
+    }
+
+    /**
+     * Gets the values of an objective when the snapshot was opened.
+     *
+     * @param objective The objective.
+     * @return The version of the objective seen by the snapshot.
+     * @throws IllegalStateException if the snapshot is closed.
+     */
+    public ObjectiveVersion get(Objective objective) {
+        return read(objective.getId(), objective, ObjectiveVersion.class, objective::version);
+    }
+
+    /**
+     * Gets the values of a task when the snapshot was opened.
+     *
+     * @param task The task.
+     * @return The version of the task seen by the snapshot.
+     * @throws IllegalStateException if the snapshot is closed.
+     */
+    public TaskVersion get(Task task) {
+        return read(task.getId(), task, TaskVersion.class, task::version);
+    }
+
+    /**
+     * Gets the objectives a project had when the snapshot was opened.
+     *
+     * @param project The project.
+     * @return The read-only list of the objectives of the project.
+     */
+    public List<Objective> getObjectives(Project project) {
+        return get(project).getObjectiveList();
+    }
+
+    /**
+     * Gets the tasks an objective had when the snapshot was opened.
+     *
+     * @param objective The objective.
+     * @return The read-only list of the tasks of the objective.
+     */
+    public List<Task> getTasks(Objective objective) {
+        return get(objective).getTaskList();
+    }
+
+    /**
+     * Walks the tasks of the objectives of the projects, in order. A task listed by two
+     * objectives is visited twice.
+     *
+     * @param action The action called with the version of each task.
+     */
+    public void forEachTask(Consumer<TaskVersion> action) {
+        for (Project project : projects) {
+            for (Objective objective : getObjectives(project)) {
+                for (Task task : getTasks(objective)) {
+                    action.accept(get(task));
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the entities changed since the snapshot was opened.
+     *
+     * @return The number of old versions kept by the snapshot.
+     */
+    public int getVersionCount() {
+        return versions.size();
+    }
+
+    /**
+     * Releases the old versions kept by the snapshot. The snapshot can no longer be read.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        OPEN.remove(reference);
+        versions.clear();
+    }
+
+    /**
+     * Tells whether a setter must keep the old values of the entity it changes, that is if
+     * an open snapshot has no older version of the entity. Called under the write lock of
+     * the entity.
+     *
+     * @param entity The entity about to change.
+     * @return true if the current values must be passed to {@link #preserve(Object, Object)}.
+     */
+    static boolean needsVersion(Object entity) {
+        if (OPEN.isEmpty()) {
+            return false;
+        }
+        boolean needed = false;
+        for (WeakReference<WorkspaceSnapshot> reference : OPEN) {
+            WorkspaceSnapshot snapshot = reference.get();
+            if (snapshot == null) {
+                OPEN.remove(reference);
+            } else if (!snapshot.versions.containsKey(entity)) {
+                needed = true;
+            }
+        }
+        return needed;
+    }
+
+    /**
+     * Counts the snapshots not closed yet, including those garbage collected since the
+     * last setter.
+     *
+     * @return The number of snapshots followed by the setters.
+     */
+    static int openCount() {
+        return OPEN.size();
+    }
+
+    /**
+     * Keeps the values of an entity about to change in the open snapshots that did not
+     * already keep older ones. Called under the write lock of the entity.
+     *
+     * @param entity  The entity.
+     * @param version The current values of the entity.
+     */
+    static void preserve(Object entity, Object version) {
+        for (WeakReference<WorkspaceSnapshot> reference : OPEN) {
+            WorkspaceSnapshot snapshot = reference.get();
+            if (snapshot == null) {
+                OPEN.remove(reference);
+            } else {
+                snapshot.versions.putIfAbsent(entity, version);
+            }
+        }
+    }
+
+    /**
+     * Reads the version of an entity kept by the snapshot or else its current values,
+     * optimistically first, then under the read lock of the entity if a setter ran
+     * meanwhile.
+     */
+    private <V> V read(String id, Object entity, Class<V> type, Supplier<V> current) {
+        if (closed) {
+            throw new IllegalStateException("The snapshot is closed");
+        }
+        StampedLock lock = EntityLocks.forId(id);
+        long stamp = lock.tryOptimisticRead();
+        Object saved = versions.get(entity);
+        V version = saved != null ? type.cast(saved) : current.get();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                saved = versions.get(entity);
+                version = saved != null ? type.cast(saved) : current.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return version;
+    }
+}
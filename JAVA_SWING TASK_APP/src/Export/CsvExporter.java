@@ -0,0 +1,105 @@
+package Export;
+
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Exports tasks as comma-separated values, one row per task with the IDs of its project
+ * and objective.
+ * <p>
+ * The columns are project, objective, id, description, priority, status, startDate,
+ * endDate and members, the members being IDs separated by semicolons. Rows end with
+ * CRLF and fields holding a comma, a quote or a line break are quoted, as in RFC 4180.
+ * The file can be read back as a task file by the {@link Import.BulkImporter}.
+ */
+public final class CsvExporter extends ProjectExporter {
+
+    private static final String HEADER = "project,objective,id,description,priority,status,startDate,endDate,members\r\n";
+
+    /**
+     * Constructs an exporter writing every task.
+     */
+    public CsvExporter() {
+        this(ExportFilter.ALL);
+    }
+
+    /**
+     * Constructs an exporter writing the tasks accepted by a filter.
+     *
+     * @param filter The filter selecting the tasks.
+     */
+    public CsvExporter(ExportFilter filter) {
+        super(filter);
+    }
+
+    @Override
+    protected void writeHeader(Writer writer) throws IOException {
+        writer.write(HEADER);
+    }
+
+    @Override
+    protected void writeTask(Writer writer, Project project, Objective objective, Task task, int index)
+            throws IOException {
+        writeField(writer, project.getId());
+        writer.write(',');
+        writeField(writer, objective.getId());
+        writer.write(',');
+        writeField(writer, task.getId());
+        writer.write(',');
+        writeField(writer, task.getDescription());
+        writer.write(',');
+        writer.write(Integer.toString(task.getPriority()));
+        writer.write(',');
+        if (task.getStatus() != null) {
+            writer.write(task.getStatus().getDescription());
+        }
+        writer.write(',');
+        if (task.getStartDate() != null) {
+            writeDate(writer, task.getStartDate(), true);
+        }
+        writer.write(',');
+        if (task.getEndDate() != null) {
+            writeDate(writer, task.getEndDate(), true);
+        }
+        writer.write(',');
+        List<Member> members = task.getMembers();
+        if (!members.isEmpty()) {
+            StringBuilder ids = new StringBuilder();
+            for (Member member : members) {
+                if (ids.length() > 0) {
+                    ids.append(';');
+                }
+                ids.append(member.getId());
+            }
+            writeField(writer, ids.toString());
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quoted = true;
+                break;
+            }
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,97 @@
+package Export;
+
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Selects the tasks written by a {@link ProjectExporter}, by status and by date range.
+ * <p>
+ * A filter is immutable: the {@code with} methods return a modified copy.
+ */
+public final class ExportFilter {
+
+    /**
+     * The filter accepting every task.
+     */
+    public static final ExportFilter ALL = new ExportFilter(EnumSet.allOf(TaskStatus.class), true, null, null);
+
+    private final EnumSet<TaskStatus> statuses;
+    private final boolean withoutStatus;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private ExportFilter(EnumSet<TaskStatus> statuses, boolean withoutStatus, LocalDate from, LocalDate to) {
+        this.statuses = statuses;
+        this.withoutStatus = withoutStatus;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns a copy of this filter accepting only the tasks having one of the given
+     * statuses. Tasks without status are rejected.
+     *
+     * @param statuses The accepted statuses.
+     * @return The modified filter.
+     */
+    public ExportFilter withStatuses(Set<TaskStatus> statuses) {
+        EnumSet<TaskStatus> accepted = EnumSet.noneOf(TaskStatus.class);
+        accepted.addAll(statuses);
+        return new ExportFilter(accepted, false, from, to);
+    }
+
+    /**
+     * Returns a copy of this filter accepting only the tasks overlapping a date range. A
+     * task without start date is taken as lasting its end day, and a task without any
+     * date is rejected once a bound is set.
+     *
+     * @param from The first day of the range, or null for no lower bound.
+     * @param to   The last day of the range, or null for no upper bound.
+     * @return The modified filter.
+     * @throws IllegalArgumentException if the range ends before it starts.
+     */
+    public ExportFilter withDates(LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("The range cannot end before it starts");
+        }
+        return new ExportFilter(statuses, withoutStatus, from, to);
+    }
+
+    /**
+     * Tells whether this filter accepts every task.
+     *
+     * @return true if no status or date restriction is set.
+     */
+    public boolean acceptsAll() {
+        return withoutStatus && statuses.size() == TaskStatus.values().length && from == null && to == null;
+    }
+
+    /**
+     * Checks a task against the status and the date range of this filter.
+     *
+     * @param task The task.
+     * @return true if the task is to be exported.
+     */
+    public boolean accepts(Task task) {
+        TaskStatus status = task.getStatus();
+        if (status == null ? !withoutStatus : !statuses.contains(status)) {
+            return false;
+        }
+        if (from == null && to == null) {
+            return true;
+        }
+        LocalDate end = task.getEndDate();
+        LocalDate start = task.getStartDate() == null ? end : task.getStartDate();
+        if (start == null) {
+            return false;
+        }
+        if (end == null) {
+            end = start;
+        }
+        return (from == null || !end.isBefore(from)) && (to == null || !start.isAfter(to));
+    }
+}
@@ -0,0 +1,194 @@
+package Export;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Exports tasks as an iCalendar file (RFC 5545), one all-day event per task from its
+ * start date to its end date, which calendar applications can subscribe to.
+ * <p>
+ * A task without start date is an event on its end day; a task without any date is not
+ * exported. The event UID is derived from the task ID, so reimporting an updated export
+ * updates the events instead of duplicating them. Lines longer than 75 bytes are folded.
+ */
+public final class ICalendarExporter extends ProjectExporter {
+
+    private static final int MAX_LINE_BYTES = 75;
+    private static final DateTimeFormatter STAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final Clock clock;
+    private String stamp;
+
+    /**
+     * Constructs an exporter writing every task.
+     */
+    public ICalendarExporter() {
+        this(ExportFilter.ALL, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs an ICalendarExporter object with the specified parameters.
+     *
+     * @param filter The filter selecting the tasks.
+     * @param clock  The clock giving the time stamp of the events.
+     */
+    public ICalendarExporter(ExportFilter filter, Clock clock) {
+        super(filter);
+        this.clock = clock;
+    }
+
+    @Override
+    protected boolean isExportable(Task task) {
+        return task.getStartDate() != null || task.getEndDate() != null;
+    }
+
+    @Override
+    protected void writeHeader(Writer writer) throws IOException {
+        stamp = clock.instant().atOffset(ZoneOffset.UTC).format(STAMP_FORMAT);
+        writer.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//TaskApp//Project export//EN\r\nCALSCALE:GREGORIAN\r\n");
+    }
+
+    @Override
+    protected void writeTask(Writer writer, Project project, Objective objective, Task task, int index)
+            throws IOException {
+        LocalDate end = task.getEndDate() == null ? task.getStartDate() : task.getEndDate();
+        LocalDate start = task.getStartDate() == null ? end : task.getStartDate();
+        writer.write("BEGIN:VEVENT\r\n");
+        writeLine(writer, "UID:" + escape(task.getId()) + "@taskapp");
+        writer.write("DTSTAMP:");
+        writer.write(stamp);
+        writer.write("\r\nDTSTART;VALUE=DATE:");
+        writeDate(writer, start, false);
+        // The end of an all-day event is exclusive
+        writer.write("\r\nDTEND;VALUE=DATE:");
+        writeDate(writer, end.plusDays(1), false);
+        writer.write("\r\n");
+        writeLine(writer, "SUMMARY:" + escape(task.getDescription() == null ? task.getId() : task.getDescription()));
+        writeLine(writer, "DESCRIPTION:" + escape("Project: " + text(project.getDescription(), project.getId())
+                + "\nObjective: " + text(objective.getDescription(), objective.getId())));
+        if (task.getStatus() != null) {
+            writer.write("STATUS:");
+            writer.write(eventStatus(task.getStatus()));
+            writer.write("\r\nCATEGORIES:");
+            writer.write(task.getStatus().getDescription());
+            writer.write("\r\n");
+        }
+        writer.write("PRIORITY:");
+        writer.write(Integer.toString(Math.min(9, Math.max(1, task.getPriority()))));
+        writer.write("\r\nEND:VEVENT\r\n");
+    }
+
+    @Override
+    protected void writeFooter(Writer writer) throws IOException {
+        writer.write("END:VCALENDAR\r\n");
+    }
+
+    /**
+     * Maps a task status to the status of an event: tentative until the task is started,
+     * confirmed once it is, cancelled if it was dropped.
+     */
+    private static String eventStatus(TaskStatus status) {
+        switch (status) {
+            case CANCELED:
+            case REJECTED:
+                return "CANCELLED";
+            case IN_PROGRESS:
+            case DONE:
+                return "CONFIRMED";
+            default:
+                return "TENTATIVE";
+        }
+    }
+
+    private static String text(String description, String id) {
+        return description == null ? id : description;
+    }
+
+    /**
+     * Escapes the characters with a meaning in iCalendar text values.
+     */
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case ';':
+                    replacement = "\\;";
+                    break;
+                case ',':
+                    replacement = "\\,";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "";
+                    break;
+                default:
+                    replacement = null;
+                    break;
+            }
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    /**
+     * Writes a content line, folded so that no line exceeds 75 bytes in UTF-8. Folding
+     * never splits a character.
+     */
+    private static void writeLine(Writer writer, String line) throws IOException {
+        int bytes = 0;
+        int start = 0;
+        int limit = MAX_LINE_BYTES;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int size;
+            int chars = 1;
+            if (c < 0x80) {
+                size = 1;
+            } else if (c < 0x800) {
+                size = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length()) {
+                size = 4;
+                chars = 2;
+            } else {
+                size = 3;
+            }
+            if (bytes + size > limit) {
+                writer.write(line, start, i - start);
+                writer.write("\r\n ");
+                start = i;
+                bytes = 0;
+                // The space starting the continuation line counts
+                limit = MAX_LINE_BYTES - 1;
+            }
+            bytes += size;
+            i += chars - 1;
+        }
+        writer.write(line, start, line.length() - start);
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,163 @@
+package Export;
+
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+/**
+ * Exports projects as a JSON document nesting their objectives and tasks:
+ * <pre>
+ * {"projects":[{"id":..., "manager":..., "objectives":[{"id":..., "tasks":[{"id":..., ...}]}]}]}
+ * </pre>
+ * Users are referred to by ID. The document is written as the projects are walked, one
+ * project per line.
+ */
+public final class JsonExporter extends ProjectExporter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Constructs an exporter writing every task.
+     */
+    public JsonExporter() {
+        this(ExportFilter.ALL);
+    }
+
+    /**
+     * Constructs an exporter writing the tasks accepted by a filter.
+     *
+     * @param filter The filter selecting the tasks.
+     */
+    public JsonExporter(ExportFilter filter) {
+        super(filter);
+    }
+
+    @Override
+    protected void writeHeader(Writer writer) throws IOException {
+        writer.write("{\"projects\":[");
+    }
+
+    @Override
+    protected void beginProject(Writer writer, Project project, int index) throws IOException {
+        writer.write(index == 0 ? "\n{\"id\":" : ",\n{\"id\":");
+        writeString(writer, project.getId());
+        writer.write(",\"description\":");
+        writeString(writer, project.getDescription());
+        writer.write(",\"manager\":");
+        writeString(writer, project.getManager() == null ? null : project.getManager().getId());
+        writeDates(writer, project.getStartDate(), project.getEndDate());
+        writer.write(",\"objectives\":[");
+    }
+
+    @Override
+    protected void beginObjective(Writer writer, Project project, Objective objective, int index) throws IOException {
+        writer.write(index == 0 ? "{\"id\":" : ",{\"id\":");
+        writeString(writer, objective.getId());
+        writer.write(",\"description\":");
+        writeString(writer, objective.getDescription());
+        writeDates(writer, objective.getStartDate(), objective.getEndDate());
+        writer.write(",\"tasks\":[");
+    }
+
+    @Override
+    protected void writeTask(Writer writer, Project project, Objective objective, Task task, int index)
+            throws IOException {
+        writer.write(index == 0 ? "{\"id\":" : ",{\"id\":");
+        writeString(writer, task.getId());
+        writer.write(",\"description\":");
+        writeString(writer, task.getDescription());
+        writer.write(",\"priority\":");
+        writer.write(Integer.toString(task.getPriority()));
+        writer.write(",\"status\":");
+        writeString(writer, task.getStatus() == null ? null : task.getStatus().getDescription());
+        writeDates(writer, task.getStartDate(), task.getEndDate());
+        writer.write(",\"members\":[");
+        boolean first = true;
+        for (Member member : task.getMembers()) {
+            if (!first) {
+                writer.write(',');
+            }
+            writeString(writer, member.getId());
+            first = false;
+        }
+        writer.write("]}");
+    }
+
+    @Override
+    protected void endObjective(Writer writer, Objective objective) throws IOException {
+        writer.write("]}");
+    }
+
+    @Override
+    protected void endProject(Writer writer, Project project) throws IOException {
+        writer.write("]}");
+    }
+
+    @Override
+    protected void writeFooter(Writer writer) throws IOException {
+        writer.write("\n]}\n");
+    }
+
+    private static void writeDates(Writer writer, LocalDate startDate, LocalDate endDate) throws IOException {
+        writer.write(",\"startDate\":");
+        writeDate(writer, startDate);
+        writer.write(",\"endDate\":");
+        writeDate(writer, endDate);
+    }
+
+    private static void writeDate(Writer writer, LocalDate date) throws IOException {
+        if (date == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        writeDate(writer, date, true);
+        writer.write('"');
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    writer.write("\\u00");
+                    writer.write(HEX[c >> 4]);
+                    writer.write(HEX[c & 0xF]);
+                    break;
+            }
+            start = i + 1;
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+}
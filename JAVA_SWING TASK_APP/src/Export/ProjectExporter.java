@@ -0,0 +1,253 @@
+package Export;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes projects, their objectives and their tasks to a stream in some format.
+ * <p>
+ * The export is streamed: each project is written as it is walked, through a fixed-size
+ * buffer, so memory use does not grow with the number of tasks when the projects are
+ * produced one at a time. Projects read from an {@link Persistence.EntityStore} are
+ * passed as its {@link Persistence.EntityStore#scanProjects() scan}, which decodes one
+ * project tree at a time without caching it; its record list would keep every decoded
+ * entity.
+ * <p>
+ * Only the tasks accepted by the {@link ExportFilter} are written. A project or objective
+ * is written when it has accepted tasks, or always if the filter accepts every task.
+ * Subclasses write the parts of the document; {@link #export} is synchronized, so they
+ * may keep the state of the current export in fields.
+ */
+public abstract class ProjectExporter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ExportFilter filter;
+
+    /**
+     * Constructs an exporter writing the tasks accepted by a filter.
+     *
+     * @param filter The filter selecting the tasks.
+     */
+    protected ProjectExporter(ExportFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Writes projects to a stream, in UTF-8. The stream is flushed but not closed.
+     *
+     * @param projects The projects to export.
+     * @param out      The stream to write to.
+     * @return The number of tasks written.
+     * @throws IOException if the stream cannot be written.
+     */
+    public synchronized int export(Iterable<Project> projects, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        int count = 0;
+        int projectIndex = 0;
+        writeHeader(writer);
+        for (Project project : projects) {
+            boolean projectStarted = false;
+            int objectiveIndex = 0;
+            for (Objective objective : project.getObjectiveList()) {
+                boolean objectiveStarted = false;
+                int taskIndex = 0;
+                for (Task task : objective.getTaskList()) {
+                    if (!filter.accepts(task) || !isExportable(task)) {
+                        continue;
+                    }
+                    if (!projectStarted) {
+                        beginProject(writer, project, projectIndex++);
+                        projectStarted = true;
+                    }
+                    if (!objectiveStarted) {
+                        beginObjective(writer, project, objective, objectiveIndex++);
+                        objectiveStarted = true;
+                    }
+                    writeTask(writer, project, objective, task, taskIndex++);
+                    count++;
+                }
+                if (!objectiveStarted && filter.acceptsAll()) {
+                    if (!projectStarted) {
+                        beginProject(writer, project, projectIndex++);
+                        projectStarted = true;
+                    }
+                    beginObjective(writer, project, objective, objectiveIndex++);
+                    objectiveStarted = true;
+                }
+                if (objectiveStarted) {
+                    endObjective(writer, objective);
+                }
+            }
+            if (!projectStarted && filter.acceptsAll()) {
+                beginProject(writer, project, projectIndex++);
+                projectStarted = true;
+            }
+            if (projectStarted) {
+                endProject(writer, project);
+            }
+        }
+        writeFooter(writer);
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Writes projects to a file channel, from its current position. The channel is not
+     * closed.
+     *
+     * @param projects The projects to export.
+     * @param channel  The channel to write to.
+     * @return The number of tasks written.
+     * @throws IOException if the channel cannot be written.
+     */
+    public int export(Iterable<Project> projects, FileChannel channel) throws IOException {
+        return export(projects, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writes projects to a file, replacing its content.
+     *
+     * @param projects The projects to export.
+     * @param file     The file to write.
+     * @return The number of tasks written.
+     * @throws IOException if the file cannot be written.
+     */
+    public int export(Iterable<Project> projects, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return export(projects, channel);
+        }
+    }
+
+    /**
+     * Tells whether the format can represent a task accepted by the filter.
+     *
+     * @param task The task.
+     * @return true if the task can be written; true by default.
+     */
+    protected boolean isExportable(Task task) {
+        return true;
+    }
+
+    /**
+     * Writes what comes before the first project.
+     *
+     * @param writer The writer.
+     * @throws IOException if the writer fails.
+     */
+    protected void writeHeader(Writer writer) throws IOException {
+    }
+
+    /**
+     * Writes what comes before the objectives of a project.
+     *
+     * @param writer  The writer.
+     * @param project The project.
+     * @param index   The position of the project among the written ones, from 0.
+     * @throws IOException if the writer fails.
+     */
+    protected void beginProject(Writer writer, Project project, int index) throws IOException {
+    }
+
+    /**
+     * Writes what comes before the tasks of an objective.
+     *
+     * @param writer    The writer.
+     * @param project   The project of the objective.
+     * @param objective The objective.
+     * @param index     The position of the objective among the written ones of the project, from 0.
+     * @throws IOException if the writer fails.
+     */
+    protected void beginObjective(Writer writer, Project project, Objective objective, int index) throws IOException {
+    }
+
+    /**
+     * Writes a task.
+     *
+     * @param writer    The writer.
+     * @param project   The project of the task.
+     * @param objective The objective of the task.
+     * @param task      The task.
+     * @param index     The position of the task among the written ones of the objective, from 0.
+     * @throws IOException if the writer fails.
+     */
+    protected abstract void writeTask(Writer writer, Project project, Objective objective, Task task, int index)
+            throws IOException;
+
+    /**
+     * Writes what comes after the tasks of an objective.
+     *
+     * @param writer    The writer.
+     * @param objective The objective.
+     * @throws IOException if the writer fails.
+     */
+    protected void endObjective(Writer writer, Objective objective) throws IOException {
+    }
+
+    /**
+     * Writes what comes after the objectives of a project.
+     *
+     * @param writer  The writer.
+     * @param project The project.
+     * @throws IOException if the writer fails.
+     */
+    protected void endProject(Writer writer, Project project) throws IOException {
+    }
+
+    /**
+     * Writes what comes after the last project.
+     *
+     * @param writer The writer.
+     * @throws IOException if the writer fails.
+     */
+    protected void writeFooter(Writer writer) throws IOException {
+    }
+
+    /**
+     * Writes a date in ISO format, with or without dashes, without building a string
+     * for the common years.
+     *
+     * @param writer The writer.
+     * @param date   The date.
+     * @param dashes Whether to separate the fields with dashes.
+     * @throws IOException if the writer fails.
+     */
+    static void writeDate(Writer writer, LocalDate date, boolean dashes) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            writer.write(dashes ? date.toString() : date.format(DateTimeFormatter.BASIC_ISO_DATE));
+            return;
+        }
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        writer.write('0' + year / 1000);
+        writer.write('0' + year / 100 % 10);
+        writer.write('0' + year / 10 % 10);
+        writer.write('0' + year % 10);
+        if (dashes) {
+            writer.write('-');
+        }
+        writer.write('0' + month / 10);
+        writer.write('0' + month % 10);
+        if (dashes) {
+            writer.write('-');
+        }
+        writer.write('0' + day / 10);
+        writer.write('0' + day % 10);
+    }
+}
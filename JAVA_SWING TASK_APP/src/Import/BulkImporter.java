@@ -0,0 +1,481 @@
+package Import;
+
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Validation.UserValidator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports users, projects, objectives, tasks and materials from large CSV or JSON-lines
+ * files.
+ * <p>
+ * An import runs in four phases:
+ * <ol>
+ *     <li>the calling thread reads the files and cuts their records into chunks;</li>
+ *     <li>a pool of threads parses and validates the chunks and builds the entities, each
+ *     chunk on its own; at most two chunks per thread are waiting, so the reader cannot
+ *     run far ahead of the parsers;</li>
+ *     <li>a single thread links the entities: the manager of a project, the project of an
+ *     objective, the objective and members of a task and the tasks of a material are
+ *     resolved by ID, among the rows of the import;</li>
+ *     <li>the entities are handed to the {@link ImportSink} in batches, kind by kind, so
+ *     that a batch only refers to entities already committed.</li>
+ * </ol>
+ * Rows are never thrown away silently and never stop the import: a row with invalid
+ * values, an unknown reference or a duplicate ID is reported as an {@link ImportError}
+ * and the rows referring to it are rejected in turn. The rows of a failed batch are
+ * reported in the same way, and so are the rows referring to them, which are then not
+ * committed; the entities already committed stay linked to the entities of a failed
+ * batch.
+ * <p>
+ * Plaintext passwords are hashed on the parsing threads with the work factor of the
+ * default {@link Security.PasswordHasher}, which makes each one take tens of milliseconds
+ * of a thread: user rows with plaintext passwords import at about ten rows per second per
+ * thread, thousands of times slower than the other rows, and files meant for large
+ * imports carry encoded hashes instead.
+ */
+public class BulkImporter {
+
+    /**
+     * The default number of records parsed by a worker at a time.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 2048;
+
+    /**
+     * The default number of entities committed at a time.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final Comparator<ImportError> ERROR_ORDER =
+            Comparator.comparing(ImportError::getSource).thenComparingInt(ImportError::getLine);
+
+    private final int threads;
+    private final int chunkSize;
+    private final int batchSize;
+    private final RowMapper mapper;
+    private final ImportSink sink;
+
+    /**
+     * The entities built from one chunk, with the errors of its rows.
+     */
+    private static final class ChunkResult {
+        final List<ParsedRow> rows = new ArrayList<>();
+        final List<ImportError> errors = new ArrayList<>();
+        int count;
+    }
+
+    /**
+     * Constructs an importer with one parsing thread per processor and the default
+     * chunk and batch sizes, validating users with the rules of the setters.
+     *
+     * @param sink The sink receiving the entities, or null to only build them.
+     */
+    public BulkImporter(ImportSink sink) {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, DEFAULT_BATCH_SIZE,
+                UserValidator.DEFAULT, sink);
+    }
+
+    /**
+     * Constructs a BulkImporter object with the specified parameters.
+     *
+     * @param threads   The number of threads parsing and validating the rows.
+     * @param chunkSize The number of records parsed by a thread at a time.
+     * @param batchSize The maximum number of entities committed at a time.
+     * @param validator The validator checking the user fields.
+     * @param sink      The sink receiving the entities, or null to only build them.
+     * @throws IllegalArgumentException if a count or size is less than 1.
+     */
+    public BulkImporter(int threads, int chunkSize, int batchSize, UserValidator validator, ImportSink sink) {
+        if (threads < 1 || chunkSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Thread count, chunk size and batch size must be at least 1");
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.mapper = new RowMapper(validator);
+        this.sink = sink;
+    }
+
+    /**
+     * Imports files. The files of a kind are linked in the order given.
+     *
+     * @param sources The files to import, in any order of kinds.
+     * @return The imported entities and the rejected rows.
+     * @throws IOException if a file cannot be read; nothing is committed then.
+     */
+    public ImportResult run(List<ImportSource> sources) throws IOException {
+        long start = System.nanoTime();
+        List<ChunkResult> chunks = parse(sources);
+        Map<ImportKind, List<ParsedRow>> rows = new EnumMap<>(ImportKind.class);
+        List<ImportError> errors = new ArrayList<>();
+        int rowCount = 0;
+        for (ImportKind kind : ImportKind.values()) {
+            rows.put(kind, new ArrayList<>());
+        }
+        for (ChunkResult chunk : chunks) {
+            rowCount += chunk.count;
+            errors.addAll(chunk.errors);
+            for (ParsedRow row : chunk.rows) {
+                rows.get(row.kind).add(row);
+            }
+        }
+        chunks.clear();
+        long parsed = System.nanoTime();
+
+        Map<ImportKind, List<ParsedRow>> accepted = link(rows, errors);
+        rows.clear();
+        long linked = System.nanoTime();
+
+        Map<ImportKind, List<Object>> entities = commit(accepted, errors);
+        long committed = System.nanoTime();
+
+        errors.sort(ERROR_ORDER);
+        return new ImportResult(rowCount, entities, errors, Duration.ofNanos(parsed - start),
+                Duration.ofNanos(linked - parsed), Duration.ofNanos(committed - linked));
+    }
+
+    /**
+     * Reads the sources on the calling thread and parses their chunks on the pool.
+     *
+     * @return The results of the chunks, in file order.
+     */
+    private List<ChunkResult> parse(List<ImportSource> sources) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "import-parser-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore pending = new Semaphore(threads * 2);
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        try {
+            for (ImportSource source : sources) {
+                try (ChunkReader reader = new ChunkReader(source, chunkSize)) {
+                    ChunkReader.Chunk chunk;
+                    while ((chunk = reader.next()) != null) {
+                        pending.acquire();
+                        ChunkReader.Chunk submitted = chunk;
+                        futures.add(executor.submit(() -> {
+                            try {
+                                return parse(submitted);
+                            } finally {
+                                pending.release();
+                            }
+                        }));
+                    }
+                }
+            }
+            List<ChunkResult> results = new ArrayList<>(futures.size());
+            for (Future<ChunkResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parsing failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses, validates and builds the entities of a chunk.
+     */
+    private ChunkResult parse(ChunkReader.Chunk chunk) {
+        ChunkResult result = new ChunkResult();
+        ImportSource source = chunk.source;
+        String name = source.getName();
+        result.count = chunk.count;
+        for (int i = 0; i < chunk.count; i++) {
+            int line = chunk.lines[i];
+            Map<String, Object> values;
+            try {
+                if (source.getFormat() == ImportFormat.CSV) {
+                    List<String> fields = RowParser.splitCsv(chunk.records[i]);
+                    if (fields.size() != chunk.header.size()) {
+                        result.errors.add(new ImportError(name, line, null,
+                                "Expected " + chunk.header.size() + " fields, found " + fields.size()));
+                        continue;
+                    }
+                    values = new HashMap<>();
+                    for (int column = 0; column < fields.size(); column++) {
+                        values.put(chunk.header.get(column), fields.get(column));
+                    }
+                } else {
+                    values = RowParser.parseJson(chunk.records[i]);
+                }
+            } catch (IllegalArgumentException e) {
+                result.errors.add(new ImportError(name, line, null, e.getMessage()));
+                continue;
+            }
+            ParsedRow row = mapper.map(source.getKind(), name, line, values, result.errors);
+            if (row != null) {
+                result.rows.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the references of the rows, kind by kind, and links the entities.
+     *
+     * @return The rows whose references all resolved, by kind.
+     */
+    private Map<ImportKind, List<ParsedRow>> link(Map<ImportKind, List<ParsedRow>> rows, List<ImportError> errors) {
+        Map<ImportKind, Map<String, ParsedRow>> byId = new EnumMap<>(ImportKind.class);
+        Map<ImportKind, List<ParsedRow>> accepted = new EnumMap<>(ImportKind.class);
+        for (ImportKind kind : ImportKind.values()) {
+            Map<String, ParsedRow> ids = new HashMap<>();
+            List<ParsedRow> kept = new ArrayList<>();
+            for (ParsedRow row : rows.get(kind)) {
+                if (ids.containsKey(row.id)) {
+                    errors.add(new ImportError(row.source, row.line, "id",
+                            "Duplicate " + kind.getLabel() + " ID " + row.id));
+                } else if (resolve(row, byId, errors)) {
+                    ids.put(row.id, row);
+                    kept.add(row);
+                }
+            }
+            byId.put(kind, ids);
+            accepted.put(kind, kept);
+        }
+
+        IdentityHashMap<Manager, List<Project>> projectsByManager = new IdentityHashMap<>();
+        IdentityHashMap<Project, List<Objective>> objectivesByProject = new IdentityHashMap<>();
+        IdentityHashMap<Objective, List<Task>> tasksByObjective = new IdentityHashMap<>();
+        IdentityHashMap<Member, List<Task>> tasksByMember = new IdentityHashMap<>();
+        IdentityHashMap<Task, List<Material>> materialsByTask = new IdentityHashMap<>();
+        for (ParsedRow row : accepted.get(ImportKind.USERS)) {
+            if (row.entity instanceof Manager) {
+                projectsByManager.put((Manager) row.entity, new ArrayList<>());
+            } else {
+                tasksByMember.put((Member) row.entity, new ArrayList<>());
+            }
+        }
+        for (ParsedRow row : accepted.get(ImportKind.PROJECTS)) {
+            Project project = (Project) row.entity;
+            objectivesByProject.put(project, new ArrayList<>());
+            if (row.parentId != null) {
+                Manager manager = (Manager) byId.get(ImportKind.USERS).get(row.parentId).entity;
+                project.setManager(manager);
+                projectsByManager.get(manager).add(project);
+            }
+        }
+        for (ParsedRow row : accepted.get(ImportKind.OBJECTIVES)) {
+            Objective objective = (Objective) row.entity;
+            tasksByObjective.put(objective, new ArrayList<>());
+            objectivesByProject.get((Project) byId.get(ImportKind.PROJECTS).get(row.parentId).entity).add(objective);
+        }
+        for (ParsedRow row : accepted.get(ImportKind.TASKS)) {
+            Task task = (Task) row.entity;
+            materialsByTask.put(task, new ArrayList<>());
+            tasksByObjective.get((Objective) byId.get(ImportKind.OBJECTIVES).get(row.parentId).entity).add(task);
+            if (!row.references.isEmpty()) {
+                List<Member> members = new ArrayList<>(row.references.size());
+                for (String id : row.references) {
+                    Member member = (Member) byId.get(ImportKind.USERS).get(id).entity;
+                    members.add(member);
+                    tasksByMember.get(member).add(task);
+                }
+                task.setMembers(members);
+            }
+        }
+        for (ParsedRow row : accepted.get(ImportKind.MATERIALS)) {
+            Material material = (Material) row.entity;
+            if (!row.references.isEmpty()) {
+                List<Task> tasks = new ArrayList<>(row.references.size());
+                for (String id : row.references) {
+                    Task task = (Task) byId.get(ImportKind.TASKS).get(id).entity;
+                    tasks.add(task);
+                    materialsByTask.get(task).add(material);
+                }
+                material.setTasks(tasks);
+            }
+        }
+        for (Map.Entry<Manager, List<Project>> entry : projectsByManager.entrySet()) {
+            entry.getKey().setProjects(entry.getValue());
+        }
+        for (Map.Entry<Member, List<Task>> entry : tasksByMember.entrySet()) {
+            entry.getKey().setTasks(entry.getValue());
+        }
+        for (Map.Entry<Project, List<Objective>> entry : objectivesByProject.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                entry.getKey().setObjectiveList(entry.getValue());
+            }
+        }
+        for (Map.Entry<Objective, List<Task>> entry : tasksByObjective.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                entry.getKey().setTaskList(entry.getValue());
+            }
+        }
+        for (Map.Entry<Task, List<Material>> entry : materialsByTask.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                entry.getKey().setMaterials(entry.getValue());
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Checks that the references of a row are accepted entities of the expected type.
+     *
+     * @return true if every reference resolved.
+     */
+    private static boolean resolve(ParsedRow row, Map<ImportKind, Map<String, ParsedRow>> byId, List<ImportError> errors) {
+        boolean resolved = true;
+        switch (row.kind) {
+            case PROJECTS:
+                if (row.parentId != null && !(entity(byId, ImportKind.USERS, row.parentId) instanceof Manager)) {
+                    errors.add(new ImportError(row.source, row.line, "manager", "Unknown manager " + row.parentId));
+                    resolved = false;
+                }
+                break;
+            case OBJECTIVES:
+                if (entity(byId, ImportKind.PROJECTS, row.parentId) == null) {
+                    errors.add(new ImportError(row.source, row.line, "project", "Unknown project " + row.parentId));
+                    resolved = false;
+                }
+                break;
+            case TASKS:
+                if (entity(byId, ImportKind.OBJECTIVES, row.parentId) == null) {
+                    errors.add(new ImportError(row.source, row.line, "objective", "Unknown objective " + row.parentId));
+                    resolved = false;
+                }
+                for (String id : row.references) {
+                    if (!(entity(byId, ImportKind.USERS, id) instanceof Member)) {
+                        errors.add(new ImportError(row.source, row.line, "members", "Unknown member " + id));
+                        resolved = false;
+                    }
+                }
+                break;
+            case MATERIALS:
+                for (String id : row.references) {
+                    if (entity(byId, ImportKind.TASKS, id) == null) {
+                        errors.add(new ImportError(row.source, row.line, "tasks", "Unknown task " + id));
+                        resolved = false;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return resolved;
+    }
+
+    private static Object entity(Map<ImportKind, Map<String, ParsedRow>> byId, ImportKind kind, String id) {
+        ParsedRow row = byId.get(kind).get(id);
+        return row == null ? null : row.entity;
+    }
+
+    /**
+     * Hands the linked entities to the sink in batches, kind by kind.
+     *
+     * @return The entities of the batches committed, by kind.
+     */
+    private Map<ImportKind, List<Object>> commit(Map<ImportKind, List<ParsedRow>> accepted, List<ImportError> errors) {
+        Map<ImportKind, List<Object>> entities = new EnumMap<>(ImportKind.class);
+        Map<ImportKind, Set<String>> failed = new EnumMap<>(ImportKind.class);
+        for (ImportKind kind : ImportKind.values()) {
+            failed.put(kind, new HashSet<>());
+        }
+        for (ImportKind kind : ImportKind.values()) {
+            List<ParsedRow> rows = new ArrayList<>(accepted.get(kind).size());
+            for (ParsedRow row : accepted.get(kind)) {
+                if (dependsOnFailed(row, failed, errors)) {
+                    failed.get(kind).add(row.id);
+                } else {
+                    rows.add(row);
+                }
+            }
+            List<Object> imported = new ArrayList<>(rows.size());
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<ParsedRow> batchRows = rows.subList(from, Math.min(rows.size(), from + batchSize));
+                List<Object> batch = new ArrayList<>(batchRows.size());
+                for (ParsedRow row : batchRows) {
+                    batch.add(row.entity);
+                }
+                if (sink != null) {
+                    try {
+                        sink.commit(kind, batch);
+                    } catch (Exception e) {
+                        for (ParsedRow row : batchRows) {
+                            errors.add(new ImportError(row.source, row.line, null, "Commit failed: " + e.getMessage()));
+                            failed.get(kind).add(row.id);
+                        }
+                        continue;
+                    }
+                }
+                imported.addAll(batch);
+            }
+            entities.put(kind, imported);
+        }
+        return entities;
+    }
+
+    /**
+     * Checks whether a row refers to a row which was not committed, reporting each such
+     * reference.
+     *
+     * @return true if the row must not be committed.
+     */
+    private static boolean dependsOnFailed(ParsedRow row, Map<ImportKind, Set<String>> failed,
+                                           List<ImportError> errors) {
+        boolean depends = false;
+        switch (row.kind) {
+            case PROJECTS:
+                depends = notCommitted(row, "manager", ImportKind.USERS, row.parentId, failed, errors);
+                break;
+            case OBJECTIVES:
+                depends = notCommitted(row, "project", ImportKind.PROJECTS, row.parentId, failed, errors);
+                break;
+            case TASKS:
+                depends = notCommitted(row, "objective", ImportKind.OBJECTIVES, row.parentId, failed, errors);
+                for (String id : row.references) {
+                    depends |= notCommitted(row, "members", ImportKind.USERS, id, failed, errors);
+                }
+                break;
+            case MATERIALS:
+                for (String id : row.references) {
+                    depends |= notCommitted(row, "tasks", ImportKind.TASKS, id, failed, errors);
+                }
+                break;
+            default:
+                break;
+        }
+        return depends;
+    }
+
+    private static boolean notCommitted(ParsedRow row, String column, ImportKind kind, String id,
+                                        Map<ImportKind, Set<String>> failed, List<ImportError> errors) {
+        if (id == null || !failed.get(kind).contains(id)) {
+            return false;
+        }
+        errors.add(new ImportError(row.source, row.line, column,
+                "Not committed: " + kind.getLabel() + " " + id + " was not committed"));
+        return true;
+    }
+}
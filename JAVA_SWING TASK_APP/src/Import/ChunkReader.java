@@ -0,0 +1,128 @@
+package Import;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Reads the records of a source file and groups them in chunks handed to the parsing
+ * threads. Only record boundaries are found here: a CSV record goes on to the next line
+ * while one of its quotes is open, and a JSON record is one line. Blank lines are
+ * skipped.
+ */
+final class ChunkReader implements Closeable {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ImportSource source;
+    private final int chunkSize;
+    private final BufferedReader reader;
+    private List<String> header;
+    private int lineNumber;
+    private int recordLine;
+
+    /**
+     * A group of consecutive records of a source.
+     */
+    static final class Chunk {
+        final ImportSource source;
+        final List<String> header;
+        final String[] records;
+        final int[] lines;
+        int count;
+
+        Chunk(ImportSource source, List<String> header, int capacity) {
+            this.source = source;
+            this.header = header;
+            this.records = new String[capacity];
+            this.lines = new int[capacity];
+        }
+    }
+
+    /**
+     * Opens a source. The header of a CSV source is read at once.
+     *
+     * @param source    The source.
+     * @param chunkSize The maximum number of records per chunk.
+     * @throws IOException if the file cannot be read or a CSV file has no header.
+     */
+    ChunkReader(ImportSource source, int chunkSize) throws IOException {
+        this.source = source;
+        this.chunkSize = chunkSize;
+        this.reader = new BufferedReader(Files.newBufferedReader(source.getFile(), StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (source.getFormat() == ImportFormat.CSV) {
+            String record = nextRecord();
+            if (record == null) {
+                throw new IOException(source.getName() + " has no header row");
+            }
+            List<String> names = RowParser.splitCsv(record);
+            for (int i = 0; i < names.size(); i++) {
+                names.set(i, names.get(i).trim());
+            }
+            this.header = names;
+        }
+    }
+
+    /**
+     * Reads the next chunk.
+     *
+     * @return The chunk, or null at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    Chunk next() throws IOException {
+        Chunk chunk = new Chunk(source, header, chunkSize);
+        while (chunk.count < chunkSize) {
+            String record = nextRecord();
+            if (record == null) {
+                break;
+            }
+            chunk.records[chunk.count] = record;
+            chunk.lines[chunk.count] = recordLine;
+            chunk.count++;
+        }
+        return chunk.count == 0 ? null : chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next non-blank record and remembers the line it starts on.
+     */
+    private String nextRecord() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                line = line.substring(1);
+            }
+        } while (line.isBlank());
+        recordLine = lineNumber;
+        if (source.getFormat() != ImportFormat.CSV || RowParser.countQuotes(line) % 2 == 0) {
+            return line;
+        }
+        // A quoted field goes on past the end of the line
+        StringBuilder record = new StringBuilder(line);
+        int quotes = RowParser.countQuotes(line);
+        while (quotes % 2 != 0) {
+            String next = reader.readLine();
+            if (next == null) {
+                break;
+            }
+            lineNumber++;
+            record.append('\n').append(next);
+            quotes += RowParser.countQuotes(next);
+        }
+        return record.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package Import;
+
+/**
+ * Represents a row rejected by a {@link BulkImporter}, with the reason.
+ */
+public class ImportError {
+
+    private final String source;
+    private final int line;
+    private final String column;
+    private final String message;
+
+    /**
+     * Constructs an ImportError object with the specified parameters.
+     *
+     * @param source  The name of the file of the row.
+     * @param line    The line where the row starts, from 1.
+     * @param column  The column holding the invalid value, or null if the whole row is invalid.
+     * @param message The reason the row was rejected.
+     */
+    public ImportError(String source, int line, String column, String message) {
+        this.source = source;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    // Getters
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return source + ":" + line + (column == null ? "" : " [" + column + "]") + ": " + message;
+    }
+}
@@ -0,0 +1,18 @@
+package Import;
+
+/**
+ * The file formats read by the {@link BulkImporter}.
+ */
+public enum ImportFormat {
+    /**
+     * Comma-separated values with a header row naming the columns. Fields may be quoted
+     * with double quotes, and quoted fields may span several lines. List columns separate
+     * their values with semicolons.
+     */
+    CSV,
+    /**
+     * One JSON object per line, whose values are strings, numbers, booleans, null or
+     * arrays of those.
+     */
+    JSON_LINES
+}
@@ -0,0 +1,28 @@
+package Import;
+
+/**
+ * The kinds of rows a {@link BulkImporter} reads, in the order they are linked: each
+ * kind only refers to the kinds before it.
+ */
+public enum ImportKind {
+    USERS("user"),
+    PROJECTS("project"),
+    OBJECTIVES("objective"),
+    TASKS("task"),
+    MATERIALS("material");
+
+    private final String label;
+
+    ImportKind(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the name of one row of this kind, as used in error messages.
+     *
+     * @return The label of the kind.
+     */
+    public String getLabel() {
+        return label;
+    }
+}
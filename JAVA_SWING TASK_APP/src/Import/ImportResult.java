@@ -0,0 +1,125 @@
+package Import;
+
+import Entities.Project;
+import Entities.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the outcome of a {@link BulkImporter} run: the imported entities, the
+ * rejected rows and the time spent in each phase.
+ */
+public class ImportResult {
+
+    private final int rowCount;
+    private final Map<ImportKind, List<Object>> entities;
+    private final List<ImportError> errors;
+    private final Duration parseTime;
+    private final Duration linkTime;
+    private final Duration commitTime;
+
+    /**
+     * Constructs an ImportResult object with the specified parameters.
+     *
+     * @param rowCount   The number of rows read.
+     * @param entities   The imported entities of each kind, in row order.
+     * @param errors     The rejected rows.
+     * @param parseTime  The time spent reading, parsing and validating the rows.
+     * @param linkTime   The time spent resolving the references.
+     * @param commitTime The time spent committing the batches.
+     */
+    ImportResult(int rowCount, Map<ImportKind, List<Object>> entities, List<ImportError> errors,
+                 Duration parseTime, Duration linkTime, Duration commitTime) {
+        this.rowCount = rowCount;
+        this.entities = new EnumMap<>(ImportKind.class);
+        for (ImportKind kind : ImportKind.values()) {
+            this.entities.put(kind, Collections.unmodifiableList(entities.getOrDefault(kind, new ArrayList<>())));
+        }
+        this.errors = Collections.unmodifiableList(errors);
+        this.parseTime = parseTime;
+        this.linkTime = linkTime;
+        this.commitTime = commitTime;
+    }
+
+    /**
+     * Gets the imported entities of a kind.
+     *
+     * @param kind The kind.
+     * @return The read-only list of the entities, in row order.
+     */
+    public List<Object> getEntities(ImportKind kind) {
+        return entities.get(kind);
+    }
+
+    /**
+     * Counts the imported entities of a kind.
+     *
+     * @param kind The kind.
+     * @return The number of rows of that kind imported.
+     */
+    public int getImportedCount(ImportKind kind) {
+        return entities.get(kind).size();
+    }
+
+    /**
+     * Gets the imported users, members and managers.
+     *
+     * @return The users, in row order.
+     */
+    public List<User> getUsers() {
+        List<User> users = new ArrayList<>(getImportedCount(ImportKind.USERS));
+        for (Object entity : entities.get(ImportKind.USERS)) {
+            users.add((User) entity);
+        }
+        return users;
+    }
+
+    /**
+     * Gets the imported projects, linked to their objectives and tasks.
+     *
+     * @return The projects, in row order.
+     */
+    public List<Project> getProjects() {
+        List<Project> projects = new ArrayList<>(getImportedCount(ImportKind.PROJECTS));
+        for (Object entity : entities.get(ImportKind.PROJECTS)) {
+            projects.add((Project) entity);
+        }
+        return projects;
+    }
+
+    /**
+     * Gets the total time of the import.
+     *
+     * @return The sum of the times of the phases.
+     */
+    public Duration getDuration() {
+        return parseTime.plus(linkTime).plus(commitTime);
+    }
+
+    // Getters
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+
+    public Duration getParseTime() {
+        return parseTime;
+    }
+
+    public Duration getLinkTime() {
+        return linkTime;
+    }
+
+    public Duration getCommitTime() {
+        return commitTime;
+    }
+}
@@ -0,0 +1,21 @@
+package Import;
+
+import java.util.List;
+
+/**
+ * Receives the entities of an import once they are linked, in batches, for example to
+ * append them to an entity store or a repository.
+ */
+public interface ImportSink {
+
+    /**
+     * Saves a batch of entities. The batches of a kind are committed after those of the
+     * kinds it refers to.
+     *
+     * @param kind     The kind of the entities.
+     * @param entities The entities to save: users, projects, objectives, tasks or materials.
+     * @throws Exception if the batch could not be saved; its rows are reported as errors
+     *                   and the import goes on with the next batch.
+     */
+    void commit(ImportKind kind, List<?> entities) throws Exception;
+}
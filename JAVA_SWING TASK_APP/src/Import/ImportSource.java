@@ -0,0 +1,49 @@
+package Import;
+
+import java.nio.file.Path;
+
+/**
+ * A file to import, with the kind of its rows and its format.
+ */
+public class ImportSource {
+
+    private final Path file;
+    private final ImportKind kind;
+    private final ImportFormat format;
+
+    /**
+     * Constructs an ImportSource object with the specified parameters.
+     *
+     * @param file   The file to read, encoded in UTF-8.
+     * @param kind   The kind of the rows of the file.
+     * @param format The format of the file.
+     */
+    public ImportSource(Path file, ImportKind kind, ImportFormat format) {
+        this.file = file;
+        this.kind = kind;
+        this.format = format;
+    }
+
+    /**
+     * Gets the name of the file, as reported in errors.
+     *
+     * @return The file name.
+     */
+    public String getName() {
+        return file.getFileName().toString();
+    }
+
+    // Getters
+
+    public Path getFile() {
+        return file;
+    }
+
+    public ImportKind getKind() {
+        return kind;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,40 @@
+package Import;
+
+import java.util.List;
+
+/**
+ * An entity built from a valid row, waiting for its references to be resolved by the
+ * link phase of the {@link BulkImporter}.
+ */
+final class ParsedRow {
+
+    final ImportKind kind;
+    final String source;
+    final int line;
+    final String id;
+    final Object entity;
+    final String parentId;
+    final List<String> references;
+
+    /**
+     * Constructs a ParsedRow object with the specified parameters.
+     *
+     * @param kind       The kind of the row.
+     * @param source     The name of the file of the row.
+     * @param line       The line where the row starts.
+     * @param id         The ID of the entity.
+     * @param entity     The entity, without its references.
+     * @param parentId   The ID of the manager, project or objective owning the entity, or null.
+     * @param references The IDs of the members of a task or the tasks of a material.
+     */
+    ParsedRow(ImportKind kind, String source, int line, String id, Object entity, String parentId,
+              List<String> references) {
+        this.kind = kind;
+        this.source = source;
+        this.line = line;
+        this.id = id;
+        this.entity = entity;
+        this.parentId = parentId;
+        this.references = references;
+    }
+}
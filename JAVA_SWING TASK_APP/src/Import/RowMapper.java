@@ -0,0 +1,322 @@
+package Import;
+
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Entities.ValueRegistry;
+import Security.PasswordHasher;
+import Validation.UserField;
+import Validation.UserValidator;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Validates the values of a row and builds its entity, without its references.
+ * <p>
+ * Every invalid value of a row is reported, not only the first one: user fields are
+ * checked with {@link UserValidator#check}, and dates, numbers and enumerations are
+ * parsed one by one before the entity is built. A row with an {@code id} column keeps
+ * that ID, so that the other files can refer to it; otherwise the entity gets a new one.
+ * <p>
+ * The columns of each kind are:
+ * <ul>
+ *     <li>users: id, type (MEMBER or MANAGER), username, password, fullName,
+ *     phoneNumber, birthDay, email, role, sex, skill, skillLevel;</li>
+ *     <li>projects: id, manager, description, startDate, endDate;</li>
+ *     <li>objectives: id, project, description, startDate, endDate;</li>
+ *     <li>tasks: id, objective, description, priority, status, startDate, endDate, members;</li>
+ *     <li>materials: id, name, type, tasks.</li>
+ * </ul>
+ * Dates are in ISO format, statuses are given by name or description and list columns
+ * hold IDs. A password that is already an encoded hash is kept; any other is checked
+ * and hashed, which is by far the most expensive step of an import.
+ */
+final class RowMapper {
+
+    private final UserValidator validator;
+
+    /**
+     * Constructs a RowMapper object with the specified parameters.
+     *
+     * @param validator The validator checking the user fields.
+     */
+    RowMapper(UserValidator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * The values of the row being mapped, with the errors found so far.
+     */
+    private static final class Row {
+        final String source;
+        final int line;
+        final Map<String, Object> values;
+        final List<ImportError> errors;
+        boolean valid = true;
+
+        Row(String source, int line, Map<String, Object> values, List<ImportError> errors) {
+            this.source = source;
+            this.line = line;
+            this.values = values;
+            this.errors = errors;
+        }
+
+        void error(String column, String message) {
+            errors.add(new ImportError(source, line, column, message));
+            valid = false;
+        }
+
+        String text(String column) {
+            Object value = values.get(column);
+            if (value instanceof List) {
+                error(column, "A single value is expected");
+                return null;
+            }
+            String text = (String) value;
+            return text == null || text.isEmpty() ? null : text;
+        }
+
+        String required(String column) {
+            String text = text(column);
+            if (text == null && !(values.get(column) instanceof List)) {
+                error(column, "Value is required");
+            }
+            return text;
+        }
+
+        LocalDate date(String column, boolean required) {
+            String text = required ? required(column) : text(column);
+            if (text == null) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(text.trim());
+            } catch (DateTimeParseException e) {
+                error(column, "Invalid date \"" + text + "\"");
+                return null;
+            }
+        }
+
+        List<String> list(String column) {
+            Object value = values.get(column);
+            List<String> list = new ArrayList<>();
+            if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    if (item != null && !((String) item).isBlank()) {
+                        list.add(((String) item).trim());
+                    }
+                }
+            } else if (value != null) {
+                for (String item : ((String) value).split(";")) {
+                    if (!item.isBlank()) {
+                        list.add(item.trim());
+                    }
+                }
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Maps a row to its entity.
+     *
+     * @param kind   The kind of the row.
+     * @param source The name of the file of the row.
+     * @param line   The line where the row starts.
+     * @param values The values of the row by column.
+     * @param errors The list receiving the errors of the row.
+     * @return The entity with its references, or null if the row is invalid.
+     */
+    ParsedRow map(ImportKind kind, String source, int line, Map<String, Object> values, List<ImportError> errors) {
+        Row row = new Row(source, line, values, errors);
+        switch (kind) {
+            case USERS:
+                return mapUser(kind, row);
+            case PROJECTS:
+                return mapProject(kind, row);
+            case OBJECTIVES:
+                return mapObjective(kind, row);
+            case TASKS:
+                return mapTask(kind, row);
+            default:
+                return mapMaterial(kind, row);
+        }
+    }
+
+    private ParsedRow mapUser(ImportKind kind, Row row) {
+        String id = row.text("id");
+        String type = row.text("type");
+        boolean manager = false;
+        if (type != null) {
+            if (type.equalsIgnoreCase("MANAGER")) {
+                manager = true;
+            } else if (!type.equalsIgnoreCase("MEMBER")) {
+                row.error("type", "Unknown user type \"" + type + "\"");
+            }
+        }
+        String username = checkUser(row, "username", UserField.USERNAME);
+        String password = row.text("password");
+        if (!PasswordHasher.isEncoded(password)) {
+            checkUser(row, "password", UserField.PASSWORD);
+        }
+        String fullName = checkUser(row, "fullName", UserField.FULL_NAME);
+        String phoneNumber = checkUser(row, "phoneNumber", UserField.PHONE_NUMBER);
+        String email = checkUser(row, "email", UserField.EMAIL);
+        String role = checkUser(row, "role", UserField.ROLE);
+        LocalDate birthDay = row.date("birthDay", true);
+        Sex sex = null;
+        String sexText = row.text("sex");
+        if (sexText != null) {
+            try {
+                sex = Sex.valueOf(sexText.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                row.error("sex", "Unknown sex \"" + sexText + "\"");
+            }
+        }
+        String skillName = row.text("skill");
+        String skillLevel = row.text("skillLevel");
+        if (!row.valid) {
+            return null;
+        }
+        Skill skill = skillName == null ? null : ValueRegistry.skill(skillName, skillLevel);
+        final Sex userSex = sex;
+        String passwordHash = PasswordHasher.isEncoded(password) ? password : PasswordHasher.getDefault().hash(password);
+        User user;
+        if (manager) {
+            user = build(row, () -> Manager.restore(id, username, passwordHash, fullName, phoneNumber, birthDay,
+                    email, role, userSex, skill, new ArrayList<>(), new ArrayList<>()));
+        } else {
+            user = build(row, () -> Member.restore(id, username, passwordHash, fullName, phoneNumber, birthDay,
+                    email, role, userSex, skill));
+        }
+        return user == null ? null : new ParsedRow(kind, row.source, row.line, user.getId(), user, null, null);
+    }
+
+    private ParsedRow mapProject(ImportKind kind, Row row) {
+        String id = row.text("id");
+        String manager = row.text("manager");
+        String description = row.text("description");
+        LocalDate startDate = row.date("startDate", false);
+        LocalDate endDate = row.date("endDate", false);
+        checkDates(row, startDate, endDate);
+        if (!row.valid) {
+            return null;
+        }
+        Project project = build(row, () -> Project.restore(id, null, endDate, new ArrayList<>(), startDate, description));
+        return project == null ? null : new ParsedRow(kind, row.source, row.line, project.getId(), project, manager, null);
+    }
+
+    private ParsedRow mapObjective(ImportKind kind, Row row) {
+        String id = row.text("id");
+        String project = row.required("project");
+        String description = row.text("description");
+        LocalDate startDate = row.date("startDate", false);
+        LocalDate endDate = row.date("endDate", false);
+        checkDates(row, startDate, endDate);
+        if (!row.valid) {
+            return null;
+        }
+        Objective objective = build(row, () -> Objective.restore(id, endDate, new ArrayList<>(), startDate, description));
+        return objective == null ? null : new ParsedRow(kind, row.source, row.line, objective.getId(), objective, project, null);
+    }
+
+    private ParsedRow mapTask(ImportKind kind, Row row) {
+        String id = row.text("id");
+        String objective = row.required("objective");
+        String description = row.text("description");
+        int priority = 0;
+        String priorityText = row.required("priority");
+        if (priorityText != null) {
+            try {
+                priority = Integer.parseInt(priorityText.trim());
+                if (priority < 1) {
+                    row.error("priority", "Priority must be greater than or equal to 1");
+                }
+            } catch (NumberFormatException e) {
+                row.error("priority", "Invalid priority \"" + priorityText + "\"");
+            }
+        }
+        TaskStatus status = null;
+        String statusText = row.text("status");
+        if (statusText != null) {
+            status = status(statusText.trim());
+            if (status == null) {
+                row.error("status", "Unknown status \"" + statusText + "\"");
+            }
+        }
+        LocalDate startDate = row.date("startDate", false);
+        LocalDate endDate = row.date("endDate", true);
+        checkDates(row, startDate, endDate);
+        List<String> members = row.list("members");
+        if (!row.valid) {
+            return null;
+        }
+        final int taskPriority = priority;
+        final TaskStatus taskStatus = status;
+        Task task = build(row, () -> Task.restore(id, description, taskPriority, new ArrayList<>(), new ArrayList<>(),
+                startDate, new ArrayList<>(), new ArrayList<>(), endDate, taskStatus));
+        return task == null ? null : new ParsedRow(kind, row.source, row.line, task.getId(), task, objective, members);
+    }
+
+    private ParsedRow mapMaterial(ImportKind kind, Row row) {
+        String id = row.text("id");
+        String name = row.required("name");
+        String type = row.text("type");
+        List<String> tasks = row.list("tasks");
+        if (!row.valid) {
+            return null;
+        }
+        Material material = build(row, () -> Material.restore(id, new ArrayList<>(), name, type));
+        return material == null ? null : new ParsedRow(kind, row.source, row.line, material.getMaterialId(), material, null, tasks);
+    }
+
+    private String checkUser(Row row, String column, UserField field) {
+        String value = row.text(column);
+        String message = validator.check(field, value);
+        if (message != null) {
+            row.error(column, message);
+        }
+        return value;
+    }
+
+    private static void checkDates(Row row, LocalDate startDate, LocalDate endDate) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            row.error("endDate", "End date cannot be before the start date");
+        }
+    }
+
+    /**
+     * Runs the factory restoring an entity with the ID of the row, reporting what the
+     * entity still rejects instead of throwing it.
+     */
+    private static <T> T build(Row row, Supplier<T> factory) {
+        try {
+            return factory.get();
+        } catch (IllegalArgumentException e) {
+            row.error(null, e.getMessage());
+            return null;
+        }
+    }
+
+    private static TaskStatus status(String text) {
+        for (TaskStatus status : TaskStatus.values()) {
+            if (status.name().equalsIgnoreCase(text) || status.getDescription().equalsIgnoreCase(text)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,266 @@
+package Import;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the records read by a {@link ChunkReader} into named values.
+ * <p>
+ * The values of a row are strings, null for an empty field, or lists of strings for
+ * JSON arrays. The parser is stateless and runs on the worker threads of the importer.
+ */
+final class RowParser {
+
+    private RowParser() {
+    }
+
+    /**
+     * Splits a CSV record into its fields, removing the quotes around quoted fields and
+     * unescaping doubled quotes.
+     *
+     * @param record The record, which may span several lines.
+     * @return The fields, empty fields included.
+     * @throws IllegalArgumentException if a quote is not closed or a quoted field is
+     *                                  followed by other characters.
+     */
+    static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        int length = record.length();
+        int position = 0;
+        while (true) {
+            if (position < length && record.charAt(position) == '"') {
+                StringBuilder field = new StringBuilder();
+                int i = position + 1;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unclosed quote in field " + (fields.size() + 1));
+                    }
+                    char c = record.charAt(i);
+                    if (c == '"') {
+                        if (i + 1 < length && record.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    field.append(c);
+                    i++;
+                }
+                fields.add(field.toString());
+                if (i == length) {
+                    return fields;
+                }
+                if (record.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quoted field " + fields.size());
+                }
+                position = i + 1;
+            } else {
+                int comma = record.indexOf(',', position);
+                if (comma < 0) {
+                    fields.add(record.substring(position));
+                    return fields;
+                }
+                fields.add(record.substring(position, comma));
+                position = comma + 1;
+            }
+        }
+    }
+
+    /**
+     * Counts the double quotes of a line, to tell whether a CSV record goes on past it.
+     *
+     * @param line The line.
+     * @return The number of double quote characters.
+     */
+    static int countQuotes(String line) {
+        int count = 0;
+        for (int i = line.indexOf('"'); i >= 0; i = line.indexOf('"', i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Parses a JSON object whose values are scalars or arrays of scalars. Numbers and
+     * booleans are kept as their text.
+     *
+     * @param line The JSON text of the object.
+     * @return The values of the object by name, in order.
+     * @throws IllegalArgumentException if the text is not such an object.
+     */
+    static Map<String, Object> parseJson(String line) {
+        JsonCursor cursor = new JsonCursor(line);
+        Map<String, Object> values = new LinkedHashMap<>();
+        cursor.expect('{');
+        if (!cursor.consume('}')) {
+            do {
+                String name = cursor.string();
+                cursor.expect(':');
+                Object value;
+                if (cursor.consume('[')) {
+                    List<String> list = new ArrayList<>();
+                    if (!cursor.consume(']')) {
+                        do {
+                            list.add(cursor.scalar());
+                        } while (cursor.consume(','));
+                        cursor.expect(']');
+                    }
+                    value = list;
+                } else {
+                    value = cursor.scalar();
+                }
+                if (values.put(name, value) != null) {
+                    throw new IllegalArgumentException("Duplicate name \"" + name + "\"");
+                }
+            } while (cursor.consume(','));
+            cursor.expect('}');
+        }
+        cursor.skipSpaces();
+        if (!cursor.atEnd()) {
+            throw cursor.error("Unexpected text after the object");
+        }
+        return values;
+    }
+
+    /**
+     * The position in the JSON text being parsed.
+     */
+    private static final class JsonCursor {
+        final String text;
+        int position;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            return position >= text.length();
+        }
+
+        void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean consume(char expected) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char expected) {
+            if (!consume(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        /**
+         * Reads a string, number, boolean or null. Null is returned as null.
+         */
+        String scalar() {
+            skipSpaces();
+            if (atEnd()) {
+                throw error("Missing value");
+            }
+            if (text.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    break;
+                }
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.isEmpty() || literal.equals("[") || literal.equals("{")) {
+                throw error("Invalid value");
+            }
+            return literal;
+        }
+
+        String string() {
+            skipSpaces();
+            if (atEnd() || text.charAt(position) != '"') {
+                throw error("Expected a string");
+            }
+            position++;
+            int start = position;
+            int quote = text.indexOf('"', start);
+            int escape = text.indexOf('\\', start);
+            if (quote >= 0 && (escape < 0 || escape > quote)) {
+                position = quote + 1;
+                return text.substring(start, quote);
+            }
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (atEnd()) {
+                    throw error("Unclosed string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (atEnd()) {
+                    throw error("Unclosed string");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escaped);
+                        break;
+                    default:
+                        throw error("Invalid escape \\" + escaped);
+                }
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at character " + (position + 1));
+        }
+    }
+}
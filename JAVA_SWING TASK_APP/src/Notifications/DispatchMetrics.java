@@ -0,0 +1,165 @@
+package Notifications;
+
+import Entities.NotificationType;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of the dispatch of one notification type.
+ * <p>
+ * The latency of a notification is the time between its dispatch and the end of the
+ * session that delivered it, retries included. Latencies are counted in buckets of
+ * doubling width (1, 2, 4... microseconds), which gives percentiles within a factor of
+ * two for a fixed, small memory cost.
+ */
+public class DispatchMetrics {
+
+    private static final int BUCKETS = 40;
+
+    private final NotificationType type;
+    private final BlockingQueue<?> queue;
+    private final int capacity;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder latencyTotal = new LongAdder();
+    private final AtomicLong latencyMax = new AtomicLong();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+
+    DispatchMetrics(NotificationType type, BlockingQueue<?> queue, int capacity) {
+        this.type = type;
+        this.queue = queue;
+        this.capacity = capacity;
+    }
+
+    // Recording, called by the dispatcher
+
+    void accepted() {
+        accepted.increment();
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    void failed(int count) {
+        batches.increment();
+        failed.add(count);
+    }
+
+    void delivered(int count) {
+        batches.increment();
+        delivered.add(count);
+    }
+
+    void latency(long nanos) {
+        latencyTotal.add(nanos);
+        latencyMax.accumulateAndGet(nanos, Math::max);
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        latencyBuckets.incrementAndGet(bucket);
+    }
+
+    // Getters
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return capacity;
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Gets the number of notifications refused because their queue stayed full.
+     *
+     * @return The number of rejected notifications.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * Gets the number of notifications dropped after their last attempt failed.
+     *
+     * @return The number of failed notifications.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Gets the number of batches sent, delivered or failed. A batch retried several times
+     * counts once.
+     *
+     * @return The number of batches.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Gets the average latency of the delivered and failed notifications.
+     *
+     * @return The average latency, zero if none was sent.
+     */
+    public Duration getAverageLatency() {
+        long count = delivered.sum() + failed.sum();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(latencyTotal.sum() / count);
+    }
+
+    public Duration getMaxLatency() {
+        return Duration.ofNanos(latencyMax.get());
+    }
+
+    /**
+     * Gets an upper bound of a latency percentile.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket holding the percentile, zero if none was sent.
+     */
+    public Duration getLatencyPercentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencyBuckets.get(i);
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Duration.ofNanos(Math.min(latencyMax.get(), 2000L << i));
+            }
+        }
+        return Duration.ZERO;
+    }
+}
@@ -0,0 +1,253 @@
+package Notifications;
+
+import Entities.Notification;
+import Entities.NotificationType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers notifications asynchronously through one {@link Transport} per
+ * {@link NotificationType}.
+ * <p>
+ * Each type has its own bounded queue and worker threads, so a slow SMS gateway does not
+ * hold back emails. A worker takes every notification waiting in its queue, up to the
+ * batch size, and sends them in one transport session. A failed session is retried
+ * according to the {@link RetryPolicy}; notifications still failing after the last
+ * attempt are dropped, logged and counted.
+ * <p>
+ * The queues give backpressure: when notifications are produced faster than they are
+ * delivered, for instance during a storm of task status changes, {@link #dispatch}
+ * blocks until there is room and {@link #offer} gives up after a timeout, so memory use
+ * stays bounded. Code running on the Swing event dispatch thread should use
+ * {@link #offer} with a zero timeout.
+ * <p>
+ * A producer holds the read lock of the dispatcher from the check that it is open until
+ * its notification is queued, and {@link #close} takes the write lock to close it, so no
+ * notification is queued after the workers have stopped and the queues were drained.
+ */
+public class NotificationDispatcher implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(NotificationDispatcher.class.getName());
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Map<NotificationType, Channel> channels = new EnumMap<>(NotificationType.class);
+    private final int maxBatchSize;
+    private final RetryPolicy retryPolicy;
+    private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    /**
+     * A notification waiting in a queue, with the time it was dispatched.
+     */
+    private static final class Envelope {
+        final Notification notification;
+        final long dispatchedAt;
+
+        Envelope(Notification notification, long dispatchedAt) {
+            this.notification = notification;
+            this.dispatchedAt = dispatchedAt;
+        }
+    }
+
+    /**
+     * The queue, transport, workers and metrics of one notification type.
+     */
+    private static final class Channel {
+        final NotificationType type;
+        final Transport transport;
+        final ArrayBlockingQueue<Envelope> queue;
+        final DispatchMetrics metrics;
+        final List<Thread> workers = new ArrayList<>();
+
+        Channel(NotificationType type, Transport transport, int capacity) {
+            this.type = type;
+            this.transport = transport;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.metrics = new DispatchMetrics(type, queue, capacity);
+        }
+    }
+
+    /**
+     * Constructs a NotificationDispatcher and starts its workers.
+     *
+     * @param transports     The transport of each notification type; types without one cannot be dispatched.
+     * @param queueCapacity  The number of notifications each type can queue.
+     * @param workersPerType The number of worker threads of each type.
+     * @param maxBatchSize   The maximum number of notifications sent in one session.
+     * @param retryPolicy    How failed sessions are retried.
+     */
+    public NotificationDispatcher(Map<NotificationType, ? extends Transport> transports, int queueCapacity,
+                                  int workersPerType, int maxBatchSize, RetryPolicy retryPolicy) {
+        this.maxBatchSize = maxBatchSize;
+        this.retryPolicy = retryPolicy;
+        for (Map.Entry<NotificationType, ? extends Transport> entry : transports.entrySet()) {
+            Channel channel = new Channel(entry.getKey(), entry.getValue(), queueCapacity);
+            channels.put(entry.getKey(), channel);
+            for (int i = 1; i <= workersPerType; i++) {
+                Thread worker = new Thread(() -> work(channel),
+                        "notification-" + entry.getKey().name().toLowerCase() + "-" + i);
+                worker.setDaemon(true);
+                channel.workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    /**
+     * Queues a notification for delivery, waiting while its queue is full.
+     *
+     * @param notification The notification to deliver.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws IllegalArgumentException if there is no transport for its type.
+     * @throws IllegalStateException if the dispatcher is closed.
+     */
+    public void dispatch(Notification notification) throws InterruptedException {
+        closing.readLock().lockInterruptibly();
+        try {
+            Channel channel = channelOf(notification);
+            channel.queue.put(new Envelope(notification, System.nanoTime()));
+            channel.metrics.accepted();
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues a notification for delivery if there is room in its queue within a timeout.
+     *
+     * @param notification The notification to deliver.
+     * @param timeout      How long to wait for room; zero does not wait.
+     * @return true if the notification was queued, false if it was rejected.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws IllegalArgumentException if there is no transport for its type.
+     * @throws IllegalStateException if the dispatcher is closed.
+     */
+    public boolean offer(Notification notification, Duration timeout) throws InterruptedException {
+        closing.readLock().lockInterruptibly();
+        try {
+            Channel channel = channelOf(notification);
+            if (!channel.queue.offer(new Envelope(notification, System.nanoTime()), timeout.toNanos(),
+                    TimeUnit.NANOSECONDS)) {
+                channel.metrics.rejected();
+                return false;
+            }
+            channel.metrics.accepted();
+            return true;
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the metrics of a notification type.
+     *
+     * @param type The notification type.
+     * @return The live metrics of the type, or null if it has no transport.
+     */
+    public DispatchMetrics getMetrics(NotificationType type) {
+        Channel channel = channels.get(type);
+        return channel == null ? null : channel.metrics;
+    }
+
+    /**
+     * Stops accepting notifications and waits until the queued ones are sent. Producers
+     * waiting for room in a queue are let through first, while the workers still run.
+     */
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        for (Channel channel : channels.values()) {
+            for (Thread worker : channel.workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            // Notifications queued while the workers were stopping
+            List<Envelope> batch = new ArrayList<>();
+            while (channel.queue.drainTo(batch, maxBatchSize) > 0) {
+                send(channel, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private Channel channelOf(Notification notification) {
+        if (closed) {
+            throw new IllegalStateException("Dispatcher is closed.");
+        }
+        Channel channel = channels.get(notification.getType());
+        if (channel == null) {
+            throw new IllegalArgumentException("No transport for " + notification.getType() + " notifications.");
+        }
+        return channel;
+    }
+
+    private void work(Channel channel) {
+        List<Envelope> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            Envelope first;
+            try {
+                first = channel.queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            channel.queue.drainTo(batch, maxBatchSize - 1);
+            send(channel, batch);
+            batch.clear();
+        }
+    }
+
+    private void send(Channel channel, List<Envelope> batch) {
+        List<Notification> notifications = new ArrayList<>(batch.size());
+        for (Envelope envelope : batch) {
+            notifications.add(envelope.notification);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                channel.transport.send(notifications);
+                channel.metrics.delivered(notifications.size());
+                break;
+            } catch (IOException | RuntimeException e) {
+                if (attempt >= retryPolicy.getMaxAttempts() || Thread.currentThread().isInterrupted()) {
+                    channel.metrics.failed(notifications.size());
+                    LOGGER.log(Level.WARNING, "Dropping " + notifications.size() + " " + channel.type
+                            + " notifications after " + attempt + " attempts", e);
+                    break;
+                }
+                channel.metrics.retried();
+                LockSupport.parkNanos(retryPolicy.delayNanos(attempt));
+            }
+        }
+        long now = System.nanoTime();
+        for (Envelope envelope : batch) {
+            channel.metrics.latency(now - envelope.dispatchedAt);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package Notifications;
+
+import Entities.NotificationType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Represents when the reminders of a task are sent: some days before its end date, on
+ * its end date, and once it is overdue, always at the same time of day.
+ */
+public class ReminderPolicy {
+
+    /**
+     * A reminder the day before the end date and one on the end date by message, and an
+     * email the day after if the task is not done, at 9 o'clock.
+     */
+    public static final ReminderPolicy DEFAULT = new ReminderPolicy(1, 1, LocalTime.of(9, 0),
+            NotificationType.MESSAGE_APP, NotificationType.EMAIL);
+
+    static final int BEFORE_DUE = 0;
+    static final int DUE = 1;
+    static final int OVERDUE = 2;
+    static final int STAGES = 3;
+
+    private final int daysBefore;
+    private final int daysOverdue;
+    private final LocalTime time;
+    private final NotificationType reminderType;
+    private final NotificationType overdueType;
+
+    /**
+     * Constructs a ReminderPolicy with the specified parameters.
+     *
+     * @param daysBefore   The number of days before the end date of the first reminder (must be at least 1).
+     * @param daysOverdue  The number of days after the end date of the overdue reminder (must be at least 1).
+     * @param time         The time of day of the reminders.
+     * @param reminderType The type of the reminders sent before and on the end date.
+     * @param overdueType  The type of the overdue reminder.
+     * @throws IllegalArgumentException if daysBefore or daysOverdue is less than 1.
+     */
+    public ReminderPolicy(int daysBefore, int daysOverdue, LocalTime time, NotificationType reminderType,
+                          NotificationType overdueType) {
+        if (daysBefore < 1 || daysOverdue < 1) {
+            throw new IllegalArgumentException("Reminders must be at least one day from the end date.");
+        }
+        this.daysBefore = daysBefore;
+        this.daysOverdue = daysOverdue;
+        this.time = time;
+        this.reminderType = reminderType;
+        this.overdueType = overdueType;
+    }
+
+    public int getDaysBefore() {
+        return daysBefore;
+    }
+
+    public int getDaysOverdue() {
+        return daysOverdue;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public NotificationType getReminderType() {
+        return reminderType;
+    }
+
+    public NotificationType getOverdueType() {
+        return overdueType;
+    }
+
+    /**
+     * Gets when a reminder of a task is sent.
+     *
+     * @param endDate The end date of the task.
+     * @param stage   {@link #BEFORE_DUE}, {@link #DUE} or {@link #OVERDUE}.
+     * @return The date and time of the reminder.
+     */
+    LocalDateTime dateOf(LocalDate endDate, int stage) {
+        switch (stage) {
+            case BEFORE_DUE:
+                return endDate.minusDays(daysBefore).atTime(time);
+            case DUE:
+                return endDate.atTime(time);
+            default:
+                return endDate.plusDays(daysOverdue).atTime(time);
+        }
+    }
+
+    NotificationType typeOf(int stage) {
+        return stage == OVERDUE ? overdueType : reminderType;
+    }
+}
@@ -0,0 +1,398 @@
+package Notifications;
+
+import Entities.DateRange;
+import Entities.EntityEvents;
+import Entities.Notification;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the reminders of the tasks of some projects when they are due, without polling
+ * the tasks.
+ * <p>
+ * Each task that is not done or canceled has one timer in a {@link TimerWheel}, set to
+ * its next reminder according to the {@link ReminderPolicy}: before its end date, on its
+ * end date, then once overdue. When the timer expires, the reminder is sent and the
+ * timer is set to the next one. Changing the end date or the status of a task moves or
+ * stops its timer in constant time, through the {@link EntityEvents}. The notifications
+ * of a task are sent at the date they have when the task is followed or they are added
+ * to it, unless the task is done or canceled by then; those already past are not sent.
+ * <p>
+ * Each task counts the followed objectives listing it, and each objective the followed
+ * projects listing it: a task is only stopped once no followed objective lists it any
+ * more, so a task moved from one objective to another keeps its timers whatever the
+ * order of the events of the two lists.
+ * <p>
+ * Time advances by the minute, from a thread started by {@link #start()} or by calls to
+ * {@link #advance()}. A reminder missed while the computer was asleep is sent when time
+ * advances again; of the reminders of a task missed together, only the last is sent.
+ * Reminders are handed to the consumer given at construction outside any lock, for
+ * example to {@link NotificationDispatcher#offer}.
+ */
+public class ReminderScheduler implements PropertyChangeListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReminderScheduler.class.getName());
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final long TICK_MILLIS = 60_000;
+
+    private final ReminderPolicy policy;
+    private final Consumer<Notification> consumer;
+    private final Clock clock;
+    private final TimerWheel<Object> wheel;
+    private final Set<Project> projects = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Objective, Integer> objectives = new IdentityHashMap<>();
+    private final Map<Task, Integer> tasks = new IdentityHashMap<>();
+    private Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a ReminderScheduler with the specified parameters.
+     *
+     * @param policy   When the reminders are sent.
+     * @param consumer The consumer of the reminders and notifications due.
+     * @param clock    The clock giving the time and the time zone of the dates.
+     */
+    public ReminderScheduler(ReminderPolicy policy, Consumer<Notification> consumer, Clock clock) {
+        this.policy = policy;
+        this.consumer = consumer;
+        this.clock = clock;
+        this.wheel = new TimerWheel<>(tickOf(clock.instant()), 1024);
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Schedules the reminders of the tasks of a project, following the tasks added to it
+     * later. Adding a project twice has no effect.
+     *
+     * @param project The project.
+     */
+    public synchronized void addProject(Project project) {
+        if (projects.add(project)) {
+            addObjectives(project.getObjectiveList());
+        }
+    }
+
+    /**
+     * Gets the number of tasks and notifications followed.
+     *
+     * @return The number of timers, including those of the tasks done or canceled.
+     */
+    public synchronized int getTimerCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Gets when the next reminder of a task is sent.
+     *
+     * @param task The task.
+     * @return The date and time of the reminder, or null if there is none.
+     */
+    public synchronized LocalDateTime getNextReminder(Task task) {
+        long deadline = wheel.getDeadline(task);
+        return deadline == TimerWheel.NEVER ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(deadline * TICK_MILLIS), clock.getZone());
+    }
+
+    /**
+     * Sends the reminders due at the time of the clock.
+     *
+     * @return The number of reminders and notifications sent.
+     */
+    public int advance() {
+        List<Notification> due = new ArrayList<>();
+        synchronized (this) {
+            long now = tickOf(clock.instant());
+            wheel.advance(now, (key, tick) -> expire(key, now, due));
+        }
+        for (Notification notification : due) {
+            try {
+                consumer.accept(notification);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not send the reminder " + notification.getId(), e);
+            }
+        }
+        return due.size();
+    }
+
+    /**
+     * Starts a thread advancing time every minute.
+     *
+     * @throws IllegalStateException if the scheduler was already started.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        thread = new Thread(this::run, "reminder-scheduler-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Moves or stops the timer of a task whose end date or status changes, and follows the
+     * tasks and notifications added to the followed objectives and tasks.
+     *
+     * @param event The entity event.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void propertyChange(PropertyChangeEvent event) {
+        Object source = event.getSource();
+        String property = event.getPropertyName();
+        if (source instanceof Task) {
+            if (!property.equals("dates") && !property.equals("status") && !property.equals("notifications")) {
+                return;
+            }
+            if (property.equals("dates") && Objects.equals(((DateRange) event.getOldValue()).getEndDate(),
+                    ((DateRange) event.getNewValue()).getEndDate())) {
+                return;
+            }
+            synchronized (this) {
+                Task task = (Task) source;
+                if (!tasks.containsKey(task)) {
+                    return;
+                }
+                if (property.equals("notifications")) {
+                    for (Notification notification : (List<Notification>) event.getOldValue()) {
+                        wheel.cancel(notification);
+                    }
+                    addNotifications(task);
+                } else {
+                    schedule(task);
+                }
+            }
+        } else if (source instanceof Objective && property.equals("taskList")) {
+            synchronized (this) {
+                if (objectives.containsKey(source)) {
+                    List<Task> oldTasks = (List<Task>) event.getOldValue();
+                    List<Task> newTasks = (List<Task>) event.getNewValue();
+                    // Added first, so that a task moved here before it left the other list is kept
+                    addTasks(minus(newTasks, oldTasks));
+                    removeTasks(minus(oldTasks, newTasks));
+                }
+            }
+        } else if (source instanceof Project && property.equals("objectiveList")) {
+            synchronized (this) {
+                if (projects.contains(source)) {
+                    List<Objective> oldObjectives = (List<Objective>) event.getOldValue();
+                    List<Objective> newObjectives = (List<Objective>) event.getNewValue();
+                    addObjectives(minus(newObjectives, oldObjectives));
+                    removeObjectives(minus(oldObjectives, newObjectives));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the thread and stops following the tasks.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        EntityEvents.removeListener(this);
+        Thread running;
+        synchronized (this) {
+            running = thread;
+        }
+        if (running != null) {
+            LockSupport.unpark(running);
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            advance();
+            long millis = clock.millis();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS - Math.floorMod(millis, TICK_MILLIS)));
+        }
+    }
+
+    /**
+     * Counts one more project listing each objective, following the tasks of those it is
+     * the first one for.
+     */
+    private void addObjectives(List<Objective> objectiveList) {
+        for (Objective objective : minus(objectiveList, List.of())) {
+            if (objectives.merge(objective, 1, Integer::sum) == 1) {
+                addTasks(objective.getTaskList());
+            }
+        }
+    }
+
+    /**
+     * Counts one less project listing each objective, no longer following the tasks of
+     * those no project lists any more.
+     */
+    private void removeObjectives(List<Objective> objectiveList) {
+        for (Objective objective : objectiveList) {
+            Integer count = objectives.get(objective);
+            if (count == null) {
+                continue;
+            }
+            if (count > 1) {
+                objectives.put(objective, count - 1);
+            } else {
+                objectives.remove(objective);
+                removeTasks(objective.getTaskList());
+            }
+        }
+    }
+
+    /**
+     * Counts one more objective listing each task, scheduling the timers of those it is
+     * the first one for.
+     */
+    private void addTasks(List<Task> taskList) {
+        for (Task task : minus(taskList, List.of())) {
+            if (tasks.merge(task, 1, Integer::sum) == 1) {
+                schedule(task);
+                addNotifications(task);
+            }
+        }
+    }
+
+    /**
+     * Counts one less objective listing each task, cancelling the timers of those no
+     * objective lists any more.
+     */
+    private void removeTasks(List<Task> taskList) {
+        for (Task task : minus(taskList, List.of())) {
+            Integer count = tasks.get(task);
+            if (count == null) {
+                continue;
+            }
+            if (count > 1) {
+                tasks.put(task, count - 1);
+                continue;
+            }
+            tasks.remove(task);
+            wheel.cancel(task);
+            for (Notification notification : task.getNotifications()) {
+                wheel.cancel(notification);
+            }
+        }
+    }
+
+    /**
+     * Lists the distinct values of a list that are not in another, compared by identity.
+     */
+    private static <T> List<T> minus(List<T> values, List<T> removed) {
+        Map<T, Boolean> seen = new IdentityHashMap<>();
+        for (T value : removed) {
+            seen.put(value, Boolean.TRUE);
+        }
+        List<T> result = new ArrayList<>();
+        for (T value : values) {
+            if (seen.put(value, Boolean.TRUE) == null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private void addNotifications(Task task) {
+        for (Notification notification : task.getNotifications()) {
+            if (notification.getDate() != null) {
+                long tick = tickOf(notification.getDate());
+                if (tick >= wheel.getTick()) {
+                    wheel.schedule(notification, tick);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the timer of a task to its next reminder after the current tick.
+     */
+    private void schedule(Task task) {
+        wheel.schedule(task, nextReminder(task, wheel.getTick()));
+    }
+
+    private long nextReminder(Task task, long after) {
+        LocalDate endDate = task.getEndDate();
+        if (endDate == null || isFinished(task)) {
+            return TimerWheel.NEVER;
+        }
+        for (int stage = 0; stage < ReminderPolicy.STAGES; stage++) {
+            long tick = tickOf(policy.dateOf(endDate, stage));
+            if (tick > after) {
+                return tick;
+            }
+        }
+        return TimerWheel.NEVER;
+    }
+
+    /**
+     * Sends a notification, or the last reminder of a task due by the current tick and
+     * sets its timer to the next one.
+     */
+    private void expire(Object key, long now, List<Notification> due) {
+        if (key instanceof Notification) {
+            Notification notification = (Notification) key;
+            Task task = notification.getTask();
+            if (task == null || !isFinished(task)) {
+                due.add(notification);
+            }
+            return;
+        }
+        Task task = (Task) key;
+        LocalDate endDate = task.getEndDate();
+        if (endDate != null && !isFinished(task)) {
+            int stage = ReminderPolicy.STAGES - 1;
+            while (stage > 0 && tickOf(policy.dateOf(endDate, stage)) > now) {
+                stage--;
+            }
+            due.add(new Notification(policy.dateOf(endDate, stage), policy.typeOf(stage), task,
+                    describe(task, stage)));
+        }
+        wheel.schedule(task, nextReminder(task, now));
+    }
+
+    private String describe(Task task, int stage) {
+        switch (stage) {
+            case ReminderPolicy.BEFORE_DUE:
+                return "\"" + task.getDescription() + "\" is due on " + task.getEndDate();
+            case ReminderPolicy.DUE:
+                return "\"" + task.getDescription() + "\" is due today";
+            default:
+                return "\"" + task.getDescription() + "\" is overdue since " + task.getEndDate();
+        }
+    }
+
+    private static boolean isFinished(Task task) {
+        return task.getStatus() == TaskStatus.DONE || task.getStatus() == TaskStatus.CANCELED;
+    }
+
+    private long tickOf(LocalDateTime date) {
+        return tickOf(date.atZone(clock.getZone()).toInstant());
+    }
+
+    /**
+     * Gets the minute of an instant, rounded up so that a timer never expires early.
+     */
+    private static long tickOf(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli() + TICK_MILLIS - 1, TICK_MILLIS);
+    }
+}
@@ -0,0 +1,57 @@
+package Notifications;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents how failed sends are retried: a bounded number of attempts separated by
+ * exponentially growing, jittered delays.
+ */
+public class RetryPolicy {
+
+    /**
+     * Five attempts, waiting about 0.5, 1, 2 and 4 seconds in between.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(500), Duration.ofSeconds(30));
+
+    private final int maxAttempts;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+
+    /**
+     * Constructs a RetryPolicy with the specified parameters.
+     *
+     * @param maxAttempts  The number of attempts, including the first one (must be at least 1).
+     * @param initialDelay The delay before the first retry.
+     * @param maxDelay     The maximum delay between two attempts.
+     * @throws IllegalArgumentException if maxAttempts is less than 1.
+     */
+    public RetryPolicy(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("There must be at least one attempt.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Gets the delay to wait after a failed attempt. The delay doubles with each attempt,
+     * up to the maximum, and is drawn between half and all of it so that workers failing
+     * together do not retry together.
+     *
+     * @param attempt The number of the failed attempt, starting at 1.
+     * @return The delay in nanoseconds.
+     */
+    long delayNanos(int attempt) {
+        long delay = initialDelayNanos << Math.min(attempt - 1, 30);
+        if (delay <= 0 || delay > maxDelayNanos) {
+            delay = maxDelayNanos;
+        }
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
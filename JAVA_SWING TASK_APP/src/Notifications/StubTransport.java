@@ -0,0 +1,81 @@
+package Notifications;
+
+import Entities.Notification;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local transport keeping the notifications it is given, for tests and demonstrations.
+ * It can simulate the latency of a session and random delivery failures.
+ */
+public class StubTransport implements Transport {
+
+    private final long sessionNanos;
+    private final double failureRate;
+    private final List<Notification> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Constructs a StubTransport delivering every batch immediately.
+     */
+    public StubTransport() {
+        this(Duration.ZERO, 0);
+    }
+
+    /**
+     * Constructs a StubTransport with the specified parameters.
+     *
+     * @param sessionLatency The time taken by each session.
+     * @param failureRate    The probability, between 0 and 1, that a session fails.
+     */
+    public StubTransport(Duration sessionLatency, double failureRate) {
+        this.sessionNanos = sessionLatency.toNanos();
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void send(List<Notification> batch) throws IOException {
+        sessions.incrementAndGet();
+        if (sessionNanos > 0) {
+            try {
+                Thread.sleep(sessionNanos / 1_000_000, (int) (sessionNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Session interrupted", e);
+            }
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failures.incrementAndGet();
+            throw new IOException("Simulated delivery failure");
+        }
+        delivered.addAll(batch);
+    }
+
+    // Getters
+
+    /**
+     * Gets a copy of the notifications delivered so far, in delivery order.
+     *
+     * @return The delivered notifications.
+     */
+    public List<Notification> getDelivered() {
+        synchronized (delivered) {
+            return new ArrayList<>(delivered);
+        }
+    }
+
+    public int getSessions() {
+        return sessions.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+}
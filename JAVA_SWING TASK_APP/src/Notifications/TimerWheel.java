@@ -0,0 +1,347 @@
+package Notifications;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hashed hierarchical timer wheel: timers identified by a key, each expiring at a tick.
+ * <p>
+ * The wheel has six levels of 64 slots. A timer due within 64 ticks is linked in the slot
+ * of its tick on the first level, one due within 64 slots of the second level in the
+ * slot covering its tick there, and so on; when time reaches a slot of an upper level,
+ * its timers are spread over the levels below. Scheduling, moving and cancelling a timer
+ * take constant time, and advancing one tick touches only the timers that expire or
+ * cascade, however many are pending. Timers further than 2^36 ticks away wait on the
+ * last level and cascade again.
+ * <p>
+ * Timers are kept in parallel arrays indexed by an integer handle, with an open
+ * addressing table from keys to handles, so that millions of them take about 32 bytes
+ * each and no object besides the key. A timer scheduled at {@link #NEVER} keeps its key
+ * known without being linked in a slot.
+ * <p>
+ * The wheel is not thread-safe.
+ *
+ * @param <K> The type of the keys, compared with {@code equals}.
+ */
+public final class TimerWheel<K> {
+
+    /**
+     * The deadline of a timer that never expires.
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    private static final int NONE = -1;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private long[] deadlines;
+    private Object[] keys;
+    private int[] next;
+    private int[] previous;
+    private int[] slots;
+    private int[] table;
+    private int tableShift;
+    private int freeHandle = NONE;
+    private int usedHandles;
+    private int size;
+    private int linked;
+    private long tick;
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param tick     The current tick.
+     * @param capacity The number of timers to allocate room for; the wheel grows beyond.
+     */
+    public TimerWheel(long tick, int capacity) {
+        this.tick = tick;
+        int length = Math.max(16, Integer.highestOneBit(Math.max(1, capacity) - 1) << 1);
+        deadlines = new long[length];
+        keys = new Object[length];
+        next = new int[length];
+        previous = new int[length];
+        slots = new int[length];
+        table = new int[length * 2];
+        tableShift = Integer.numberOfLeadingZeros(table.length - 1);
+        Arrays.fill(heads, NONE);
+    }
+
+    /**
+     * Gets the last tick reached by {@link #advance}.
+     *
+     * @return The current tick.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the number of timers, including those that never expire.
+     *
+     * @return The number of timers.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(K key) {
+        return find(key) != NONE;
+    }
+
+    /**
+     * Gets when a timer expires.
+     *
+     * @param key The key of the timer.
+     * @return The tick of the timer, or {@link #NEVER} if it never expires or does not
+     * exist.
+     */
+    public long getDeadline(K key) {
+        int handle = find(key);
+        return handle == NONE ? NEVER : deadlines[handle];
+    }
+
+    /**
+     * Sets a timer, replacing the one of the same key. A deadline already reached expires
+     * on the next tick.
+     *
+     * @param key      The key of the timer.
+     * @param deadline The tick at which the timer expires, or {@link #NEVER}.
+     */
+    public void schedule(K key, long deadline) {
+        int handle = find(key);
+        if (handle == NONE) {
+            handle = allocate(key);
+        } else {
+            unlink(handle);
+        }
+        deadlines[handle] = deadline == NEVER ? NEVER : Math.max(deadline, tick + 1);
+        link(handle, tick);
+    }
+
+    /**
+     * Removes a timer.
+     *
+     * @param key The key of the timer.
+     * @return true if there was a timer for the key.
+     */
+    public boolean cancel(K key) {
+        int handle = find(key);
+        if (handle == NONE) {
+            return false;
+        }
+        unlink(handle);
+        release(handle);
+        return true;
+    }
+
+    /**
+     * Moves time forward, removing the timers that expire. The timers of a tick expire
+     * before those of the next one; the callback may schedule timers, including for the
+     * key expiring.
+     *
+     * @param to      The tick to reach.
+     * @param expired The callback receiving the key and deadline of each expired timer.
+     * @return The number of expired timers.
+     */
+    @SuppressWarnings("unchecked")
+    public int advance(long to, ObjLongConsumer<? super K> expired) {
+        int count = 0;
+        while (tick < to) {
+            if (linked == 0) {
+                tick = to;
+                break;
+            }
+            long current = ++tick;
+            int level = 1;
+            while (level < LEVELS && (current & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                level++;
+            }
+            for (int cascaded = level - 1; cascaded >= 1; cascaded--) {
+                cascade(cascaded, (int) ((current >> (SLOT_BITS * cascaded)) & SLOT_MASK));
+            }
+            int slot = (int) (current & SLOT_MASK);
+            int handle;
+            while ((handle = heads[slot]) != NONE) {
+                K key = (K) keys[handle];
+                long deadline = deadlines[handle];
+                unlink(handle);
+                release(handle);
+                count++;
+                expired.accept(key, deadline);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Links a timer in the slot covering its deadline, seen from a tick.
+     */
+    private void link(int handle, long base) {
+        long deadline = deadlines[handle];
+        if (deadline == NEVER) {
+            slots[handle] = NONE;
+            return;
+        }
+        int index = NONE;
+        if (deadline <= base) {
+            index = (int) (base & SLOT_MASK);
+        } else {
+            for (int level = 0; level < LEVELS; level++) {
+                int shift = SLOT_BITS * level;
+                if ((deadline >> shift) - (base >> shift) < SLOTS) {
+                    index = level * SLOTS + (int) ((deadline >> shift) & SLOT_MASK);
+                    break;
+                }
+            }
+            if (index == NONE) {
+                int shift = SLOT_BITS * (LEVELS - 1);
+                index = (LEVELS - 1) * SLOTS + (int) (((base >> shift) + SLOTS - 1) & SLOT_MASK);
+            }
+        }
+        int head = heads[index];
+        next[handle] = head;
+        previous[handle] = NONE;
+        if (head != NONE) {
+            previous[head] = handle;
+        }
+        heads[index] = handle;
+        slots[handle] = index;
+        linked++;
+    }
+
+    private void unlink(int handle) {
+        int index = slots[handle];
+        if (index == NONE) {
+            return;
+        }
+        int before = previous[handle];
+        int after = next[handle];
+        if (before == NONE) {
+            heads[index] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+        slots[handle] = NONE;
+        linked--;
+    }
+
+    /**
+     * Spreads the timers of a slot of an upper level over the levels below.
+     */
+    private void cascade(int level, int slot) {
+        int index = level * SLOTS + slot;
+        int handle = heads[index];
+        heads[index] = NONE;
+        while (handle != NONE) {
+            int following = next[handle];
+            linked--;
+            link(handle, tick);
+            handle = following;
+        }
+    }
+
+    private int allocate(K key) {
+        int handle;
+        if (freeHandle != NONE) {
+            handle = freeHandle;
+            freeHandle = next[handle];
+        } else {
+            if (usedHandles == keys.length) {
+                grow();
+            }
+            handle = usedHandles++;
+        }
+        keys[handle] = key;
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            insert(handle);
+        }
+        return handle;
+    }
+
+    private void release(int handle) {
+        remove(handle);
+        keys[handle] = null;
+        next[handle] = freeHandle;
+        freeHandle = handle;
+        size--;
+    }
+
+    private void grow() {
+        int length = keys.length * 2;
+        deadlines = Arrays.copyOf(deadlines, length);
+        keys = Arrays.copyOf(keys, length);
+        next = Arrays.copyOf(next, length);
+        previous = Arrays.copyOf(previous, length);
+        slots = Arrays.copyOf(slots, length);
+    }
+
+    private int home(Object key) {
+        return (key.hashCode() * HASH_MULTIPLIER) >>> tableShift;
+    }
+
+    private int find(Object key) {
+        int mask = table.length - 1;
+        for (int i = home(key); table[i] != 0; i = (i + 1) & mask) {
+            int handle = table[i] - 1;
+            if (keys[handle].equals(key)) {
+                return handle;
+            }
+        }
+        return NONE;
+    }
+
+    private void insert(int handle) {
+        int mask = table.length - 1;
+        int i = home(keys[handle]);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = handle + 1;
+    }
+
+    /**
+     * Removes a handle from the table, moving back the entries that follow it so that
+     * probing still finds them.
+     */
+    private void remove(int handle) {
+        int mask = table.length - 1;
+        int hole = home(keys[handle]);
+        while (table[hole] != handle + 1) {
+            hole = (hole + 1) & mask;
+        }
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (table[i] == 0) {
+                table[hole] = 0;
+                return;
+            }
+            int home = home(keys[table[i] - 1]);
+            boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!stays) {
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+    }
+
+    private void rehash(int length) {
+        table = new int[length];
+        tableShift = Integer.numberOfLeadingZeros(length - 1);
+        for (int handle = 0; handle < usedHandles; handle++) {
+            if (keys[handle] != null) {
+                insert(handle);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Notifications;
+
+import Entities.Notification;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers notifications over one channel (email server, SMS gateway, messaging app).
+ */
+public interface Transport {
+
+    /**
+     * Sends a batch of notifications in a single session, like several emails sent over
+     * one SMTP connection.
+     *
+     * @param batch The notifications to send, all of the same type.
+     * @throws IOException if the batch could not be delivered; the whole batch is retried.
+     */
+    void send(List<Notification> batch) throws IOException;
+}
@@ -0,0 +1,307 @@
+package Persistence;
+
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Notification;
+import Entities.NotificationType;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Entities.ValueRegistry;
+import Entities.WorkOrder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Record layouts of the entities kept by the {@link EntityStore}.
+ * <p>
+ * Field widths: strings and reference lists take 8 bytes (offset and length in the heap),
+ * dates and single references 4 bytes, date-times 12 bytes and enums 1 byte (ordinal).
+ */
+final class EntityCodecs {
+
+    private static final int USER_KIND = 0;
+    private static final int MEMBER_KIND = 1;
+    private static final int MANAGER_KIND = 2;
+
+    private EntityCodecs() {
+    }
+
+    static final RecordCodec<User> USER = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 94;
+        }
+
+        @Override
+        public void write(User user, SegmentWriter out, EntityGraph graph) {
+            Skill skill = null;
+            int[] firstRefs = null;
+            int[] secondRefs = null;
+            int kind = USER_KIND;
+            if (user instanceof Manager) {
+                Manager manager = (Manager) user;
+                kind = MANAGER_KIND;
+                skill = manager.getSkill();
+                firstRefs = graph.indexesOf(Kind.PROJECTS, manager.getProjects());
+                secondRefs = graph.indexesOf(Kind.MATERIALS, manager.getMaterials());
+            } else if (user instanceof Member) {
+                Member member = (Member) user;
+                kind = MEMBER_KIND;
+                skill = member.getSkill();
+                firstRefs = graph.indexesOf(Kind.TASKS, member.getTasks());
+            }
+            out.putString(user.getId());
+            out.putByte(kind);
+            out.putString(user.getUsername());
+            out.putString(user.getPassword());
+            out.putString(user.getFullName());
+            out.putString(user.getPhoneNumber());
+            out.putDate(user.getBirthDay());
+            out.putString(user.getEmail());
+            out.putString(user.getRole());
+            out.putByte(ordinal(user.getSex()));
+            out.putString(skill == null ? null : skill.getName());
+            out.putString(skill == null ? null : skill.getLevel());
+            out.putRefs(firstRefs);
+            out.putRefs(secondRefs);
+        }
+
+        @Override
+        public User read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            int kind = in.getByte();
+            String username = in.getString();
+            String password = in.getString();
+            String fullName = in.getString();
+            String phoneNumber = in.getString();
+            LocalDate birthDay = in.getDate();
+            String email = in.getString();
+            String role = in.getString();
+            Sex sex = value(Sex.values(), in.getByte());
+            String skillName = in.getString();
+            String skillLevel = in.getString();
+            int[] firstRefs = in.getRefs();
+            int[] secondRefs = in.getRefs();
+            Skill userSkill = skillName == null ? null : ValueRegistry.skill(skillName, skillLevel);
+            if (kind == MANAGER_KIND) {
+                Manager manager = Manager.restore(id, username, password, fullName, phoneNumber, birthDay, email,
+                        role, sex, userSkill, null, null);
+                store.defer(() -> {
+                    manager.setProjects(store.instances(Kind.PROJECTS, firstRefs));
+                    manager.setMaterials(store.instances(Kind.MATERIALS, secondRefs));
+                });
+                return manager;
+            }
+            if (kind == MEMBER_KIND) {
+                Member member = Member.restore(id, username, password, fullName, phoneNumber, birthDay, email,
+                        role, sex, userSkill);
+                store.defer(() -> member.setTasks(store.instances(Kind.TASKS, firstRefs)));
+                return member;
+            }
+            return User.restore(id, username, password, fullName, phoneNumber, birthDay, email, role, sex);
+        }
+    };
+
+    static final RecordCodec<Project> PROJECT = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 36;
+        }
+
+        @Override
+        public void write(Project project, SegmentWriter out, EntityGraph graph) {
+            out.putString(project.getId());
+            out.putRef(graph.indexOf(Kind.USERS, project.getManager()));
+            out.putDate(project.getEndDate());
+            out.putRefs(graph.indexesOf(Kind.OBJECTIVES, project.getObjectiveList()));
+            out.putDate(project.getStartDate());
+            out.putString(project.getDescription());
+        }
+
+        @Override
+        public Project read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            int manager = in.getRef();
+            LocalDate endDate = in.getDate();
+            int[] objectives = in.getRefs();
+            LocalDate startDate = in.getDate();
+            String description = in.getString();
+            Project project = Project.restore(id, null, endDate, List.of(), startDate, description);
+            store.defer(() -> {
+                project.setManager((Manager) store.instance(Kind.USERS, manager));
+                project.setObjectiveList(store.instances(Kind.OBJECTIVES, objectives));
+            });
+            return project;
+        }
+    };
+
+    static final RecordCodec<Objective> OBJECTIVE = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 32;
+        }
+
+        @Override
+        public void write(Objective objective, SegmentWriter out, EntityGraph graph) {
+            out.putString(objective.getId());
+            out.putDate(objective.getEndDate());
+            out.putRefs(graph.indexesOf(Kind.TASKS, objective.getTaskList()));
+            out.putDate(objective.getStartDate());
+            out.putString(objective.getDescription());
+        }
+
+        @Override
+        public Objective read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            LocalDate endDate = in.getDate();
+            int[] tasks = in.getRefs();
+            LocalDate startDate = in.getDate();
+            String description = in.getString();
+            Objective objective = Objective.restore(id, endDate, List.of(), startDate, description);
+            store.defer(() -> objective.setTaskList(store.instances(Kind.TASKS, tasks)));
+            return objective;
+        }
+    };
+
+    // Offsets of the task fields read in place by EntityStore.readTaskColumns
+    static final int TASK_PRIORITY_OFFSET = 16;
+    static final int TASK_START_DATE_OFFSET = 36;
+    static final int TASK_END_DATE_OFFSET = 56;
+    static final int TASK_STATUS_OFFSET = 60;
+
+    static final RecordCodec<Task> TASK = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 61;
+        }
+
+        @Override
+        public void write(Task task, SegmentWriter out, EntityGraph graph) {
+            out.putString(task.getId());
+            out.putString(task.getDescription());
+            out.putInt(task.getPriority());
+            out.putRefs(graph.indexesOf(Kind.MATERIALS, task.getMaterials()));
+            out.putRefs(graph.indexesOf(Kind.NOTIFICATIONS, task.getNotifications()));
+            out.putDate(task.getStartDate());
+            out.putRefs(graph.indexesOf(Kind.USERS, task.getMembers()));
+            out.putRefs(graph.indexesOf(Kind.WORK_ORDERS, task.getWorkOrders()));
+            out.putDate(task.getEndDate());
+            out.putByte(ordinal(task.getStatus()));
+        }
+
+        @Override
+        public Task read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            String description = in.getString();
+            int priority = in.getInt();
+            int[] materials = in.getRefs();
+            int[] notifications = in.getRefs();
+            LocalDate startDate = in.getDate();
+            int[] members = in.getRefs();
+            int[] workOrders = in.getRefs();
+            LocalDate endDate = in.getDate();
+            TaskStatus status = value(TaskStatus.values(), in.getByte());
+            Task task = Task.restore(id, description, priority, List.of(), List.of(), startDate, List.of(),
+                    List.of(), endDate, status);
+            store.defer(() -> {
+                task.setMaterials(store.instances(Kind.MATERIALS, materials));
+                task.setNotifications(store.instances(Kind.NOTIFICATIONS, notifications));
+                task.setMembers(store.instances(Kind.USERS, members));
+                task.setWorkOrders(store.instances(Kind.WORK_ORDERS, workOrders));
+            });
+            return task;
+        }
+    };
+
+    static final RecordCodec<Material> MATERIAL = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 32;
+        }
+
+        @Override
+        public void write(Material material, SegmentWriter out, EntityGraph graph) {
+            out.putString(material.getMaterialId());
+            out.putRefs(graph.indexesOf(Kind.TASKS, material.getTasks()));
+            out.putString(material.getName());
+            out.putString(material.getType());
+        }
+
+        @Override
+        public Material read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            int[] tasks = in.getRefs();
+            String name = in.getString();
+            String type = in.getString();
+            Material material = Material.restore(id, List.of(), name, type);
+            store.defer(() -> material.setTasks(store.instances(Kind.TASKS, tasks)));
+            return material;
+        }
+    };
+
+    static final RecordCodec<WorkOrder> WORK_ORDER = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 24;
+        }
+
+        @Override
+        public void write(WorkOrder workOrder, SegmentWriter out, EntityGraph graph) {
+            out.putString(workOrder.getId());
+            out.putString(workOrder.getTitle());
+            out.putString(workOrder.getDescription());
+        }
+
+        @Override
+        public WorkOrder read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            String title = in.getString();
+            String description = in.getString();
+            return WorkOrder.restore(id, title, description);
+        }
+    };
+
+    static final RecordCodec<Notification> NOTIFICATION = new RecordCodec<>() {
+        @Override
+        public int recordSize() {
+            return 33;
+        }
+
+        @Override
+        public void write(Notification notification, SegmentWriter out, EntityGraph graph) {
+            out.putString(notification.getId());
+            out.putDateTime(notification.getDate());
+            out.putByte(ordinal(notification.getType()));
+            out.putRef(graph.indexOf(Kind.TASKS, notification.getTask()));
+            out.putString(notification.getDescription());
+        }
+
+        @Override
+        public Notification read(RecordReader in, EntityStore store) {
+            String id = in.getString();
+            LocalDateTime date = in.getDateTime();
+            NotificationType type = value(NotificationType.values(), in.getByte());
+            int task = in.getRef();
+            String description = in.getString();
+            Notification notification = Notification.restore(id, date, type, null, description);
+            store.defer(() -> notification.setTask((Task) store.instance(Kind.TASKS, task)));
+            return notification;
+        }
+    };
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E> E value(E[] values, int ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
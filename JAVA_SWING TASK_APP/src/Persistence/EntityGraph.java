@@ -0,0 +1,77 @@
+package Persistence;
+
+import Entities.Project;
+import Entities.User;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every entity reachable from a set of users and projects, numbered per kind.
+ * <p>
+ * The graph is walked iteratively and entities are compared by identity, so the
+ * bidirectional links (material and task, project and manager) are visited once. The
+ * references of each entity are the ones enumerated by {@link EntityWalker}.
+ */
+class EntityGraph {
+
+    private final Map<Kind, Map<Object, Integer>> indexes = new EnumMap<>(Kind.class);
+    private final Map<Kind, List<Object>> entities = new EnumMap<>(Kind.class);
+    private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+    EntityGraph(Collection<? extends User> users, Collection<Project> projects) {
+        for (Kind kind : Kind.values()) {
+            indexes.put(kind, new IdentityHashMap<>());
+            entities.put(kind, new ArrayList<>());
+        }
+        addAll(Kind.USERS, users);
+        addAll(Kind.PROJECTS, projects);
+        Object entity;
+        while ((entity = pending.poll()) != null) {
+            visit(entity);
+        }
+    }
+
+    private void visit(Object entity) {
+        EntityWalker.forEachReference(entity, this::add);
+    }
+
+    private void addAll(Kind kind, Collection<?> values) {
+        if (values != null) {
+            for (Object value : values) {
+                add(kind, value);
+            }
+        }
+    }
+
+    private void add(Kind kind, Object entity) {
+        if (entity != null && indexes.get(kind).putIfAbsent(entity, entities.get(kind).size()) == null) {
+            entities.get(kind).add(entity);
+            pending.add(entity);
+        }
+    }
+
+    List<Object> entities(Kind kind) {
+        return entities.get(kind);
+    }
+
+    int indexOf(Kind kind, Object entity) {
+        return entity == null ? SegmentWriter.NULL_REF : indexes.get(kind).get(entity);
+    }
+
+    int[] indexesOf(Kind kind, List<?> values) {
+        if (values == null) {
+            return null;
+        }
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexOf(kind, values.get(i));
+        }
+        return result;
+    }
+}
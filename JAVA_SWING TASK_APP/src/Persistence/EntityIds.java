@@ -0,0 +1,44 @@
+package Persistence;
+
+import Entities.Material;
+import Entities.Notification;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.User;
+import Entities.WorkOrder;
+
+/**
+ * Gives access to the ID of any entity.
+ */
+public final class EntityIds {
+
+    private EntityIds() {
+    }
+
+    /**
+     * Gets the ID of an entity.
+     *
+     * @param entity The entity.
+     * @return The ID of the entity.
+     * @throws IllegalArgumentException if the object is not an entity.
+     */
+    public static String of(Object entity) {
+        if (entity instanceof Task) {
+            return ((Task) entity).getId();
+        } else if (entity instanceof Project) {
+            return ((Project) entity).getId();
+        } else if (entity instanceof Objective) {
+            return ((Objective) entity).getId();
+        } else if (entity instanceof User) {
+            return ((User) entity).getId();
+        } else if (entity instanceof Material) {
+            return ((Material) entity).getMaterialId();
+        } else if (entity instanceof WorkOrder) {
+            return ((WorkOrder) entity).getId();
+        } else if (entity instanceof Notification) {
+            return ((Notification) entity).getId();
+        }
+        throw new IllegalArgumentException("Not an entity: " + entity);
+    }
+}
@@ -0,0 +1,410 @@
+package Persistence;
+
+import Entities.EntityEvents;
+import Entities.Material;
+import Entities.Notification;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.User;
+import Entities.WorkOrder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Repository keeping the entity graph in binary segment files, one per kind of entity,
+ * read through memory mapping.
+ * <p>
+ * Opening a store only maps the files and reads their headers, so its cost does not
+ * depend on the number of records. An entity is decoded the first time it is accessed,
+ * together with the entities it references, and stays cached afterwards. Since the graph
+ * is connected through the managers and members, accessing one project through the
+ * record lists usually decodes and caches most of the store; a single pass over the
+ * projects, such as an export, goes through {@link #scanProjects()} instead.
+ * <p>
+ * Each write goes to a new generation directory, and the {@value #MANIFEST} file naming
+ * the current generation is replaced once all its segments are synced, so a crash during
+ * a write leaves the previous generation whole and a store never mixes segments of two
+ * writes. Directories written before generations existed, with the segments at their
+ * top level, are still opened.
+ */
+public class EntityStore {
+
+    private static final Logger LOGGER = Logger.getLogger(EntityStore.class.getName());
+    private static final String MANIFEST = "CURRENT";
+    private static final String GENERATION_PREFIX = "generation-";
+    /** The kinds of entities a scan decodes with their references: those of a project tree. */
+    private static final Set<Kind> TREE_KINDS = EnumSet.of(Kind.PROJECTS, Kind.OBJECTIVES, Kind.TASKS);
+
+    private final Map<Kind, Segment<?>> segments = new EnumMap<>(Kind.class);
+    private final ArrayDeque<Runnable> pendingLinks = new ArrayDeque<>();
+    /** The entities decoded by the current {@link #scanProjects() scan}, or null outside of one. */
+    private Map<Long, Object> scanned;
+    /** The links of the entities a scan decoded outside of the project tree. */
+    private final List<Runnable> edgeLinks = new ArrayList<>();
+    private boolean linkingEdges;
+
+    private EntityStore() {
+    }
+
+    /**
+     * Writes the given users and projects, and every entity reachable from them, to a
+     * new generation of the segment files of a directory, which replaces the current one
+     * at once. The replaced generations are deleted. The password hashes still being
+     * computed are waited for, so, like the writing itself, this is not meant for the
+     * event dispatch thread.
+     *
+     * @param directory The directory of the store.
+     * @param users     The users to store.
+     * @param projects  The projects to store.
+     * @throws IOException if a segment file cannot be written; the current generation is
+     *                     then left in place.
+     */
+    public static void write(Path directory, Collection<? extends User> users, Collection<Project> projects)
+            throws IOException {
+        Files.createDirectories(directory);
+        EntityGraph graph = new EntityGraph(users, projects);
+        long generation = 0;
+        for (Path path : generations(directory)) {
+            generation = Math.max(generation, generationOf(path) + 1);
+        }
+        Path target = directory.resolve(GENERATION_PREFIX + generation);
+        Files.createDirectory(target);
+        for (Kind kind : Kind.values()) {
+            write(target, kind, graph);
+        }
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer name = ByteBuffer.wrap(target.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            while (name.hasRemaining()) {
+                channel.write(name);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        for (Path path : generations(directory)) {
+            if (!path.equals(target)) {
+                deleteQuietly(path);
+            }
+        }
+        for (Kind kind : Kind.values()) {
+            deleteQuietly(directory.resolve(kind.getFileName()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void write(Path directory, Kind kind, EntityGraph graph) throws IOException {
+        RecordCodec<T> codec = (RecordCodec<T>) kind.getCodec();
+        List<Object> entities = graph.entities(kind);
+        SegmentWriter writer = new SegmentWriter(codec.recordSize(), entities.size());
+        for (Object entity : entities) {
+            writer.beginRecord();
+            codec.write((T) entity, writer, graph);
+        }
+        writer.writeTo(directory.resolve(kind.getFileName()));
+    }
+
+    /**
+     * Opens the store kept in a directory.
+     *
+     * @param directory The directory of the store.
+     * @return The opened store.
+     * @throws IOException if a segment file is missing or invalid.
+     */
+    public static EntityStore open(Path directory) throws IOException {
+        Path generation = directory;
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            String name = new String(Files.readAllBytes(manifest), StandardCharsets.UTF_8).trim();
+            if (generationOf(directory.resolve(name)) < 0) {
+                throw new IOException("Invalid store manifest in " + directory);
+            }
+            generation = directory.resolve(name);
+        }
+        EntityStore store = new EntityStore();
+        for (Kind kind : Kind.values()) {
+            store.segments.put(kind, new Segment<>(generation.resolve(kind.getFileName()), kind.getCodec()));
+        }
+        return store;
+    }
+
+    private static List<Path> generations(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = new ArrayList<>();
+            files.filter(path -> generationOf(path) >= 0).forEach(result::add);
+            return result;
+        }
+    }
+
+    private static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(GENERATION_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(GENERATION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Deletes a replaced generation. A store still reading it keeps its mapped segments;
+     * where the platform refuses to delete mapped files, the next write deletes them.
+     */
+    private static void deleteQuietly(Path path) {
+        try {
+            deleteRecursively(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not delete " + path, e);
+        }
+    }
+
+    /**
+     * Deletes a file, or a directory and everything in it.
+     *
+     * @param path The file or directory.
+     * @throws IOException if a file cannot be deleted.
+     */
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            List<Path> paths = new ArrayList<>();
+            files.forEach(paths::add);
+            for (int i = paths.size() - 1; i >= 0; i--) {
+                Files.delete(paths.get(i));
+            }
+        }
+    }
+
+    // Getters
+
+    public RecordList<User> getUsers() {
+        return new RecordList<>(this, Kind.USERS);
+    }
+
+    public RecordList<Project> getProjects() {
+        return new RecordList<>(this, Kind.PROJECTS);
+    }
+
+    public RecordList<Objective> getObjectives() {
+        return new RecordList<>(this, Kind.OBJECTIVES);
+    }
+
+    public RecordList<Task> getTasks() {
+        return new RecordList<>(this, Kind.TASKS);
+    }
+
+    public RecordList<Material> getMaterials() {
+        return new RecordList<>(this, Kind.MATERIALS);
+    }
+
+    public RecordList<WorkOrder> getWorkOrders() {
+        return new RecordList<>(this, Kind.WORK_ORDERS);
+    }
+
+    public RecordList<Notification> getNotifications() {
+        return new RecordList<>(this, Kind.NOTIFICATIONS);
+    }
+
+    /**
+     * Reads the priority, status and dates of every task in place, without decoding the
+     * tasks; the tasks already decoded are read from the objects, which may have been
+     * modified since. Statuses are ordinals, -1 for none, and dates are epoch days,
+     * {@link Integer#MIN_VALUE} for none.
+     *
+     * @param priorities The array receiving the priorities, one per task record.
+     * @param statuses   The array receiving the statuses.
+     * @param startDays  The array receiving the start dates.
+     * @param endDays    The array receiving the end dates.
+     */
+    public synchronized void readTaskColumns(int[] priorities, byte[] statuses, int[] startDays, int[] endDays) {
+        @SuppressWarnings("unchecked")
+        Segment<Task> segment = (Segment<Task>) segments.get(Kind.TASKS);
+        for (int index = 0; index < segment.size(); index++) {
+            Task task = segment.cached(index);
+            if (task == null) {
+                priorities[index] = segment.intAt(index, EntityCodecs.TASK_PRIORITY_OFFSET);
+                statuses[index] = (byte) segment.byteAt(index, EntityCodecs.TASK_STATUS_OFFSET);
+                startDays[index] = segment.intAt(index, EntityCodecs.TASK_START_DATE_OFFSET);
+                endDays[index] = segment.intAt(index, EntityCodecs.TASK_END_DATE_OFFSET);
+            } else {
+                priorities[index] = task.getPriority();
+                statuses[index] = (byte) (task.getStatus() == null ? -1 : task.getStatus().ordinal());
+                startDays[index] = task.getStartDate() == null ? SegmentWriter.NULL_DATE
+                        : (int) task.getStartDate().toEpochDay();
+                endDays[index] = task.getEndDate() == null ? SegmentWriter.NULL_DATE
+                        : (int) task.getEndDate().toEpochDay();
+            }
+        }
+    }
+
+    /**
+     * Iterates over the projects for a single pass, such as an export, without caching
+     * what it decodes, so that the memory it holds is that of one project tree.
+     * <p>
+     * Each project is decoded with its objectives and tasks. The other entities they
+     * reference, such as the manager, the members and the materials, only reference the
+     * entities of that tree: a member only has the tasks of the project, for instance.
+     * The entities already cached by the store are returned as they are, with the changes
+     * made to them. The decoded entities have the IDs of their records and are meant to
+     * be read only: they are not the entities of the store and their changes are lost.
+     *
+     * @return The projects, in the order of the record list.
+     */
+    public Iterable<Project> scanProjects() {
+        return () -> new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size(Kind.PROJECTS);
+            }
+
+            @Override
+            public Project next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return scan(index++);
+            }
+        };
+    }
+
+    /**
+     * Decodes the tree of a project into a map dropped once it is linked.
+     */
+    private synchronized Project scan(int index) {
+        scanned = new HashMap<>();
+        try {
+            Project project = instance(Kind.PROJECTS, index);
+            EntityEvents.runSilently(() -> {
+                Runnable link;
+                while ((link = pendingLinks.poll()) != null) {
+                    link.run();
+                }
+                linkingEdges = true;
+                for (Runnable edgeLink : edgeLinks) {
+                    edgeLink.run();
+                }
+            });
+            return project;
+        } finally {
+            scanned = null;
+            linkingEdges = false;
+            pendingLinks.clear();
+            edgeLinks.clear();
+        }
+    }
+
+    int size(Kind kind) {
+        return segments.get(kind).size();
+    }
+
+    int indexOf(Kind kind, String id) {
+        return segments.get(kind).indexOf(id);
+    }
+
+    /**
+     * Gets a fully linked entity, decoding it and the entities it references if needed.
+     *
+     * @param kind  The kind of the entity.
+     * @param index The index of its record.
+     * @return The entity.
+     */
+    synchronized Object get(Kind kind, int index) {
+        Object entity = instance(kind, index);
+        // Linking a decoded entity is a read, not an edit: listeners must not see it
+        EntityEvents.runSilently(() -> {
+            Runnable link;
+            while ((link = pendingLinks.poll()) != null) {
+                link.run();
+            }
+        });
+        return entity;
+    }
+
+    /**
+     * Gets an entity, decoding its record if it was never accessed. The references of a
+     * newly decoded entity are only resolved once the current access completes. During a
+     * {@link #scanProjects() scan}, the decoded entity is kept by the scan instead of the
+     * store, and the references of the entities outside of the project tree are resolved
+     * last, to the entities the scan decoded only.
+     *
+     * @param kind  The kind of the entity.
+     * @param index The index of its record, or -1 for none.
+     * @return The entity, or null for index -1 or for an entity a scan did not decode.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T instance(Kind kind, int index) {
+        if (index == SegmentWriter.NULL_REF) {
+            return null;
+        }
+        Segment<T> segment = (Segment<T>) segments.get(kind);
+        T entity = segment.cached(index);
+        if (entity != null) {
+            return entity;
+        }
+        if (scanned == null) {
+            entity = segment.codec().read(segment.reader(index), this);
+            segment.cache(index, entity);
+            return entity;
+        }
+        long key = (long) kind.ordinal() << 32 | index;
+        entity = (T) scanned.get(key);
+        if (entity == null && !linkingEdges) {
+            int links = pendingLinks.size();
+            entity = segment.codec().read(segment.reader(index), this);
+            scanned.put(key, entity);
+            if (!TREE_KINDS.contains(kind)) {
+                while (pendingLinks.size() > links) {
+                    edgeLinks.add(pendingLinks.removeLast());
+                }
+            }
+        }
+        return entity;
+    }
+
+    <T> List<T> instances(Kind kind, int[] indexes) {
+        if (indexes == null) {
+            return null;
+        }
+        List<T> entities = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            T entity = instance(kind, index);
+            if (entity != null || !linkingEdges) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    void defer(Runnable link) {
+        pendingLinks.add(link);
+    }
+}
@@ -0,0 +1,119 @@
+package Persistence;
+
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Notification;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Walks the entities reachable from a set of entities, visiting each one once.
+ * <p>
+ * The entity graph has cycles: materials and tasks refer to each other, notifications
+ * point back to their task and projects to the manager holding them. The walk is
+ * iterative, breadth first, and remembers the visited entities by identity, so it ends
+ * on any graph, in time linear in its size, and does not overflow the stack on long
+ * chains of references.
+ */
+public final class EntityWalker {
+
+    private EntityWalker() {
+    }
+
+    /**
+     * Visits every entity reachable from the given ones, each exactly once, starting
+     * with the given ones in order.
+     *
+     * @param roots   The entities to start from; nulls are ignored.
+     * @param visitor The action run on each entity.
+     */
+    public static void walk(Collection<?> roots, Consumer<Object> visitor) {
+        IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<>();
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        for (Object root : roots) {
+            if (root != null && visited.put(root, Boolean.TRUE) == null) {
+                pending.add(root);
+            }
+        }
+        Object entity;
+        while ((entity = pending.poll()) != null) {
+            visitor.accept(entity);
+            forEachReference(entity, (kind, target) -> {
+                if (visited.put(target, Boolean.TRUE) == null) {
+                    pending.add(target);
+                }
+            });
+        }
+    }
+
+    /**
+     * Lists the entities reachable from the given ones.
+     *
+     * @param roots The entities to start from.
+     * @return The reachable entities, each once, in the order they are visited.
+     */
+    public static List<Object> reachable(Collection<?> roots) {
+        List<Object> entities = new ArrayList<>();
+        walk(roots, entities::add);
+        return entities;
+    }
+
+    /**
+     * Runs an action on each entity an entity refers to, with the kind of the referenced
+     * entity. An entity referenced several times is given as many times; null references
+     * are skipped.
+     *
+     * @param entity The entity.
+     * @param action The action run on each reference.
+     */
+    static void forEachReference(Object entity, BiConsumer<Kind, Object> action) {
+        if (entity instanceof Manager) {
+            Manager manager = (Manager) entity;
+            forEach(Kind.PROJECTS, manager.getProjects(), action);
+            forEach(Kind.MATERIALS, manager.getMaterials(), action);
+        } else if (entity instanceof Member) {
+            forEach(Kind.TASKS, ((Member) entity).getTasks(), action);
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            if (project.getManager() != null) {
+                action.accept(Kind.USERS, project.getManager());
+            }
+            forEach(Kind.OBJECTIVES, project.getObjectiveList(), action);
+        } else if (entity instanceof Objective) {
+            forEach(Kind.TASKS, ((Objective) entity).getTaskList(), action);
+        } else if (entity instanceof Task) {
+            Task task = (Task) entity;
+            forEach(Kind.MATERIALS, task.getMaterials(), action);
+            forEach(Kind.NOTIFICATIONS, task.getNotifications(), action);
+            forEach(Kind.USERS, task.getMembers(), action);
+            forEach(Kind.WORK_ORDERS, task.getWorkOrders(), action);
+        } else if (entity instanceof Material) {
+            forEach(Kind.TASKS, ((Material) entity).getTasks(), action);
+        } else if (entity instanceof Notification) {
+            Task task = ((Notification) entity).getTask();
+            if (task != null) {
+                action.accept(Kind.TASKS, task);
+            }
+        }
+    }
+
+    private static void forEach(Kind kind, Collection<?> values, BiConsumer<Kind, Object> action) {
+        if (values != null) {
+            for (Object value : values) {
+                if (value != null) {
+                    action.accept(kind, value);
+                }
+            }
+        }
+    }
+}
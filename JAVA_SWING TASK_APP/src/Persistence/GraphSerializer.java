@@ -0,0 +1,699 @@
+package Persistence;
+
+import Entities.EntityEvents;
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Notification;
+import Entities.NotificationType;
+import Entities.Objective;
+import Entities.ObjectiveVersion;
+import Entities.Project;
+import Entities.ProjectVersion;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.TaskVersion;
+import Entities.User;
+import Entities.ValueRegistry;
+import Entities.WorkOrder;
+import Entities.WorkspaceSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serializes an entity graph to a compact stream, writing each entity once.
+ * <p>
+ * Entities are numbered in the order they are first met, starting with the roots, and
+ * every reference is written as the number of its target, whether the target was
+ * already written or comes later. The graph is walked iteratively, breadth first, as
+ * the entities are written, so cycles and shared entities cost one number per
+ * reference and the size and time of a snapshot are linear in the size of the graph.
+ * Short strings, such as roles, skills and material types, are written once and then
+ * referred to by number as well.
+ * <p>
+ * Reading creates the entities with their IDs first and links them once the whole
+ * stream is read, without notifying the {@link EntityEvents} listeners of the links.
+ * Copying a graph through a snapshot gives a deep copy where shared entities stay shared
+ * and cycles stay cycles.
+ * <p>
+ * A graph sent to another process can be written from a {@link WorkspaceSnapshot}, so
+ * that it is written on another thread while the entities keep changing, and without the
+ * password hashes of the users, which are then read as users without credentials.
+ */
+public final class GraphSerializer {
+
+    private static final int MAGIC = 0x504D4753;
+    private static final int VERSION = 1;
+
+    private static final int USER = 1;
+    private static final int MEMBER = 2;
+    private static final int MANAGER = 3;
+    private static final int PROJECT = 4;
+    private static final int OBJECTIVE = 5;
+    private static final int TASK = 6;
+    private static final int MATERIAL = 7;
+    private static final int WORK_ORDER = 8;
+    private static final int NOTIFICATION = 9;
+    private static final int END = 0;
+
+    private static final int MAX_SHARED_STRING_LENGTH = 32;
+    private static final int MAX_SHARED_STRINGS = 1 << 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private GraphSerializer() {
+    }
+
+    /**
+     * Writes the given entities and every entity reachable from them. The stream is
+     * flushed but not closed.
+     *
+     * @param roots The entities to write: users, projects or any other entity.
+     * @param out   The stream to write to.
+     * @return The number of entities written.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static int write(Collection<?> roots, OutputStream out) throws IOException {
+        return write(roots, null, true, out);
+    }
+
+    /**
+     * Writes the given entities and every entity reachable from them, as a snapshot saw
+     * them. The projects, objectives and tasks are written with the values they had when
+     * the snapshot was opened, the other entities with their current values. The stream
+     * is flushed but not closed.
+     *
+     * @param roots       The entities to write: users, projects or any other entity.
+     * @param snapshot    The snapshot to read the projects, objectives and tasks from, or
+     *                    null to read their current values.
+     * @param credentials Whether to write the password hashes of the users, waiting for
+     *                    those still being computed.
+     * @param out         The stream to write to.
+     * @return The number of entities written.
+     * @throws IOException if the stream cannot be written.
+     * @throws IllegalStateException if the snapshot is closed.
+     */
+    public static int write(Collection<?> roots, WorkspaceSnapshot snapshot, boolean credentials, OutputStream out)
+            throws IOException {
+        Writer writer = new Writer(new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE)), snapshot,
+                credentials);
+        return writer.write(roots);
+    }
+
+    /**
+     * Reads a graph written by {@link #write(Collection, OutputStream)}. The entities keep
+     * their IDs.
+     *
+     * @param in The stream to read from.
+     * @return The roots, in the order they were given to the writer.
+     * @throws IOException if the stream cannot be read or is not a valid snapshot.
+     */
+    public static List<Object> read(InputStream in) throws IOException {
+        Reader reader = new Reader(new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE)), true);
+        return reader.read();
+    }
+
+    /**
+     * Copies the given entities and every entity reachable from them. The copies get new
+     * IDs, so that the {@link EntityEvents} listeners following the originals, such as a
+     * search index or a task repository, never take a copy for the entity it was copied
+     * from.
+     * <p>
+     * The copies are new entities to the listeners: edits of a copy made while a
+     * {@link MutationJournal} is open are journaled as the creation and edits of an
+     * entity of the workspace, which it is not, so copies must not be edited while a
+     * journal is open.
+     *
+     * @param roots The entities to copy.
+     * @param <T>   The type of the roots.
+     * @return The copies of the roots, in order.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> copy(List<T> roots) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            write(roots, bytes);
+            Reader reader = new Reader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), false);
+            return (List<T>) reader.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The state of one snapshot being written.
+     */
+    private static final class Writer {
+        final DataOutputStream out;
+        final WorkspaceSnapshot snapshot;
+        final boolean credentials;
+        final IdentityHashMap<Object, Integer> handles = new IdentityHashMap<>();
+        final ArrayDeque<Object> pending = new ArrayDeque<>();
+        final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out, WorkspaceSnapshot snapshot, boolean credentials) {
+            this.out = out;
+            this.snapshot = snapshot;
+            this.credentials = credentials;
+        }
+
+        int write(Collection<?> roots) throws IOException {
+            out.writeInt(MAGIC);
+            writeVarint(VERSION);
+            writeVarint(roots.size());
+            for (Object root : roots) {
+                writeRef(root);
+            }
+            Object entity;
+            int count = 0;
+            while ((entity = pending.poll()) != null) {
+                writeEntity(entity);
+                count++;
+            }
+            writeVarint(END);
+            out.flush();
+            return count;
+        }
+
+        void writeEntity(Object entity) throws IOException {
+            if (entity instanceof User) {
+                writeUser((User) entity);
+            } else if (entity instanceof Project) {
+                Project project = (Project) entity;
+                writeVarint(PROJECT);
+                writeString(project.getId());
+                if (snapshot == null) {
+                    writeRef(project.getManager());
+                    writeDate(project.getStartDate());
+                    writeDate(project.getEndDate());
+                    writeString(project.getDescription());
+                    writeRefs(project.getObjectiveList());
+                } else {
+                    ProjectVersion version = snapshot.get(project);
+                    writeRef(version.getManager());
+                    writeDate(version.getStartDate());
+                    writeDate(version.getEndDate());
+                    writeString(version.getDescription());
+                    writeRefs(version.getObjectiveList());
+                }
+            } else if (entity instanceof Objective) {
+                Objective objective = (Objective) entity;
+                writeVarint(OBJECTIVE);
+                writeString(objective.getId());
+                if (snapshot == null) {
+                    writeDate(objective.getStartDate());
+                    writeDate(objective.getEndDate());
+                    writeString(objective.getDescription());
+                    writeRefs(objective.getTaskList());
+                } else {
+                    ObjectiveVersion version = snapshot.get(objective);
+                    writeDate(version.getStartDate());
+                    writeDate(version.getEndDate());
+                    writeString(version.getDescription());
+                    writeRefs(version.getTaskList());
+                }
+            } else if (entity instanceof Task) {
+                Task task = (Task) entity;
+                writeVarint(TASK);
+                writeString(task.getId());
+                if (snapshot == null) {
+                    writeString(task.getDescription());
+                    writeVarint(task.getPriority());
+                    writeEnum(task.getStatus());
+                    writeDate(task.getStartDate());
+                    writeDate(task.getEndDate());
+                    writeRefs(task.getMembers());
+                    writeRefs(task.getMaterials());
+                    writeRefs(task.getWorkOrders());
+                    writeRefs(task.getNotifications());
+                } else {
+                    TaskVersion version = snapshot.get(task);
+                    writeString(version.getDescription());
+                    writeVarint(version.getPriority());
+                    writeEnum(version.getStatus());
+                    writeDate(version.getStartDate());
+                    writeDate(version.getEndDate());
+                    writeRefs(version.getMembers());
+                    writeRefs(version.getMaterials());
+                    writeRefs(version.getWorkOrders());
+                    writeRefs(version.getNotifications());
+                }
+            } else if (entity instanceof Material) {
+                Material material = (Material) entity;
+                writeVarint(MATERIAL);
+                writeString(material.getMaterialId());
+                writeString(material.getName());
+                writeString(material.getType());
+                writeRefs(material.getTasks());
+            } else if (entity instanceof WorkOrder) {
+                WorkOrder workOrder = (WorkOrder) entity;
+                writeVarint(WORK_ORDER);
+                writeString(workOrder.getId());
+                writeString(workOrder.getTitle());
+                writeString(workOrder.getDescription());
+            } else if (entity instanceof Notification) {
+                Notification notification = (Notification) entity;
+                writeVarint(NOTIFICATION);
+                writeString(notification.getId());
+                writeDateTime(notification.getDate());
+                writeEnum(notification.getType());
+                writeString(notification.getDescription());
+                writeRef(notification.getTask());
+            } else {
+                throw new IllegalArgumentException("Not an entity: " + entity.getClass().getName());
+            }
+        }
+
+        void writeUser(User user) throws IOException {
+            Skill skill = null;
+            if (user instanceof Manager) {
+                writeVarint(MANAGER);
+                skill = ((Manager) user).getSkill();
+            } else if (user instanceof Member) {
+                writeVarint(MEMBER);
+                skill = ((Member) user).getSkill();
+            } else {
+                writeVarint(USER);
+            }
+            writeString(user.getId());
+            writeString(user.getUsername());
+            writeString(credentials ? user.getPassword() : null);
+            writeString(user.getFullName());
+            writeString(user.getPhoneNumber());
+            writeDate(user.getBirthDay());
+            writeString(user.getEmail());
+            writeString(user.getRole());
+            writeEnum(user.getSex());
+            writeString(skill == null ? null : skill.getName());
+            writeString(skill == null ? null : skill.getLevel());
+            if (user instanceof Manager) {
+                writeRefs(((Manager) user).getProjects());
+                writeRefs(((Manager) user).getMaterials());
+            } else if (user instanceof Member) {
+                writeRefs(((Member) user).getTasks());
+            }
+        }
+
+        /**
+         * Writes the number of an entity, numbering it and queuing it for writing the
+         * first time it is met; 0 stands for null.
+         */
+        void writeRef(Object entity) throws IOException {
+            if (entity == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer handle = handles.get(entity);
+            if (handle == null) {
+                handle = handles.size();
+                handles.put(entity, handle);
+                pending.add(entity);
+            }
+            writeVarint(handle + 1);
+        }
+
+        void writeRefs(List<?> entities) throws IOException {
+            if (entities == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(entities.size() + 1);
+            for (Object entity : entities) {
+                writeRef(entity);
+            }
+        }
+
+        /**
+         * Writes a string: 0 for null, 1 followed by the UTF-8 bytes for a string written
+         * in full, or 2 plus its number for a short string already written.
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            if (value.length() <= MAX_SHARED_STRING_LENGTH) {
+                Integer index = strings.get(value);
+                if (index != null) {
+                    writeVarint(index + 2);
+                    return;
+                }
+                if (strings.size() < MAX_SHARED_STRINGS) {
+                    strings.put(value, strings.size());
+                }
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(1);
+            writeVarint(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeDate(LocalDate date) throws IOException {
+            writeVarint(date == null ? 0 : zigZag(date.toEpochDay()) + 1);
+        }
+
+        void writeDateTime(LocalDateTime dateTime) throws IOException {
+            if (dateTime == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(zigZag(dateTime.toEpochSecond(ZoneOffset.UTC)) + 1);
+            writeVarint(dateTime.getNano());
+        }
+
+        void writeEnum(Enum<?> value) throws IOException {
+            writeVarint(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    /**
+     * The state of one snapshot being read.
+     */
+    private static final class Reader {
+        final DataInputStream in;
+        final List<Object> entities = new ArrayList<>();
+        final List<String> strings = new ArrayList<>();
+        final boolean keepIds;
+        final List<Runnable> links = new ArrayList<>();
+
+        Reader(DataInputStream in, boolean keepIds) {
+            this.in = in;
+            this.keepIds = keepIds;
+        }
+
+        List<Object> read() throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an entity snapshot");
+            }
+            long version = readVarint();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int[] roots = new int[readCount()];
+            for (int i = 0; i < roots.length; i++) {
+                roots[i] = readHandle();
+            }
+            try {
+                int tag;
+                while ((tag = (int) readVarint()) != END) {
+                    entities.add(readEntity(tag));
+                }
+                EntityEvents.runSilently(() -> {
+                    for (Runnable link : links) {
+                        link.run();
+                    }
+                });
+                List<Object> result = new ArrayList<>(roots.length);
+                for (int root : roots) {
+                    result.add(entity(root));
+                }
+                return result;
+            } catch (ClassCastException | IndexOutOfBoundsException | DateTimeException e) {
+                throw new IOException("Corrupt snapshot: " + e.getMessage(), e);
+            }
+        }
+
+        Object readEntity(int tag) throws IOException {
+            switch (tag) {
+                case USER:
+                case MEMBER:
+                case MANAGER:
+                    return readUser(tag);
+                case PROJECT: {
+                    String id = readString();
+                    int manager = readHandle();
+                    LocalDate startDate = readDate();
+                    LocalDate endDate = readDate();
+                    String description = readString();
+                    int[] objectives = readHandles();
+                    Project project = build(id, () -> Project.restore(idOf(id), null, endDate, List.of(), startDate,
+                            description));
+                    links.add(() -> {
+                        project.setManager((Manager) entity(manager));
+                        project.setObjectiveList(entities(objectives));
+                    });
+                    return project;
+                }
+                case OBJECTIVE: {
+                    String id = readString();
+                    LocalDate startDate = readDate();
+                    LocalDate endDate = readDate();
+                    String description = readString();
+                    int[] tasks = readHandles();
+                    Objective objective = build(id, () -> Objective.restore(idOf(id), endDate, List.of(), startDate,
+                            description));
+                    links.add(() -> objective.setTaskList(entities(tasks)));
+                    return objective;
+                }
+                case TASK: {
+                    String id = readString();
+                    String description = readString();
+                    int priority = (int) readVarint();
+                    TaskStatus status = readEnum(TaskStatus.values());
+                    LocalDate startDate = readDate();
+                    LocalDate endDate = readDate();
+                    int[] members = readHandles();
+                    int[] materials = readHandles();
+                    int[] workOrders = readHandles();
+                    int[] notifications = readHandles();
+                    Task task = build(id, () -> Task.restore(idOf(id), description, priority, List.of(), List.of(),
+                            startDate, List.of(), List.of(), endDate, status));
+                    links.add(() -> {
+                        task.setMembers(entities(members));
+                        task.setMaterials(entities(materials));
+                        task.setWorkOrders(entities(workOrders));
+                        task.setNotifications(entities(notifications));
+                    });
+                    return task;
+                }
+                case MATERIAL: {
+                    String id = readString();
+                    String name = readString();
+                    String type = readString();
+                    int[] tasks = readHandles();
+                    Material material = build(id, () -> Material.restore(idOf(id), List.of(), name, type));
+                    links.add(() -> material.setTasks(entities(tasks)));
+                    return material;
+                }
+                case WORK_ORDER: {
+                    String id = readString();
+                    String title = readString();
+                    String description = readString();
+                    return build(id, () -> WorkOrder.restore(idOf(id), title, description));
+                }
+                case NOTIFICATION: {
+                    String id = readString();
+                    LocalDateTime date = readDateTime();
+                    NotificationType type = readEnum(NotificationType.values());
+                    String description = readString();
+                    int task = readHandle();
+                    Notification notification = build(id, () -> Notification.restore(idOf(id), date, type, null,
+                            description));
+                    links.add(() -> notification.setTask((Task) entity(task)));
+                    return notification;
+                }
+                default:
+                    throw new IOException("Corrupt snapshot: unknown entity tag " + tag);
+            }
+        }
+
+        User readUser(int tag) throws IOException {
+            String id = readString();
+            String username = readString();
+            String password = readString();
+            String fullName = readString();
+            String phoneNumber = readString();
+            LocalDate birthDay = readDate();
+            String email = readString();
+            String role = readString();
+            Sex sex = readEnum(Sex.values());
+            String skillName = readString();
+            String skillLevel = readString();
+            Skill skill = skillName == null ? null : ValueRegistry.skill(skillName, skillLevel);
+            if (tag == MANAGER) {
+                int[] projects = readHandles();
+                int[] materials = readHandles();
+                Manager manager = build(id, () -> Manager.restore(idOf(id), username, password, fullName, phoneNumber,
+                        birthDay, email, role, sex, skill, null, null));
+                links.add(() -> {
+                    manager.setProjects(entities(projects));
+                    manager.setMaterials(entities(materials));
+                });
+                return manager;
+            }
+            if (tag == MEMBER) {
+                int[] tasks = readHandles();
+                Member member = build(id, () -> Member.restore(idOf(id), username, password, fullName, phoneNumber,
+                        birthDay, email, role, sex, skill));
+                links.add(() -> member.setTasks(entities(tasks)));
+                return member;
+            }
+            return build(id, () -> User.restore(idOf(id), username, password, fullName, phoneNumber, birthDay, email,
+                    role, sex));
+        }
+
+        /**
+         * Gets the ID to restore an entity with: the one of its record, or null for a new
+         * one when the IDs are not kept.
+         */
+        String idOf(String id) {
+            return keepIds ? id : null;
+        }
+
+        /**
+         * Runs the factory restoring an entity with the ID of the record, reporting the
+         * values it rejects as a corrupt snapshot.
+         */
+        <T> T build(String id, Supplier<T> factory) throws IOException {
+            try {
+                return factory.get();
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IOException("Corrupt snapshot: invalid entity " + id, e);
+            }
+        }
+
+        Object entity(int handle) {
+            return handle < 0 ? null : entities.get(handle);
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> entities(int[] handles) {
+            if (handles == null) {
+                return null;
+            }
+            List<T> result = new ArrayList<>(handles.length);
+            for (int handle : handles) {
+                result.add((T) entity(handle));
+            }
+            return result;
+        }
+
+        int readHandle() throws IOException {
+            long value = readVarint();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt snapshot: invalid reference");
+            }
+            return (int) value - 1;
+        }
+
+        int[] readHandles() throws IOException {
+            long size = readVarint();
+            if (size == 0) {
+                return null;
+            }
+            int[] handles = new int[checkCount(size - 1)];
+            for (int i = 0; i < handles.length; i++) {
+                handles[i] = readHandle();
+            }
+            return handles;
+        }
+
+        int readCount() throws IOException {
+            return checkCount(readVarint());
+        }
+
+        String readString() throws IOException {
+            long marker = readVarint();
+            if (marker == 0) {
+                return null;
+            }
+            if (marker >= 2) {
+                if (marker - 2 >= strings.size()) {
+                    throw new IOException("Corrupt snapshot: unknown string " + (marker - 2));
+                }
+                return strings.get((int) (marker - 2));
+            }
+            byte[] bytes = new byte[checkCount(readVarint())];
+            in.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (value.length() <= MAX_SHARED_STRING_LENGTH && strings.size() < MAX_SHARED_STRINGS) {
+                strings.add(value);
+            }
+            return value;
+        }
+
+        LocalDate readDate() throws IOException {
+            long value = readVarint();
+            return value == 0 ? null : LocalDate.ofEpochDay(unZigZag(value - 1));
+        }
+
+        LocalDateTime readDateTime() throws IOException {
+            long value = readVarint();
+            if (value == 0) {
+                return null;
+            }
+            long seconds = unZigZag(value - 1);
+            return LocalDateTime.ofEpochSecond(seconds, (int) readVarint(), ZoneOffset.UTC);
+        }
+
+        <E> E readEnum(E[] values) throws IOException {
+            long value = readVarint();
+            if (value > values.length) {
+                throw new IOException("Corrupt snapshot: invalid constant " + value);
+            }
+            return value == 0 ? null : values[(int) value - 1];
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Truncated snapshot");
+                }
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt snapshot: invalid number");
+        }
+
+        private static int checkCount(long count) throws IOException {
+            if (count < 0 || count > Integer.MAX_VALUE - 8) {
+                throw new IOException("Corrupt snapshot: invalid size " + count);
+            }
+            return (int) count;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,853 @@
+package Persistence;
+
+import Entities.DateRange;
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Notification;
+import Entities.NotificationType;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Entities.ValueRegistry;
+import Entities.WorkOrder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Encoding of the entries of the {@link MutationJournal}.
+ * <p>
+ * Each entry is framed as its body length, the body and a CRC32 of the body, so that an
+ * entry torn by a crash is detected on recovery. The body holds the sequence number, the
+ * kind and ID of the entity, the property name and its tagged value. References to other
+ * entities are written as their IDs.
+ * <p>
+ * An entity created after the snapshot is recorded by a {@link #CREATED} entry holding its
+ * scalar fields, followed by one entry per reference it holds, so that replaying the
+ * creations of entities referencing each other never meets an unknown ID.
+ */
+final class JournalCodec {
+
+    /**
+     * The property of the entries creating an entity.
+     */
+    static final String CREATED = "+";
+
+    // Entity kinds, in the order of their codes in the entries
+    private static final Kind[] KINDS = {Kind.TASKS, Kind.PROJECTS, Kind.OBJECTIVES, Kind.MATERIALS,
+            Kind.WORK_ORDERS, Kind.NOTIFICATIONS, Kind.USERS};
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte DATE = 3;
+    private static final byte STATUS = 4;
+    private static final byte ID_LIST = 5;
+    private static final byte ID = 6;
+    private static final byte DATE_RANGE = 7;
+    private static final byte DATE_TIME = 8;
+    private static final byte SKILL = 9;
+    private static final byte FIELDS = 10;
+
+    private static final int USER_KIND = 0;
+    private static final int MEMBER_KIND = 1;
+    private static final int MANAGER_KIND = 2;
+
+    private JournalCodec() {
+    }
+
+    /**
+     * An entry read back from the journal.
+     */
+    static final class Entry {
+        final long sequence;
+        final Kind kind;
+        final String id;
+        final String property;
+        final Object value;
+        final int frameLength;
+
+        private Entry(long sequence, Kind kind, String id, String property, Object value, int frameLength) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.id = id;
+            this.property = property;
+            this.value = value;
+            this.frameLength = frameLength;
+        }
+
+        @Override
+        public String toString() {
+            return "entry " + sequence + " (" + kind + " " + id + " " + property + ")";
+        }
+    }
+
+    /**
+     * The entities an entry is replayed on: those of the snapshot, if any, and those
+     * created by the entries replayed so far.
+     */
+    static final class Replay {
+        private final EntityStore store;
+        private final Map<String, Object> created = new HashMap<>();
+        private final List<Project> createdProjects = new ArrayList<>();
+        private final List<User> createdUsers = new ArrayList<>();
+        private final List<String> failures = new ArrayList<>();
+
+        Replay(EntityStore store) {
+            this.store = store;
+        }
+
+        /**
+         * Finds an entity of the snapshot or created by the journal.
+         *
+         * @param kind The kind of the entity.
+         * @param id   The ID of the entity.
+         * @return The entity, or null if it is unknown.
+         */
+        Object find(Kind kind, String id) {
+            Object entity = created.get(key(kind, id));
+            if (entity == null && store != null) {
+                int index = store.indexOf(kind, id);
+                entity = index < 0 ? null : store.get(kind, index);
+            }
+            return entity;
+        }
+
+        List<Project> getCreatedProjects() {
+            return createdProjects;
+        }
+
+        List<User> getCreatedUsers() {
+            return createdUsers;
+        }
+
+        List<String> getFailures() {
+            return failures;
+        }
+
+        Collection<String> getCreatedKeys() {
+            return created.keySet();
+        }
+
+        void fail(Entry entry, String message) {
+            failures.add(entry + ": " + message);
+        }
+
+        private void add(Kind kind, String id, Object entity) {
+            created.put(key(kind, id), entity);
+            if (entity instanceof Project) {
+                createdProjects.add((Project) entity);
+            } else if (entity instanceof User) {
+                createdUsers.add((User) entity);
+            }
+        }
+    }
+
+    /**
+     * Gets the kind of an entity.
+     *
+     * @param entity The entity.
+     * @return The kind, or null if the object is not an entity.
+     */
+    static Kind kindOf(Object entity) {
+        if (entity instanceof Task) {
+            return Kind.TASKS;
+        } else if (entity instanceof Project) {
+            return Kind.PROJECTS;
+        } else if (entity instanceof Objective) {
+            return Kind.OBJECTIVES;
+        } else if (entity instanceof Material) {
+            return Kind.MATERIALS;
+        } else if (entity instanceof WorkOrder) {
+            return Kind.WORK_ORDERS;
+        } else if (entity instanceof Notification) {
+            return Kind.NOTIFICATIONS;
+        } else if (entity instanceof User) {
+            return Kind.USERS;
+        }
+        return null;
+    }
+
+    /**
+     * Makes a key identifying an entity among those of every kind.
+     *
+     * @param kind The kind of the entity.
+     * @param id   The ID of the entity.
+     * @return The key.
+     */
+    static String key(Kind kind, String id) {
+        return kind.ordinal() + ":" + id;
+    }
+
+    /**
+     * Gets the references held by an entity, by property name, as set after its creation.
+     *
+     * @param entity The entity.
+     * @return The referenced entity or list of entities of each reference property.
+     */
+    static Map<String, Object> references(Object entity) {
+        Map<String, Object> references = new LinkedHashMap<>();
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            references.put("materials", task.getMaterials());
+            references.put("notifications", task.getNotifications());
+            references.put("members", task.getMembers());
+            references.put("workOrders", task.getWorkOrders());
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            references.put("manager", project.getManager());
+            references.put("objectiveList", project.getObjectiveList());
+        } else if (entity instanceof Objective) {
+            references.put("taskList", ((Objective) entity).getTaskList());
+        } else if (entity instanceof Material) {
+            references.put("tasks", ((Material) entity).getTasks());
+        } else if (entity instanceof Notification) {
+            references.put("task", ((Notification) entity).getTask());
+        } else if (entity instanceof Manager) {
+            Manager manager = (Manager) entity;
+            references.put("projects", manager.getProjects());
+            references.put("materials", manager.getMaterials());
+        } else if (entity instanceof Member) {
+            references.put("tasks", ((Member) entity).getTasks());
+        }
+        return references;
+    }
+
+    /**
+     * Reads the current value of a property, through the getter reading it under the lock
+     * of the entity. The events of two setters can reach the journal in the opposite
+     * order to their writes; the value read when the second event is recorded is never
+     * older than the value it notifies, so the last entry of a property holds its last
+     * value.
+     *
+     * @param entity   The modified entity.
+     * @param property The name of the modified property.
+     * @param value    The value notified, returned for the properties not replayed.
+     * @return The current value of the property.
+     */
+    static Object currentValue(Object entity, String property, Object value) {
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            switch (property) {
+                case "description":
+                    return task.getDescription();
+                case "priority":
+                    return task.getPriority();
+                case "dates":
+                    return task.getDates();
+                case "status":
+                    return task.getStatus();
+                case "materials":
+                    return task.getMaterials();
+                case "notifications":
+                    return task.getNotifications();
+                case "members":
+                    return task.getMembers();
+                case "workOrders":
+                    return task.getWorkOrders();
+                default:
+                    return value;
+            }
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            switch (property) {
+                case "endDate":
+                    return project.getEndDate();
+                case "startDate":
+                    return project.getStartDate();
+                case "description":
+                    return project.getDescription();
+                case "manager":
+                    return project.getManager();
+                case "objectiveList":
+                    return project.getObjectiveList();
+                default:
+                    return value;
+            }
+        } else if (entity instanceof Objective) {
+            Objective objective = (Objective) entity;
+            switch (property) {
+                case "endDate":
+                    return objective.getEndDate();
+                case "startDate":
+                    return objective.getStartDate();
+                case "description":
+                    return objective.getDescription();
+                case "taskList":
+                    return objective.getTaskList();
+                default:
+                    return value;
+            }
+        } else if (entity instanceof Material) {
+            Material material = (Material) entity;
+            switch (property) {
+                case "name":
+                    return material.getName();
+                case "type":
+                    return material.getType();
+                case "tasks":
+                    return material.getTasks();
+                default:
+                    return value;
+            }
+        } else if (entity instanceof WorkOrder) {
+            WorkOrder workOrder = (WorkOrder) entity;
+            switch (property) {
+                case "title":
+                    return workOrder.getTitle();
+                case "description":
+                    return workOrder.getDescription();
+                default:
+                    return value;
+            }
+        } else if (entity instanceof Notification) {
+            return property.equals("task") ? ((Notification) entity).getTask() : value;
+        } else if (entity instanceof User) {
+            return currentValue((User) entity, property, value);
+        }
+        return value;
+    }
+
+    private static Object currentValue(User user, String property, Object value) {
+        switch (property) {
+            case "username":
+                return user.getUsername();
+            case "fullName":
+                return user.getFullName();
+            case "phoneNumber":
+                return user.getPhoneNumber();
+            case "birthDay":
+                return user.getBirthDay();
+            case "email":
+                return user.getEmail();
+            case "skill":
+                if (user instanceof Manager) {
+                    return ((Manager) user).getSkill();
+                }
+                return user instanceof Member ? ((Member) user).getSkill() : value;
+            case "projects":
+            case "materials":
+            case "tasks":
+                Map<String, Object> references = references(user);
+                return references.containsKey(property) ? references.get(property) : value;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Encodes a change as a framed entry.
+     *
+     * @param sequence The sequence number of the entry.
+     * @param entity   The modified entity.
+     * @param property The name of the modified property, or {@link #CREATED}.
+     * @param value    The new value of the property.
+     * @return The framed entry.
+     */
+    static byte[] encode(long sequence, Object entity, String property, Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeLong(sequence);
+            out.writeByte(code(kindOf(entity)));
+            out.writeUTF(EntityIds.of(entity));
+            out.writeUTF(property);
+            writeValue(out, value);
+            out.writeInt(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - 8;
+        putInt(frame, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(frame, 4, length);
+        putInt(frame, 4 + length, (int) crc.getValue());
+        return frame;
+    }
+
+    /**
+     * Encodes the creation of an entity as a framed entry holding its scalar fields. The
+     * references of the entity are recorded by the entries following it.
+     *
+     * @param sequence The sequence number of the entry.
+     * @param entity   The created entity.
+     * @return The framed entry.
+     */
+    static byte[] encodeCreation(long sequence, Object entity) {
+        return encode(sequence, entity, CREATED, fields(entity));
+    }
+
+    private static Object[] fields(Object entity) {
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            DateRange dates = task.getDates();
+            return new Object[]{task.getDescription(), task.getPriority(), dates.getStartDate(), dates.getEndDate(),
+                    task.getStatus()};
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            return new Object[]{project.getDescription(), project.getStartDate(), project.getEndDate()};
+        } else if (entity instanceof Objective) {
+            Objective objective = (Objective) entity;
+            return new Object[]{objective.getDescription(), objective.getStartDate(), objective.getEndDate()};
+        } else if (entity instanceof Material) {
+            Material material = (Material) entity;
+            return new Object[]{material.getName(), material.getType()};
+        } else if (entity instanceof WorkOrder) {
+            WorkOrder workOrder = (WorkOrder) entity;
+            return new Object[]{workOrder.getTitle(), workOrder.getDescription()};
+        } else if (entity instanceof Notification) {
+            Notification notification = (Notification) entity;
+            return new Object[]{notification.getDate(), ordinal(notification.getType()),
+                    notification.getDescription()};
+        }
+        User user = (User) entity;
+        int kind = USER_KIND;
+        Skill skill = null;
+        if (user instanceof Manager) {
+            kind = MANAGER_KIND;
+            skill = ((Manager) user).getSkill();
+        } else if (user instanceof Member) {
+            kind = MEMBER_KIND;
+            skill = ((Member) user).getSkill();
+        }
+        return new Object[]{kind, user.getUsername(), user.getPassword(), user.getFullName(), user.getPhoneNumber(),
+                user.getBirthDay(), user.getEmail(), user.getRole(), ordinal(user.getSex()), skill};
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof LocalDate) {
+            out.writeByte(DATE);
+            out.writeLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof DateRange) {
+            DateRange dates = (DateRange) value;
+            out.writeByte(DATE_RANGE);
+            writeDate(out, dates.getStartDate());
+            writeDate(out, dates.getEndDate());
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeByte(DATE_TIME);
+            out.writeLong(dateTime.toLocalDate().toEpochDay());
+            out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+        } else if (value instanceof TaskStatus) {
+            out.writeByte(STATUS);
+            out.writeByte(((TaskStatus) value).ordinal());
+        } else if (value instanceof Skill) {
+            Skill skill = (Skill) value;
+            out.writeByte(SKILL);
+            writeValue(out, skill.getName());
+            writeValue(out, skill.getLevel());
+        } else if (value instanceof Object[]) {
+            Object[] fields = (Object[]) value;
+            out.writeByte(FIELDS);
+            out.writeByte(fields.length);
+            for (Object field : fields) {
+                writeValue(out, field);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(ID_LIST);
+            out.writeInt(list.size());
+            for (Object entity : list) {
+                out.writeUTF(EntityIds.of(entity));
+            }
+        } else {
+            out.writeByte(ID);
+            out.writeUTF(EntityIds.of(value));
+        }
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.toEpochDay());
+        }
+    }
+
+    /**
+     * Reads the next entry.
+     *
+     * @param in The journal input.
+     * @return The entry, or null at the end of the journal or on a torn or corrupted entry.
+     * @throws IOException if the journal cannot be read.
+     */
+    static Entry read(DataInputStream in) throws IOException {
+        byte[] body;
+        int checksum;
+        try {
+            int length = in.readInt();
+            if (length <= 0) {
+                return null;
+            }
+            body = new byte[length];
+            in.readFully(body);
+            checksum = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        DataInputStream entry = new DataInputStream(new ByteArrayInputStream(body));
+        long sequence = entry.readLong();
+        int code = entry.readByte();
+        if (code < 0 || code >= KINDS.length) {
+            throw new IOException("Unknown entity kind " + code);
+        }
+        String id = entry.readUTF();
+        String property = entry.readUTF();
+        return new Entry(sequence, KINDS[code], id, property, readValue(entry), body.length + 8);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+            case ID:
+                return in.readUTF();
+            case INT:
+                return in.readInt();
+            case DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case DATE_RANGE:
+                return new DateRange(readDate(in), readDate(in));
+            case DATE_TIME:
+                return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()),
+                        LocalTime.ofNanoOfDay(in.readLong()));
+            case STATUS:
+                return TaskStatus.values()[in.readByte()];
+            case SKILL:
+                return ValueRegistry.skill((String) readValue(in), (String) readValue(in));
+            case FIELDS:
+                Object[] fields = new Object[in.readByte()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = readValue(in);
+                }
+                return fields;
+            case ID_LIST:
+                int size = in.readInt();
+                List<String> ids = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    ids.add(in.readUTF());
+                }
+                return ids;
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    /**
+     * Applies an entry to the entities being recovered. The dates of a task are restored
+     * together, so that replaying them cannot fail because of the dates being replaced.
+     * References to unknown entities are left out and reported as failures of the replay.
+     *
+     * @param entry  The entry to replay.
+     * @param replay The entities of the snapshot and those created by the journal.
+     * @throws IllegalArgumentException if the entity is unknown or refuses the value.
+     */
+    @SuppressWarnings("unchecked")
+    static void apply(Entry entry, Replay replay) {
+        Object value = entry.value;
+        if (entry.property.equals(CREATED)) {
+            // An entity created again, once already in the snapshot, keeps the snapshot values
+            if (replay.find(entry.kind, entry.id) == null) {
+                replay.add(entry.kind, entry.id, create(entry.kind, entry.id, (Object[]) value));
+            }
+            return;
+        }
+        Object entity = replay.find(entry.kind, entry.id);
+        if (entity == null) {
+            throw new IllegalArgumentException("Unknown entity");
+        }
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            switch (entry.property) {
+                case "description":
+                    task.setDescription((String) value);
+                    return;
+                case "priority":
+                    task.setPriority((Integer) value);
+                    return;
+                case "dates":
+                    DateRange dates = (DateRange) value;
+                    task.reschedule(dates.getStartDate(), dates.getEndDate());
+                    return;
+                case "status":
+                    task.setStatus((TaskStatus) value);
+                    return;
+                case "materials":
+                    task.setMaterials(resolve(replay, entry, Kind.MATERIALS, (List<String>) value));
+                    return;
+                case "notifications":
+                    task.setNotifications(resolve(replay, entry, Kind.NOTIFICATIONS, (List<String>) value));
+                    return;
+                case "members":
+                    task.setMembers(resolve(replay, entry, Kind.USERS, (List<String>) value));
+                    return;
+                case "workOrders":
+                    task.setWorkOrders(resolve(replay, entry, Kind.WORK_ORDERS, (List<String>) value));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            switch (entry.property) {
+                case "manager":
+                    project.setManager(resolve(replay, entry, Kind.USERS, (String) value));
+                    return;
+                case "endDate":
+                    project.setEndDate((LocalDate) value);
+                    return;
+                case "startDate":
+                    project.setStartDate((LocalDate) value);
+                    return;
+                case "description":
+                    project.setDescription((String) value);
+                    return;
+                case "objectiveList":
+                    project.setObjectiveList(resolve(replay, entry, Kind.OBJECTIVES, (List<String>) value));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Objective) {
+            Objective objective = (Objective) entity;
+            switch (entry.property) {
+                case "endDate":
+                    objective.setEndDate((LocalDate) value);
+                    return;
+                case "startDate":
+                    objective.setStartDate((LocalDate) value);
+                    return;
+                case "description":
+                    objective.setDescription((String) value);
+                    return;
+                case "taskList":
+                    objective.setTaskList(resolve(replay, entry, Kind.TASKS, (List<String>) value));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Material) {
+            Material material = (Material) entity;
+            switch (entry.property) {
+                case "name":
+                    material.setName((String) value);
+                    return;
+                case "type":
+                    material.setType((String) value);
+                    return;
+                case "tasks":
+                    material.setTasks(resolve(replay, entry, Kind.TASKS, (List<String>) value));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof WorkOrder) {
+            WorkOrder workOrder = (WorkOrder) entity;
+            switch (entry.property) {
+                case "title":
+                    workOrder.setTitle((String) value);
+                    return;
+                case "description":
+                    workOrder.setDescription((String) value);
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Notification) {
+            if (entry.property.equals("task")) {
+                ((Notification) entity).setTask(resolve(replay, entry, Kind.TASKS, (String) value));
+                return;
+            }
+        } else if (applyToUser((User) entity, entry, replay)) {
+            return;
+        }
+        throw new IllegalArgumentException("Unknown property");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean applyToUser(User user, Entry entry, Replay replay) {
+        Object value = entry.value;
+        switch (entry.property) {
+            case "username":
+                user.setUsername((String) value);
+                return true;
+            case "fullName":
+                user.setFullName((String) value);
+                return true;
+            case "phoneNumber":
+                user.setPhoneNumber((String) value);
+                return true;
+            case "birthDay":
+                user.setBirthDay((LocalDate) value);
+                return true;
+            case "email":
+                user.setEmail((String) value);
+                return true;
+            default:
+                break;
+        }
+        if (user instanceof Manager) {
+            Manager manager = (Manager) user;
+            switch (entry.property) {
+                case "skill":
+                    manager.setSkill((Skill) value);
+                    return true;
+                case "projects":
+                    manager.setProjects(value == null ? null
+                            : resolve(replay, entry, Kind.PROJECTS, (List<String>) value));
+                    return true;
+                case "materials":
+                    manager.setMaterials(value == null ? null
+                            : resolve(replay, entry, Kind.MATERIALS, (List<String>) value));
+                    return true;
+                default:
+                    return false;
+            }
+        } else if (user instanceof Member) {
+            Member member = (Member) user;
+            switch (entry.property) {
+                case "skill":
+                    member.setSkill((Skill) value);
+                    return true;
+                case "tasks":
+                    member.setTasks(value == null ? null : resolve(replay, entry, Kind.TASKS, (List<String>) value));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an entity from the scalar fields of its creation entry, keeping its ID. Its
+     * references are set by the entries following it.
+     */
+    private static Object create(Kind kind, String id, Object[] fields) {
+        switch (kind) {
+            case TASKS:
+                return Task.restore(id, (String) fields[0], (Integer) fields[1], List.of(), List.of(),
+                        (LocalDate) fields[2], List.of(), List.of(), (LocalDate) fields[3], (TaskStatus) fields[4]);
+            case PROJECTS:
+                return Project.restore(id, null, (LocalDate) fields[2], List.of(), (LocalDate) fields[1],
+                        (String) fields[0]);
+            case OBJECTIVES:
+                return Objective.restore(id, (LocalDate) fields[2], List.of(), (LocalDate) fields[1],
+                        (String) fields[0]);
+            case MATERIALS:
+                return Material.restore(id, List.of(), (String) fields[0], (String) fields[1]);
+            case WORK_ORDERS:
+                return WorkOrder.restore(id, (String) fields[0], (String) fields[1]);
+            case NOTIFICATIONS:
+                return Notification.restore(id, (LocalDateTime) fields[0],
+                        value(NotificationType.values(), (Integer) fields[1]), null, (String) fields[2]);
+            default:
+                int userKind = (Integer) fields[0];
+                String username = (String) fields[1];
+                String password = (String) fields[2];
+                String fullName = (String) fields[3];
+                String phoneNumber = (String) fields[4];
+                LocalDate birthDay = (LocalDate) fields[5];
+                String email = (String) fields[6];
+                String role = (String) fields[7];
+                Sex sex = value(Sex.values(), (Integer) fields[8]);
+                Skill skill = (Skill) fields[9];
+                if (userKind == MANAGER_KIND) {
+                    return Manager.restore(id, username, password, fullName, phoneNumber, birthDay, email, role, sex,
+                            skill, List.of(), List.of());
+                } else if (userKind == MEMBER_KIND) {
+                    return Member.restore(id, username, password, fullName, phoneNumber, birthDay, email, role, sex,
+                            skill);
+                }
+                return User.restore(id, username, password, fullName, phoneNumber, birthDay, email, role, sex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> resolve(Replay replay, Entry entry, Kind kind, List<String> ids) {
+        List<T> entities = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T entity = (T) replay.find(kind, id);
+            if (entity != null) {
+                entities.add(entity);
+            } else {
+                replay.fail(entry, "Unknown reference " + id + " left out");
+            }
+        }
+        return entities;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T resolve(Replay replay, Entry entry, Kind kind, String id) {
+        if (id == null) {
+            return null;
+        }
+        T entity = (T) replay.find(kind, id);
+        if (entity == null) {
+            replay.fail(entry, "Unknown reference " + id + " left out");
+        }
+        return entity;
+    }
+
+    private static byte code(Kind kind) {
+        for (byte code = 0; code < KINDS.length; code++) {
+            if (KINDS[code] == kind) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Not a journaled kind: " + kind);
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E> E value(E[] values, int ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,30 @@
+package Persistence;
+
+/**
+ * The kinds of entities kept by the store, each one in its own segment file.
+ */
+enum Kind {
+    USERS("users.seg", EntityCodecs.USER),
+    PROJECTS("projects.seg", EntityCodecs.PROJECT),
+    OBJECTIVES("objectives.seg", EntityCodecs.OBJECTIVE),
+    TASKS("tasks.seg", EntityCodecs.TASK),
+    MATERIALS("materials.seg", EntityCodecs.MATERIAL),
+    WORK_ORDERS("workorders.seg", EntityCodecs.WORK_ORDER),
+    NOTIFICATIONS("notifications.seg", EntityCodecs.NOTIFICATION);
+
+    private final String fileName;
+    private final RecordCodec<?> codec;
+
+    Kind(String fileName, RecordCodec<?> codec) {
+        this.fileName = fileName;
+        this.codec = codec;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    RecordCodec<?> getCodec() {
+        return codec;
+    }
+}
@@ -0,0 +1,595 @@
+package Persistence;
+
+import Entities.EntityEvents;
+import Entities.Project;
+import Entities.User;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the changes made to the entities, persisted next to snapshots
+ * written by the {@link EntityStore}.
+ * <p>
+ * Every setter call on an entity becomes a compact log entry. Entries are queued without
+ * blocking the caller and written by a single writer thread, which syncs the file once
+ * for all the entries queued since the previous sync (group commit). {@link #commit()}
+ * waits until every change made so far is durable.
+ * <p>
+ * An entity the journal does not know yet, because it was created after the latest
+ * snapshot, is recorded with all its fields the first time it changes or a change refers
+ * to it. A project or user which is neither changed nor referred to, such as a project
+ * just created, is recorded by {@link #add(Project)} or {@link #add(User)}. Changes of
+ * passwords are not notified, so they are only persisted by the next compaction. The
+ * creation of a user whose password hash is still being computed is queued as is and
+ * encoded once the hash is ready, so that neither the thread of the setter nor the lock
+ * of the journal waits for it; the writer thread does.
+ * <p>
+ * {@link #compact(Collection, Collection)} starts a new log file, writes a snapshot of
+ * the entity graph and deletes the logs and snapshots it replaces. On {@link #open(Path)}
+ * the latest snapshot, if any, is loaded and the entries logged after it are replayed.
+ * An entry which cannot be replayed is reported by {@link #getFailures()} and the
+ * recovery goes on with the next one.
+ */
+public class MutationJournal implements PropertyChangeListener, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(MutationJournal.class.getName());
+    private static final String LOG_PREFIX = "journal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final EntityStore store;
+    private final int replayedEntries;
+    private final List<Project> createdProjects;
+    private final List<User> createdUsers;
+    private final List<String> failures;
+    private final Set<String> known;
+    private EntityStore snapshotStore;
+    private final Object lock = new Object();
+    private final Object compactionLock = new Object();
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private final Thread writer;
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel channel;
+    private volatile Path currentLog;
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Request from a compaction to continue the journal in a new log file.
+     */
+    private static final class Rotation {
+        final long nextSequence;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Rotation(long nextSequence) {
+            this.nextSequence = nextSequence;
+        }
+    }
+
+    private MutationJournal(Path directory, JournalCodec.Replay replay, EntityStore store, int replayedEntries, long lastSequence,
+                            Path currentLog) throws IOException {
+        this.directory = directory;
+        this.store = store;
+        this.replayedEntries = replayedEntries;
+        this.createdProjects = Collections.unmodifiableList(replay.getCreatedProjects());
+        this.createdUsers = Collections.unmodifiableList(replay.getCreatedUsers());
+        this.failures = Collections.unmodifiableList(replay.getFailures());
+        this.known = new HashSet<>(replay.getCreatedKeys());
+        this.snapshotStore = store;
+        this.appendedSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.currentLog = currentLog;
+        this.channel = FileChannel.open(currentLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.writer = new Thread(this::writeLoop, "mutation-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens the journal kept in a directory: loads the latest snapshot, replays the
+     * entries logged after it and starts recording the changes made to the entities. The
+     * entries are replayed even if no snapshot was written yet, on the entities they
+     * create.
+     *
+     * @param directory The directory of the journal.
+     * @return The opened journal.
+     * @throws IOException if the snapshot or the logs cannot be read.
+     */
+    public static MutationJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long snapshotSequence = -1;
+        Path snapshot = null;
+        for (Path path : list(directory, SNAPSHOT_PREFIX)) {
+            long sequence = sequenceOf(path, SNAPSHOT_PREFIX);
+            if (!path.toString().endsWith(TEMPORARY_SUFFIX) && sequence > snapshotSequence) {
+                snapshotSequence = sequence;
+                snapshot = path;
+            }
+        }
+        EntityStore store = snapshot == null ? null : EntityStore.open(snapshot);
+        JournalCodec.Replay replay = new JournalCodec.Replay(store);
+        long lastSequence = Math.max(snapshotSequence, 0);
+        int replayed = 0;
+        Path lastLog = null;
+        for (Path log : list(directory, LOG_PREFIX)) {
+            long position = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+                JournalCodec.Entry entry;
+                while ((entry = JournalCodec.read(in)) != null) {
+                    position += entry.frameLength;
+                    lastSequence = Math.max(lastSequence, entry.sequence);
+                    if (entry.sequence <= snapshotSequence) {
+                        continue;
+                    }
+                    try {
+                        JournalCodec.apply(entry, replay);
+                        replayed++;
+                    } catch (RuntimeException e) {
+                        replay.fail(entry, String.valueOf(e.getMessage()));
+                    }
+                }
+            }
+            if (position < Files.size(log)) {
+                try (FileChannel torn = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                    torn.truncate(position);
+                }
+            }
+            lastLog = log;
+        }
+        if (lastLog == null) {
+            lastLog = logFile(directory, lastSequence + 1);
+        }
+        if (!replay.getFailures().isEmpty()) {
+            LOGGER.log(Level.WARNING, "{0} journal entries could not be fully replayed, first: {1}",
+                    new Object[]{replay.getFailures().size(), replay.getFailures().get(0)});
+        }
+        MutationJournal journal = new MutationJournal(directory, replay, store, replayed, lastSequence, lastLog);
+        EntityEvents.addListener(journal);
+        return journal;
+    }
+
+    // Getters
+
+    /**
+     * Gets the store of the latest snapshot, with the logged changes replayed.
+     *
+     * @return The recovered store, or null if no snapshot was written yet.
+     */
+    public EntityStore getStore() {
+        return store;
+    }
+
+    public int getReplayedEntries() {
+        return replayedEntries;
+    }
+
+    /**
+     * Gets the recovered projects: those of the snapshot, then those created after it.
+     *
+     * @return The read-only list of the projects.
+     */
+    public List<Project> getProjects() {
+        List<Project> projects = new ArrayList<>();
+        if (store != null) {
+            projects.addAll(store.getProjects());
+        }
+        projects.addAll(createdProjects);
+        return Collections.unmodifiableList(projects);
+    }
+
+    /**
+     * Gets the recovered users: those of the snapshot, then those created after it.
+     *
+     * @return The read-only list of the users.
+     */
+    public List<User> getUsers() {
+        List<User> users = new ArrayList<>();
+        if (store != null) {
+            users.addAll(store.getUsers());
+        }
+        users.addAll(createdUsers);
+        return Collections.unmodifiableList(users);
+    }
+
+    /**
+     * Gets the entries the recovery could not replay, or only partly because they refer
+     * to unknown entities.
+     *
+     * @return The read-only list of the descriptions of the failures, empty if none.
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Records a project created after the latest snapshot, and the entities it references
+     * which the journal does not know yet.
+     *
+     * @param project The new project.
+     */
+    public void add(Project project) {
+        record(project);
+    }
+
+    /**
+     * Records a user created after the latest snapshot, and the entities it references
+     * which the journal does not know yet.
+     *
+     * @param user The new user.
+     */
+    public void add(User user) {
+        record(user);
+    }
+
+    /**
+     * Records the current value of the changed property of an entity, after the creation
+     * of the entities it involves which the journal does not know yet.
+     *
+     * @param event The change made through an entity setter.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        Object source = event.getSource();
+        if (JournalCodec.kindOf(source) == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            // Read again rather than taken from the event, which may be older than another one
+            Object value = JournalCodec.currentValue(source, event.getPropertyName(), event.getNewValue());
+            List<Object> created = new ArrayList<>();
+            discover(source, created);
+            discover(value, created);
+            recordCreations(created);
+            queue.add(JournalCodec.encode(++appendedSequence, source, event.getPropertyName(), value));
+            lock.notifyAll();
+        }
+    }
+
+    private void record(Object entity) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            List<Object> created = new ArrayList<>();
+            discover(entity, created);
+            recordCreations(created);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Collects the entities reachable from a value which the journal does not know yet.
+     * Called under the lock.
+     */
+    private void discover(Object value, List<Object> created) {
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        push(pending, value);
+        while (!pending.isEmpty()) {
+            Object entity = pending.poll();
+            Kind kind = JournalCodec.kindOf(entity);
+            if (kind == null) {
+                continue;
+            }
+            String id = EntityIds.of(entity);
+            if ((snapshotStore != null && snapshotStore.indexOf(kind, id) >= 0)
+                    || !known.add(JournalCodec.key(kind, id))) {
+                continue;
+            }
+            created.add(entity);
+            for (Object reference : JournalCodec.references(entity).values()) {
+                push(pending, reference);
+            }
+        }
+    }
+
+    private static void push(ArrayDeque<Object> pending, Object value) {
+        if (value instanceof List) {
+            pending.addAll((List<?>) value);
+        } else if (value != null) {
+            pending.add(value);
+        }
+    }
+
+    /**
+     * Queues the creations of entities, then their references, so that replaying a
+     * reference never meets an entity not created yet. Called under the lock.
+     */
+    private void recordCreations(List<Object> created) {
+        for (Object entity : created) {
+            long sequence = ++appendedSequence;
+            if (entity instanceof User && !((User) entity).getPasswordHash().isDone()) {
+                // Encoded by the hashing thread once the hash is computed, and waited for by the writer
+                queue.add(((User) entity).getPasswordHash().thenApply(hash -> JournalCodec.encodeCreation(sequence, entity)));
+            } else {
+                queue.add(JournalCodec.encodeCreation(sequence, entity));
+            }
+        }
+        for (Object entity : created) {
+            for (Map.Entry<String, Object> reference : JournalCodec.references(entity).entrySet()) {
+                queue.add(JournalCodec.encode(++appendedSequence, entity, reference.getKey(), reference.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Waits until every change recorded so far is written and synced to disk.
+     *
+     * @throws IOException if the journal could not be written.
+     */
+    public void commit() throws IOException {
+        synchronized (lock) {
+            long target = appendedSequence;
+            while (durableSequence < target && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the journal");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Folds the journal into a new snapshot of the given entities. Changes recorded while
+     * the snapshot is written go to a new log file and are replayed over it on recovery.
+     *
+     * @param users    The users to store.
+     * @param projects The projects to store.
+     * @return The sequence number of the last entry covered by the snapshot.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public long compact(Collection<? extends User> users, Collection<Project> projects) throws IOException {
+        synchronized (compactionLock) {
+            Rotation rotation;
+            synchronized (lock) {
+                if (closed) {
+                    throw new IOException("Journal is closed");
+                }
+                rotation = new Rotation(appendedSequence + 1);
+                queue.add(rotation);
+                lock.notifyAll();
+            }
+            try {
+                rotation.done.join();
+            } catch (CompletionException e) {
+                throw new IOException("Could not start a new log file", e.getCause());
+            }
+            long sequence = rotation.nextSequence - 1;
+            Path temporary = directory.resolve(SNAPSHOT_PREFIX + sequence + TEMPORARY_SUFFIX);
+            EntityStore.deleteRecursively(temporary);
+            EntityStore.write(temporary, users, projects);
+            Path snapshot = directory.resolve(SNAPSHOT_PREFIX + sequence);
+            Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            EntityStore written = EntityStore.open(snapshot);
+            synchronized (lock) {
+                // The entities of the snapshot are known from now on, even those created before it
+                snapshotStore = written;
+                known.clear();
+            }
+            for (Path log : list(directory, LOG_PREFIX)) {
+                if (sequenceOf(log, LOG_PREFIX) <= sequence) {
+                    Files.delete(log);
+                }
+            }
+            for (Path replaced : list(directory, SNAPSHOT_PREFIX)) {
+                if (sequenceOf(replaced, SNAPSHOT_PREFIX) < sequence || replaced.toString().endsWith(TEMPORARY_SUFFIX)) {
+                    EntityStore.deleteRecursively(replaced);
+                }
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Starts compacting the journal in the background whenever the current log file
+     * grows over the given size.
+     *
+     * @param users       Supplies the users to store in the snapshot.
+     * @param projects    Supplies the projects to store in the snapshot.
+     * @param maxLogBytes The log size triggering a compaction.
+     * @param period      The interval between two checks of the log size.
+     */
+    public synchronized void startCompactor(Supplier<? extends Collection<? extends User>> users,
+                                            Supplier<? extends Collection<Project>> projects,
+                                            long maxLogBytes, Duration period) {
+        if (compactor != null) {
+            throw new IllegalStateException("Compactor already started");
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mutation-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                if (Files.size(currentLog) > maxLogBytes) {
+                    compact(users.get(), projects.get());
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Journal compaction failed", e);
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops recording changes, waits for the recorded ones to be durable and closes the log.
+     *
+     * @throws IOException if the last changes could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        EntityEvents.removeListener(this);
+        synchronized (this) {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+        }
+        try {
+            commit();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        List<ByteBuffer> buffers = new ArrayList<>();
+        try {
+            while (true) {
+                long last;
+                synchronized (lock) {
+                    while (queue.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    batch.addAll(queue);
+                    queue.clear();
+                    last = appendedSequence;
+                }
+                for (Object item : batch) {
+                    if (item instanceof byte[]) {
+                        buffers.add(ByteBuffer.wrap((byte[]) item));
+                    } else if (item instanceof CompletableFuture) {
+                        buffers.add(ByteBuffer.wrap(awaitEntry((CompletableFuture<?>) item)));
+                    } else {
+                        Rotation rotation = (Rotation) item;
+                        try {
+                            writeAndSync(buffers);
+                            channel.close();
+                            currentLog = logFile(directory, rotation.nextSequence);
+                            channel = FileChannel.open(currentLog, StandardOpenOption.CREATE,
+                                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                            rotation.done.complete(null);
+                        } catch (IOException e) {
+                            rotation.done.completeExceptionally(e);
+                            throw e;
+                        }
+                    }
+                }
+                writeAndSync(buffers);
+                batch.clear();
+                synchronized (lock) {
+                    durableSequence = last;
+                    lock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+                closed = true;
+                lock.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not close the journal", e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the creation entry of a user whose password hash was being computed.
+     */
+    private static byte[] awaitEntry(CompletableFuture<?> entry) throws IOException {
+        try {
+            return (byte[]) entry.join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not record a new user", e.getCause());
+        }
+    }
+
+    private void writeAndSync(List<ByteBuffer> buffers) throws IOException {
+        if (buffers.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer buffer : array) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(array);
+        }
+        channel.force(false);
+        buffers.clear();
+    }
+
+    private static Path logFile(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", LOG_PREFIX, firstSequence, LOG_SUFFIX));
+    }
+
+    private static List<Path> list(Path directory, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> result = new ArrayList<>();
+            files.filter(path -> path.getFileName().toString().startsWith(prefix)).forEach(result::add);
+            result.sort(Comparator.comparingLong(path -> sequenceOf(path, prefix)));
+            return result;
+        }
+    }
+
+    private static long sequenceOf(Path path, String prefix) {
+        String name = path.getFileName().toString();
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(name.substring(prefix.length(), end < 0 ? name.length() : end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
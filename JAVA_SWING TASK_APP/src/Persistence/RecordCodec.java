@@ -0,0 +1,47 @@
+package Persistence;
+
+/**
+ * Encodes one entity type to fixed-size records and decodes it back.
+ * <p>
+ * The ID of the entity is always the first field of its record.
+ *
+ * @param <T> The entity type.
+ */
+interface RecordCodec<T> {
+
+    /**
+     * Gets the size in bytes of the records written by this codec.
+     *
+     * @return The record size.
+     */
+    int recordSize();
+
+    /**
+     * Writes the fields of an entity to the current record.
+     *
+     * @param entity The entity to write.
+     * @param out    The segment being written.
+     * @param graph  The graph giving the record index of the referenced entities.
+     */
+    void write(T entity, SegmentWriter out, EntityGraph graph);
+
+    /**
+     * Creates the entity stored in a record. References to other entities are resolved
+     * later through {@link EntityStore#defer(Runnable)} so that cycles can be decoded.
+     *
+     * @param in    The reader positioned on the record.
+     * @param store The store the record belongs to.
+     * @return The decoded entity.
+     */
+    T read(RecordReader in, EntityStore store);
+
+    /**
+     * Reads the ID of the entity stored in a record without decoding the rest.
+     *
+     * @param in The reader positioned on the record.
+     * @return The ID of the entity.
+     */
+    default String id(RecordReader in) {
+        return in.getString();
+    }
+}
@@ -0,0 +1,53 @@
+package Persistence;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list over the records of one kind of entity in an {@link EntityStore}.
+ * Elements are decoded on access.
+ *
+ * @param <T> The entity type.
+ */
+public class RecordList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final EntityStore store;
+    private final Kind kind;
+
+    RecordList(EntityStore store, Kind kind) {
+        this.store = store;
+        this.kind = kind;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) store.get(kind, index);
+    }
+
+    @Override
+    public int size() {
+        return store.size(kind);
+    }
+
+    /**
+     * Finds the entity with the given ID.
+     *
+     * @param id The ID of the entity.
+     * @return The entity, or null if the store has none with that ID.
+     */
+    public T findById(String id) {
+        int index = store.indexOf(kind, id);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * Finds the index of the entity with the given ID, without decoding any entity.
+     *
+     * @param id The ID of the entity.
+     * @return The index of the entity, or -1 if the store has none with that ID.
+     */
+    public int indexOfId(String id) {
+        return store.indexOf(kind, id);
+    }
+}
@@ -0,0 +1,77 @@
+package Persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Sequential reader over the fields of one record of a mapped segment, reading them
+ * in the same order and with the same widths as {@link SegmentWriter} wrote them.
+ */
+final class RecordReader {
+
+    private final ByteBuffer buffer;
+    private final int heapOffset;
+    private int position;
+
+    RecordReader(ByteBuffer buffer, int heapOffset, int position) {
+        this.buffer = buffer;
+        this.heapOffset = heapOffset;
+        this.position = position;
+    }
+
+    int getByte() {
+        return buffer.get(advance(1));
+    }
+
+    int getInt() {
+        return buffer.getInt(advance(4));
+    }
+
+    LocalDate getDate() {
+        int epochDay = buffer.getInt(advance(4));
+        return epochDay == SegmentWriter.NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    LocalDateTime getDateTime() {
+        long seconds = buffer.getLong(advance(8));
+        int nanos = buffer.getInt(advance(4));
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    String getString() {
+        int offset = buffer.getInt(advance(4));
+        int length = buffer.getInt(advance(4));
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(heapOffset + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int getRef() {
+        return buffer.getInt(advance(4));
+    }
+
+    int[] getRefs() {
+        int offset = heapOffset + buffer.getInt(advance(4));
+        int length = buffer.getInt(advance(4));
+        if (length < 0) {
+            return null;
+        }
+        int[] indexes = new int[length];
+        for (int i = 0; i < length; i++) {
+            indexes[i] = buffer.getInt(offset + i * 4);
+        }
+        return indexes;
+    }
+
+    private int advance(int width) {
+        int current = position;
+        position += width;
+        return current;
+    }
+}
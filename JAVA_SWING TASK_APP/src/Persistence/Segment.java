@@ -0,0 +1,104 @@
+package Persistence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of a segment file written by {@link SegmentWriter}, mapped in memory.
+ * <p>
+ * Opening a segment only reads its header; records are decoded by the codec when an
+ * entity is first accessed, and the decoded entities are cached here.
+ *
+ * @param <T> The type of the entities stored in the segment.
+ */
+class Segment<T> {
+
+    private final RecordCodec<T> codec;
+    private final MappedByteBuffer buffer;
+    private final int recordSize;
+    private final int count;
+    private final int heapOffset;
+    private final Object[] entities;
+    private Map<String, Integer> idIndex;
+
+    Segment(Path file, RecordCodec<T> codec) throws IOException {
+        this.codec = codec;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != SegmentWriter.MAGIC) {
+            throw new IOException("Not a segment file: " + file);
+        }
+        if (buffer.getShort(4) != SegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment version " + buffer.getShort(4) + " in " + file);
+        }
+        this.recordSize = buffer.getShort(6);
+        if (recordSize != codec.recordSize()) {
+            throw new IOException("Record size " + recordSize + " does not match the codec in " + file);
+        }
+        this.count = buffer.getInt(8);
+        this.heapOffset = (int) buffer.getLong(12);
+        this.entities = new Object[count];
+    }
+
+    int size() {
+        return count;
+    }
+
+    RecordCodec<T> codec() {
+        return codec;
+    }
+
+    RecordReader reader(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " out of " + count);
+        }
+        return new RecordReader(buffer, heapOffset, SegmentWriter.HEADER_SIZE + index * recordSize);
+    }
+
+    /**
+     * Reads a fixed-width field of a record without decoding the record.
+     *
+     * @param index  The index of the record.
+     * @param offset The offset of the field in the record.
+     * @return The int value of the field.
+     */
+    int intAt(int index, int offset) {
+        return buffer.getInt(SegmentWriter.HEADER_SIZE + index * recordSize + offset);
+    }
+
+    int byteAt(int index, int offset) {
+        return buffer.get(SegmentWriter.HEADER_SIZE + index * recordSize + offset);
+    }
+
+    @SuppressWarnings("unchecked")
+    T cached(int index) {
+        return (T) entities[index];
+    }
+
+    void cache(int index, T entity) {
+        entities[index] = entity;
+    }
+
+    /**
+     * Finds the record with the given ID. The ID index is built on first use from the
+     * raw records, without decoding the entities.
+     *
+     * @param id The ID of the entity.
+     * @return The index of the record, or -1 if there is none.
+     */
+    synchronized int indexOf(String id) {
+        if (idIndex == null) {
+            idIndex = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                idIndex.put(codec.id(reader(i)), i);
+            }
+        }
+        return idIndex.getOrDefault(id, -1);
+    }
+}
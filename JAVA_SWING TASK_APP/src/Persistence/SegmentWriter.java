@@ -0,0 +1,154 @@
+package Persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Writes a segment file: a header, a table of fixed-size records and a heap holding
+ * the variable-length data (strings and reference lists) the records point to.
+ * <p>
+ * Fields are appended to the current record in the order defined by the codec; each
+ * field has a fixed width so that a record can be read back without parsing the others.
+ * A segment is mapped in a single buffer when read, so the whole file is limited to 2 GB.
+ */
+class SegmentWriter {
+
+    static final int MAGIC = 0x504D5347;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    static final int NULL_DATE = Integer.MIN_VALUE;
+    static final int NULL_REF = -1;
+
+    private final int recordSize;
+    private final ByteBuffer records;
+    private final ByteArrayOutputStream heap = new ByteArrayOutputStream();
+    private int count;
+
+    /**
+     * Constructs a SegmentWriter object with the specified parameters.
+     *
+     * @param recordSize The size of a record, in bytes.
+     * @param capacity   The number of records to write.
+     * @throws IllegalArgumentException if the records would not fit in a segment.
+     */
+    SegmentWriter(int recordSize, int capacity) {
+        long size = (long) recordSize * capacity;
+        if (capacity < 0 || size > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException(capacity + " records of " + recordSize
+                    + " bytes do not fit in a segment");
+        }
+        this.recordSize = recordSize;
+        this.records = ByteBuffer.allocate((int) size);
+    }
+
+    /**
+     * Starts a new record; the previous one must have been completely written.
+     */
+    void beginRecord() {
+        checkComplete();
+        count++;
+    }
+
+    void putByte(int value) {
+        records.put((byte) value);
+    }
+
+    void putInt(int value) {
+        records.putInt(value);
+    }
+
+    void putDate(LocalDate date) {
+        records.putInt(date == null ? NULL_DATE : (int) date.toEpochDay());
+    }
+
+    void putDateTime(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            records.putLong(Long.MIN_VALUE);
+            records.putInt(0);
+        } else {
+            records.putLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            records.putInt(dateTime.getNano());
+        }
+    }
+
+    void putString(String value) {
+        if (value == null) {
+            records.putInt(0);
+            records.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        records.putInt(heap.size());
+        records.putInt(bytes.length);
+        heap.writeBytes(bytes);
+    }
+
+    void putRef(int index) {
+        records.putInt(index);
+    }
+
+    void putRefs(int[] indexes) {
+        if (indexes == null) {
+            records.putInt(0);
+            records.putInt(-1);
+            return;
+        }
+        records.putInt(heap.size());
+        records.putInt(indexes.length);
+        for (int index : indexes) {
+            heap.write(index >>> 24);
+            heap.write(index >>> 16);
+            heap.write(index >>> 8);
+            heap.write(index);
+        }
+    }
+
+    /**
+     * Writes the segment to the given file, replacing it atomically.
+     *
+     * @param file The segment file.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeTo(Path file) throws IOException {
+        checkComplete();
+        if ((long) HEADER_SIZE + records.position() + heap.size() > Integer.MAX_VALUE) {
+            throw new IOException("Segment " + file.getFileName() + " would exceed 2 GB");
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) recordSize).putInt(count)
+                .putLong(HEADER_SIZE + (long) count * recordSize).rewind();
+        records.flip();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, records);
+            writeFully(channel, ByteBuffer.wrap(heap.toByteArray()));
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void checkComplete() {
+        if (records.position() != (long) count * recordSize) {
+            throw new IllegalStateException("Record " + (count - 1) + " does not match the record size " + recordSize);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package Repositories;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Index of the slots of a {@link TaskRepository} by day, kept as the sorted list of
+ * their (day, slot) endpoints.
+ * <p>
+ * Each endpoint is packed in a long, the day in the high half and the slot in the low
+ * half, and the longs are kept sorted in blocks of at most {@value #BLOCK_SIZE}, so that
+ * adding or removing an endpoint is two binary searches and a copy within one block, and
+ * a range of days is a single scan of the endpoints within it. Unlike a bitset per day,
+ * the memory used only depends on the number of endpoints, not on the number of distinct
+ * days times the highest slot.
+ * <p>
+ * Days are epoch days clamped to the int range, that is to the dates between the years
+ * -5,877,641 and 5,881,580; dates before or after are indexed as the first or last of
+ * them. Not thread-safe: the repository guards it with its lock.
+ */
+class DayIndex {
+
+    static final int BLOCK_SIZE = 1024;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private int size;
+
+    /**
+     * Adds the endpoint of a slot.
+     *
+     * @param day  The epoch day.
+     * @param slot The slot.
+     */
+    void add(long day, int slot) {
+        long key = key(day, slot);
+        if (blocks.isEmpty()) {
+            blocks.add(new Block());
+        }
+        int index = blockOf(key);
+        Block block = blocks.get(index);
+        if (block.count == BLOCK_SIZE) {
+            Block upper = block.split();
+            blocks.add(index + 1, upper);
+            if (key >= upper.keys[0]) {
+                block = upper;
+            }
+        }
+        int position = Arrays.binarySearch(block.keys, 0, block.count, key);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        System.arraycopy(block.keys, position, block.keys, position + 1, block.count - position);
+        block.keys[position] = key;
+        block.count++;
+        size++;
+    }
+
+    /**
+     * Removes the endpoint of a slot.
+     *
+     * @param day  The epoch day it was added with.
+     * @param slot The slot.
+     */
+    void remove(long day, int slot) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        long key = key(day, slot);
+        int index = blockOf(key);
+        Block block = blocks.get(index);
+        int position = Arrays.binarySearch(block.keys, 0, block.count, key);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(block.keys, position + 1, block.keys, position, block.count - position - 1);
+        block.count--;
+        size--;
+        if (block.count == 0 && blocks.size() > 1) {
+            blocks.remove(index);
+        }
+    }
+
+    /**
+     * Sets the slots whose day is within the given bounds, inclusive.
+     *
+     * @param fromDay The first epoch day.
+     * @param toDay   The last epoch day.
+     * @param slots   The bitset in which the slots are set.
+     * @return The given bitset.
+     */
+    BitSet collect(long fromDay, long toDay, BitSet slots) {
+        if (fromDay > toDay || blocks.isEmpty()) {
+            return slots;
+        }
+        long from = key(fromDay, 0);
+        long to = key(toDay, Integer.MAX_VALUE);
+        int index = blockOf(from);
+        Block first = blocks.get(index);
+        int position = Arrays.binarySearch(first.keys, 0, first.count, from);
+        position = position < 0 ? -position - 1 : position;
+        for (; index < blocks.size(); index++, position = 0) {
+            Block block = blocks.get(index);
+            for (; position < block.count; position++) {
+                long key = block.keys[position];
+                if (key > to) {
+                    return slots;
+                }
+                slots.set((int) key);
+            }
+        }
+        return slots;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the block the given key belongs to: the last one whose first key is not
+     * greater, or the first block.
+     */
+    private int blockOf(long key) {
+        int low = 1;
+        int high = blocks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blocks.get(middle).keys[0] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private static long key(long day, int slot) {
+        long clamped = Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, day));
+        return clamped << 32 | slot;
+    }
+
+    /**
+     * Sorted keys of a block, in the first {@code count} entries of the array.
+     */
+    private static final class Block {
+
+        private final long[] keys = new long[BLOCK_SIZE];
+        private int count;
+
+        /**
+         * Moves the upper half of the keys of this full block to a new block.
+         *
+         * @return The new block.
+         */
+        private Block split() {
+            Block upper = new Block();
+            int half = BLOCK_SIZE / 2;
+            System.arraycopy(keys, half, upper.keys, 0, BLOCK_SIZE - half);
+            upper.count = BLOCK_SIZE - half;
+            count = half;
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package Repositories;
+
+import Entities.Member;
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Query over the tasks of a {@link TaskRepository}, built by chaining criteria.
+ * <p>
+ * A task matches when it meets every criterion. For example, the blocked tasks of a
+ * member that became overdue this week are:
+ * <pre>
+ * repository.query()
+ *         .withStatus(TaskStatus.BLOCKED)
+ *         .assignedTo(member)
+ *         .endingBetween(monday, today.minusDays(1))
+ *         .list();
+ * </pre>
+ */
+public class TaskQuery {
+
+    private final TaskRepository repository;
+    private final List<Function<TaskRepository, BitSet>> required = new ArrayList<>();
+    private final List<Function<TaskRepository, BitSet>> excluded = new ArrayList<>();
+
+    TaskQuery(TaskRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Keeps the tasks having one of the given statuses.
+     *
+     * @param statuses The accepted statuses.
+     * @return This query.
+     */
+    public TaskQuery withStatus(TaskStatus... statuses) {
+        if (statuses.length == 1) {
+            required.add(r -> r.withStatus(statuses[0]));
+            return this;
+        }
+        required.add(r -> {
+            BitSet slots = new BitSet();
+            for (TaskStatus status : statuses) {
+                slots.or(r.withStatus(status));
+            }
+            return slots;
+        });
+        return this;
+    }
+
+    /**
+     * Removes the tasks having one of the given statuses.
+     *
+     * @param statuses The rejected statuses.
+     * @return This query.
+     */
+    public TaskQuery withoutStatus(TaskStatus... statuses) {
+        for (TaskStatus status : statuses) {
+            excluded.add(r -> r.withStatus(status));
+        }
+        return this;
+    }
+
+    /**
+     * Keeps the tasks whose priority is within the given bounds, inclusive.
+     *
+     * @param min The lowest priority.
+     * @param max The highest priority.
+     * @return This query.
+     */
+    public TaskQuery withPriorityBetween(int min, int max) {
+        required.add(r -> r.withPriorities(min, max));
+        return this;
+    }
+
+    /**
+     * Keeps the tasks assigned to the given member.
+     *
+     * @param member The member.
+     * @return This query.
+     */
+    public TaskQuery assignedTo(Member member) {
+        return assignedTo(member.getId());
+    }
+
+    /**
+     * Keeps the tasks assigned to the member with the given ID.
+     *
+     * @param memberId The ID of the member.
+     * @return This query.
+     */
+    public TaskQuery assignedTo(String memberId) {
+        required.add(r -> r.withMember(memberId));
+        return this;
+    }
+
+    /**
+     * Keeps the tasks starting between the given dates, inclusive.
+     *
+     * @param from The first day.
+     * @param to   The last day.
+     * @return This query.
+     */
+    public TaskQuery startingBetween(LocalDate from, LocalDate to) {
+        required.add(r -> r.startingBetween(from, to));
+        return this;
+    }
+
+    /**
+     * Keeps the tasks ending between the given dates, inclusive.
+     *
+     * @param from The first day.
+     * @param to   The last day.
+     * @return This query.
+     */
+    public TaskQuery endingBetween(LocalDate from, LocalDate to) {
+        required.add(r -> r.endingBetween(from, to));
+        return this;
+    }
+
+    /**
+     * Keeps the tasks whose date range overlaps the given one. A task without a start or
+     * an end date has no date range and is never active.
+     *
+     * @param from The first day.
+     * @param to   The last day.
+     * @return This query.
+     */
+    public TaskQuery activeBetween(LocalDate from, LocalDate to) {
+        required.add(r -> r.activeBetween(from, to));
+        return this;
+    }
+
+    /**
+     * Keeps the tasks that ended before the given day without being done or canceled.
+     *
+     * @param today The current day.
+     * @return This query.
+     */
+    public TaskQuery overdueOn(LocalDate today) {
+        required.add(r -> r.endingBefore(today));
+        return withoutStatus(TaskStatus.DONE, TaskStatus.CANCELED);
+    }
+
+    /**
+     * Runs the query.
+     *
+     * @return The matching tasks, in slot order.
+     */
+    public List<Task> list() {
+        repository.readLock().lock();
+        try {
+            return repository.tasks(matches());
+        } finally {
+            repository.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the matching tasks without collecting them.
+     *
+     * @return The number of matching tasks.
+     */
+    public int count() {
+        repository.readLock().lock();
+        try {
+            return matches().cardinality();
+        } finally {
+            repository.readLock().unlock();
+        }
+    }
+
+    private BitSet matches() {
+        BitSet first = required.isEmpty() ? repository.liveSlots() : required.get(0).apply(repository);
+        BitSet result = (BitSet) first.clone();
+        for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+            result.and(required.get(i).apply(repository));
+        }
+        for (Function<TaskRepository, BitSet> criterion : excluded) {
+            result.andNot(criterion.apply(repository));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,395 @@
+package Repositories;
+
+import Entities.DateRange;
+import Entities.EntityEvents;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory repository of tasks with secondary indexes on status, priority, assigned
+ * members and dates.
+ * <p>
+ * Every task gets a slot number. The status, priority and member indexes map a key to
+ * the bitset of the slots having it: an {@link EnumMap} for the status, a sorted map for
+ * the priority (so that ranges are a few bitset unions) and a hash map for the member
+ * IDs. The start and end days are {@link DayIndex sorted endpoint indexes}, whose date
+ * ranges are a scan of the matching tasks only. The tasks active in a range are found by
+ * scanning the start days from the range start minus the longest duration of a task,
+ * kept in a count per duration, and checking their end days. Queries intersect those
+ * bitsets, which takes well under a millisecond with a million tasks.
+ * <p>
+ * The repository listens to {@link EntityEvents} so that the indexes follow the task
+ * setters; {@link #close()} stops listening. The values a task is indexed under are kept
+ * by slot, and a change event only tells which task to look at again: its current values
+ * are read under the write lock of the repository and replace the kept ones. The old and
+ * new values of the events are not used, since concurrent changes of a task may reach
+ * the repository in another order than they were made.
+ */
+public class TaskRepository implements PropertyChangeListener, AutoCloseable {
+
+    /** Day kept for a slot without start or end date: no LocalDate has this epoch day. */
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Task[] tasks = new Task[1024];
+    private int slotCount;
+    private final BitSet live = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+    private final IdentityHashMap<Task, Integer> slots = new IdentityHashMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final EnumMap<TaskStatus, BitSet> byStatus = new EnumMap<>(TaskStatus.class);
+    private final TreeMap<Integer, BitSet> byPriority = new TreeMap<>();
+    private final Map<String, BitSet> byMember = new HashMap<>();
+    private final DayIndex byStartDay = new DayIndex();
+    private final DayIndex byEndDay = new DayIndex();
+    private final TreeMap<Long, Integer> durations = new TreeMap<>();
+    private TaskStatus[] statuses = new TaskStatus[1024];
+    private Integer[] priorities = new Integer[1024];
+    private String[][] memberIds = new String[1024][];
+    private long[] startDays = new long[1024];
+    private long[] endDays = new long[1024];
+
+    /**
+     * Constructs an empty repository following the changes of the tasks it holds.
+     */
+    public TaskRepository() {
+        Arrays.fill(startDays, NO_DATE);
+        Arrays.fill(endDays, NO_DATE);
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Adds a task and indexes it. Adding a task twice has no effect.
+     *
+     * @param task The task to add.
+     */
+    public void add(Task task) {
+        lock.writeLock().lock();
+        try {
+            if (slots.containsKey(task)) {
+                return;
+            }
+            int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.nextSetBit(0);
+            freeSlots.clear(slot);
+            if (slot == tasks.length) {
+                grow();
+            }
+            tasks[slot] = task;
+            slots.put(task, slot);
+            slotsById.put(task.getId(), slot);
+            live.set(slot);
+            indexStatus(slot, task.getStatus());
+            indexPriority(slot, task.getPriority());
+            indexMembers(slot, task.getMembers());
+            indexDates(slot, task.getDates());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the tasks of every objective of the given projects.
+     *
+     * @param projects The projects whose tasks are added.
+     */
+    public void addAll(Collection<Project> projects) {
+        for (Project project : projects) {
+            for (Objective objective : project.getObjectiveList()) {
+                for (Task task : objective.getTaskList()) {
+                    add(task);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a task from the repository.
+     *
+     * @param task The task to remove.
+     * @return true if the task was in the repository.
+     */
+    public boolean remove(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(task);
+            if (slot == null) {
+                return false;
+            }
+            slotsById.remove(task.getId());
+            indexStatus(slot, null);
+            indexPriority(slot, null);
+            indexMembers(slot, List.of());
+            indexDates(slot, new DateRange(null, null));
+            live.clear(slot);
+            freeSlots.set(slot);
+            tasks[slot] = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a task by its ID.
+     *
+     * @param id The ID of the task.
+     * @return The task, or null if there is none with that ID.
+     */
+    public Task findById(String id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? null : tasks[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a query over the tasks of the repository.
+     *
+     * @return A query matching every task until criteria are added.
+     */
+    public TaskQuery query() {
+        return new TaskQuery(this);
+    }
+
+    /**
+     * Keeps the indexes up to date when an indexed property of a task changes, by
+     * reading the property of the task again.
+     *
+     * @param event The change made through a task setter.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        if (!(event.getSource() instanceof Task)) {
+            return;
+        }
+        String property = event.getPropertyName();
+        if (!property.equals("status") && !property.equals("priority") && !property.equals("members")
+                && !property.equals("dates")) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Task task = (Task) event.getSource();
+            Integer slot = slots.get(task);
+            if (slot == null) {
+                return;
+            }
+            switch (property) {
+                case "status":
+                    indexStatus(slot, task.getStatus());
+                    break;
+                case "priority":
+                    indexPriority(slot, task.getPriority());
+                    break;
+                case "members":
+                    indexMembers(slot, task.getMembers());
+                    break;
+                default:
+                    indexDates(slot, task.getDates());
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops following the changes of the tasks.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    // Query support: the returned bitsets may be the indexes themselves and must not be modified
+
+    BitSet liveSlots() {
+        return live;
+    }
+
+    BitSet withStatus(TaskStatus status) {
+        return orEmpty(byStatus.get(status));
+    }
+
+    BitSet withPriorities(int from, int to) {
+        return union(byPriority.subMap(from, true, to, true));
+    }
+
+    BitSet withMember(String memberId) {
+        return orEmpty(byMember.get(memberId));
+    }
+
+    BitSet startingBetween(LocalDate from, LocalDate to) {
+        return byStartDay.collect(from.toEpochDay(), to.toEpochDay(), new BitSet());
+    }
+
+    BitSet endingBetween(LocalDate from, LocalDate to) {
+        return byEndDay.collect(from.toEpochDay(), to.toEpochDay(), new BitSet());
+    }
+
+    BitSet endingBefore(LocalDate date) {
+        return byEndDay.collect(Long.MIN_VALUE, date.toEpochDay() - 1, new BitSet());
+    }
+
+    BitSet activeBetween(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long longest = durations.isEmpty() ? 0 : durations.lastKey();
+        BitSet slots = byStartDay.collect(fromDay - longest, to.toEpochDay(), new BitSet());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            if (endDays[slot] < fromDay) {
+                // Also clears the tasks without an end date, whose end day is NO_DATE
+                slots.clear(slot);
+            }
+        }
+        return slots;
+    }
+
+    List<Task> tasks(BitSet matches) {
+        List<Task> result = new ArrayList<>(matches.cardinality());
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            result.add(tasks[slot]);
+        }
+        return result;
+    }
+
+    ReentrantReadWriteLock.ReadLock readLock() {
+        return lock.readLock();
+    }
+
+    // The index* methods move a slot from the keys it is indexed under to the given ones
+
+    private void indexStatus(int slot, TaskStatus status) {
+        clear(byStatus, statuses[slot], slot);
+        set(byStatus, status, slot);
+        statuses[slot] = status;
+    }
+
+    private void indexPriority(int slot, Integer priority) {
+        clear(byPriority, priorities[slot], slot);
+        set(byPriority, priority, slot);
+        priorities[slot] = priority;
+    }
+
+    private void indexMembers(int slot, List<Member> members) {
+        String[] oldIds = memberIds[slot];
+        if (oldIds != null) {
+            for (String id : oldIds) {
+                clear(byMember, id, slot);
+            }
+        }
+        String[] newIds = new String[members.size()];
+        for (int i = 0; i < newIds.length; i++) {
+            newIds[i] = members.get(i).getId();
+            set(byMember, newIds[i], slot);
+        }
+        memberIds[slot] = newIds.length == 0 ? null : newIds;
+    }
+
+    private void indexDates(int slot, DateRange dates) {
+        countDuration(startDays[slot], endDays[slot], -1);
+        startDays[slot] = move(byStartDay, startDays[slot], dates.getStartDate(), slot);
+        endDays[slot] = move(byEndDay, endDays[slot], dates.getEndDate(), slot);
+        countDuration(startDays[slot], endDays[slot], 1);
+    }
+
+    private void countDuration(long startDay, long endDay, int change) {
+        if (startDay == NO_DATE || endDay == NO_DATE) {
+            return;
+        }
+        long duration = Math.max(0, endDay - startDay);
+        int count = durations.getOrDefault(duration, 0) + change;
+        if (count == 0) {
+            durations.remove(duration);
+        } else {
+            durations.put(duration, count);
+        }
+    }
+
+    private void grow() {
+        int length = tasks.length * 2;
+        tasks = Arrays.copyOf(tasks, length);
+        statuses = Arrays.copyOf(statuses, length);
+        priorities = Arrays.copyOf(priorities, length);
+        memberIds = Arrays.copyOf(memberIds, length);
+        int from = startDays.length;
+        startDays = Arrays.copyOf(startDays, length);
+        endDays = Arrays.copyOf(endDays, length);
+        Arrays.fill(startDays, from, length, NO_DATE);
+        Arrays.fill(endDays, from, length, NO_DATE);
+    }
+
+    private static long move(DayIndex index, long oldDay, LocalDate date, int slot) {
+        long newDay = date == null ? NO_DATE : date.toEpochDay();
+        if (newDay != oldDay) {
+            if (oldDay != NO_DATE) {
+                index.remove(oldDay, slot);
+            }
+            if (newDay != NO_DATE) {
+                index.add(newDay, slot);
+            }
+        }
+        return newDay;
+    }
+
+    private static <K> void set(Map<K, BitSet> index, K key, int slot) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new BitSet()).set(slot);
+        }
+    }
+
+    private static <K> void clear(Map<K, BitSet> index, K key, int slot) {
+        if (key == null) {
+            return;
+        }
+        BitSet slots = index.get(key);
+        if (slots != null) {
+            slots.clear(slot);
+            if (slots.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static BitSet orEmpty(BitSet slots) {
+        return slots == null ? new BitSet() : slots;
+    }
+
+    private static BitSet union(NavigableMap<?, BitSet> buckets) {
+        BitSet result = new BitSet();
+        for (BitSet slots : buckets.values()) {
+            result.or(slots);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,446 @@
+package Repositories;
+
+import Entities.DateRange;
+import Entities.EntityEvents;
+import Entities.Task;
+import Entities.TaskStatus;
+import Persistence.EntityStore;
+import Persistence.RecordList;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar copy of the fields of tasks read by dashboards: the priority, the status and
+ * the start and end dates, kept in parallel primitive arrays with one row per task.
+ * <p>
+ * Aggregations are plain loops over those arrays, which never touch the task objects.
+ * A table loaded from an {@link EntityStore} reads the columns from the task records, so
+ * a task is only decoded when its row is asked for with {@link #getTask(int)}.
+ * <p>
+ * The table listens to {@link EntityEvents} so that the columns follow the task setters;
+ * {@link #close()} stops listening.
+ */
+public class TaskTable implements PropertyChangeListener, AutoCloseable {
+
+    /**
+     * The day stored for a missing date.
+     */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final int DENSE_PRIORITY_LIMIT = 4096;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RecordList<Task> records;
+    private int[] priorities;
+    private byte[] statuses;
+    private int[] startDays;
+    private int[] endDays;
+    private Task[] tasks;
+    private int size;
+    private int maxPriority;
+    private final IdentityHashMap<Task, Integer> rows = new IdentityHashMap<>();
+
+    /**
+     * Constructs an empty table following the changes of the tasks it holds.
+     */
+    public TaskTable() {
+        this(null, 1024);
+    }
+
+    /**
+     * Constructs a table holding the given tasks, in iteration order.
+     *
+     * @param tasks The tasks to add.
+     */
+    public TaskTable(Collection<Task> tasks) {
+        this(null, Math.max(16, tasks.size()));
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    private TaskTable(RecordList<Task> records, int capacity) {
+        this.records = records;
+        this.priorities = new int[capacity];
+        this.statuses = new byte[capacity];
+        this.startDays = new int[capacity];
+        this.endDays = new int[capacity];
+        this.tasks = new Task[capacity];
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Loads the tasks of a store, one row per task record in record order, without
+     * decoding the tasks.
+     *
+     * @param store The store.
+     * @return The table, following the changes of the tasks decoded from the store.
+     */
+    public static TaskTable load(EntityStore store) {
+        RecordList<Task> records = store.getTasks();
+        TaskTable table = new TaskTable(records, Math.max(16, records.size()));
+        table.size = records.size();
+        store.readTaskColumns(table.priorities, table.statuses, table.startDays, table.endDays);
+        for (int row = 0; row < table.size; row++) {
+            table.maxPriority = Math.max(table.maxPriority, table.priorities[row]);
+        }
+        return table;
+    }
+
+    /**
+     * Appends a task. Adding a task twice has no effect.
+     *
+     * @param task The task to add.
+     */
+    public void add(Task task) {
+        lock.writeLock().lock();
+        try {
+            if (rows.containsKey(task)) {
+                return;
+            }
+            if (size == priorities.length) {
+                int capacity = size * 2;
+                priorities = Arrays.copyOf(priorities, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                startDays = Arrays.copyOf(startDays, capacity);
+                endDays = Arrays.copyOf(endDays, capacity);
+                tasks = Arrays.copyOf(tasks, capacity);
+            }
+            int row = size++;
+            tasks[row] = task;
+            rows.put(task, row);
+            setPriority(row, task.getPriority());
+            statuses[row] = ordinal(task.getStatus());
+            startDays[row] = day(task.getStartDate());
+            endDays[row] = day(task.getEndDate());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the rows.
+     *
+     * @return The number of tasks in the table.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the task of a row, decoding it from the store if it was never accessed.
+     *
+     * @param row The row.
+     * @return The task.
+     */
+    public Task getTask(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row);
+            if (tasks[row] != null) {
+                return tasks[row];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Decoded outside the lock, so that the other rows stay readable meanwhile
+        Task task = records.get(row);
+        register(task, row);
+        return task;
+    }
+
+    /**
+     * Gets the tasks of some rows, decoding those never accessed.
+     *
+     * @param selected The rows, for example returned by {@link #findOverdue(LocalDate)}.
+     * @return The tasks, in the order of the rows.
+     */
+    public List<Task> getTasks(int[] selected) {
+        List<Task> result = new ArrayList<>(selected.length);
+        for (int row : selected) {
+            result.add(getTask(row));
+        }
+        return result;
+    }
+
+    public int getPriority(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row);
+            return priorities[row];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public TaskStatus getStatus(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row);
+            return statuses[row] < 0 ? null : STATUSES[statuses[row]];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LocalDate getStartDate(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row);
+            return date(startDays[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LocalDate getEndDate(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row);
+            return date(endDays[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the tasks of each status.
+     *
+     * @return The number of tasks of each status; the tasks without status are not counted.
+     */
+    public EnumMap<TaskStatus, Integer> countByStatus() {
+        int[] counts = new int[STATUSES.length + 1];
+        lock.readLock().lock();
+        try {
+            byte[] column = statuses;
+            for (int row = 0; row < size; row++) {
+                counts[column[row] + 1]++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        EnumMap<TaskStatus, Integer> result = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : STATUSES) {
+            result.put(status, counts[status.ordinal() + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the tasks that ended before the given day without being done or canceled,
+     * as {@link TaskQuery#overdueOn(LocalDate)} selects them.
+     *
+     * @param today The current day.
+     * @return The number of overdue tasks.
+     */
+    public int countOverdue(LocalDate today) {
+        int day = (int) today.toEpochDay();
+        int done = TaskStatus.DONE.ordinal();
+        int canceled = TaskStatus.CANCELED.ordinal();
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            int[] ends = endDays;
+            byte[] column = statuses;
+            for (int row = 0; row < size; row++) {
+                int end = ends[row];
+                int status = column[row];
+                // Non-short-circuit operators, so that the loop body has no branch
+                count += (end != NO_DAY & end < day & status != done & status != canceled) ? 1 : 0;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    /**
+     * Counts the overdue tasks of each priority.
+     *
+     * @param today The current day.
+     * @return The number of overdue tasks by priority, for the priorities having some.
+     */
+    public SortedMap<Integer, Integer> countOverdueByPriority(LocalDate today) {
+        int day = (int) today.toEpochDay();
+        int done = TaskStatus.DONE.ordinal();
+        int canceled = TaskStatus.CANCELED.ordinal();
+        SortedMap<Integer, Integer> result = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            int[] ends = endDays;
+            byte[] column = statuses;
+            int[] priority = priorities;
+            if (maxPriority <= DENSE_PRIORITY_LIMIT) {
+                int[] counts = new int[maxPriority + 1];
+                for (int row = 0; row < size; row++) {
+                    int end = ends[row];
+                    int status = column[row];
+                    counts[priority[row]] += (end != NO_DAY & end < day & status != done & status != canceled) ? 1 : 0;
+                }
+                for (int value = 0; value < counts.length; value++) {
+                    if (counts[value] > 0) {
+                        result.put(value, counts[value]);
+                    }
+                }
+            } else {
+                for (int row = 0; row < size; row++) {
+                    int end = ends[row];
+                    int status = column[row];
+                    if (end != NO_DAY && end < day && status != done && status != canceled) {
+                        result.merge(priority[row], 1, Integer::sum);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the overdue tasks.
+     *
+     * @param today The current day.
+     * @return The rows of the overdue tasks, in increasing order.
+     */
+    public int[] findOverdue(LocalDate today) {
+        int day = (int) today.toEpochDay();
+        int done = TaskStatus.DONE.ordinal();
+        int canceled = TaskStatus.CANCELED.ordinal();
+        lock.readLock().lock();
+        try {
+            int[] ends = endDays;
+            byte[] column = statuses;
+            int[] selected = new int[size];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                int end = ends[row];
+                int status = column[row];
+                selected[count] = row;
+                count += (end != NO_DAY & end < day & status != done & status != canceled) ? 1 : 0;
+            }
+            return Arrays.copyOf(selected, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the columns of a task when one of its columned fields changes.
+     *
+     * @param event The entity event.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        if (!(event.getSource() instanceof Task)) {
+            return;
+        }
+        String property = event.getPropertyName();
+        if (!property.equals("status") && !property.equals("priority") && !property.equals("dates")) {
+            return;
+        }
+        Task task = (Task) event.getSource();
+        int row = rowOf(task);
+        if (row < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            switch (property) {
+                case "status":
+                    statuses[row] = ordinal(task.getStatus());
+                    break;
+                case "priority":
+                    setPriority(row, task.getPriority());
+                    break;
+                default:
+                    DateRange dates = task.getDates();
+                    startDays[row] = day(dates.getStartDate());
+                    endDays[row] = day(dates.getEndDate());
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops following the changes of the tasks.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    /**
+     * Finds the row of a task. A task decoded from the store by someone else is found by
+     * its ID, outside the lock since checking the record may decode it.
+     */
+    private int rowOf(Task task) {
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(task);
+            if (row != null || records == null) {
+                return row == null ? -1 : row;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        int row = records.indexOfId(task.getId());
+        if (row < 0 || row >= size || records.get(row) != task) {
+            return -1;
+        }
+        register(task, row);
+        return row;
+    }
+
+    private void register(Task task, int row) {
+        lock.writeLock().lock();
+        try {
+            tasks[row] = task;
+            rows.put(task, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPriority(int row, int priority) {
+        priorities[row] = priority;
+        maxPriority = Math.max(maxPriority, priority);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+    }
+
+    private static byte ordinal(TaskStatus status) {
+        return (byte) (status == null ? -1 : status.ordinal());
+    }
+
+    private static int day(LocalDate date) {
+        return date == null ? NO_DAY : (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(int day) {
+        return day == NO_DAY ? null : LocalDate.ofEpochDay(day);
+    }
+}
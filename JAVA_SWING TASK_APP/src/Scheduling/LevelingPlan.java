@@ -0,0 +1,94 @@
+package Scheduling;
+
+import Entities.Task;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents the result of a {@link ResourceLeveler} run: the conflicts found in the
+ * current dates, the occupancy timeline of every resource and the dates proposed for
+ * the tasks that have to move.
+ */
+public class LevelingPlan {
+
+    private final List<ResourceConflict> conflicts;
+    private final Map<Object, List<Task>> timelines;
+    private final Map<Task, LocalDate> proposedStarts;
+    private final Map<Task, LocalDate> proposedEnds;
+
+    LevelingPlan(List<ResourceConflict> conflicts, Map<Object, List<Task>> timelines,
+                 Map<Task, LocalDate> proposedStarts, Map<Task, LocalDate> proposedEnds) {
+        this.conflicts = Collections.unmodifiableList(conflicts);
+        this.timelines = timelines;
+        this.proposedStarts = proposedStarts;
+        this.proposedEnds = proposedEnds;
+    }
+
+    /**
+     * Gets the conflicts found in the dates the tasks had when the plan was made.
+     *
+     * @return The read-only list of conflicts.
+     */
+    public List<ResourceConflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the tasks using a member or a material, sorted by start date.
+     *
+     * @param resource The member or material.
+     * @return The read-only timeline of the resource, empty if no task uses it.
+     */
+    public List<Task> getTimeline(Object resource) {
+        List<Task> timeline = timelines.get(resource);
+        return timeline == null ? Collections.emptyList() : timeline;
+    }
+
+    /**
+     * Gets the tasks the plan moves to a later start date.
+     *
+     * @return The read-only set of the shifted tasks.
+     */
+    public Set<Task> getShiftedTasks() {
+        return Collections.unmodifiableSet(proposedStarts.keySet());
+    }
+
+    /**
+     * Gets the start date proposed for a task.
+     *
+     * @param task The task.
+     * @return The proposed start date, which is the current one if the task does not move.
+     */
+    public LocalDate getProposedStart(Task task) {
+        LocalDate start = proposedStarts.get(task);
+        return start == null ? task.getStartDate() : start;
+    }
+
+    /**
+     * Gets the end date proposed for a task, which keeps its duration.
+     *
+     * @param task The task.
+     * @return The proposed end date.
+     */
+    public LocalDate getProposedEnd(Task task) {
+        return proposedStarts.containsKey(task) ? proposedEnds.get(task) : task.getEndDate();
+    }
+
+    /**
+     * Moves the shifted tasks to their proposed dates through the task setters.
+     */
+    public void apply() {
+        for (Map.Entry<Task, LocalDate> entry : proposedStarts.entrySet()) {
+            Task task = entry.getKey();
+            // The tasks only move later, so the end date goes first to keep start <= end
+            if (proposedEnds.get(task) != null) {
+                task.setEndDate(proposedEnds.get(task));
+            }
+            task.setStartDate(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Scheduling;
+
+import Entities.TaskStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the progress of an objective or a project at the time it was asked for.
+ */
+public class Progress {
+
+    private final int[] counts;
+    private final int taskCount;
+    private final double completion;
+    private final LocalDate earliestStart;
+    private final LocalDate latestEnd;
+
+    /**
+     * Constructs a Progress object with the specified parameters.
+     *
+     * @param counts        The number of tasks of each status, indexed by ordinal.
+     * @param taskCount     The number of tasks, with or without status.
+     * @param completion    The priority-weighted completion, between 0 and 1.
+     * @param earliestStart The earliest start date of the tasks, or null.
+     * @param latestEnd     The latest end date of the tasks, or null.
+     */
+    Progress(int[] counts, int taskCount, double completion, LocalDate earliestStart, LocalDate latestEnd) {
+        this.counts = counts;
+        this.taskCount = taskCount;
+        this.completion = completion;
+        this.earliestStart = earliestStart;
+        this.latestEnd = latestEnd;
+    }
+
+    /**
+     * Counts the tasks having a status.
+     *
+     * @param status The status.
+     * @return The number of tasks having the status.
+     */
+    public int getCount(TaskStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    // Getters
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public double getCompletion() {
+        return completion;
+    }
+
+    public LocalDate getEarliestStart() {
+        return earliestStart;
+    }
+
+    public LocalDate getLatestEnd() {
+        return latestEnd;
+    }
+}
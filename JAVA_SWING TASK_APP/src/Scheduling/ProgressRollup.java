@@ -0,0 +1,462 @@
+package Scheduling;
+
+import Entities.DateRange;
+import Entities.EntityEvents;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of projects and of their objectives, rolled up from their tasks.
+ * <p>
+ * Each objective and project keeps an aggregate of its tasks: the count of each status,
+ * the priority-weighted completion and the earliest start and latest end dates. A task
+ * weighs the inverse of its priority, priority 1 being the most important; canceled
+ * tasks weigh nothing and the completion is the weight of the done tasks over the
+ * weight of all tasks.
+ * <p>
+ * The engine listens to {@link EntityEvents}. A status, priority or date change moves
+ * the task from its old values to its new ones in the aggregates of its objective and
+ * project, in constant time. The only exception is when the last task on the earliest
+ * or latest date moves: the dates of the objective, then of the project, are rescanned
+ * on the next query. Changes of the task list of an objective or the objective list of a
+ * project only add and remove the tasks that differ.
+ * <p>
+ * A task listed by several objectives is counted in the first of them only, and an
+ * objective listed by several projects in the first of them; when that objective or
+ * project stops listing it, it is counted in the next one listing it. A task or an
+ * objective moved from one list to another is thus counted once whatever the order of
+ * the events of the two lists.
+ */
+public class ProgressRollup implements PropertyChangeListener, AutoCloseable {
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final long WEIGHT_SCALE = 1L << 20;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private final IdentityHashMap<Project, ProjectNode> projects = new IdentityHashMap<>();
+    private final IdentityHashMap<Objective, ObjectiveNode> objectives = new IdentityHashMap<>();
+    private final IdentityHashMap<Task, TaskState> states = new IdentityHashMap<>();
+
+    /**
+     * The values of a task as last counted in the aggregates.
+     */
+    private static final class TaskState {
+        final List<ObjectiveNode> holders = new ArrayList<>();
+        ObjectiveNode objective;
+        int status;
+        int priority;
+        int start;
+        int end;
+
+        TaskState(ObjectiveNode objective, Task task) {
+            this.objective = objective;
+            holders.add(objective);
+            read(task);
+        }
+
+        void read(Task task) {
+            status = task.getStatus() == null ? -1 : task.getStatus().ordinal();
+            priority = task.getPriority();
+            DateRange dates = task.getDates();
+            start = day(dates.getStartDate());
+            end = day(dates.getEndDate());
+        }
+
+        long weight() {
+            return status == TaskStatus.CANCELED.ordinal() ? 0 : WEIGHT_SCALE / Math.max(1, priority);
+        }
+    }
+
+    /**
+     * The counts, weights and date bounds of a set of tasks. A bound is exact while at
+     * least one task is on it; once the last one leaves, both bounds are stale and are no
+     * longer maintained until they are recomputed on demand.
+     */
+    private static final class Aggregate {
+        final int[] counts = new int[STATUSES.length];
+        int taskCount;
+        long doneWeight;
+        long totalWeight;
+        int earliest = Integer.MAX_VALUE;
+        int earliestCount;
+        int latest = Integer.MIN_VALUE;
+        int latestCount;
+        boolean stale;
+
+        void add(TaskState state, int sign) {
+            if (state.status >= 0) {
+                counts[state.status] += sign;
+            }
+            taskCount += sign;
+            long weight = state.weight();
+            totalWeight += sign * weight;
+            if (state.status == TaskStatus.DONE.ordinal()) {
+                doneWeight += sign * weight;
+            }
+            if (stale) {
+                return;
+            }
+            if (sign > 0) {
+                includeStart(state.start, 1);
+                includeEnd(state.end, 1);
+            } else {
+                if (state.start != NO_DAY && state.start == earliest && --earliestCount == 0) {
+                    stale = true;
+                }
+                if (state.end != NO_DAY && state.end == latest && --latestCount == 0) {
+                    stale = true;
+                }
+            }
+        }
+
+        void includeStart(int day, int count) {
+            if (day == NO_DAY || day == Integer.MAX_VALUE) {
+                return;
+            }
+            if (day < earliest) {
+                earliest = day;
+                earliestCount = count;
+            } else if (day == earliest) {
+                earliestCount += count;
+            }
+        }
+
+        void includeEnd(int day, int count) {
+            if (day == NO_DAY || day == Integer.MIN_VALUE) {
+                return;
+            }
+            if (day > latest) {
+                latest = day;
+                latestCount = count;
+            } else if (day == latest) {
+                latestCount += count;
+            }
+        }
+
+        void resetDates() {
+            earliest = Integer.MAX_VALUE;
+            earliestCount = 0;
+            latest = Integer.MIN_VALUE;
+            latestCount = 0;
+            stale = false;
+        }
+
+        Progress toProgress() {
+            double completion = totalWeight == 0 ? 0 : (double) doneWeight / totalWeight;
+            return new Progress(counts.clone(), taskCount, completion,
+                    earliestCount == 0 ? null : LocalDate.ofEpochDay(earliest),
+                    latestCount == 0 ? null : LocalDate.ofEpochDay(latest));
+        }
+    }
+
+    /**
+     * An objective with the projects listing it, counted in the first of them, and the
+     * tasks it lists, including those counted in another objective.
+     */
+    private static final class ObjectiveNode {
+        final List<ProjectNode> holders = new ArrayList<>();
+        ProjectNode project;
+        final Aggregate aggregate = new Aggregate();
+        List<Task> tasks = new ArrayList<>();
+
+        ObjectiveNode(ProjectNode project) {
+            this.project = project;
+            holders.add(project);
+        }
+    }
+
+    /**
+     * A project with the objectives it lists, including those counted in another project.
+     */
+    private static final class ProjectNode {
+        final Aggregate aggregate = new Aggregate();
+        List<Objective> objectives = new ArrayList<>();
+    }
+
+    /**
+     * Constructs an empty engine following the changes of the tasks of its projects.
+     */
+    public ProgressRollup() {
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Adds a project with its objectives and tasks. Adding a project twice has no effect;
+     * a task already counted in another objective is not counted again.
+     *
+     * @param project The project to add.
+     */
+    public synchronized void addProject(Project project) {
+        if (projects.containsKey(project)) {
+            return;
+        }
+        ProjectNode node = new ProjectNode();
+        projects.put(project, node);
+        setObjectives(node, project.getObjectiveList());
+    }
+
+    /**
+     * Removes a project with its objectives and tasks.
+     *
+     * @param project The project to remove.
+     */
+    public synchronized void removeProject(Project project) {
+        ProjectNode node = projects.remove(project);
+        if (node != null) {
+            setObjectives(node, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Gets the progress of a project.
+     *
+     * @param project The project.
+     * @return The progress of the project.
+     * @throws IllegalArgumentException if the project was not added.
+     */
+    public synchronized Progress getProgress(Project project) {
+        ProjectNode node = projects.get(project);
+        if (node == null) {
+            throw new IllegalArgumentException("Project " + project.getId() + " is not followed");
+        }
+        refresh(node);
+        return node.aggregate.toProgress();
+    }
+
+    /**
+     * Gets the progress of an objective.
+     *
+     * @param objective The objective.
+     * @return The progress of the objective.
+     * @throws IllegalArgumentException if the objective is not in an added project.
+     */
+    public synchronized Progress getProgress(Objective objective) {
+        ObjectiveNode node = objectives.get(objective);
+        if (node == null) {
+            throw new IllegalArgumentException("Objective " + objective.getId() + " is not followed");
+        }
+        refresh(node);
+        return node.aggregate.toProgress();
+    }
+
+    /**
+     * Moves a task in the aggregates when its status, priority or dates change, and
+     * follows the changes of the task lists of objectives and the objective lists of
+     * projects.
+     *
+     * @param event The entity event.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        Object source = event.getSource();
+        String property = event.getPropertyName();
+        if (source instanceof Task) {
+            if (!property.equals("status") && !property.equals("priority") && !property.equals("dates")) {
+                return;
+            }
+            synchronized (this) {
+                TaskState state = states.get(source);
+                if (state != null) {
+                    count(state, -1);
+                    state.read((Task) source);
+                    count(state, 1);
+                }
+            }
+        } else if (source instanceof Objective && property.equals("taskList")) {
+            synchronized (this) {
+                ObjectiveNode node = objectives.get(source);
+                if (node != null) {
+                    setTasks(node, ((Objective) source).getTaskList());
+                }
+            }
+        } else if (source instanceof Project && property.equals("objectiveList")) {
+            synchronized (this) {
+                ProjectNode node = projects.get(source);
+                if (node != null) {
+                    setObjectives(node, ((Project) source).getObjectiveList());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops following the changes of the tasks.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    /**
+     * Sets the objectives a project lists. The objectives it no longer lists are counted
+     * in the next project listing them, or dropped with their tasks; those it lists for
+     * the first time are counted in it unless another project already counts them.
+     */
+    private void setObjectives(ProjectNode node, List<Objective> current) {
+        Map<Objective, Boolean> kept = identitySet(current);
+        for (Objective objective : node.objectives) {
+            if (kept.containsKey(objective)) {
+                continue;
+            }
+            ObjectiveNode removed = objectives.get(objective);
+            removed.holders.remove(node);
+            if (removed.project != node) {
+                continue;
+            }
+            if (removed.holders.isEmpty()) {
+                objectives.remove(objective);
+                setTasks(removed, new ArrayList<>());
+            } else {
+                moveObjective(removed, removed.holders.get(0));
+            }
+        }
+        Map<Objective, Boolean> previous = identitySet(node.objectives);
+        Map<Objective, Boolean> seen = new IdentityHashMap<>();
+        List<Objective> listed = new ArrayList<>();
+        for (Objective objective : current) {
+            if (seen.put(objective, Boolean.TRUE) != null) {
+                continue;
+            }
+            listed.add(objective);
+            if (previous.containsKey(objective)) {
+                continue;
+            }
+            ObjectiveNode added = objectives.get(objective);
+            if (added != null) {
+                added.holders.add(node);
+            } else {
+                added = new ObjectiveNode(node);
+                objectives.put(objective, added);
+                setTasks(added, objective.getTaskList());
+            }
+        }
+        node.objectives = listed;
+    }
+
+    /**
+     * Sets the tasks an objective lists. The tasks it no longer lists are counted in the
+     * next objective listing them, or dropped; those it lists for the first time are
+     * counted in it unless another objective already counts them.
+     */
+    private void setTasks(ObjectiveNode node, List<Task> current) {
+        Map<Task, Boolean> kept = identitySet(current);
+        for (Task task : node.tasks) {
+            if (kept.containsKey(task)) {
+                continue;
+            }
+            TaskState state = states.get(task);
+            state.holders.remove(node);
+            if (state.objective != node) {
+                continue;
+            }
+            count(state, -1);
+            if (state.holders.isEmpty()) {
+                states.remove(task);
+            } else {
+                state.objective = state.holders.get(0);
+                count(state, 1);
+            }
+        }
+        Map<Task, Boolean> previous = identitySet(node.tasks);
+        Map<Task, Boolean> seen = new IdentityHashMap<>();
+        List<Task> listed = new ArrayList<>();
+        for (Task task : current) {
+            if (seen.put(task, Boolean.TRUE) != null) {
+                continue;
+            }
+            listed.add(task);
+            if (previous.containsKey(task)) {
+                continue;
+            }
+            TaskState state = states.get(task);
+            if (state != null) {
+                state.holders.add(node);
+            } else {
+                state = new TaskState(node, task);
+                states.put(task, state);
+                count(state, 1);
+            }
+        }
+        node.tasks = listed;
+    }
+
+    /**
+     * Counts an objective, with the tasks it counts, in another project.
+     */
+    private void moveObjective(ObjectiveNode node, ProjectNode project) {
+        for (Task task : node.tasks) {
+            TaskState state = states.get(task);
+            if (state.objective == node) {
+                node.project.aggregate.add(state, -1);
+                project.aggregate.add(state, 1);
+            }
+        }
+        node.project = project;
+    }
+
+    private void count(TaskState state, int sign) {
+        state.objective.aggregate.add(state, sign);
+        state.objective.project.aggregate.add(state, sign);
+    }
+
+    /**
+     * Recomputes the date bounds of an objective from its tasks, if a bound was left.
+     */
+    private void refresh(ObjectiveNode node) {
+        Aggregate aggregate = node.aggregate;
+        if (!aggregate.stale) {
+            return;
+        }
+        aggregate.resetDates();
+        for (Task task : node.tasks) {
+            TaskState state = states.get(task);
+            if (state.objective == node) {
+                aggregate.includeStart(state.start, 1);
+                aggregate.includeEnd(state.end, 1);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the date bounds of a project from those of its objectives, if a bound
+     * was left.
+     */
+    private void refresh(ProjectNode node) {
+        Aggregate aggregate = node.aggregate;
+        if (!aggregate.stale) {
+            return;
+        }
+        aggregate.resetDates();
+        for (Objective objective : node.objectives) {
+            ObjectiveNode child = objectives.get(objective);
+            if (child.project != node) {
+                continue;
+            }
+            refresh(child);
+            aggregate.includeStart(child.aggregate.earliest, child.aggregate.earliestCount);
+            aggregate.includeEnd(child.aggregate.latest, child.aggregate.latestCount);
+        }
+    }
+
+    private static <T> Map<T, Boolean> identitySet(List<T> values) {
+        Map<T, Boolean> set = new IdentityHashMap<>();
+        for (T value : values) {
+            set.put(value, Boolean.TRUE);
+        }
+        return set;
+    }
+
+    private static int day(LocalDate date) {
+        return date == null ? NO_DAY : (int) date.toEpochDay();
+    }
+}
@@ -0,0 +1,56 @@
+package Scheduling;
+
+import Entities.Task;
+
+import java.time.LocalDate;
+
+/**
+ * Represents two tasks using the same member or material over overlapping dates.
+ */
+public class ResourceConflict {
+
+    private final Object resource;
+    private final Task first;
+    private final Task second;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    /**
+     * Constructs a ResourceConflict object.
+     *
+     * @param resource The {@link Entities.Member} or {@link Entities.Material} used by both tasks.
+     * @param first    The task starting first.
+     * @param second   The task starting while the first one is not finished.
+     * @param from     The first day of the overlap.
+     * @param to       The day the overlap ends, excluded.
+     */
+    public ResourceConflict(Object resource, Task first, Task second, LocalDate from, LocalDate to) {
+        this.resource = resource;
+        this.first = first;
+        this.second = second;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters
+
+    public Object getResource() {
+        return resource;
+    }
+
+    public Task getFirst() {
+        return first;
+    }
+
+    public Task getSecond() {
+        return second;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+}
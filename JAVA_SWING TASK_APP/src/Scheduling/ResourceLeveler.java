@@ -0,0 +1,415 @@
+package Scheduling;
+
+import Entities.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Detects the members and materials used by several tasks at the same time and proposes
+ * later dates for the tasks so that no resource is over-allocated.
+ * <p>
+ * A resource works on one task at a time. A task occupies its resources from its start
+ * date until its end date, excluded, and at least for its start day, which matches the
+ * {@link ScheduleEngine} where a task can start on the day its predecessor ends.
+ * <p>
+ * The priority decides which task keeps its dates: 1 is the highest priority, and among
+ * tasks of the same priority the one starting first wins. Tasks are placed by decreasing
+ * priority, each on the first day from its start where all its resources are free, so a
+ * task is only ever pushed by tasks of higher priority.
+ * <p>
+ * The timelines and conflicts of the resources are computed in parallel with fork/join.
+ * Placement is split in groups of resources that no task links together, typically the
+ * teams of different projects, which are placed in parallel as well.
+ * <p>
+ * The tasks are not modified: the dates are proposed in a {@link LevelingPlan}.
+ */
+public class ResourceLeveler {
+
+    private static final int NUMBERS_PER_FORK = 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a ResourceLeveler running on the common fork/join pool.
+     */
+    public ResourceLeveler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ResourceLeveler running on the specified pool.
+     *
+     * @param pool The pool processing the resources.
+     */
+    public ResourceLeveler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Detects the conflicts between tasks and proposes dates solving them.
+     *
+     * @param tasks The tasks to level. Tasks without a start date are ignored.
+     * @return The conflicts, the timelines of the resources and the proposed dates.
+     */
+    public LevelingPlan level(Collection<Task> tasks) {
+        Allocation allocation = new Allocation(tasks);
+        int[] allResources = new int[allocation.resourceCount];
+        for (int r = 0; r < allResources.length; r++) {
+            allResources[r] = r;
+        }
+        pool.invoke(new ForEach(allResources, 0, allResources.length, allocation::scan));
+        int[] groups = new int[allocation.group()];
+        for (int g = 0; g < groups.length; g++) {
+            groups[g] = g;
+        }
+        pool.invoke(new ForEach(groups, 0, groups.length, allocation::place));
+        return allocation.plan();
+    }
+
+    /**
+     * The tasks and resources of a run, numbered and stored in primitive arrays. Tasks are
+     * numbered by decreasing priority so that the task lists of the resources, filled in
+     * that order, are already sorted for placement.
+     */
+    private static final class Allocation {
+        private static final int NONE = -1;
+
+        private final Task[] tasks;
+        private final int[] start;
+        private final int[] length;
+        private final int minStart;
+        private final Object[] resources;
+        private final int resourceCount;
+        private final int[] taskOffsets;
+        private final int[] taskResources;
+        private final int[] resourceOffsets;
+        private final int[] resourceTasks;
+        private final ResourceConflict[][] conflicts;
+        private final Task[][] timelines;
+        private final int[] current;
+        private final int[][] slotStarts;
+        private final int[][] slotEnds;
+        private final int[] slotCounts;
+        private int[] groupOffsets;
+        private int[] groupTasks;
+
+        // Numbering of the resources, only used while building
+        private IdentityHashMap<Object, Integer> ids;
+        private List<Object> found;
+        private int[] uses;
+        private int[] counts;
+        private int useCount;
+
+        Allocation(Collection<Task> all) {
+            List<Task> sorted = new ArrayList<>(all.size());
+            for (Task task : all) {
+                if (task.getStartDate() != null) {
+                    sorted.add(task);
+                }
+            }
+            sorted.sort(Comparator.comparingInt(Task::getPriority).thenComparing(Task::getStartDate));
+            int n = sorted.size();
+            tasks = sorted.toArray(new Task[0]);
+            start = new int[n];
+            length = new int[n];
+            int min = Integer.MAX_VALUE;
+            for (int t = 0; t < n; t++) {
+                start[t] = (int) tasks[t].getStartDate().toEpochDay();
+                int end = tasks[t].getEndDate() == null ? start[t] : (int) tasks[t].getEndDate().toEpochDay();
+                length[t] = Math.max(1, end - start[t]);
+                min = Math.min(min, start[t]);
+            }
+            minStart = min;
+
+            ids = new IdentityHashMap<>();
+            found = new ArrayList<>();
+            uses = new int[Math.max(16, n * 2)];
+            counts = new int[16];
+            taskOffsets = new int[n + 1];
+            for (int t = 0; t < n; t++) {
+                taskOffsets[t] = useCount;
+                for (Object member : tasks[t].getMembers()) {
+                    use(t, member);
+                }
+                for (Object material : tasks[t].getMaterials()) {
+                    use(t, material);
+                }
+            }
+            taskOffsets[n] = useCount;
+            taskResources = uses;
+            resources = found.toArray();
+            resourceCount = resources.length;
+            ids = null;
+            found = null;
+
+            resourceOffsets = new int[resourceCount + 1];
+            for (int r = 0; r < resourceCount; r++) {
+                resourceOffsets[r + 1] = resourceOffsets[r] + counts[r];
+            }
+            resourceTasks = new int[useCount];
+            int[] fill = Arrays.copyOf(resourceOffsets, resourceCount);
+            for (int t = 0; t < n; t++) {
+                for (int i = taskOffsets[t]; i < taskOffsets[t + 1]; i++) {
+                    resourceTasks[fill[taskResources[i]]++] = t;
+                }
+            }
+
+            conflicts = new ResourceConflict[resourceCount][];
+            timelines = new Task[resourceCount][];
+            current = start.clone();
+            slotStarts = new int[resourceCount][];
+            slotEnds = new int[resourceCount][];
+            slotCounts = new int[resourceCount];
+        }
+
+        private void use(int task, Object resource) {
+            Integer id = ids.get(resource);
+            if (id == null) {
+                id = found.size();
+                ids.put(resource, id);
+                found.add(resource);
+                if (id == counts.length) {
+                    counts = Arrays.copyOf(counts, id * 2);
+                }
+            }
+            for (int i = taskOffsets[task]; i < useCount; i++) {
+                if (uses[i] == id) {
+                    return;
+                }
+            }
+            if (useCount == uses.length) {
+                uses = Arrays.copyOf(uses, useCount * 2);
+            }
+            uses[useCount++] = id;
+            counts[id]++;
+        }
+
+        /**
+         * Sorts the tasks of a resource by start date to build its timeline and report
+         * every task starting before the ones already started are all finished.
+         */
+        void scan(int resource) {
+            int from = resourceOffsets[resource];
+            int count = resourceOffsets[resource + 1] - from;
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                int t = resourceTasks[from + i];
+                keys[i] = (long) (start[t] - minStart) << 32 | t;
+            }
+            Arrays.sort(keys);
+            Task[] timeline = new Task[count];
+            List<ResourceConflict> found = new ArrayList<>();
+            int busy = NONE;
+            for (int i = 0; i < count; i++) {
+                int t = (int) keys[i];
+                timeline[i] = tasks[t];
+                if (busy != NONE && start[t] < end(busy)) {
+                    found.add(new ResourceConflict(resources[resource], tasks[busy], tasks[t],
+                            LocalDate.ofEpochDay(start[t]), LocalDate.ofEpochDay(Math.min(end(t), end(busy)))));
+                }
+                if (busy == NONE || end(t) > end(busy)) {
+                    busy = t;
+                }
+            }
+            timelines[resource] = timeline;
+            conflicts[resource] = found.toArray(new ResourceConflict[0]);
+        }
+
+        /**
+         * Groups the resources shared, directly or through other resources, by some task.
+         *
+         * @return The number of groups.
+         */
+        int group() {
+            int[] parent = new int[resourceCount];
+            for (int r = 0; r < resourceCount; r++) {
+                parent[r] = r;
+            }
+            for (int t = 0; t < tasks.length; t++) {
+                for (int i = taskOffsets[t] + 1; i < taskOffsets[t + 1]; i++) {
+                    int a = root(parent, taskResources[taskOffsets[t]]);
+                    int b = root(parent, taskResources[i]);
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+            int groupCount = 0;
+            int[] groupOfRoot = new int[resourceCount];
+            int[] counts = new int[resourceCount + 1];
+            for (int r = 0; r < resourceCount; r++) {
+                int root = root(parent, r);
+                if (root == r) {
+                    groupOfRoot[r] = groupCount++;
+                }
+            }
+            int[] groupOfTask = new int[tasks.length];
+            for (int t = 0; t < tasks.length; t++) {
+                if (taskOffsets[t] == taskOffsets[t + 1]) {
+                    groupOfTask[t] = NONE;
+                } else {
+                    groupOfTask[t] = groupOfRoot[root(parent, taskResources[taskOffsets[t]])];
+                    counts[groupOfTask[t] + 1]++;
+                }
+            }
+            groupOffsets = new int[groupCount + 1];
+            for (int g = 0; g < groupCount; g++) {
+                groupOffsets[g + 1] = groupOffsets[g] + counts[g + 1];
+            }
+            groupTasks = new int[groupOffsets[groupCount]];
+            int[] fill = Arrays.copyOf(groupOffsets, groupCount);
+            for (int t = 0; t < tasks.length; t++) {
+                if (groupOfTask[t] != NONE) {
+                    groupTasks[fill[groupOfTask[t]]++] = t;
+                }
+            }
+            return groupCount;
+        }
+
+        private static int root(int[] parent, int r) {
+            while (parent[r] != r) {
+                parent[r] = parent[parent[r]];
+                r = parent[r];
+            }
+            return r;
+        }
+
+        /**
+         * Places the tasks of a group by decreasing priority, each at the first day not
+         * before its start where all its resources are free for its whole length. The
+         * groups share no resource, so they are placed independently.
+         */
+        void place(int group) {
+            for (int i = groupOffsets[group]; i < groupOffsets[group + 1]; i++) {
+                int t = groupTasks[i];
+                int s = start[t];
+                boolean moved = true;
+                while (moved) {
+                    moved = false;
+                    for (int u = taskOffsets[t]; u < taskOffsets[t + 1]; u++) {
+                        int free = firstFree(taskResources[u], s, length[t]);
+                        if (free > s) {
+                            s = free;
+                            moved = true;
+                        }
+                    }
+                }
+                for (int u = taskOffsets[t]; u < taskOffsets[t + 1]; u++) {
+                    occupy(taskResources[u], s, length[t]);
+                }
+                current[t] = s;
+            }
+        }
+
+        private int firstFree(int resource, int day, int days) {
+            int[] starts = slotStarts[resource];
+            int[] ends = slotEnds[resource];
+            int placed = slotCounts[resource];
+            int slot = firstEndingAfter(ends, placed, day);
+            while (slot < placed && starts[slot] < day + days) {
+                day = Math.max(day, ends[slot]);
+                slot++;
+            }
+            return day;
+        }
+
+        private void occupy(int resource, int day, int days) {
+            if (slotStarts[resource] == null) {
+                int capacity = resourceOffsets[resource + 1] - resourceOffsets[resource];
+                slotStarts[resource] = new int[capacity];
+                slotEnds[resource] = new int[capacity];
+            }
+            int[] starts = slotStarts[resource];
+            int[] ends = slotEnds[resource];
+            int placed = slotCounts[resource]++;
+            int slot = firstEndingAfter(ends, placed, day);
+            System.arraycopy(starts, slot, starts, slot + 1, placed - slot);
+            System.arraycopy(ends, slot, ends, slot + 1, placed - slot);
+            starts[slot] = day;
+            ends[slot] = day + days;
+        }
+
+        private static int firstEndingAfter(int[] ends, int count, int day) {
+            if (ends == null) {
+                return 0;
+            }
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ends[middle] <= day) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        LevelingPlan plan() {
+            List<ResourceConflict> allConflicts = new ArrayList<>();
+            Map<Object, List<Task>> timelineMap = new IdentityHashMap<>();
+            for (int r = 0; r < resourceCount; r++) {
+                Collections.addAll(allConflicts, conflicts[r]);
+                timelineMap.put(resources[r], Collections.unmodifiableList(Arrays.asList(timelines[r])));
+            }
+            Map<Task, LocalDate> proposedStarts = new IdentityHashMap<>();
+            Map<Task, LocalDate> proposedEnds = new IdentityHashMap<>();
+            for (int t = 0; t < tasks.length; t++) {
+                int shift = current[t] - start[t];
+                if (shift > 0) {
+                    proposedStarts.put(tasks[t], LocalDate.ofEpochDay(current[t]));
+                    LocalDate end = tasks[t].getEndDate();
+                    proposedEnds.put(tasks[t], end == null ? null : end.plusDays(shift));
+                }
+            }
+            return new LevelingPlan(allConflicts, timelineMap, proposedStarts, proposedEnds);
+        }
+
+        private int end(int t) {
+            return start[t] + length[t];
+        }
+    }
+
+    /**
+     * Applies an action to a range of resource or group numbers, splitting the range
+     * between the threads of the pool.
+     */
+    private static final class ForEach extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] numbers;
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        ForEach(int[] numbers, int from, int to, IntConsumer action) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= NUMBERS_PER_FORK) {
+                for (int i = from; i < to; i++) {
+                    action.accept(numbers[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEach(numbers, from, middle, action),
+                    new ForEach(numbers, middle, to, action));
+        }
+    }
+}
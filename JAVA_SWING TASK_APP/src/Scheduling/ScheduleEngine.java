@@ -0,0 +1,511 @@
+package Scheduling;
+
+import Entities.DateRange;
+import Entities.EntityEvents;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Critical-path schedule of a set of tasks linked by finish-to-start dependencies.
+ * <p>
+ * A task cannot start before its own start date nor before all its predecessors are
+ * finished, and lasts as many days as between its start and end dates. A task without a
+ * start date is unconstrained: it starts as soon as its predecessors are finished, or on
+ * the earliest start date of the schedule if it has none, and lasts no day. The engine
+ * computes the earliest and latest start and finish of every task, its slack and the
+ * critical path.
+ * <p>
+ * The dependency graph is kept in primitive arrays: tasks are numbered nodes and edges
+ * are chained in per-node linked lists of edge indexes, so 100k tasks take a few
+ * megabytes. Adding a dependency recomputes the whole schedule on the next query; a
+ * date change, followed through {@link EntityEvents}, only revisits the successors
+ * whose earliest dates move and the predecessors whose latest dates move.
+ */
+public class ScheduleEngine implements PropertyChangeListener, AutoCloseable {
+
+    private static final int NONE = -1;
+    private static final int UNCONSTRAINED = Integer.MIN_VALUE;
+
+    private final IdentityHashMap<Task, Integer> nodes = new IdentityHashMap<>();
+    private Task[] tasks = new Task[256];
+    private int[] release = new int[256];
+    private int[] duration = new int[256];
+    private int[] outHead = new int[256];
+    private int[] inHead = new int[256];
+    private int nodeCount;
+
+    private int[] edgeFrom = new int[256];
+    private int[] edgeTo = new int[256];
+    private int[] nextOut = new int[256];
+    private int[] nextIn = new int[256];
+    private int edgeCount;
+
+    private int[] earliestStart = new int[0];
+    private int[] earliestFinish = new int[0];
+    private int[] latestStart = new int[0];
+    private int[] latestFinish = new int[0];
+    private int[] order = new int[0];
+    private int[] position = new int[0];
+    private int finish;
+    private int origin;
+    private boolean originConstrained;
+    private boolean dirty = true;
+
+    /**
+     * Constructs an empty engine following the date changes of its tasks.
+     */
+    public ScheduleEngine() {
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Adds a task to the schedule. Adding a task twice has no effect.
+     *
+     * @param task The task to add.
+     */
+    public synchronized void addTask(Task task) {
+        if (nodes.containsKey(task)) {
+            return;
+        }
+        if (nodeCount == tasks.length) {
+            int capacity = nodeCount * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            release = Arrays.copyOf(release, capacity);
+            duration = Arrays.copyOf(duration, capacity);
+            outHead = Arrays.copyOf(outHead, capacity);
+            inHead = Arrays.copyOf(inHead, capacity);
+        }
+        int node = nodeCount++;
+        nodes.put(task, node);
+        tasks[node] = task;
+        outHead[node] = NONE;
+        inHead[node] = NONE;
+        readDates(node);
+        dirty = true;
+    }
+
+    /**
+     * Adds the tasks of every objective of a project.
+     *
+     * @param project The project whose tasks are added.
+     */
+    public synchronized void addProject(Project project) {
+        for (Objective objective : project.getObjectiveList()) {
+            for (Task task : objective.getTaskList()) {
+                addTask(task);
+            }
+        }
+    }
+
+    /**
+     * Makes a task start only once another one is finished. Both tasks are added to the
+     * schedule if needed.
+     *
+     * @param predecessor The task to finish first.
+     * @param successor   The task starting after it.
+     * @throws IllegalArgumentException if the dependency would create a cycle.
+     */
+    public synchronized void addDependency(Task predecessor, Task successor) {
+        addTask(predecessor);
+        addTask(successor);
+        int from = nodes.get(predecessor);
+        int to = nodes.get(successor);
+        if (from == to || reaches(to, from)) {
+            throw new IllegalArgumentException("Dependency would create a cycle.");
+        }
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            nextOut = Arrays.copyOf(nextOut, capacity);
+            nextIn = Arrays.copyOf(nextIn, capacity);
+        }
+        int edge = edgeCount++;
+        edgeFrom[edge] = from;
+        edgeTo[edge] = to;
+        nextOut[edge] = outHead[from];
+        outHead[from] = edge;
+        nextIn[edge] = inHead[to];
+        inHead[to] = edge;
+        dirty = true;
+    }
+
+    // Schedule queries
+
+    public synchronized LocalDate getEarliestStart(Task task) {
+        int node = node(task);
+        return LocalDate.ofEpochDay(earliestStart[node]);
+    }
+
+    public synchronized LocalDate getEarliestFinish(Task task) {
+        int node = node(task);
+        return LocalDate.ofEpochDay(earliestFinish[node]);
+    }
+
+    public synchronized LocalDate getLatestStart(Task task) {
+        int node = node(task);
+        return LocalDate.ofEpochDay(latestStart[node]);
+    }
+
+    public synchronized LocalDate getLatestFinish(Task task) {
+        int node = node(task);
+        return LocalDate.ofEpochDay(latestFinish[node]);
+    }
+
+    /**
+     * Gets the number of days a task can be delayed without delaying the project.
+     *
+     * @param task The task.
+     * @return The slack of the task, in days.
+     */
+    public synchronized int getSlack(Task task) {
+        int node = node(task);
+        return latestStart[node] - earliestStart[node];
+    }
+
+    public synchronized boolean isCritical(Task task) {
+        return getSlack(task) == 0;
+    }
+
+    /**
+     * Gets the day the last task of the schedule finishes at the earliest.
+     *
+     * @return The finish date of the project, or null if the schedule is empty.
+     */
+    public synchronized LocalDate getProjectFinish() {
+        refresh();
+        return nodeCount == 0 ? null : LocalDate.ofEpochDay(finish);
+    }
+
+    /**
+     * Gets a critical path: a chain of tasks without slack, each one starting when the
+     * previous one finishes, up to the finish of the project.
+     *
+     * @return The tasks of the critical path, in order.
+     */
+    public synchronized List<Task> getCriticalPath() {
+        refresh();
+        if (nodeCount == 0) {
+            return Collections.emptyList();
+        }
+        int current = NONE;
+        for (int node : order) {
+            if (latestStart[node] == earliestStart[node] && !hasTightCriticalPredecessor(node)) {
+                current = node;
+                break;
+            }
+        }
+        List<Task> path = new ArrayList<>();
+        while (current != NONE) {
+            path.add(tasks[current]);
+            int next = NONE;
+            for (int edge = outHead[current]; edge != NONE; edge = nextOut[edge]) {
+                int successor = edgeTo[edge];
+                if (latestStart[successor] == earliestStart[successor]
+                        && earliestStart[successor] == earliestFinish[current]) {
+                    next = successor;
+                    break;
+                }
+            }
+            current = next;
+        }
+        return path;
+    }
+
+    /**
+     * Recomputes the part of the schedule affected by a change of the dates of a task.
+     *
+     * @param event The change made through a task setter.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        if (!(event.getSource() instanceof Task)) {
+            return;
+        }
+        if (!event.getPropertyName().equals("dates")) {
+            return;
+        }
+        synchronized (this) {
+            Integer node = nodes.get(event.getSource());
+            if (node == null) {
+                return;
+            }
+            int previousRelease = release[node];
+            readDates(node);
+            int newRelease = release[node];
+            if ((newRelease != UNCONSTRAINED && (newRelease < origin || !originConstrained))
+                    || (previousRelease == origin && newRelease != previousRelease)) {
+                // The earliest start date of the schedule moves (or replaces today), and with it the unconstrained tasks
+                dirty = true;
+            }
+            if (!dirty) {
+                update(node);
+            }
+        }
+    }
+
+    /**
+     * Stops following the date changes of the tasks.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    private int node(Task task) {
+        refresh();
+        Integer node = nodes.get(task);
+        if (node == null) {
+            throw new IllegalArgumentException("Task is not in the schedule.");
+        }
+        return node;
+    }
+
+    private void readDates(int node) {
+        DateRange dates = tasks[node].getDates();
+        LocalDate startDate = dates.getStartDate();
+        LocalDate endDate = dates.getEndDate();
+        if (startDate == null) {
+            release[node] = UNCONSTRAINED;
+            duration[node] = 0;
+            return;
+        }
+        int start = (int) startDate.toEpochDay();
+        int end = endDate == null ? start : (int) endDate.toEpochDay();
+        release[node] = start;
+        duration[node] = Math.max(0, end - start);
+    }
+
+    private boolean hasTightCriticalPredecessor(int node) {
+        for (int edge = inHead[node]; edge != NONE; edge = nextIn[edge]) {
+            int predecessor = edgeFrom[edge];
+            if (latestStart[predecessor] == earliestStart[predecessor]
+                    && earliestFinish[predecessor] == earliestStart[node]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean reaches(int from, int target) {
+        BitSet visited = new BitSet(nodeCount);
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = from;
+        visited.set(from);
+        while (size > 0) {
+            int node = stack[--size];
+            if (node == target) {
+                return true;
+            }
+            for (int edge = outHead[node]; edge != NONE; edge = nextOut[edge]) {
+                int successor = edgeTo[edge];
+                if (!visited.get(successor)) {
+                    visited.set(successor);
+                    if (size == stack.length) {
+                        stack = Arrays.copyOf(stack, size * 2);
+                    }
+                    stack[size++] = successor;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recomputes the whole schedule if tasks or dependencies were added since the last time.
+     */
+    private void refresh() {
+        if (!dirty) {
+            return;
+        }
+        earliestStart = new int[nodeCount];
+        earliestFinish = new int[nodeCount];
+        latestStart = new int[nodeCount];
+        latestFinish = new int[nodeCount];
+        order = new int[nodeCount];
+        position = new int[nodeCount];
+        int[] inDegree = new int[nodeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            inDegree[edgeTo[edge]]++;
+        }
+        int head = 0;
+        int tail = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (inDegree[node] == 0) {
+                order[tail++] = node;
+            }
+        }
+        while (head < tail) {
+            int node = order[head];
+            position[node] = head++;
+            for (int edge = outHead[node]; edge != NONE; edge = nextOut[edge]) {
+                if (--inDegree[edgeTo[edge]] == 0) {
+                    order[tail++] = edgeTo[edge];
+                }
+            }
+        }
+        origin = Integer.MAX_VALUE;
+        for (int node = 0; node < nodeCount; node++) {
+            if (release[node] != UNCONSTRAINED) {
+                origin = Math.min(origin, release[node]);
+            }
+        }
+        originConstrained = origin != Integer.MAX_VALUE;
+        if (!originConstrained) {
+            origin = (int) LocalDate.now().toEpochDay();
+        }
+        finish = Integer.MIN_VALUE;
+        for (int node : order) {
+            computeEarliest(node);
+            finish = Math.max(finish, earliestFinish[node]);
+        }
+        computeAllLatest();
+        dirty = false;
+    }
+
+    private boolean computeEarliest(int node) {
+        int start = release[node] == UNCONSTRAINED ? origin : release[node];
+        for (int edge = inHead[node]; edge != NONE; edge = nextIn[edge]) {
+            start = Math.max(start, earliestFinish[edgeFrom[edge]]);
+        }
+        int end = start + duration[node];
+        boolean changed = start != earliestStart[node] || end != earliestFinish[node];
+        earliestStart[node] = start;
+        earliestFinish[node] = end;
+        return changed;
+    }
+
+    private boolean computeLatest(int node) {
+        int end = finish;
+        for (int edge = outHead[node]; edge != NONE; edge = nextOut[edge]) {
+            end = Math.min(end, latestStart[edgeTo[edge]]);
+        }
+        int start = end - duration[node];
+        boolean changed = start != latestStart[node] || end != latestFinish[node];
+        latestStart[node] = start;
+        latestFinish[node] = end;
+        return changed;
+    }
+
+    private void computeAllLatest() {
+        for (int i = nodeCount - 1; i >= 0; i--) {
+            computeLatest(order[i]);
+        }
+    }
+
+    /**
+     * Propagates a change of the dates of a node: forward to the successors whose
+     * earliest dates move, then backward to the predecessors whose latest dates move.
+     * The latest dates are all recomputed only when the project finish moves.
+     */
+    private void update(int changed) {
+        int previousFinish = finish;
+        boolean finishMayDecrease = false;
+        NodeQueue queue = new NodeQueue(position, false);
+        queue.push(changed);
+        while (!queue.isEmpty()) {
+            int node = queue.pop();
+            int previousEnd = earliestFinish[node];
+            if (computeEarliest(node) || node == changed) {
+                finishMayDecrease |= previousEnd == previousFinish && earliestFinish[node] < previousEnd;
+                finish = Math.max(finish, earliestFinish[node]);
+                for (int edge = outHead[node]; edge != NONE; edge = nextOut[edge]) {
+                    queue.push(edgeTo[edge]);
+                }
+            }
+        }
+        if (finishMayDecrease) {
+            finish = Integer.MIN_VALUE;
+            for (int node = 0; node < nodeCount; node++) {
+                finish = Math.max(finish, earliestFinish[node]);
+            }
+        }
+        if (finish != previousFinish) {
+            computeAllLatest();
+            return;
+        }
+        queue = new NodeQueue(position, true);
+        queue.push(changed);
+        while (!queue.isEmpty()) {
+            int node = queue.pop();
+            if (computeLatest(node) || node == changed) {
+                for (int edge = inHead[node]; edge != NONE; edge = nextIn[edge]) {
+                    queue.push(edgeFrom[edge]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Binary heap of node numbers ordered by topological position, ignoring nodes
+     * already queued, so that each node is recomputed after all the nodes it depends on.
+     */
+    private static final class NodeQueue {
+        private final int[] position;
+        private final boolean reverse;
+        private final BitSet queued = new BitSet();
+        private int[] heap = new int[16];
+        private int size;
+
+        NodeQueue(int[] position, boolean reverse) {
+            this.position = position;
+            this.reverse = reverse;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int node) {
+            if (queued.get(node)) {
+                return;
+            }
+            queued.set(node);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && before(node, heap[(i - 1) / 2])) {
+                heap[i] = heap[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heap[i] = node;
+        }
+
+        int pop() {
+            int result = heap[0];
+            queued.clear(result);
+            int last = heap[--size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return result;
+        }
+
+        private boolean before(int a, int b) {
+            return reverse ? position[a] > position[b] : position[a] < position[b];
+        }
+    }
+}
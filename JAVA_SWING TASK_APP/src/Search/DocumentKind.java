@@ -0,0 +1,96 @@
+package Search;
+
+import Entities.Material;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.WorkOrder;
+
+/**
+ * Represents the kinds of entity indexed by a {@link SearchIndex}, with the free-text
+ * properties indexed for each of them.
+ */
+public enum DocumentKind {
+    PROJECT("description"),
+    OBJECTIVE("description"),
+    TASK("description"),
+    WORK_ORDER("title", "description"),
+    MATERIAL("name");
+
+    private final String[] properties;
+
+    DocumentKind(String... properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Finds the kind of an entity.
+     *
+     * @param entity The entity.
+     * @return The kind of the entity, or null if entities of its class are not indexed.
+     */
+    public static DocumentKind of(Object entity) {
+        if (entity instanceof Task) {
+            return TASK;
+        } else if (entity instanceof Objective) {
+            return OBJECTIVE;
+        } else if (entity instanceof Project) {
+            return PROJECT;
+        } else if (entity instanceof WorkOrder) {
+            return WORK_ORDER;
+        } else if (entity instanceof Material) {
+            return MATERIAL;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a property of this kind of entity is indexed.
+     *
+     * @param property The name of the property.
+     * @return true if changing the property changes the indexed text.
+     */
+    public boolean indexes(String property) {
+        for (String indexed : properties) {
+            if (indexed.equals(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String idOf(Object entity) {
+        switch (this) {
+            case PROJECT:
+                return ((Project) entity).getId();
+            case OBJECTIVE:
+                return ((Objective) entity).getId();
+            case TASK:
+                return ((Task) entity).getId();
+            case WORK_ORDER:
+                return ((WorkOrder) entity).getId();
+            default:
+                return ((Material) entity).getMaterialId();
+        }
+    }
+
+    /**
+     * Gets the indexed texts of an entity. The title of a work order comes first and
+     * is indexed twice, so that a match in the title ranks above one in the description.
+     */
+    String[] textsOf(Object entity) {
+        switch (this) {
+            case PROJECT:
+                return new String[]{((Project) entity).getDescription()};
+            case OBJECTIVE:
+                return new String[]{((Objective) entity).getDescription()};
+            case TASK:
+                return new String[]{((Task) entity).getDescription()};
+            case WORK_ORDER:
+                WorkOrder workOrder = (WorkOrder) entity;
+                return new String[]{workOrder.getTitle(), workOrder.getTitle(), workOrder.getDescription()};
+            default:
+                return new String[]{((Material) entity).getName()};
+        }
+    }
+}
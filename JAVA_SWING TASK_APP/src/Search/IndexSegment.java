@@ -0,0 +1,264 @@
+package Search;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of an index segment written by {@link IndexSegmentWriter}, mapped in
+ * memory.
+ * <p>
+ * Opening a segment only reads its header and the byte-sized document lengths: terms are
+ * found by a binary search over the term table and postings are decoded from the mapping
+ * when a term is searched, so a segment of millions of documents is searchable as soon
+ * as it is opened. Safe for concurrent readers, since only absolute reads are used.
+ */
+class IndexSegment {
+
+    private static final DocumentKind[] KINDS = DocumentKind.values();
+
+    private final MappedByteBuffer buffer;
+    private final int documentCount;
+    private final int termCount;
+    private final long totalLength;
+    private final int documents;
+    private final int terms;
+    private final int ids;
+    private final byte[] norms;
+    private final int postings;
+    private final int heap;
+
+    IndexSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index segment larger than 2 GB: " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < IndexSegmentWriter.HEADER_SIZE || buffer.getInt(0) != IndexSegmentWriter.MAGIC) {
+            throw new IOException("Not an index segment file: " + file);
+        }
+        if (buffer.getShort(4) != IndexSegmentWriter.VERSION) {
+            throw new IOException("Unsupported index segment version " + buffer.getShort(4) + " in " + file);
+        }
+        this.documentCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.totalLength = buffer.getLong(16);
+        this.documents = buffer.getInt(24);
+        this.terms = buffer.getInt(28);
+        this.ids = buffer.getInt(32);
+        this.norms = new byte[documentCount];
+        buffer.get(buffer.getInt(36), norms);
+        this.postings = buffer.getInt(40);
+        this.heap = buffer.getInt(44);
+    }
+
+    int documentCount() {
+        return documentCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long totalLength() {
+        return totalLength;
+    }
+
+    DocumentKind kind(int document) {
+        return KINDS[buffer.get(documents + document * IndexSegmentWriter.DOCUMENT_SIZE)];
+    }
+
+    int length(int document) {
+        return buffer.getInt(documents + document * IndexSegmentWriter.DOCUMENT_SIZE + 1);
+    }
+
+    /**
+     * Gets the length of a document, capped to 255 terms.
+     *
+     * @param document The number of the document.
+     * @return The capped length of the document.
+     */
+    int norm(int document) {
+        return norms[document] & 0xFF;
+    }
+
+    String id(int document) {
+        int record = documents + document * IndexSegmentWriter.DOCUMENT_SIZE;
+        byte[] bytes = new byte[buffer.getInt(record + 9)];
+        buffer.get(heap + buffer.getInt(record + 5), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int termLength(int term) {
+        return buffer.getShort(terms + term * IndexSegmentWriter.TERM_SIZE + 4);
+    }
+
+    int documentFrequency(int term) {
+        return buffer.getInt(terms + term * IndexSegmentWriter.TERM_SIZE + 8);
+    }
+
+    /**
+     * Copies the UTF-8 bytes of a term.
+     *
+     * @param term The number of the term.
+     * @param into The array receiving the bytes, at least {@link #termLength(int)} long.
+     */
+    void readTerm(int term, byte[] into) {
+        buffer.get(heap + buffer.getInt(terms + term * IndexSegmentWriter.TERM_SIZE), into, 0, termLength(term));
+    }
+
+    byte[] term(int term) {
+        byte[] bytes = new byte[termLength(term)];
+        readTerm(term, bytes);
+        return bytes;
+    }
+
+    /**
+     * Finds a term.
+     *
+     * @param key The UTF-8 bytes of the term.
+     * @return The number of the term, or -1 if the segment does not contain it.
+     */
+    int find(byte[] key) {
+        int term = lowerBound(key);
+        return term < termCount && compare(term, key, Integer.MAX_VALUE) == 0 ? term : -1;
+    }
+
+    /**
+     * Finds the first term not lower than a key; the terms starting with a prefix
+     * follow its lower bound.
+     *
+     * @param key The UTF-8 bytes of the key.
+     * @return The number of the term, or the term count if all terms are lower.
+     */
+    int lowerBound(byte[] key) {
+        int low = 0;
+        int high = termCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, key, Integer.MAX_VALUE) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    boolean startsWith(int term, byte[] prefix) {
+        return termLength(term) >= prefix.length && compare(term, prefix, prefix.length) == 0;
+    }
+
+    /**
+     * Counts the bytes of the postings of a term.
+     *
+     * @param term The number of the term.
+     * @return The size of the encoded postings.
+     */
+    int postingsSize(int term) {
+        int end = term + 1 < termCount ? buffer.getInt(terms + (term + 1) * IndexSegmentWriter.TERM_SIZE + 12)
+                : heap - postings;
+        return end - buffer.getInt(terms + term * IndexSegmentWriter.TERM_SIZE + 12);
+    }
+
+    /**
+     * Decodes the postings of a term. The encoded postings are copied in one read, then
+     * decoded from the copy.
+     *
+     * @param term        The number of the term.
+     * @param documents   The array receiving the documents, at least {@link #documentFrequency(int)} long.
+     * @param frequencies The array receiving the frequencies, as long.
+     * @param scratch     The array receiving the encoded postings, at least {@link #postingsSize(int)} long.
+     * @return The number of postings.
+     */
+    int postings(int term, int[] documents, int[] frequencies, byte[] scratch) {
+        int record = terms + term * IndexSegmentWriter.TERM_SIZE;
+        int count = buffer.getInt(record + 8);
+        buffer.get(postings + buffer.getInt(record + 12), scratch, 0, postingsSize(term));
+        int position = 0;
+        int document = 0;
+        for (int i = 0; i < count; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = scratch[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            document += value;
+            documents[i] = document;
+            b = scratch[position++];
+            if (b >= 0) {
+                frequencies[i] = b;
+                continue;
+            }
+            value = b & 0x7F;
+            shift = 7;
+            do {
+                b = scratch[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            frequencies[i] = value;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the document of an entity with a binary search over the ID table.
+     *
+     * @param kind The kind of the entity.
+     * @param id   The ID of the entity.
+     * @return The number of the document, or -1 if the segment does not contain it.
+     */
+    int documentOf(DocumentKind kind, String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = documentCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int document = buffer.getInt(ids + middle * 4);
+            int record = documents + document * IndexSegmentWriter.DOCUMENT_SIZE;
+            int comparison = Integer.compare(buffer.get(record), kind.ordinal());
+            if (comparison == 0) {
+                comparison = compareBytes(heap + buffer.getInt(record + 5), buffer.getInt(record + 9), key,
+                        Integer.MAX_VALUE);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return document;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int term, byte[] key, int limit) {
+        int record = terms + term * IndexSegmentWriter.TERM_SIZE;
+        return compareBytes(heap + buffer.getInt(record), buffer.getShort(record + 4), key, limit);
+    }
+
+    /**
+     * Compares bytes of the heap with a key as unsigned bytes, over at most limit bytes.
+     */
+    private int compareBytes(int offset, int length, byte[] key, int limit) {
+        int common = Math.min(Math.min(length, key.length), limit);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        if (common == limit) {
+            return 0;
+        }
+        return Integer.compare(length, key.length);
+    }
+}
@@ -0,0 +1,162 @@
+package Search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes an index segment file, read back by {@link IndexSegment}.
+ * <p>
+ * The file holds a header, a table of documents, a table of terms sorted by their
+ * UTF-8 bytes, a table of documents sorted by kind and ID, the length of each document
+ * capped to a byte, the postings and a heap holding the IDs and the terms. The postings
+ * of a term are varints: the gap from the previous document, then the frequency.
+ */
+class IndexSegmentWriter {
+
+    static final int MAGIC = 0x504D5358;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int DOCUMENT_SIZE = 13;
+    static final int TERM_SIZE = 16;
+
+    private final ByteArrayOutputStream documentBytes = new ByteArrayOutputStream();
+    private final DataOutputStream documents = new DataOutputStream(documentBytes);
+    private final ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+    private final DataOutputStream terms = new DataOutputStream(termBytes);
+    private final ByteArrayOutputStream postings = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream heap = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream norms = new ByteArrayOutputStream();
+    private byte[] kinds = new byte[16];
+    private byte[][] ids = new byte[16][];
+    private int documentCount;
+    private int termCount;
+    private long totalLength;
+    private byte[] previousTerm;
+
+    /**
+     * Appends a document.
+     *
+     * @param kind   The kind of the entity.
+     * @param id     The ID of the entity.
+     * @param length The number of terms of the document.
+     * @return The number of the document in the segment.
+     * @throws IOException if the document cannot be buffered.
+     */
+    int addDocument(DocumentKind kind, String id, int length) throws IOException {
+        if (documentCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, documentCount * 2);
+            ids = Arrays.copyOf(ids, documentCount * 2);
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        kinds[documentCount] = (byte) kind.ordinal();
+        ids[documentCount] = bytes;
+        documents.writeByte(kind.ordinal());
+        documents.writeInt(length);
+        documents.writeInt(heap.size());
+        documents.writeInt(bytes.length);
+        heap.writeBytes(bytes);
+        norms.write(Math.min(length, 255));
+        totalLength += length;
+        return documentCount++;
+    }
+
+    /**
+     * Appends a term; terms must be added in increasing order of their UTF-8 bytes.
+     *
+     * @param term        The UTF-8 bytes of the term.
+     * @param docs        The documents containing the term, in increasing order.
+     * @param frequencies The number of occurrences of the term in each document.
+     * @param count       The number of documents containing the term.
+     * @throws IOException if the term cannot be buffered.
+     */
+    void addTerm(byte[] term, int[] docs, int[] frequencies, int count) throws IOException {
+        if (previousTerm != null && Arrays.compareUnsigned(previousTerm, term) >= 0) {
+            throw new IllegalArgumentException("Terms must be added in increasing order");
+        }
+        previousTerm = term;
+        terms.writeInt(heap.size());
+        terms.writeShort(term.length);
+        terms.writeShort(0);
+        terms.writeInt(count);
+        terms.writeInt(postings.size());
+        heap.writeBytes(term);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(docs[i] - previous);
+            writeVarint(frequencies[i]);
+            previous = docs[i];
+        }
+        termCount++;
+    }
+
+    /**
+     * Writes the segment to the given file, replacing it atomically.
+     *
+     * @param file The segment file.
+     * @throws IOException if the file cannot be written, or is larger than 2 GB.
+     */
+    void writeTo(Path file) throws IOException {
+        Integer[] order = new Integer[documentCount];
+        for (int i = 0; i < documentCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> kinds[a] != kinds[b] ? Byte.compare(kinds[a], kinds[b])
+                : Arrays.compareUnsigned(ids[a], ids[b]));
+        ByteBuffer idTable = ByteBuffer.allocate(documentCount * 4);
+        for (Integer document : order) {
+            idTable.putInt(document);
+        }
+        idTable.flip();
+
+        long documentsOffset = HEADER_SIZE;
+        long termsOffset = documentsOffset + documentBytes.size();
+        long idsOffset = termsOffset + termBytes.size();
+        long normsOffset = idsOffset + idTable.remaining();
+        long postingsOffset = normsOffset + norms.size();
+        long heapOffset = postingsOffset + postings.size();
+        if (heapOffset + heap.size() > Integer.MAX_VALUE) {
+            throw new IOException("Index segment larger than 2 GB: " + file);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(documentCount).putInt(termCount)
+                .putLong(totalLength).putInt((int) documentsOffset).putInt((int) termsOffset).putInt((int) idsOffset)
+                .putInt((int) normsOffset).putInt((int) postingsOffset).putInt((int) heapOffset).rewind();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, ByteBuffer.wrap(documentBytes.toByteArray()));
+            writeFully(channel, ByteBuffer.wrap(termBytes.toByteArray()));
+            writeFully(channel, idTable);
+            writeFully(channel, ByteBuffer.wrap(norms.toByteArray()));
+            writeFully(channel, ByteBuffer.wrap(postings.toByteArray()));
+            writeFully(channel, ByteBuffer.wrap(heap.toByteArray()));
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            postings.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        postings.write(value);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package Search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The documents indexed since the segment of a {@link SearchIndex} was loaded.
+ * <p>
+ * Documents are only appended, so the postings of a term stay sorted by document; an
+ * updated entity is deleted by its index and appended again. Not thread-safe.
+ */
+final class MemoryIndex {
+
+    /**
+     * The documents containing a term, with the number of occurrences in each.
+     */
+    static final class Postings {
+        final byte[] term;
+        int[] documents = new int[2];
+        int[] frequencies = new int[2];
+        int size;
+
+        Postings(String term) {
+            this.term = term.getBytes(StandardCharsets.UTF_8);
+        }
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+
+    final TreeMap<String, Postings> terms = new TreeMap<>();
+    private Object[] entities = new Object[16];
+    private DocumentKind[] kinds = new DocumentKind[16];
+    private String[] ids = new String[16];
+    private int[] lengths = new int[16];
+    private int count;
+
+    /**
+     * Appends a document.
+     *
+     * @param kind   The kind of the entity.
+     * @param id     The ID of the entity.
+     * @param entity The entity.
+     * @param tokens The terms of the entity, with repetitions.
+     * @return The number of the document.
+     */
+    int add(DocumentKind kind, String id, Object entity, List<String> tokens) {
+        if (count == entities.length) {
+            int capacity = count * 2;
+            entities = Arrays.copyOf(entities, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        int document = count++;
+        entities[document] = entity;
+        kinds[document] = kind;
+        ids[document] = id;
+        lengths[document] = tokens.size();
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), Postings::new).add(document, entry.getValue());
+        }
+        return document;
+    }
+
+    int size() {
+        return count;
+    }
+
+    Object entity(int document) {
+        return entities[document];
+    }
+
+    DocumentKind kind(int document) {
+        return kinds[document];
+    }
+
+    String id(int document) {
+        return ids[document];
+    }
+
+    int length(int document) {
+        return lengths[document];
+    }
+}
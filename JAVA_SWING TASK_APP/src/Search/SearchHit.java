@@ -0,0 +1,45 @@
+package Search;
+
+/**
+ * Represents an entity matching a search, with its relevance score.
+ */
+public class SearchHit {
+
+    private final DocumentKind kind;
+    private final String id;
+    private final Object entity;
+    private final float score;
+
+    /**
+     * Constructs a SearchHit object with the specified parameters.
+     *
+     * @param kind   The kind of the entity.
+     * @param id     The ID of the entity.
+     * @param entity The entity, or null if the index was loaded without a resolver.
+     * @param score  The relevance score, higher for better matches.
+     */
+    SearchHit(DocumentKind kind, String id, Object entity, float score) {
+        this.kind = kind;
+        this.id = id;
+        this.entity = entity;
+        this.score = score;
+    }
+
+    // Getters
+
+    public DocumentKind getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    public float getScore() {
+        return score;
+    }
+}
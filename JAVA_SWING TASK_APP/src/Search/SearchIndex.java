@@ -0,0 +1,844 @@
+package Search;
+
+import Entities.EntityEvents;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Embedded full-text index over the descriptions of projects, objectives and tasks, the
+ * titles and descriptions of work orders and the names of materials.
+ * <p>
+ * The index is made of an optional segment, memory-mapped from the file written by
+ * {@link #save(Path)}, and of the documents indexed since it was opened, kept in memory.
+ * The index listens to {@link EntityEvents}: when an indexed text of an indexed entity
+ * changes, its document is deleted and the entity is indexed again.
+ * <p>
+ * The index also follows the lists of the indexed projects, objectives and tasks. Each
+ * entity counts the indexed entities listing it, plus one for each {@link #add(Object)}
+ * or {@link #addAll(Collection)} of it, and each project, objective and task keeps the
+ * children it was last seen with. When a list changes, the current list is read again
+ * under the lock of the index: its new children are indexed with theirs, and the
+ * children no longer listed by any indexed entity are removed with theirs. A child moved
+ * from one list to another, or a material shared by several tasks, thus stays indexed
+ * whatever the order of the events.
+ * <p>
+ * The entities of the documents of the saved file are only seen when they change: the
+ * children an entity held before its first list change are taken from the event, and
+ * those of an entity removed before any change from its current lists. The count of a
+ * material shared by several tasks of the file only includes the tasks seen so far.
+ * <p>
+ * A query matches the entities containing all its terms. The last term, unless the query
+ * ends with a space, also matches the terms it is a prefix of, for search-as-you-type; a
+ * term with no match falls back to the terms within one or two edits of it. Hits are
+ * ranked with BM25, exact matches weighing more than prefix and fuzzy ones.
+ */
+public class SearchIndex implements PropertyChangeListener, AutoCloseable {
+
+    /**
+     * The maximum number of terms a prefix or fuzzy term is expanded to, the most
+     * frequent ones being kept.
+     */
+    public static final int MAX_EXPANSIONS = 64;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float FUZZY_WEIGHT = 0.6f;
+    private static final int COMPACTION_THRESHOLD = 4096;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(Accumulator::new);
+    private final IndexSegment segment;
+    private final BitSet segmentDeleted = new BitSet();
+    private final BiFunction<DocumentKind, String, Object> resolver;
+    private MemoryIndex memory = new MemoryIndex();
+    private BitSet memoryDeleted = new BitSet();
+    private int memoryDeletedCount;
+    private final Map<Object, Integer> memoryDocuments = new IdentityHashMap<>();
+    private final Map<Object, Integer> holds = new IdentityHashMap<>();
+    private final Map<Object, List<Object>> children = new IdentityHashMap<>();
+    private int liveDocuments;
+    private long liveLength;
+
+    /**
+     * A term a query term is expanded to, with the weight of its matches.
+     */
+    private static final class Expansion {
+        final byte[] term;
+        final float weight;
+        int segmentTerm = -1;
+        MemoryIndex.Postings postings;
+        int documentFrequency;
+
+        Expansion(byte[] term, float weight) {
+            this.term = term;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The scores of the documents during a search and the postings being decoded, reused
+     * by the searches of a thread. A document matched the first n query terms when its
+     * match count is n.
+     */
+    private static final class Accumulator {
+        float[] scores = new float[0];
+        int[] matches = new int[0];
+        int[] touched = new int[64];
+        int touchedCount;
+        int[] documents = new int[64];
+        int[] frequencies = new int[64];
+        byte[] encoded = new byte[256];
+
+        void ensurePostings(int count, int size) {
+            if (documents.length < count) {
+                documents = new int[count];
+                frequencies = new int[count];
+            }
+            if (encoded.length < size) {
+                encoded = new byte[size];
+            }
+        }
+
+        void ensureCapacity(int documents) {
+            if (scores.length < documents) {
+                int capacity = Math.max(documents, scores.length * 3 / 2);
+                scores = new float[capacity];
+                matches = new int[capacity];
+            }
+        }
+
+        void add(int document, int term, float score) {
+            if (matches[document] != term) {
+                return;
+            }
+            if (term == 0) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+                touched[touchedCount++] = document;
+            }
+            scores[document] += score;
+            matches[document] = term + 1;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+                matches[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    /**
+     * Constructs an empty SearchIndex, which starts listening to the entity events.
+     */
+    public SearchIndex() {
+        this(null, null);
+    }
+
+    private SearchIndex(IndexSegment segment, BiFunction<DocumentKind, String, Object> resolver) {
+        this.segment = segment;
+        this.resolver = resolver;
+        if (segment != null) {
+            liveDocuments = segment.documentCount();
+            liveLength = segment.totalLength();
+        }
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Opens an index saved by {@link #save(Path)}. The file is mapped in memory, not read.
+     *
+     * @param file     The index file.
+     * @param resolver Finds the entity of a hit from its kind and ID, or null to return
+     *                 hits without entities for the documents of the file.
+     * @return The index, listening to the entity events.
+     * @throws IOException if the file cannot be mapped or is not an index file.
+     */
+    public static SearchIndex open(Path file, BiFunction<DocumentKind, String, Object> resolver) throws IOException {
+        return new SearchIndex(new IndexSegment(file), resolver);
+    }
+
+    /**
+     * Indexes projects with their objectives, their tasks and the work orders and
+     * materials of the tasks.
+     *
+     * @param projects The projects.
+     */
+    public void addAll(Collection<Project> projects) {
+        lock.writeLock().lock();
+        try {
+            for (Project project : projects) {
+                if (!holds.containsKey(project)) {
+                    retain(project);
+                }
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes an entity with its children, or indexes it again if it is already indexed.
+     *
+     * @param entity The project, objective, task, work order or material.
+     * @throws IllegalArgumentException if entities of this class are not indexed.
+     */
+    public void add(Object entity) {
+        if (DocumentKind.of(entity) == null) {
+            throw new IllegalArgumentException("Cannot index a " + entity.getClass().getSimpleName());
+        }
+        lock.writeLock().lock();
+        try {
+            if (holds.containsKey(entity)) {
+                index(entity);
+            } else {
+                retain(entity);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an entity from the index, with the children no other indexed entity lists.
+     *
+     * @param entity The entity.
+     * @return true if the entity was indexed.
+     */
+    public boolean remove(Object entity) {
+        DocumentKind kind = DocumentKind.of(entity);
+        if (kind == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            boolean removed = delete(kind, entity);
+            holds.remove(entity);
+            releaseChildren(entity);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the indexed entities.
+     *
+     * @return The number of indexed entities.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query The text typed by the user.
+     * @param limit The maximum number of hits.
+     * @return The best hits, best first; empty if the query has no terms.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        char last = query.charAt(query.length() - 1);
+        boolean prefix = Character.isLetterOrDigit(last) || Character.getType(last) == Character.NON_SPACING_MARK;
+        lock.readLock().lock();
+        try {
+            List<List<Expansion>> terms = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                List<Expansion> expansions = expand(tokens.get(i), prefix && i == tokens.size() - 1);
+                if (expansions.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                terms.add(expansions);
+            }
+            // Rarest terms first, so that the candidates are the fewest from the start
+            terms.sort(Comparator.comparingLong(SearchIndex::documentFrequency));
+            return collect(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the entities indexed now to a file, replacing it atomically. Deleted
+     * documents are dropped from the file.
+     *
+     * @param file The index file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        lock.readLock().lock();
+        try {
+            IndexSegmentWriter writer = new IndexSegmentWriter();
+            int segmentCount = segment == null ? 0 : segment.documentCount();
+            int[] segmentNumbers = new int[segmentCount];
+            for (int document = 0; document < segmentCount; document++) {
+                segmentNumbers[document] = segmentDeleted.get(document) ? -1
+                        : writer.addDocument(segment.kind(document), segment.id(document), segment.length(document));
+            }
+            int[] memoryNumbers = new int[memory.size()];
+            for (int document = 0; document < memory.size(); document++) {
+                memoryNumbers[document] = memoryDeleted.get(document) ? -1
+                        : writer.addDocument(memory.kind(document), memory.id(document), memory.length(document));
+            }
+
+            List<MemoryIndex.Postings> memoryTerms = new ArrayList<>(memory.terms.values());
+            memoryTerms.sort((a, b) -> Arrays.compareUnsigned(a.term, b.term));
+            int segmentTerms = segment == null ? 0 : segment.termCount();
+            int[] documents = new int[16];
+            int[] frequencies = new int[16];
+            byte[] scratch = new byte[64];
+            int i = 0;
+            int j = 0;
+            while (i < segmentTerms || j < memoryTerms.size()) {
+                int comparison;
+                if (i == segmentTerms) {
+                    comparison = 1;
+                } else if (j == memoryTerms.size()) {
+                    comparison = -1;
+                } else {
+                    comparison = Arrays.compareUnsigned(segment.term(i), memoryTerms.get(j).term);
+                }
+                int capacity = (comparison <= 0 ? segment.documentFrequency(i) : 0)
+                        + (comparison >= 0 ? memoryTerms.get(j).size : 0);
+                if (documents.length < capacity) {
+                    documents = new int[capacity];
+                    frequencies = new int[capacity];
+                }
+                if (comparison <= 0 && scratch.length < segment.postingsSize(i)) {
+                    scratch = new byte[segment.postingsSize(i)];
+                }
+                byte[] term = comparison <= 0 ? segment.term(i) : memoryTerms.get(j).term;
+                int count = 0;
+                if (comparison <= 0) {
+                    int postings = segment.postings(i++, documents, frequencies, scratch);
+                    for (int k = 0; k < postings; k++) {
+                        int number = segmentNumbers[documents[k]];
+                        if (number >= 0) {
+                            documents[count] = number;
+                            frequencies[count++] = frequencies[k];
+                        }
+                    }
+                }
+                if (comparison >= 0) {
+                    MemoryIndex.Postings postings = memoryTerms.get(j++);
+                    for (int k = 0; k < postings.size; k++) {
+                        int number = memoryNumbers[postings.documents[k]];
+                        if (number >= 0) {
+                            documents[count] = number;
+                            frequencies[count++] = postings.frequencies[k];
+                        }
+                    }
+                }
+                if (count > 0) {
+                    writer.addTerm(term, documents, frequencies, count);
+                }
+            }
+            writer.writeTo(file);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes an entity again when one of its indexed texts changes, and follows the
+     * children added to or removed from an indexed project, objective or task.
+     *
+     * @param event The entity event.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        Object entity = event.getSource();
+        DocumentKind kind = DocumentKind.of(entity);
+        String property = event.getPropertyName();
+        if (kind == null) {
+            return;
+        }
+        if (isChildList(entity, property)) {
+            lock.writeLock().lock();
+            try {
+                followChildren(kind, entity, property, (List<?>) event.getOldValue());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        if (!kind.indexes(property)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (delete(kind, entity)) {
+                index(entity);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops listening to the entity events.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    /**
+     * Reads the list that changed again and indexes its new children; the children the
+     * entity no longer lists are released after, so that a child it still lists, or that
+     * another list took, is never removed. The events of entities that are not indexed
+     * are ignored.
+     */
+    private void followChildren(DocumentKind kind, Object entity, String property, List<?> oldValue) {
+        if (!children.containsKey(entity)) {
+            if (!holds.containsKey(entity) && !isSegmentDocument(kind, entity)) {
+                return;
+            }
+            // An entity of the saved file, seen for the first time: it held its old children
+            List<Object> before = new ArrayList<>(oldValue);
+            if (entity instanceof Task) {
+                Task task = (Task) entity;
+                before.addAll(property.equals("materials") ? task.getWorkOrders() : task.getMaterials());
+            }
+            follow(entity, before);
+        }
+        List<Object> after = childrenOf(entity);
+        List<Object> before = children.put(entity, after);
+        for (Object child : after) {
+            retain(child);
+        }
+        for (Object child : before) {
+            release(child);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Counts one more entity holding an entity, and indexes it with its children when it
+     * was not held yet.
+     */
+    private void retain(Object entity) {
+        if (holds.merge(entity, 1, Integer::sum) > 1) {
+            return;
+        }
+        index(entity);
+        List<Object> list = childrenOf(entity);
+        if (list == null) {
+            return;
+        }
+        List<Object> before = children.put(entity, list);
+        for (Object child : list) {
+            retain(child);
+        }
+        if (before != null) {
+            for (Object child : before) {
+                release(child);
+            }
+        }
+    }
+
+    /**
+     * Counts one less entity holding an entity, and removes it with its children when no
+     * entity holds it any more. Entities that are not held are ignored.
+     */
+    private void release(Object entity) {
+        Integer count = holds.get(entity);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            holds.put(entity, count - 1);
+            return;
+        }
+        holds.remove(entity);
+        delete(DocumentKind.of(entity), entity);
+        releaseChildren(entity);
+    }
+
+    private void releaseChildren(Object entity) {
+        if (!children.containsKey(entity)) {
+            List<Object> list = childrenOf(entity);
+            if (list == null) {
+                return;
+            }
+            // An entity of the saved file whose lists were never followed
+            follow(entity, list);
+        }
+        for (Object child : children.remove(entity)) {
+            release(child);
+        }
+    }
+
+    /**
+     * Records the children an entity holds without indexing them, for an entity whose
+     * children are documents of the saved file.
+     */
+    private void follow(Object entity, List<Object> list) {
+        children.put(entity, list);
+        for (Object child : list) {
+            holds.merge(child, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Lists the children of a project, objective or task.
+     *
+     * @return The objectives of a project, the tasks of an objective, the work orders
+     *         then the materials of a task, or null for other entities.
+     */
+    private static List<Object> childrenOf(Object entity) {
+        if (entity instanceof Project) {
+            return new ArrayList<>(((Project) entity).getObjectiveList());
+        } else if (entity instanceof Objective) {
+            return new ArrayList<>(((Objective) entity).getTaskList());
+        } else if (entity instanceof Task) {
+            Task task = (Task) entity;
+            List<Object> list = new ArrayList<>(task.getWorkOrders());
+            list.addAll(task.getMaterials());
+            return list;
+        }
+        return null;
+    }
+
+    private static boolean isChildList(Object entity, String property) {
+        if (entity instanceof Project) {
+            return property.equals("objectiveList");
+        } else if (entity instanceof Objective) {
+            return property.equals("taskList");
+        }
+        return entity instanceof Task && (property.equals("workOrders") || property.equals("materials"));
+    }
+
+    private boolean isSegmentDocument(DocumentKind kind, Object entity) {
+        if (segment == null) {
+            return false;
+        }
+        int document = segment.documentOf(kind, kind.idOf(entity));
+        return document >= 0 && !segmentDeleted.get(document);
+    }
+
+    private void index(Object entity) {
+        DocumentKind kind = DocumentKind.of(entity);
+        delete(kind, entity);
+        List<String> tokens = new ArrayList<>();
+        for (String text : kind.textsOf(entity)) {
+            tokens.addAll(Tokenizer.tokenize(text));
+        }
+        memoryDocuments.put(entity, memory.add(kind, kind.idOf(entity), entity, tokens));
+        liveDocuments++;
+        liveLength += tokens.size();
+    }
+
+    private boolean delete(DocumentKind kind, Object entity) {
+        Integer document = memoryDocuments.remove(entity);
+        if (document != null) {
+            memoryDeleted.set(document);
+            memoryDeletedCount++;
+            liveDocuments--;
+            liveLength -= memory.length(document);
+            return true;
+        }
+        if (segment != null) {
+            int segmentDocument = segment.documentOf(kind, kind.idOf(entity));
+            if (segmentDocument >= 0 && !segmentDeleted.get(segmentDocument)) {
+                segmentDeleted.set(segmentDocument);
+                liveDocuments--;
+                liveLength -= segment.length(segmentDocument);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds the memory index once most of its documents are deleted, so that entities
+     * updated again and again do not keep their old postings forever.
+     */
+    private void compactIfNeeded() {
+        if (memoryDeletedCount < COMPACTION_THRESHOLD || memoryDeletedCount < memoryDocuments.size()) {
+            return;
+        }
+        Object[] entities = new Object[memoryDocuments.size()];
+        int count = 0;
+        for (int document = 0; document < memory.size(); document++) {
+            if (!memoryDeleted.get(document)) {
+                entities[count++] = memory.entity(document);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Integer document = memoryDocuments.remove(entities[i]);
+            liveDocuments--;
+            liveLength -= memory.length(document);
+        }
+        memory = new MemoryIndex();
+        memoryDeleted = new BitSet();
+        memoryDeletedCount = 0;
+        for (int i = 0; i < count; i++) {
+            index(entities[i]);
+        }
+    }
+
+    private List<Expansion> expand(String token, boolean prefix) {
+        byte[] key = token.getBytes(StandardCharsets.UTF_8);
+        List<Expansion> expansions = new ArrayList<>();
+        Expansion exact = new Expansion(key, 1f);
+        if (segment != null) {
+            exact.segmentTerm = segment.find(key);
+        }
+        exact.postings = memory.terms.get(token);
+        if (count(exact) > 0) {
+            expansions.add(exact);
+        }
+        if (prefix) {
+            Map<ByteBuffer, Expansion> prefixed = new HashMap<>();
+            if (segment != null) {
+                for (int term = segment.lowerBound(key); term < segment.termCount() && segment.startsWith(term, key); term++) {
+                    if (segment.termLength(term) > key.length) {
+                        Expansion expansion = new Expansion(segment.term(term), PREFIX_WEIGHT);
+                        expansion.segmentTerm = term;
+                        prefixed.put(ByteBuffer.wrap(expansion.term), expansion);
+                    }
+                }
+            }
+            for (MemoryIndex.Postings postings : memory.terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                prefixed.computeIfAbsent(ByteBuffer.wrap(postings.term),
+                        term -> new Expansion(postings.term, PREFIX_WEIGHT)).postings = postings;
+            }
+            expansions.addAll(best(prefixed.values()));
+        }
+        if (expansions.isEmpty()) {
+            expansions.addAll(best(fuzzy(key)));
+        }
+        return expansions;
+    }
+
+    /**
+     * Finds the terms within one edit of a term of 4 to 7 bytes, or two edits of a
+     * longer term; the lengths are compared before the terms, so most terms are skipped.
+     */
+    private Collection<Expansion> fuzzy(byte[] key) {
+        int maxEdits = key.length >= 8 ? 2 : key.length >= 4 ? 1 : 0;
+        Map<ByteBuffer, Expansion> matches = new HashMap<>();
+        if (maxEdits == 0) {
+            return matches.values();
+        }
+        int[][] rows = {new int[Tokenizer.MAX_TERM_LENGTH * 4 + 1], new int[Tokenizer.MAX_TERM_LENGTH * 4 + 1]};
+        if (segment != null) {
+            byte[] candidate = new byte[Tokenizer.MAX_TERM_LENGTH * 4];
+            for (int term = 0; term < segment.termCount(); term++) {
+                int length = segment.termLength(term);
+                if (Math.abs(length - key.length) > maxEdits || length > candidate.length) {
+                    continue;
+                }
+                segment.readTerm(term, candidate);
+                int edits = distance(key, candidate, length, maxEdits, rows);
+                if (edits <= maxEdits) {
+                    Expansion expansion = new Expansion(Arrays.copyOf(candidate, length), FUZZY_WEIGHT / Math.max(edits, 1));
+                    expansion.segmentTerm = term;
+                    matches.put(ByteBuffer.wrap(expansion.term), expansion);
+                }
+            }
+        }
+        for (MemoryIndex.Postings postings : memory.terms.values()) {
+            byte[] candidate = postings.term;
+            if (Math.abs(candidate.length - key.length) > maxEdits || candidate.length >= rows[0].length) {
+                continue;
+            }
+            int edits = distance(key, candidate, candidate.length, maxEdits, rows);
+            if (edits <= maxEdits) {
+                matches.computeIfAbsent(ByteBuffer.wrap(candidate),
+                        term -> new Expansion(candidate, FUZZY_WEIGHT / Math.max(edits, 1))).postings = postings;
+            }
+        }
+        return matches.values();
+    }
+
+    /**
+     * Computes the Levenshtein distance between two terms, giving up as soon as it
+     * exceeds the maximum.
+     *
+     * @return The distance, or maxEdits + 1 if it is larger than maxEdits.
+     */
+    private static int distance(byte[] a, byte[] b, int bLength, int maxEdits, int[][] rows) {
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int j = 0; j <= bLength; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length; i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= bLength; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[bLength];
+    }
+
+    /**
+     * Keeps the {@link #MAX_EXPANSIONS} expansions with the highest weight, then the
+     * highest document frequency.
+     */
+    private List<Expansion> best(Collection<Expansion> candidates) {
+        List<Expansion> expansions = new ArrayList<>(candidates);
+        for (Expansion expansion : expansions) {
+            count(expansion);
+        }
+        expansions.sort((a, b) -> a.weight != b.weight ? Float.compare(b.weight, a.weight)
+                : Integer.compare(b.documentFrequency, a.documentFrequency));
+        return expansions.size() > MAX_EXPANSIONS ? expansions.subList(0, MAX_EXPANSIONS) : expansions;
+    }
+
+    private int count(Expansion expansion) {
+        int frequency = expansion.postings == null ? 0 : expansion.postings.size;
+        if (expansion.segmentTerm >= 0) {
+            frequency += segment.documentFrequency(expansion.segmentTerm);
+        }
+        expansion.documentFrequency = frequency;
+        return frequency;
+    }
+
+    private static long documentFrequency(List<Expansion> expansions) {
+        long frequency = 0;
+        for (Expansion expansion : expansions) {
+            frequency += expansion.documentFrequency;
+        }
+        return frequency;
+    }
+
+    /**
+     * Scores the documents matching all the terms and keeps the best ones.
+     */
+    private List<SearchHit> collect(List<List<Expansion>> terms, int limit) {
+        int segmentCount = segment == null ? 0 : segment.documentCount();
+        Accumulator accumulator = accumulators.get();
+        accumulator.ensureCapacity(segmentCount + memory.size());
+        float averageLength = Math.max(1f, liveDocuments == 0 ? 1f : (float) liveLength / liveDocuments);
+        // The length part of the BM25 denominator, for each length capped to a byte
+        float[] lengthNorms = new float[256];
+        for (int length = 0; length < lengthNorms.length; length++) {
+            lengthNorms[length] = K1 * (1 - B + B * length / averageLength);
+        }
+        try {
+            boolean segmentDeletions = !segmentDeleted.isEmpty();
+            boolean memoryDeletions = memoryDeletedCount > 0;
+            for (int term = 0; term < terms.size(); term++) {
+                for (Expansion expansion : terms.get(term)) {
+                    float idf = (float) Math.log(1 + (liveDocuments - expansion.documentFrequency + 0.5)
+                            / (expansion.documentFrequency + 0.5));
+                    float weight = expansion.weight * Math.max(idf, 0.01f);
+                    if (expansion.segmentTerm >= 0) {
+                        accumulator.ensurePostings(segment.documentFrequency(expansion.segmentTerm),
+                                segment.postingsSize(expansion.segmentTerm));
+                        int[] documents = accumulator.documents;
+                        int[] frequencies = accumulator.frequencies;
+                        int count = segment.postings(expansion.segmentTerm, documents, frequencies, accumulator.encoded);
+                        for (int i = 0; i < count; i++) {
+                            int document = documents[i];
+                            if (accumulator.matches[document] == term
+                                    && !(segmentDeletions && segmentDeleted.get(document))) {
+                                accumulator.add(document, term, weight * saturate(frequencies[i],
+                                        lengthNorms[segment.norm(document)]));
+                            }
+                        }
+                    }
+                    MemoryIndex.Postings postings = expansion.postings;
+                    if (postings != null) {
+                        for (int i = 0; i < postings.size; i++) {
+                            int document = postings.documents[i];
+                            if (accumulator.matches[segmentCount + document] == term
+                                    && !(memoryDeletions && memoryDeleted.get(document))) {
+                                accumulator.add(segmentCount + document, term, weight * saturate(
+                                        postings.frequencies[i], lengthNorms[Math.min(memory.length(document), 255)]));
+                            }
+                        }
+                    }
+                }
+            }
+
+            float[] scores = accumulator.scores;
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> scores[a] != scores[b]
+                    ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int i = 0; i < accumulator.touchedCount; i++) {
+                int document = accumulator.touched[i];
+                if (accumulator.matches[document] != terms.size()) {
+                    continue;
+                }
+                if (best.size() < limit) {
+                    best.add(document);
+                } else if (scores[document] > scores[best.peek()]) {
+                    best.poll();
+                    best.add(document);
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                int document = best.poll();
+                hits.add(hit(document, segmentCount, scores[document]));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            accumulator.reset();
+        }
+    }
+
+    private static float saturate(int frequency, float lengthNorm) {
+        return frequency * (K1 + 1) / (frequency + lengthNorm);
+    }
+
+    private SearchHit hit(int document, int segmentCount, float score) {
+        if (document >= segmentCount) {
+            int local = document - segmentCount;
+            return new SearchHit(memory.kind(local), memory.id(local), memory.entity(local), score);
+        }
+        DocumentKind kind = segment.kind(document);
+        String id = segment.id(document);
+        return new SearchHit(kind, id, resolver == null ? null : resolver.apply(kind, id), score);
+    }
+}
@@ -0,0 +1,53 @@
+package Search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits free text into the terms of a {@link SearchIndex}.
+ * <p>
+ * A term is a run of letters and digits, lower-cased and without accents, so that
+ * "Réunion" and "reunion" are the same term. Terms longer than {@link #MAX_TERM_LENGTH}
+ * characters are cut.
+ */
+final class Tokenizer {
+
+    static final int MAX_TERM_LENGTH = 32;
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Tokenizes a text.
+     *
+     * @param text The text, which may be null.
+     * @return The terms of the text, in order and with repetitions.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.append(Character.toLowerCase(c));
+                }
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+}
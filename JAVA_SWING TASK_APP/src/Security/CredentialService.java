@@ -0,0 +1,135 @@
+package Security;
+
+import Entities.User;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies the passwords of users away from the Swing event dispatch thread.
+ * <p>
+ * Hash verifications run on a dedicated pool of daemon threads and complete a future;
+ * Swing callers should hand the result back to the EDT with
+ * {@code SwingUtilities.invokeLater}. A successful verification is remembered for a
+ * short time, so repeated privileged actions do not pay the hash cost again. Only a
+ * keyed digest of the password is kept, with a key generated for this service, and the
+ * entry is dropped as soon as the user's password hash changes.
+ */
+public class CredentialService implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final long cacheNanos;
+    private final SecretKey cacheKey;
+    private final CompletableFuture<String> decoyHash;
+    private final ConcurrentHashMap<String, CachedVerification> cache = new ConcurrentHashMap<>();
+
+    /**
+     * A recent successful verification.
+     */
+    private static final class CachedVerification {
+        final String encodedHash;
+        final byte[] passwordDigest;
+        final long expiresAt;
+
+        CachedVerification(String encodedHash, byte[] passwordDigest, long expiresAt) {
+            this.encodedHash = encodedHash;
+            this.passwordDigest = passwordDigest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Constructs a CredentialService with the specified parameters.
+     *
+     * @param threads       The number of threads verifying hashes.
+     * @param cacheDuration How long a successful verification is remembered; zero disables the cache.
+     */
+    public CredentialService(int threads, Duration cacheDuration) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "credential-verifier-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cacheNanos = cacheDuration.toNanos();
+        try {
+            this.cacheKey = KeyGenerator.getInstance("HmacSHA256").generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+        this.decoyHash = PasswordHasher.getDefault().hashAsync(Long.toHexString(System.nanoTime()));
+    }
+
+    /**
+     * Checks the password of a user.
+     *
+     * @param user     The user logging in or confirming a privileged action, or null for
+     *                 an unknown username, which is checked against a hash of its own so
+     *                 that it takes as long to reject as a wrong password.
+     * @param password The password entered.
+     * @return A future completed with true if the password is correct.
+     */
+    public CompletableFuture<Boolean> authenticate(User user, String password) {
+        if (user == null) {
+            return decoyHash.thenApplyAsync(hash -> {
+                PasswordHasher.verify(password, hash);
+                return false;
+            }, executor);
+        }
+        CompletableFuture<String> hash = user.getPasswordHash();
+        String current = hash.getNow(null);
+        byte[] digest = digest(password);
+        CachedVerification cached = cache.get(user.getId());
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0 && cached.encodedHash.equals(current)
+                && MessageDigest.isEqual(cached.passwordDigest, digest)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return hash.thenApplyAsync(encodedHash -> {
+            boolean valid = PasswordHasher.verify(password, encodedHash);
+            if (valid && cacheNanos > 0) {
+                cache.put(user.getId(), new CachedVerification(encodedHash, digest, System.nanoTime() + cacheNanos));
+            } else if (!valid) {
+                cache.remove(user.getId());
+            }
+            return valid;
+        }, executor);
+    }
+
+    /**
+     * Forgets the recent verification of a user, for example on logout.
+     *
+     * @param user The user.
+     */
+    public void invalidate(User user) {
+        cache.remove(user.getId());
+    }
+
+    /**
+     * Stops the verification threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        cache.clear();
+    }
+
+    private byte[] digest(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cacheKey);
+            return mac.doFinal(password == null ? new byte[0] : password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package Security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes passwords with salted PBKDF2 (HMAC-SHA256) and a configurable work factor.
+ * <p>
+ * Hashes are encoded as {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>} with Base64
+ * salt and hash, so that each one keeps the work factor it was computed with and stays
+ * verifiable after the default work factor is raised. A value that does not decode, or
+ * whose work factor is outside {@code [1000, 10^7]}, is not an encoded hash: verifying a
+ * password against it fails rather than throws or runs for minutes.
+ * <p>
+ * {@link #hashAsync(String)} computes hashes on a pool of daemon threads, one per two
+ * processors, so that setting a password does not keep the caller's thread busy for the
+ * duration of the hash.
+ */
+public final class PasswordHasher {
+
+    /**
+     * The prefix of the encoded hashes.
+     */
+    public static final String PREFIX = "$pbkdf2-sha256$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int MIN_ITERATIONS = 1000;
+    private static final int MAX_ITERATIONS = 10_000_000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile PasswordHasher defaultHasher = new PasswordHasher(210_000);
+
+    private final int iterations;
+
+    /**
+     * Constructs a PasswordHasher with the specified work factor.
+     *
+     * @param iterations The number of PBKDF2 iterations, from 1000 to 10^7.
+     * @throws IllegalArgumentException if the number of iterations is out of range.
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < MIN_ITERATIONS || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Iterations must be between " + MIN_ITERATIONS + " and "
+                    + MAX_ITERATIONS);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Gets the hasher used for the passwords of the users.
+     *
+     * @return The default hasher.
+     */
+    public static PasswordHasher getDefault() {
+        return defaultHasher;
+    }
+
+    /**
+     * Replaces the hasher used for the passwords of the users.
+     *
+     * @param hasher The new default hasher.
+     */
+    public static void setDefault(PasswordHasher hasher) {
+        if (hasher == null) {
+            throw new IllegalArgumentException("Hasher cannot be null");
+        }
+        defaultHasher = hasher;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Tells whether a value is a hash encoded by this class rather than a password.
+     *
+     * @param value The value to check.
+     * @return true if the value is an encoded hash.
+     */
+    public static boolean isEncoded(String value) {
+        return Encoded.decode(value) != null;
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The password to hash.
+     * @return The encoded hash.
+     * @see #hashAsync(String)
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Hashes a password with a new random salt on the hashing threads.
+     *
+     * @param password The password to hash.
+     * @return A future completed with the encoded hash.
+     */
+    public CompletableFuture<String> hashAsync(String password) {
+        return CompletableFuture.supplyAsync(() -> hash(password), HashingThreads.EXECUTOR);
+    }
+
+    /**
+     * Checks a password against an encoded hash, with the work factor of the hash.
+     *
+     * @param password The password to check.
+     * @param encoded  The encoded hash.
+     * @return true if the password matches the hash, false if it does not or if the hash
+     * is malformed.
+     */
+    public static boolean verify(String password, String encoded) {
+        Encoded decoded = Encoded.decode(encoded);
+        if (password == null || decoded == null) {
+            return false;
+        }
+        byte[] actual = derive(password, decoded.salt, decoded.iterations);
+        return MessageDigest.isEqual(decoded.hash, actual);
+    }
+
+    /**
+     * Tells whether a hash was computed with another work factor than this hasher's, and
+     * should be recomputed the next time the password is known.
+     *
+     * @param encoded The encoded hash.
+     * @return true if the hash should be recomputed.
+     */
+    public boolean needsRehash(String encoded) {
+        Encoded decoded = Encoded.decode(encoded);
+        return decoded == null || decoded.iterations != iterations;
+    }
+
+    /**
+     * Measures this machine to find the work factor for which verifying a password takes
+     * about the given time.
+     *
+     * @param target The verification time to aim for.
+     * @return The number of iterations to use.
+     */
+    public static int calibrate(Duration target) {
+        byte[] salt = new byte[SALT_BYTES];
+        for (int i = 0; i < 20; i++) {
+            derive("warm-up", salt, 10_000);
+        }
+        int iterations = 10_000;
+        long elapsed;
+        while ((elapsed = fastest(salt, iterations)) < target.toNanos() / 4) {
+            iterations *= 2;
+        }
+        return (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, iterations * (double) target.toNanos() / elapsed));
+    }
+
+    private static long fastest(byte[] salt, int iterations) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            derive("calibration", salt, iterations);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+
+    /**
+     * The parts of an encoded hash.
+     */
+    private static final class Encoded {
+        final int iterations;
+        final byte[] salt;
+        final byte[] hash;
+
+        private Encoded(int iterations, byte[] salt, byte[] hash) {
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+
+        /**
+         * Decodes a hash.
+         *
+         * @return The parts of the hash, or null if the value is not a well-formed hash.
+         */
+        static Encoded decode(String value) {
+            if (value == null || !value.startsWith(PREFIX)) {
+                return null;
+            }
+            String[] parts = value.split("\\$", -1);
+            if (parts.length != 5) {
+                return null;
+            }
+            try {
+                int iterations = Integer.parseInt(parts[2]);
+                Base64.Decoder decoder = Base64.getDecoder();
+                byte[] salt = decoder.decode(parts[3]);
+                byte[] hash = decoder.decode(parts[4]);
+                if (iterations < MIN_ITERATIONS || iterations > MAX_ITERATIONS || salt.length == 0
+                        || hash.length == 0) {
+                    return null;
+                }
+                return new Encoded(iterations, salt, hash);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Holds the hashing threads, started on the first asynchronous hash.
+     */
+    private static final class HashingThreads {
+        static final ExecutorService EXECUTOR;
+
+        static {
+            AtomicInteger count = new AtomicInteger();
+            EXECUTOR = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package Server;
+
+/**
+ * Represents a change of a project, objective or task pushed by the server to the
+ * subscribed clients.
+ */
+public class Change {
+
+    private final String kind;
+    private final String id;
+    private final String property;
+    private final Object value;
+
+    /**
+     * Constructs a Change object with the specified parameters.
+     *
+     * @param kind     The simple class name of the changed entity: Project, Objective or Task.
+     * @param id       The ID of the changed entity.
+     * @param property The name of the changed property.
+     * @param value    The new value: null, a string, an integer, a date, the
+     *                 {@link Entities.DateRange dates} of a task, a status, the ID of an
+     *                 entity or the list of the IDs of some entities.
+     */
+    Change(String kind, String id, String property, Object value) {
+        this.kind = kind;
+        this.id = id;
+        this.property = property;
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + id + " " + property + " = " + value;
+    }
+
+    // Getters
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+}
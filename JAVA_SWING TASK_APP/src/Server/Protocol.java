@@ -0,0 +1,310 @@
+package Server;
+
+import Entities.DateRange;
+import Entities.TaskStatus;
+import Persistence.EntityIds;
+import Sync.Conflict;
+import Sync.Edit;
+import Sync.FieldChange;
+import Sync.VersionVector;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Framing and encoding of the messages exchanged by the {@link WorkspaceServer} and the
+ * {@link WorkspaceClient}.
+ * <p>
+ * Each frame is its length on four bytes, followed by a type byte, the ID of the request
+ * on four bytes and a payload. The client numbers its requests and may send several
+ * before reading the responses; the server answers them in order, with the ID of the
+ * request. Changes pushed to subscribed clients have the request ID 0. Integers are big
+ * endian and strings are UTF-8 prefixed by their byte length.
+ * <p>
+ * Desktops working offline check the workspace out once, then only exchange the changed
+ * fields: SYNC_PULL sends the position of the log of the server they know and receives the
+ * changes after it, SYNC_PUSH sends their edits and receives the outcome of the merge.
+ * <p>
+ * A connection sends LOGIN, with a username and a password, before any request but PING.
+ * The password travels in clear, which is why the server only listens on the loopback
+ * interface, and the password hashes of the users are never sent.
+ */
+final class Protocol {
+
+    static final int LENGTH_SIZE = 4;
+    static final int HEADER_SIZE = LENGTH_SIZE + 5;
+    static final int MAX_REQUEST_SIZE = 1 << 20;
+    static final int MAX_RESPONSE_SIZE = 1 << 30;
+
+    static final byte PING = 1;
+    static final byte FETCH = 2;
+    static final byte SET_STATUS = 3;
+    static final byte RESCHEDULE = 4;
+    static final byte SUBSCRIBE = 5;
+    static final byte CHECKOUT = 6;
+    static final byte SYNC_PULL = 7;
+    static final byte SYNC_PUSH = 8;
+    static final byte LOGIN = 9;
+
+    static final byte OK = 64;
+    static final byte ERROR = 65;
+    static final byte CHANGE = 66;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte DATE = 3;
+    private static final byte STATUS = 4;
+    private static final byte ID_LIST = 5;
+    private static final byte ID = 6;
+    private static final byte DATE_RANGE = 7;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    private Protocol() {
+    }
+
+    /**
+     * A frame being written, in a buffer grown as needed.
+     */
+    static final class FrameWriter {
+        private ByteBuffer buffer;
+
+        FrameWriter(byte type, int requestId, int capacity) {
+            buffer = ByteBuffer.allocate(HEADER_SIZE + capacity);
+            buffer.putInt(0).put(type).putInt(requestId);
+        }
+
+        FrameWriter putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+            return this;
+        }
+
+        FrameWriter putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+            return this;
+        }
+
+        FrameWriter putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+            return this;
+        }
+
+        FrameWriter putBytes(byte[] bytes, int length) {
+            ensure(4 + length);
+            buffer.putInt(length).put(bytes, 0, length);
+            return this;
+        }
+
+        FrameWriter putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return putBytes(bytes, bytes.length);
+        }
+
+        FrameWriter putDate(LocalDate date) {
+            return putLong(date == null ? NO_DAY : date.toEpochDay());
+        }
+
+        /**
+         * Writes a tagged value: null, a string, an integer, a date, the dates of a task, a
+         * status, an entity or a list of entities, the entities being written as their IDs.
+         * A list may also hold the IDs themselves.
+         */
+        FrameWriter putValue(Object value) {
+            if (value == null) {
+                putByte(NULL);
+            } else if (value instanceof String) {
+                putByte(STRING).putString((String) value);
+            } else if (value instanceof Integer) {
+                ensure(5);
+                buffer.put(INT).putInt((Integer) value);
+            } else if (value instanceof LocalDate) {
+                putByte(DATE).putDate((LocalDate) value);
+            } else if (value instanceof DateRange) {
+                DateRange dates = (DateRange) value;
+                putByte(DATE_RANGE).putDate(dates.getStartDate()).putDate(dates.getEndDate());
+            } else if (value instanceof TaskStatus) {
+                putByte(STATUS).putByte(((TaskStatus) value).ordinal());
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                ensure(5);
+                buffer.put(ID_LIST).putInt(list.size());
+                for (Object entity : list) {
+                    putString(entity instanceof String ? (String) entity : EntityIds.of(entity));
+                }
+            } else {
+                putByte(ID).putString(EntityIds.of(value));
+            }
+            return this;
+        }
+
+        FrameWriter putVersion(VersionVector version) {
+            Map<String, Long> counters = version.toMap();
+            putInt(counters.size());
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                putString(counter.getKey()).putLong(counter.getValue());
+            }
+            return this;
+        }
+
+        FrameWriter putFieldChange(FieldChange change) {
+            return putString(change.getKind())
+                    .putString(change.getId())
+                    .putString(change.getProperty())
+                    .putValue(change.getValue())
+                    .putString(change.getReplica())
+                    .putLong(change.getCounter())
+                    .putLong(change.getSequence());
+        }
+
+        FrameWriter putEdit(Edit edit) {
+            return putString(edit.getKind())
+                    .putString(edit.getId())
+                    .putString(edit.getProperty())
+                    .putValue(edit.getValue())
+                    .putVersion(edit.getBase());
+        }
+
+        FrameWriter putConflict(Conflict conflict) {
+            putEdit(conflict.getEdit());
+            if (conflict.getCurrent() == null) {
+                putByte(0);
+            } else {
+                putByte(1).putFieldChange(conflict.getCurrent());
+            }
+            return putString(conflict.getReason());
+        }
+
+        /**
+         * Completes the frame with its length.
+         *
+         * @return The frame, ready to be written.
+         */
+        ByteBuffer finish() {
+            buffer.putInt(0, buffer.position() - LENGTH_SIZE);
+            buffer.flip();
+            return buffer;
+        }
+
+        private void ensure(int size) {
+            if (buffer.remaining() < size) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + size);
+                if (capacity - LENGTH_SIZE > MAX_RESPONSE_SIZE) {
+                    throw new IllegalStateException("Frame larger than " + MAX_RESPONSE_SIZE + " bytes");
+                }
+                ByteBuffer grown = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+    }
+
+    static ByteBuffer ok(int requestId) {
+        return new FrameWriter(OK, requestId, 0).finish();
+    }
+
+    static ByteBuffer error(int requestId, String message) {
+        return new FrameWriter(ERROR, requestId, 64).putString(message == null ? "Request failed" : message).finish();
+    }
+
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    static LocalDate getDate(ByteBuffer in) {
+        long day = in.getLong();
+        return day == NO_DAY ? null : LocalDate.ofEpochDay(day);
+    }
+
+    static TaskStatus getStatus(ByteBuffer in) {
+        int ordinal = in.get();
+        if (ordinal < 0 || ordinal >= STATUSES.length) {
+            throw new IllegalArgumentException("Unknown status " + ordinal);
+        }
+        return STATUSES[ordinal];
+    }
+
+    /**
+     * Reads the number of elements of a list, each taking at least the given size.
+     */
+    static int getCount(ByteBuffer in, int elementSize) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / elementSize) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    static VersionVector getVersion(ByteBuffer in) {
+        int size = getCount(in, 12);
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            counters.put(getString(in), in.getLong());
+        }
+        return VersionVector.of(counters);
+    }
+
+    static FieldChange getFieldChange(ByteBuffer in) {
+        return new FieldChange(getString(in), getString(in), getString(in), getValue(in), getString(in),
+                in.getLong(), in.getLong());
+    }
+
+    static Edit getEdit(ByteBuffer in) {
+        return new Edit(getString(in), getString(in), getString(in), getValue(in), getVersion(in));
+    }
+
+    static Conflict getConflict(ByteBuffer in) {
+        Edit edit = getEdit(in);
+        FieldChange current = in.get() == 0 ? null : getFieldChange(in);
+        return new Conflict(edit, current, getString(in));
+    }
+
+    /**
+     * Reads a value written by {@link FrameWriter#putValue(Object)}. Entities are read as
+     * their IDs.
+     */
+    static Object getValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+            case ID:
+                return getString(in);
+            case INT:
+                return in.getInt();
+            case DATE:
+                return getDate(in);
+            case DATE_RANGE:
+                return new DateRange(getDate(in), getDate(in));
+            case STATUS:
+                return getStatus(in);
+            case ID_LIST:
+                int size = getCount(in, 4);
+                List<String> ids = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    ids.add(getString(in));
+                }
+                return ids;
+            default:
+                throw new IllegalArgumentException("Unknown value tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Server;
+
+import Entities.Project;
+import Entities.User;
+import Persistence.MutationJournal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a {@link WorkspaceServer} without a display, hosting the workspace kept by a
+ * {@link MutationJournal}.
+ * <p>
+ * Usage: {@code java -cp out Server.ServerMain <directory> [port]}. The workspace is
+ * recovered from the journal of the directory and every change made by the clients is
+ * journaled; the server only listens on the loopback interface, on port 7070 by default.
+ * Clients log in as one of the users of the workspace.
+ */
+public final class ServerMain {
+
+    private static final Logger LOGGER = Logger.getLogger(ServerMain.class.getName());
+    private static final int DEFAULT_PORT = 7070;
+    private static final long MAX_LOG_BYTES = 64L * 1024 * 1024;
+
+    private ServerMain() {
+    }
+
+    /**
+     * Starts the server and serves until the process is stopped.
+     *
+     * @param args The journal directory and optionally the port.
+     * @throws IOException if the journal cannot be read or the port cannot be bound.
+     * @throws InterruptedException if the main thread is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ServerMain <directory> [port]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        int port = DEFAULT_PORT;
+        if (args.length == 2) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                port = -1;
+            }
+            if (port < 0 || port > 65535) {
+                System.err.println("Invalid port: " + args[1]);
+                System.exit(2);
+            }
+        }
+        MutationJournal journal = MutationJournal.open(directory);
+        List<User> users = new ArrayList<>(journal.getUsers());
+        List<Project> projects = new ArrayList<>(journal.getProjects());
+        journal.startCompactor(() -> users, () -> projects, MAX_LOG_BYTES, Duration.ofMinutes(1));
+
+        WorkspaceServer server = new WorkspaceServer(users, projects);
+        InetSocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not write the last changes to the journal", e);
+            }
+        }, "workspace-server-shutdown"));
+        System.out.println("Serving " + users.size() + " users and " + projects.size() + " projects on "
+                + address.getHostString() + ":" + address.getPort());
+        server.awaitClose();
+    }
+}
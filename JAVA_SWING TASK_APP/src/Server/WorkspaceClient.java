@@ -0,0 +1,367 @@
+package Server;
+
+import Entities.TaskStatus;
+import Persistence.GraphSerializer;
+import Sync.Conflict;
+import Sync.Delta;
+import Sync.Edit;
+import Sync.FieldChange;
+import Sync.MergeResult;
+import Sync.SyncReplica;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connection of a desktop instance to a {@link WorkspaceServer}.
+ * <p>
+ * Requests are sent as soon as they are made and answered through futures, so several
+ * can be in flight at once. The responses and the changes pushed by the server are read
+ * by a thread of the client, which completes the futures and calls the change listener:
+ * a Swing client hands them to the event dispatch thread with
+ * {@link javax.swing.SwingUtilities#invokeLater(Runnable)}.
+ */
+public class WorkspaceClient implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceClient.class.getName());
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final SocketChannel channel;
+    private final Object writeLock = new Object();
+    private final ConcurrentHashMap<Integer, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger lastRequestId = new AtomicInteger();
+    private final Thread reader;
+    private volatile Consumer<Change> changeListener;
+    private volatile boolean closed;
+
+    private WorkspaceClient(SocketChannel channel) {
+        this.channel = channel;
+        this.reader = new Thread(this::readLoop, "workspace-client-" + THREAD_COUNT.incrementAndGet());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Connects to a server.
+     *
+     * @param address The address of the server.
+     * @return The connected client.
+     * @throws IOException if the server cannot be reached.
+     */
+    public static WorkspaceClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return new WorkspaceClient(channel);
+    }
+
+    /**
+     * Checks that the server answers.
+     *
+     * @return A future completed when the server answered.
+     */
+    public CompletableFuture<Void> ping() {
+        return request(new Protocol.FrameWriter(Protocol.PING, nextRequestId(), 0)).thenAccept(payload -> { });
+    }
+
+    /**
+     * Logs in, which the server requires before any request but {@link #ping()}.
+     *
+     * @param username The username of a user of the server.
+     * @param password The password of the user.
+     * @return A future completed once logged in, or failed with an
+     * {@link IllegalArgumentException} if the username or the password is wrong.
+     */
+    public CompletableFuture<Void> login(String username, String password) {
+        return request(new Protocol.FrameWriter(Protocol.LOGIN, nextRequestId(), 64)
+                .putString(username)
+                .putString(password))
+                .thenAccept(payload -> { });
+    }
+
+    /**
+     * Fetches a copy of the users and projects of the server, with everything reachable
+     * from them. The users have no password hash.
+     *
+     * @return A future completed with the users followed by the projects.
+     */
+    public CompletableFuture<List<Object>> fetch() {
+        return request(new Protocol.FrameWriter(Protocol.FETCH, nextRequestId(), 0))
+                .thenApply(WorkspaceClient::readRoots);
+    }
+
+    /**
+     * Fetches a copy of the workspace to work on offline, kept in sync with
+     * {@link #sync(SyncReplica)}.
+     *
+     * @param replicaId The ID of the replica, unique among those syncing the workspace.
+     * @return A future completed with the replica.
+     */
+    public CompletableFuture<SyncReplica> checkout(String replicaId) {
+        return request(new Protocol.FrameWriter(Protocol.CHECKOUT, nextRequestId(), 0)).thenApply(payload -> {
+            long cursor = payload.getLong();
+            return new SyncReplica(replicaId, readRoots(payload), cursor);
+        });
+    }
+
+    /**
+     * Gets the changes recorded by the server after a position of its log.
+     *
+     * @param cursor The position of the last change known.
+     * @return A future completed with the changes.
+     */
+    public CompletableFuture<Delta> pull(long cursor) {
+        return request(new Protocol.FrameWriter(Protocol.SYNC_PULL, nextRequestId(), 8).putLong(cursor))
+                .thenApply(payload -> {
+                    long newCursor = payload.getLong();
+                    int count = Protocol.getCount(payload, 33);
+                    List<FieldChange> changes = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        changes.add(Protocol.getFieldChange(payload));
+                    }
+                    return new Delta(changes, newCursor);
+                });
+    }
+
+    /**
+     * Sends edits made offline to be merged by the server.
+     *
+     * @param replicaId The ID of the replica that made the edits.
+     * @param edits     The edits.
+     * @return A future completed with the outcome of the merge.
+     */
+    public CompletableFuture<MergeResult> push(String replicaId, List<Edit> edits) {
+        Protocol.FrameWriter writer = new Protocol.FrameWriter(Protocol.SYNC_PUSH, nextRequestId(),
+                32 + 64 * edits.size())
+                .putString(replicaId)
+                .putInt(edits.size());
+        for (Edit edit : edits) {
+            writer.putEdit(edit);
+        }
+        return request(writer).thenApply(payload -> {
+            int appliedCount = Protocol.getCount(payload, 33);
+            List<FieldChange> applied = new ArrayList<>(appliedCount);
+            for (int i = 0; i < appliedCount; i++) {
+                applied.add(Protocol.getFieldChange(payload));
+            }
+            int conflictCount = Protocol.getCount(payload, 18);
+            List<Conflict> conflicts = new ArrayList<>(conflictCount);
+            for (int i = 0; i < conflictCount; i++) {
+                conflicts.add(Protocol.getConflict(payload));
+            }
+            return new MergeResult(applied, conflicts);
+        });
+    }
+
+    /**
+     * Pushes the pending edits of a replica, then applies the changes made by the others
+     * since its last sync. The replica is updated by the thread of the client.
+     *
+     * @param replica The replica.
+     * @return A future completed with the edits the server did not apply.
+     */
+    public CompletableFuture<List<Conflict>> sync(SyncReplica replica) {
+        List<Edit> edits = replica.getPendingEdits();
+        CompletableFuture<List<Conflict>> pushed;
+        if (edits.isEmpty()) {
+            pushed = CompletableFuture.completedFuture(List.of());
+        } else {
+            pushed = push(replica.getReplicaId(), edits).thenApply(result -> {
+                replica.acknowledge(edits, result);
+                return result.getConflicts();
+            });
+        }
+        return pushed.thenCompose(conflicts -> pull(replica.getCursor()).thenApply(delta -> {
+            replica.apply(delta);
+            return conflicts;
+        }));
+    }
+
+    /**
+     * Changes the status of a task on the server.
+     *
+     * @param taskId The ID of the task.
+     * @param status The new status.
+     * @return A future completed once the status is changed, or failed with an
+     * {@link IllegalArgumentException} if the server refused the change.
+     */
+    public CompletableFuture<Void> setStatus(String taskId, TaskStatus status) {
+        return request(new Protocol.FrameWriter(Protocol.SET_STATUS, nextRequestId(), 32)
+                .putString(taskId)
+                .putByte(status.ordinal()))
+                .thenAccept(payload -> { });
+    }
+
+    /**
+     * Moves a task to new dates on the server, as {@link Entities.Task#reschedule(LocalDate, LocalDate)}.
+     *
+     * @param taskId    The ID of the task.
+     * @param startDate The new start date, or null.
+     * @param endDate   The new end date, or null.
+     * @return A future completed once the task is moved, or failed with an
+     * {@link IllegalArgumentException} if the server refused the change.
+     */
+    public CompletableFuture<Void> reschedule(String taskId, LocalDate startDate, LocalDate endDate) {
+        return request(new Protocol.FrameWriter(Protocol.RESCHEDULE, nextRequestId(), 48)
+                .putString(taskId)
+                .putDate(startDate)
+                .putDate(endDate))
+                .thenAccept(payload -> { });
+    }
+
+    /**
+     * Asks the server to push the changes of projects, objectives and tasks, whoever
+     * makes them.
+     *
+     * @param listener The listener called by the thread of the client with each change.
+     * @return A future completed once the server will push the changes.
+     */
+    public CompletableFuture<Void> subscribe(Consumer<Change> listener) {
+        changeListener = listener;
+        return request(new Protocol.FrameWriter(Protocol.SUBSCRIBE, nextRequestId(), 0)).thenAccept(payload -> { });
+    }
+
+    /**
+     * Closes the connection. The requests still waiting for a response fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not close the connection", e);
+        }
+        failPending(new IOException("Connection closed"));
+    }
+
+    private static List<Object> readRoots(ByteBuffer payload) {
+        int length = payload.getInt();
+        try {
+            return GraphSerializer.read(new ByteArrayInputStream(payload.array(),
+                    payload.arrayOffset() + payload.position(), length));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Numbers the requests from 1, skipping 0 which marks the pushed changes.
+     */
+    private int nextRequestId() {
+        int id = lastRequestId.incrementAndGet();
+        while (id == 0) {
+            id = lastRequestId.incrementAndGet();
+        }
+        return id;
+    }
+
+    private CompletableFuture<ByteBuffer> request(Protocol.FrameWriter writer) {
+        ByteBuffer frame = writer.finish();
+        int requestId = frame.getInt(Protocol.LENGTH_SIZE + 1);
+        CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        pending.put(requestId, result);
+        if (closed) {
+            fail(requestId, new IOException("Connection closed"));
+            return result;
+        }
+        try {
+            synchronized (writeLock) {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            }
+        } catch (IOException e) {
+            fail(requestId, e);
+        }
+        return result;
+    }
+
+    private void fail(int requestId, IOException e) {
+        CompletableFuture<ByteBuffer> result = pending.remove(requestId);
+        if (result != null) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void failPending(IOException e) {
+        for (Integer requestId : pending.keySet()) {
+            fail(requestId, e);
+        }
+    }
+
+    /**
+     * Reads the frames sent by the server until the connection is closed.
+     */
+    private void readLoop() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel),
+                64 * 1024))) {
+            while (true) {
+                int length = in.readInt();
+                if (length < Protocol.HEADER_SIZE - Protocol.LENGTH_SIZE || length > Protocol.MAX_RESPONSE_SIZE) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                ByteBuffer buffer = ByteBuffer.wrap(frame);
+                byte type = buffer.get();
+                int requestId = buffer.getInt();
+                dispatch(type, requestId, buffer.slice());
+            }
+        } catch (EOFException e) {
+            failPending(new IOException("Connection closed by the server"));
+        } catch (IOException e) {
+            if (!closed) {
+                LOGGER.log(Level.WARNING, "Connection to the workspace server lost", e);
+            }
+            failPending(e);
+        } finally {
+            closed = true;
+        }
+    }
+
+    private void dispatch(byte type, int requestId, ByteBuffer payload) throws IOException {
+        try {
+            if (type == Protocol.CHANGE) {
+                Change change = new Change(Protocol.getString(payload), Protocol.getString(payload),
+                        Protocol.getString(payload), Protocol.getValue(payload));
+                Consumer<Change> listener = changeListener;
+                if (listener != null) {
+                    listener.accept(change);
+                }
+                return;
+            }
+            CompletableFuture<ByteBuffer> result = pending.remove(requestId);
+            if (result == null) {
+                throw new IOException("Response to unknown request " + requestId);
+            }
+            if (type == Protocol.OK) {
+                result.complete(payload);
+            } else if (type == Protocol.ERROR) {
+                result.completeExceptionally(new IllegalArgumentException(Protocol.getString(payload)));
+            } else {
+                result.completeExceptionally(new IOException("Unknown response type " + type));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed frame from the server", e);
+        }
+    }
+}
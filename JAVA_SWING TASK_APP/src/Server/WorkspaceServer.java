@@ -0,0 +1,645 @@
+package Server;
+
+import Entities.EntityEvents;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.User;
+import Entities.WorkspaceSnapshot;
+import Persistence.EntityIds;
+import Persistence.GraphSerializer;
+import Security.CredentialService;
+import Sync.Conflict;
+import Sync.Delta;
+import Sync.Edit;
+import Sync.FieldChange;
+import Sync.MergeResult;
+import Sync.SyncLog;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves a workspace of users and projects to several {@link WorkspaceClient clients}
+ * over the binary {@link Protocol}.
+ * <p>
+ * A single thread multiplexes the connections with a {@link Selector}. It reads every
+ * complete request received on a connection, applies them in order to the hosted
+ * entities through their setters and writes all the responses at once, so a client may
+ * pipeline its requests. Changes made to projects, objectives and tasks, by clients or
+ * by the server process itself, are pushed to the clients that subscribed; a client
+ * that does not read them fast enough is disconnected.
+ * <p>
+ * A connection must log in as one of the hosted users before any request but a ping.
+ * The slow work is done away from the selector thread: passwords are checked by a
+ * {@link CredentialService}, and the workspace sent by a fetch or a checkout is written
+ * by a worker thread from a {@link WorkspaceSnapshot} opened when the request is read,
+ * without the password hashes. Meanwhile the connection waits, so its responses stay in
+ * the order of its requests, and the other connections are served.
+ * <p>
+ * While serving, the changes of the hosted entities are also kept in a {@link SyncLog},
+ * so that clients working offline pull only the fields changed since their last sync and
+ * push their edits to be merged.
+ */
+public class WorkspaceServer implements PropertyChangeListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceServer.class.getName());
+    private static final int INPUT_SIZE = 16 * 1024;
+    private static final int MAX_PENDING_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_GATHERED_BUFFERS = 64;
+    private static final Duration LOGIN_CACHE_DURATION = Duration.ofMinutes(5);
+
+    private final List<Object> roots;
+    private final List<User> users;
+    private final List<Project> hostedProjects;
+    private final Set<Project> projects = ConcurrentHashMap.newKeySet();
+    private final Set<Objective> objectives = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Task> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<ByteBuffer> changes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile int connectionCount;
+    private volatile int subscriberCount;
+    private volatile boolean running;
+    private Selector selector;
+    private ServerSocketChannel listener;
+    private SyncLog syncLog;
+    private CredentialService credentials;
+    private ExecutorService worker;
+    private Thread thread;
+
+    /**
+     * The state of a client connection, only touched by the server thread.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+        ByteBuffer input = ByteBuffer.allocate(INPUT_SIZE);
+        long pendingBytes;
+        boolean subscribed;
+        User user;
+        boolean waiting;
+        boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructs a server hosting the given users and projects, with the objectives and
+     * tasks reachable from them.
+     *
+     * @param users    The users.
+     * @param projects The projects.
+     */
+    public WorkspaceServer(List<? extends User> users, List<Project> projects) {
+        List<Object> all = new ArrayList<>(users);
+        all.addAll(projects);
+        this.roots = Collections.unmodifiableList(all);
+        this.users = new ArrayList<>(users);
+        this.hostedProjects = new ArrayList<>(projects);
+        this.projects.addAll(projects);
+        for (Project project : projects) {
+            addObjectives(project.getObjectiveList());
+        }
+    }
+
+    /**
+     * Starts serving on an address.
+     *
+     * @param address The loopback address to listen on; port 0 picks a free port.
+     * @return The address the server listens on.
+     * @throws IOException if the address cannot be bound.
+     * @throws IllegalArgumentException if the address is unresolved or not a loopback
+     *                                  address, since passwords are sent in clear.
+     * @throws IllegalStateException if the server was already started.
+     */
+    public synchronized InetSocketAddress start(InetSocketAddress address) throws IOException {
+        if (address == null || address.isUnresolved()) {
+            throw new IllegalArgumentException("Cannot listen on unresolved address " + address);
+        }
+        if (!address.getAddress().isLoopbackAddress()) {
+            throw new IllegalArgumentException("The workspace server only listens on a loopback address, not on "
+                    + address.getAddress().getHostAddress());
+        }
+        if (thread != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        selector = Selector.open();
+        listener = ServerSocketChannel.open();
+        try {
+            listener.bind(address, 256);
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            listener.close();
+            selector.close();
+            throw e;
+        }
+        syncLog = new SyncLog("server", users, hostedProjects);
+        credentials = new CredentialService(2, LOGIN_CACHE_DURATION);
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread workerThread = new Thread(runnable, "workspace-server-worker");
+            workerThread.setDaemon(true);
+            return workerThread;
+        });
+        EntityEvents.addListener(this);
+        running = true;
+        thread = new Thread(this::serve, "workspace-server-1");
+        thread.setDaemon(true);
+        thread.start();
+        return (InetSocketAddress) listener.getLocalAddress();
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public void awaitClose() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Disconnects the clients and stops serving.
+     */
+    @Override
+    public void close() {
+        Thread serving;
+        synchronized (this) {
+            serving = thread;
+            if (serving == null || !running) {
+                return;
+            }
+            running = false;
+        }
+        EntityEvents.removeListener(this);
+        selector.wakeup();
+        if (serving != Thread.currentThread()) {
+            try {
+                serving.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Getters
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Queues the change of a hosted project, objective or task for the subscribed clients,
+     * and follows the objectives and tasks added to them so that clients can modify them.
+     *
+     * @param event The entity event.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void propertyChange(PropertyChangeEvent event) {
+        Object source = event.getSource();
+        String property = event.getPropertyName();
+        if (source instanceof Task) {
+            if (tasks.get(((Task) source).getId()) != source) {
+                return;
+            }
+        } else if (source instanceof Objective) {
+            if (!objectives.contains(source)) {
+                return;
+            }
+            if (property.equals("taskList")) {
+                addTasks((List<Task>) event.getNewValue());
+            }
+        } else if (source instanceof Project) {
+            if (!projects.contains(source)) {
+                return;
+            }
+            if (property.equals("objectiveList")) {
+                addObjectives((List<Objective>) event.getNewValue());
+            }
+        } else {
+            return;
+        }
+        if (subscriberCount == 0) {
+            return;
+        }
+        changes.add(new Protocol.FrameWriter(Protocol.CHANGE, 0, 64)
+                .putString(source.getClass().getSimpleName())
+                .putString(EntityIds.of(source))
+                .putString(property)
+                .putValue(event.getNewValue())
+                .finish());
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    private void addObjectives(List<Objective> objectiveList) {
+        for (Objective objective : objectiveList) {
+            objectives.add(objective);
+            addTasks(objective.getTaskList());
+        }
+    }
+
+    private void addTasks(List<Task> taskList) {
+        for (Task task : taskList) {
+            tasks.put(task.getId(), task);
+        }
+    }
+
+    private void serve() {
+        try {
+            while (running) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+                Runnable completion;
+                while ((completion = completions.poll()) != null) {
+                    completion.run();
+                }
+                broadcastChanges();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Workspace server stopped", e);
+        } finally {
+            running = false;
+            EntityEvents.removeListener(this);
+            syncLog.close();
+            credentials.close();
+            worker.shutdown();
+            for (Connection connection : new ArrayList<>(connections)) {
+                disconnect(connection);
+            }
+            try {
+                listener.close();
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not close the server socket", e);
+            }
+            stopped.countDown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = listener.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            Connection connection = new Connection(channel, key);
+            key.attach(connection);
+            connections.add(connection);
+            connectionCount = connections.size();
+        }
+    }
+
+    /**
+     * Reads what the client sent, answers each complete request and sends the responses.
+     */
+    private void read(Connection connection) {
+        int read;
+        try {
+            read = connection.channel.read(connection.input);
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+        if (read < 0) {
+            disconnect(connection);
+            return;
+        }
+        process(connection);
+    }
+
+    /**
+     * Answers the complete requests received on a connection, until one of them is
+     * answered asynchronously, and sends the responses.
+     */
+    private void process(Connection connection) {
+        ByteBuffer input = connection.input;
+        input.flip();
+        while (!connection.waiting && input.remaining() >= Protocol.LENGTH_SIZE) {
+            int length = input.getInt(input.position());
+            if (length < Protocol.HEADER_SIZE - Protocol.LENGTH_SIZE || length > Protocol.MAX_REQUEST_SIZE) {
+                LOGGER.warning("Invalid frame length " + length + " from " + connection.channel);
+                disconnect(connection);
+                return;
+            }
+            if (input.remaining() < Protocol.LENGTH_SIZE + length) {
+                if (input.capacity() < Protocol.LENGTH_SIZE + length) {
+                    ByteBuffer grown = ByteBuffer.allocate(Protocol.LENGTH_SIZE + length);
+                    grown.put(input);
+                    connection.input = grown;
+                    flush(connection);
+                    return;
+                }
+                break;
+            }
+            int end = input.position() + Protocol.LENGTH_SIZE + length;
+            input.position(input.position() + Protocol.LENGTH_SIZE);
+            byte type = input.get();
+            int requestId = input.getInt();
+            ByteBuffer payload = input.slice();
+            payload.limit(end - input.position());
+            input.position(end);
+            requestCount.incrementAndGet();
+            ByteBuffer response = handle(connection, type, requestId, payload);
+            if (response != null) {
+                send(connection, response);
+            }
+        }
+        input.compact();
+        flush(connection);
+    }
+
+    /**
+     * Applies a request.
+     *
+     * @return The response, or null if it is sent once computed by another thread.
+     */
+    private ByteBuffer handle(Connection connection, byte type, int requestId, ByteBuffer payload) {
+        if (connection.user == null && type != Protocol.PING && type != Protocol.LOGIN) {
+            return Protocol.error(requestId, "Not logged in");
+        }
+        try {
+            switch (type) {
+                case Protocol.PING:
+                    return Protocol.ok(requestId);
+                case Protocol.LOGIN:
+                    String username = Protocol.getString(payload);
+                    login(connection, requestId, username, Protocol.getString(payload));
+                    return null;
+                case Protocol.FETCH:
+                    serialize(connection, requestId, false);
+                    return null;
+                case Protocol.CHECKOUT:
+                    serialize(connection, requestId, true);
+                    return null;
+                case Protocol.SYNC_PULL:
+                    Delta delta = syncLog.changesSince(payload.getLong());
+                    Protocol.FrameWriter pulled = new Protocol.FrameWriter(Protocol.OK, requestId,
+                            12 + 64 * delta.getChanges().size())
+                            .putLong(delta.getCursor())
+                            .putInt(delta.getChanges().size());
+                    for (FieldChange change : delta.getChanges()) {
+                        pulled.putFieldChange(change);
+                    }
+                    return pulled.finish();
+                case Protocol.SYNC_PUSH:
+                    String replica = Protocol.getString(payload);
+                    int count = Protocol.getCount(payload, 13);
+                    List<Edit> edits = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        edits.add(Protocol.getEdit(payload));
+                    }
+                    MergeResult result = syncLog.merge(replica, edits);
+                    Protocol.FrameWriter merged = new Protocol.FrameWriter(Protocol.OK, requestId,
+                            8 + 64 * (result.getApplied().size() + result.getConflicts().size()))
+                            .putInt(result.getApplied().size());
+                    for (FieldChange change : result.getApplied()) {
+                        merged.putFieldChange(change);
+                    }
+                    merged.putInt(result.getConflicts().size());
+                    for (Conflict conflict : result.getConflicts()) {
+                        merged.putConflict(conflict);
+                    }
+                    return merged.finish();
+                case Protocol.SET_STATUS:
+                    Task task = task(Protocol.getString(payload));
+                    task.setStatus(Protocol.getStatus(payload));
+                    return Protocol.ok(requestId);
+                case Protocol.RESCHEDULE:
+                    task = task(Protocol.getString(payload));
+                    LocalDate start = Protocol.getDate(payload);
+                    task.reschedule(start, Protocol.getDate(payload));
+                    return Protocol.ok(requestId);
+                case Protocol.SUBSCRIBE:
+                    if (!connection.subscribed) {
+                        connection.subscribed = true;
+                        subscriberCount++;
+                    }
+                    return Protocol.ok(requestId);
+                default:
+                    return Protocol.error(requestId, "Unknown request type " + type);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return Protocol.error(requestId, e.getMessage());
+        } catch (BufferUnderflowException e) {
+            return Protocol.error(requestId, "Truncated request");
+        }
+    }
+
+    /**
+     * Checks the password of a user on the threads of the credential service; the
+     * connection waits for the answer. An unknown username is checked against a decoy
+     * hash, so that it takes as long to reject as a wrong password.
+     */
+    private void login(Connection connection, int requestId, String username, String password) {
+        User found = null;
+        for (User user : users) {
+            if (user.getUsername().equals(username)) {
+                found = user;
+                break;
+            }
+        }
+        User user = found;
+        connection.waiting = true;
+        credentials.authenticate(user, password).whenComplete((valid, failure) -> later(() -> {
+            if (failure != null) {
+                LOGGER.log(Level.WARNING, "Could not check the password of " + username, failure);
+            }
+            if (Boolean.TRUE.equals(valid)) {
+                connection.user = user;
+                resume(connection, Protocol.ok(requestId));
+            } else {
+                resume(connection, Protocol.error(requestId, "Invalid username or password"));
+            }
+        }));
+    }
+
+    /**
+     * Writes the workspace on the worker thread, as a snapshot opened now sees it and
+     * without the password hashes; the connection waits for the response. A checkout
+     * also sends the position of the sync log the workspace reflects.
+     */
+    private void serialize(Connection connection, int requestId, boolean checkout) {
+        long cursor = syncLog.getSequence();
+        WorkspaceSnapshot snapshot = WorkspaceSnapshot.open(hostedProjects);
+        connection.waiting = true;
+        worker.execute(() -> {
+            ByteBuffer response;
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+                GraphSerializer.write(roots, snapshot, false, bytes);
+                Protocol.FrameWriter writer = new Protocol.FrameWriter(Protocol.OK, requestId, bytes.size() + 12);
+                if (checkout) {
+                    writer.putLong(cursor);
+                }
+                response = writer.putBytes(bytes.toByteArray(), bytes.size()).finish();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not serialize the workspace", e);
+                response = Protocol.error(requestId, "Could not serialize the workspace");
+            } finally {
+                snapshot.close();
+            }
+            ByteBuffer result = response;
+            later(() -> resume(connection, result));
+        });
+    }
+
+    /**
+     * Runs an action on the server thread.
+     */
+    private void later(Runnable action) {
+        completions.add(action);
+        selector.wakeup();
+    }
+
+    /**
+     * Sends the response a connection was waiting for, then answers the requests it sent
+     * meanwhile.
+     */
+    private void resume(Connection connection, ByteBuffer response) {
+        if (connection.closed) {
+            return;
+        }
+        connection.waiting = false;
+        send(connection, response);
+        process(connection);
+    }
+
+    private Task task(String id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown task " + id);
+        }
+        return task;
+    }
+
+    private void broadcastChanges() {
+        if (changes.isEmpty()) {
+            return;
+        }
+        ByteBuffer change;
+        while ((change = changes.poll()) != null) {
+            for (Connection connection : connections) {
+                if (connection.subscribed) {
+                    send(connection, change.duplicate());
+                }
+            }
+        }
+        for (Connection connection : new ArrayList<>(connections)) {
+            if (connection.subscribed) {
+                flush(connection);
+            }
+        }
+    }
+
+    private void send(Connection connection, ByteBuffer frame) {
+        connection.output.add(frame);
+        connection.pendingBytes += frame.remaining();
+    }
+
+    /**
+     * Writes as much of the queued frames as the socket accepts, and asks to be notified
+     * when it can take the rest.
+     */
+    private void flush(Connection connection) {
+        ArrayDeque<ByteBuffer> output = connection.output;
+        try {
+            while (!output.isEmpty()) {
+                ByteBuffer[] frames = new ByteBuffer[Math.min(output.size(), MAX_GATHERED_BUFFERS)];
+                int count = 0;
+                for (ByteBuffer frame : output) {
+                    if (count == frames.length) {
+                        break;
+                    }
+                    frames[count++] = frame;
+                }
+                long written = connection.channel.write(frames);
+                connection.pendingBytes -= written;
+                while (!output.isEmpty() && !output.peek().hasRemaining()) {
+                    output.poll();
+                }
+                if (written == 0 || !output.isEmpty() && output.peek().position() > 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+        if (connection.pendingBytes > MAX_PENDING_BYTES) {
+            LOGGER.warning("Disconnecting " + connection.channel + ", which does not read its responses");
+            disconnect(connection);
+            return;
+        }
+        int interest = connection.waiting ? 0 : SelectionKey.OP_READ;
+        connection.key.interestOps(output.isEmpty() ? interest : interest | SelectionKey.OP_WRITE);
+    }
+
+    private void disconnect(Connection connection) {
+        connection.closed = true;
+        if (connections.remove(connection) && connection.subscribed) {
+            subscriberCount--;
+        }
+        connectionCount = connections.size();
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not close a connection", e);
+        }
+    }
+}
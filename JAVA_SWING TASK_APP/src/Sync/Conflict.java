@@ -0,0 +1,46 @@
+package Sync;
+
+/**
+ * Represents an edit the server did not apply, either because the field was changed by
+ * another replica since the version the edit was based on, or because the entity refused
+ * the value.
+ */
+public class Conflict {
+
+    private final Edit edit;
+    private final FieldChange current;
+    private final String reason;
+
+    /**
+     * Constructs a Conflict object with the specified parameters.
+     *
+     * @param edit    The edit that was not applied.
+     * @param current The change of the field the edit did not know of, or null if the edit
+     *                was refused.
+     * @param reason  The reason the edit was not applied.
+     */
+    public Conflict(Edit edit, FieldChange current, String reason) {
+        this.edit = edit;
+        this.current = current;
+        this.reason = reason;
+    }
+
+    @Override
+    public String toString() {
+        return edit + ": " + reason;
+    }
+
+    // Getters
+
+    public Edit getEdit() {
+        return edit;
+    }
+
+    public FieldChange getCurrent() {
+        return current;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
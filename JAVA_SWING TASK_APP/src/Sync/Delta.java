@@ -0,0 +1,35 @@
+package Sync;
+
+import java.util.List;
+
+/**
+ * Represents the changes recorded by the server after a position of its log.
+ */
+public class Delta {
+
+    private final List<FieldChange> changes;
+    private final long cursor;
+
+    /**
+     * Constructs a Delta object with the specified parameters.
+     *
+     * @param changes The latest change of each field changed after the requested position,
+     *                in log order.
+     * @param cursor  The position of the log covered by the changes, from which the next
+     *                delta is requested.
+     */
+    public Delta(List<FieldChange> changes, long cursor) {
+        this.changes = changes;
+        this.cursor = cursor;
+    }
+
+    // Getters
+
+    public List<FieldChange> getChanges() {
+        return changes;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+}
@@ -0,0 +1,57 @@
+package Sync;
+
+/**
+ * Represents a change of a field made by a replica and not yet merged by the server.
+ */
+public class Edit {
+
+    private final String kind;
+    private final String id;
+    private final String property;
+    private final Object value;
+    private final VersionVector base;
+
+    /**
+     * Constructs an Edit object with the specified parameters.
+     *
+     * @param kind     The simple class name of the entity.
+     * @param id       The ID of the entity.
+     * @param property The name of the field.
+     * @param value    The new value, in the transferable form of {@link FieldChange}.
+     * @param base     The version of the entity the replica knew when the field was edited.
+     */
+    public Edit(String kind, String id, String property, Object value, VersionVector base) {
+        this.kind = kind;
+        this.id = id;
+        this.property = property;
+        this.value = value;
+        this.base = base;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + id + " " + property + " = " + value + " on " + base;
+    }
+
+    // Getters
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public VersionVector getBase() {
+        return base;
+    }
+}
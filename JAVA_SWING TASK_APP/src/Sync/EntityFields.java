@@ -0,0 +1,348 @@
+package Sync;
+
+import Entities.DateRange;
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Entities.WorkOrder;
+import Persistence.EntityIds;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the synced fields of the entities, in the transferable form of
+ * {@link FieldChange}.
+ * <p>
+ * The notifications of the tasks are not synced: they belong to the desktop that
+ * schedules them.
+ */
+final class EntityFields {
+
+    private static final List<String> PROJECT_FIELDS =
+            List.of("description", "startDate", "endDate", "manager", "objectiveList");
+    private static final List<String> OBJECTIVE_FIELDS =
+            List.of("description", "startDate", "endDate", "taskList");
+    private static final List<String> TASK_FIELDS = List.of("description", "priority", "status", "startDate",
+            "endDate", "members", "materials", "workOrders");
+    private static final List<String> MATERIAL_FIELDS = List.of("name", "type", "tasks");
+    private static final List<String> WORK_ORDER_FIELDS = List.of("title", "description");
+
+    private EntityFields() {
+    }
+
+    static List<String> of(String kind) {
+        switch (kind) {
+            case EntityIndex.PROJECT:
+                return PROJECT_FIELDS;
+            case EntityIndex.OBJECTIVE:
+                return OBJECTIVE_FIELDS;
+            case EntityIndex.TASK:
+                return TASK_FIELDS;
+            case EntityIndex.MATERIAL:
+                return MATERIAL_FIELDS;
+            case EntityIndex.WORK_ORDER:
+                return WORK_ORDER_FIELDS;
+            default:
+                return List.of();
+        }
+    }
+
+    /**
+     * Gets the synced fields modified by an entity event and their new values. A change of
+     * the dates of a task modifies both its start and end dates.
+     *
+     * @param kind     The kind of the modified entity.
+     * @param property The name of the property of the event.
+     * @param value    The new value of the event.
+     * @return The new values by field name, empty if the property is not synced.
+     */
+    static Map<String, Object> changed(String kind, String property, Object value) {
+        if (kind.equals(EntityIndex.TASK) && property.equals("dates")) {
+            DateRange dates = (DateRange) value;
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("startDate", dates.getStartDate());
+            fields.put("endDate", dates.getEndDate());
+            return fields;
+        }
+        return of(kind).contains(property) ? Collections.singletonMap(property, value) : Map.of();
+    }
+
+    /**
+     * Converts a value of a field to its transferable form, entities being replaced by
+     * their IDs.
+     */
+    static Object toWire(Object value) {
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<String> ids = new ArrayList<>(list.size());
+            for (Object entity : list) {
+                ids.add(EntityIds.of(entity));
+            }
+            return ids;
+        } else if (value == null || value instanceof String || value instanceof Integer
+                || value instanceof LocalDate || value instanceof TaskStatus) {
+            return value;
+        }
+        return EntityIds.of(value);
+    }
+
+    static Object read(Object entity, String property) {
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            switch (property) {
+                case "description":
+                    return task.getDescription();
+                case "priority":
+                    return task.getPriority();
+                case "status":
+                    return task.getStatus();
+                case "startDate":
+                    return task.getStartDate();
+                case "endDate":
+                    return task.getEndDate();
+                case "members":
+                    return toWire(task.getMembers());
+                case "materials":
+                    return toWire(task.getMaterials());
+                case "workOrders":
+                    return toWire(task.getWorkOrders());
+                default:
+                    break;
+            }
+        } else if (entity instanceof Objective) {
+            Objective objective = (Objective) entity;
+            switch (property) {
+                case "description":
+                    return objective.getDescription();
+                case "startDate":
+                    return objective.getStartDate();
+                case "endDate":
+                    return objective.getEndDate();
+                case "taskList":
+                    return toWire(objective.getTaskList());
+                default:
+                    break;
+            }
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            switch (property) {
+                case "description":
+                    return project.getDescription();
+                case "startDate":
+                    return project.getStartDate();
+                case "endDate":
+                    return project.getEndDate();
+                case "manager":
+                    return toWire(project.getManager());
+                case "objectiveList":
+                    return toWire(project.getObjectiveList());
+                default:
+                    break;
+            }
+        } else if (entity instanceof Material) {
+            Material material = (Material) entity;
+            switch (property) {
+                case "name":
+                    return material.getName();
+                case "type":
+                    return material.getType();
+                case "tasks":
+                    return toWire(material.getTasks());
+                default:
+                    break;
+            }
+        } else if (entity instanceof WorkOrder) {
+            WorkOrder workOrder = (WorkOrder) entity;
+            switch (property) {
+                case "title":
+                    return workOrder.getTitle();
+                case "description":
+                    return workOrder.getDescription();
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unknown property " + property + " of " + entity);
+    }
+
+    /**
+     * Creates an entity from the scalar values of its fields, keeping its ID. The
+     * references to other entities are set afterwards with {@link #apply}.
+     */
+    static Object create(String kind, String id, Map<String, Object> fields) {
+        String description = (String) fields.get("description");
+        LocalDate startDate = (LocalDate) fields.get("startDate");
+        LocalDate endDate = (LocalDate) fields.get("endDate");
+        switch (kind) {
+            case EntityIndex.PROJECT:
+                return Project.restore(id, null, endDate, List.of(), startDate, description);
+            case EntityIndex.OBJECTIVE:
+                return Objective.restore(id, endDate, List.of(), startDate, description);
+            case EntityIndex.TASK:
+                Object priority = fields.get("priority");
+                return Task.restore(id, description, priority == null ? 1 : (Integer) priority, List.of(), List.of(),
+                        startDate, List.of(), List.of(), endDate, (TaskStatus) fields.get("status"));
+            case EntityIndex.MATERIAL:
+                return Material.restore(id, List.of(), (String) fields.get("name"), (String) fields.get("type"));
+            case EntityIndex.WORK_ORDER:
+                return WorkOrder.restore(id, (String) fields.get("title"), description);
+            default:
+                throw new IllegalArgumentException("Unknown kind " + kind);
+        }
+    }
+
+    /**
+     * Sets fields of an entity. The dates of a task are set together, so that moving both
+     * cannot fail because of the dates being replaced.
+     *
+     * @param entity The entity.
+     * @param fields The new values by field name.
+     * @param index  The entities and users the IDs of the values refer to. Unknown IDs are
+     *               left out of the lists.
+     * @throws IllegalArgumentException if the entity refuses a value.
+     */
+    static void apply(Object entity, Map<String, Object> fields, EntityIndex index) {
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            if (fields.containsKey("startDate") || fields.containsKey("endDate")) {
+                task.reschedule(fields.containsKey("startDate") ? (LocalDate) fields.get("startDate")
+                                : task.getStartDate(),
+                        fields.containsKey("endDate") ? (LocalDate) fields.get("endDate") : task.getEndDate());
+            }
+        }
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            set(entity, field.getKey(), field.getValue(), index);
+        }
+    }
+
+    private static void set(Object entity, String property, Object value, EntityIndex index) {
+        if (entity instanceof Task) {
+            Task task = (Task) entity;
+            switch (property) {
+                case "description":
+                    task.setDescription((String) value);
+                    return;
+                case "priority":
+                    task.setPriority((Integer) value);
+                    return;
+                case "status":
+                    task.setStatus((TaskStatus) value);
+                    return;
+                case "startDate":
+                case "endDate":
+                    return;
+                case "members":
+                    task.setMembers(users(value, Member.class, index));
+                    return;
+                case "materials":
+                    task.setMaterials(entities(value, EntityIndex.MATERIAL, Material.class, index));
+                    return;
+                case "workOrders":
+                    task.setWorkOrders(entities(value, EntityIndex.WORK_ORDER, WorkOrder.class, index));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Objective) {
+            Objective objective = (Objective) entity;
+            switch (property) {
+                case "description":
+                    objective.setDescription((String) value);
+                    return;
+                case "startDate":
+                    objective.setStartDate((LocalDate) value);
+                    return;
+                case "endDate":
+                    objective.setEndDate((LocalDate) value);
+                    return;
+                case "taskList":
+                    objective.setTaskList(entities(value, EntityIndex.TASK, Task.class, index));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Project) {
+            Project project = (Project) entity;
+            switch (property) {
+                case "description":
+                    project.setDescription((String) value);
+                    return;
+                case "startDate":
+                    project.setStartDate((LocalDate) value);
+                    return;
+                case "endDate":
+                    project.setEndDate((LocalDate) value);
+                    return;
+                case "manager":
+                    User manager = value == null ? null : index.getUser((String) value);
+                    project.setManager(manager instanceof Manager ? (Manager) manager : null);
+                    return;
+                case "objectiveList":
+                    project.setObjectiveList(entities(value, EntityIndex.OBJECTIVE, Objective.class, index));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof Material) {
+            Material material = (Material) entity;
+            switch (property) {
+                case "name":
+                    material.setName((String) value);
+                    return;
+                case "type":
+                    material.setType((String) value);
+                    return;
+                case "tasks":
+                    material.setTasks(entities(value, EntityIndex.TASK, Task.class, index));
+                    return;
+                default:
+                    break;
+            }
+        } else if (entity instanceof WorkOrder) {
+            WorkOrder workOrder = (WorkOrder) entity;
+            switch (property) {
+                case "title":
+                    workOrder.setTitle((String) value);
+                    return;
+                case "description":
+                    workOrder.setDescription((String) value);
+                    return;
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unknown property " + property + " of " + entity);
+    }
+
+    private static <T> List<T> entities(Object ids, String kind, Class<T> type, EntityIndex index) {
+        List<T> entities = new ArrayList<>();
+        for (Object id : (List<?>) ids) {
+            Object entity = index.get(kind, (String) id);
+            if (type.isInstance(entity)) {
+                entities.add(type.cast(entity));
+            }
+        }
+        return entities;
+    }
+
+    private static <T> List<T> users(Object ids, Class<T> type, EntityIndex index) {
+        List<T> users = new ArrayList<>();
+        for (Object id : (List<?>) ids) {
+            User user = index.getUser((String) id);
+            if (type.isInstance(user)) {
+                users.add(type.cast(user));
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,112 @@
+package Sync;
+
+import Entities.Material;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.User;
+import Entities.WorkOrder;
+import Persistence.EntityIds;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The synced entities of a replica by kind and ID, and the users they refer to.
+ * <p>
+ * Entities are only known by identity: a copy of a synced entity with the same ID, such
+ * as one loaded in the same JVM by another replica, is not synced.
+ */
+final class EntityIndex {
+
+    static final String PROJECT = "Project";
+    static final String OBJECTIVE = "Objective";
+    static final String TASK = "Task";
+    static final String MATERIAL = "Material";
+    static final String WORK_ORDER = "WorkOrder";
+
+    private final Map<String, Map<String, Object>> entities = new HashMap<>();
+    private final Map<String, User> users = new HashMap<>();
+
+    EntityIndex(Collection<? extends User> users) {
+        for (User user : users) {
+            this.users.put(user.getId(), user);
+        }
+    }
+
+    /**
+     * Gets the kind of a synced entity.
+     *
+     * @return The simple class name of the entity, or null if entities of its class are
+     * not synced.
+     */
+    static String kindOf(Object entity) {
+        if (entity instanceof Task) {
+            return TASK;
+        } else if (entity instanceof Objective) {
+            return OBJECTIVE;
+        } else if (entity instanceof Project) {
+            return PROJECT;
+        } else if (entity instanceof Material) {
+            return MATERIAL;
+        } else if (entity instanceof WorkOrder) {
+            return WORK_ORDER;
+        }
+        return null;
+    }
+
+    static String key(String kind, String id) {
+        return kind + '/' + id;
+    }
+
+    Object get(String kind, String id) {
+        Map<String, Object> ofKind = entities.get(kind);
+        return ofKind == null ? null : ofKind.get(id);
+    }
+
+    User getUser(String id) {
+        return users.get(id);
+    }
+
+    boolean contains(String kind, Object entity) {
+        return kind != null && get(kind, EntityIds.of(entity)) == entity;
+    }
+
+    void put(String kind, String id, Object entity) {
+        entities.computeIfAbsent(kind, k -> new HashMap<>()).put(id, entity);
+    }
+
+    /**
+     * Adds an entity and the synced entities reachable from it that are not known yet.
+     *
+     * @param entity The entity.
+     * @param added  The list receiving the entities added.
+     */
+    void add(Object entity, List<Object> added) {
+        ArrayDeque<Object> toVisit = new ArrayDeque<>();
+        toVisit.add(entity);
+        while (!toVisit.isEmpty()) {
+            Object next = toVisit.poll();
+            String kind = kindOf(next);
+            String id = EntityIds.of(next);
+            if (get(kind, id) != null) {
+                continue;
+            }
+            put(kind, id, next);
+            added.add(next);
+            if (next instanceof Project) {
+                toVisit.addAll(((Project) next).getObjectiveList());
+            } else if (next instanceof Objective) {
+                toVisit.addAll(((Objective) next).getTaskList());
+            } else if (next instanceof Task) {
+                toVisit.addAll(((Task) next).getMaterials());
+                toVisit.addAll(((Task) next).getWorkOrders());
+            } else if (next instanceof Material) {
+                toVisit.addAll(((Material) next).getTasks());
+            }
+        }
+    }
+}
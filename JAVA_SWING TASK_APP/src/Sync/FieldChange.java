@@ -0,0 +1,76 @@
+package Sync;
+
+/**
+ * Represents the latest change of a field of an entity, as recorded by the
+ * {@link SyncLog}.
+ * <p>
+ * Values are in their transferable form: null, a string, an integer, a date, a status,
+ * the ID of an entity or the list of the IDs of some entities.
+ */
+public class FieldChange {
+
+    private final String kind;
+    private final String id;
+    private final String property;
+    private final Object value;
+    private final String replica;
+    private final long counter;
+    private final long sequence;
+
+    /**
+     * Constructs a FieldChange object with the specified parameters.
+     *
+     * @param kind     The simple class name of the entity.
+     * @param id       The ID of the entity.
+     * @param property The name of the field.
+     * @param value    The new value of the field.
+     * @param replica  The ID of the replica that made the change.
+     * @param counter  The counter of the change among those of the replica.
+     * @param sequence The position of the change in the log of the server.
+     */
+    public FieldChange(String kind, String id, String property, Object value, String replica, long counter,
+                       long sequence) {
+        this.kind = kind;
+        this.id = id;
+        this.property = property;
+        this.value = value;
+        this.replica = replica;
+        this.counter = counter;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + id + " " + property + " = " + value + " (" + replica + " " + counter + ")";
+    }
+
+    // Getters
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getReplica() {
+        return replica;
+    }
+
+    public long getCounter() {
+        return counter;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
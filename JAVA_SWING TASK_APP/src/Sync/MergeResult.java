@@ -0,0 +1,33 @@
+package Sync;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of merging the edits of a replica on the server.
+ */
+public class MergeResult {
+
+    private final List<FieldChange> applied;
+    private final List<Conflict> conflicts;
+
+    /**
+     * Constructs a MergeResult object with the specified parameters.
+     *
+     * @param applied   The changes recorded for the applied edits.
+     * @param conflicts The edits that were not applied.
+     */
+    public MergeResult(List<FieldChange> applied, List<Conflict> conflicts) {
+        this.applied = applied;
+        this.conflicts = conflicts;
+    }
+
+    // Getters
+
+    public List<FieldChange> getApplied() {
+        return applied;
+    }
+
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+}
@@ -0,0 +1,222 @@
+package Sync;
+
+import Entities.EntityEvents;
+import Entities.Project;
+import Entities.User;
+import Persistence.EntityIds;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the changes of the projects, objectives, tasks, materials and work orders of a
+ * workspace, so that replicas working on a copy of it only exchange what changed.
+ * <p>
+ * The log keeps the latest change of each field, with its sequence in the log and its
+ * dot: the replica that made it and a counter of the changes of that replica. A replica
+ * pulls the changes after the last sequence it saw, so the size of a delta depends on the
+ * number of fields changed since, not on the size of the workspace, and
+ * {@link #merge(String, List)} applies its offline edits when no other replica changed
+ * the same field since the version the edit was based on. Otherwise the edit is reported
+ * as a {@link Conflict} and the value of the server is kept. Edits of different fields of
+ * an entity never conflict.
+ * <p>
+ * Entities added to a synced list are synced from then on, and every field of them is
+ * recorded so that the replicas can create them. The log follows the entities as long as
+ * it is not closed.
+ */
+public class SyncLog implements PropertyChangeListener, AutoCloseable {
+
+    private final String replicaId;
+    private final EntityIndex index;
+    private final Map<String, FieldChange> latest = new HashMap<>();
+    private final TreeMap<Long, FieldChange> bySequence = new TreeMap<>();
+    private final Map<String, Long> counters = new HashMap<>();
+    private long sequence;
+    private Thread mergingThread;
+    private String mergingReplica;
+
+    /**
+     * Constructs a SyncLog object with the specified parameters.
+     *
+     * @param replicaId The ID given to the changes made on the server itself.
+     * @param users     The users the entities may refer to.
+     * @param projects  The projects to sync, with everything reachable from them.
+     */
+    public SyncLog(String replicaId, Collection<? extends User> users, Collection<Project> projects) {
+        this.replicaId = replicaId;
+        this.index = new EntityIndex(users);
+        List<Object> added = new ArrayList<>();
+        for (Project project : projects) {
+            index.add(project, added);
+        }
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Gets the position of the last change recorded. A replica checking out the workspace
+     * reads it before copying the entities, and pulls the changes from there.
+     *
+     * @return The sequence of the last change, or 0 if nothing changed.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the number of fields changed since the log was created.
+     *
+     * @return The number of changes kept.
+     */
+    public synchronized int getChangeCount() {
+        return bySequence.size();
+    }
+
+    /**
+     * Starts syncing a new project.
+     *
+     * @param project The project, recorded with everything reachable from it.
+     */
+    public synchronized void addProject(Project project) {
+        recordAdded(project, replicaId);
+    }
+
+    /**
+     * Gets the changes made after a position of the log.
+     *
+     * @param cursor The position of the last change the replica knows.
+     * @return The latest change of each field changed after the position, in log order.
+     */
+    public synchronized Delta changesSince(long cursor) {
+        return new Delta(new ArrayList<>(bySequence.tailMap(cursor, false).values()), sequence);
+    }
+
+    /**
+     * Applies the edits a replica made offline. Edits of a field changed by another
+     * replica since the version of the edit are not applied, nor those the entities
+     * refuse; the edits of an entity are applied together, so the dates of a task may be
+     * moved in any order.
+     *
+     * @param replica The ID of the replica.
+     * @param edits   The edits, in the order they were made.
+     * @return The changes recorded for the applied edits and the edits not applied.
+     */
+    public synchronized MergeResult merge(String replica, List<Edit> edits) {
+        List<Conflict> conflicts = new ArrayList<>();
+        Map<Object, Map<String, Object>> accepted = new LinkedHashMap<>();
+        Map<Object, List<Edit>> acceptedEdits = new HashMap<>();
+        for (Edit edit : edits) {
+            Object entity = index.get(edit.getKind(), edit.getId());
+            if (entity == null) {
+                conflicts.add(new Conflict(edit, null, "Unknown " + edit.getKind() + " " + edit.getId()));
+                continue;
+            }
+            if (!EntityFields.of(edit.getKind()).contains(edit.getProperty())) {
+                conflicts.add(new Conflict(edit, null, "Unknown property " + edit.getProperty()));
+                continue;
+            }
+            FieldChange current = latest.get(key(edit.getKind(), edit.getId(), edit.getProperty()));
+            if (current != null && !current.getReplica().equals(replica)
+                    && !edit.getBase().covers(current.getReplica(), current.getCounter())) {
+                conflicts.add(new Conflict(edit, current, "Changed by " + current.getReplica()));
+                continue;
+            }
+            accepted.computeIfAbsent(entity, e -> new LinkedHashMap<>()).put(edit.getProperty(), edit.getValue());
+            acceptedEdits.computeIfAbsent(entity, e -> new ArrayList<>()).add(edit);
+        }
+
+        long before = sequence;
+        mergingThread = Thread.currentThread();
+        mergingReplica = replica;
+        try {
+            for (Map.Entry<Object, Map<String, Object>> fields : accepted.entrySet()) {
+                try {
+                    EntityFields.apply(fields.getKey(), fields.getValue(), index);
+                } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+                    for (Edit edit : acceptedEdits.get(fields.getKey())) {
+                        conflicts.add(new Conflict(edit, null, e.getMessage() == null ? e.toString()
+                                : e.getMessage()));
+                    }
+                }
+            }
+        } finally {
+            mergingThread = null;
+            mergingReplica = null;
+        }
+        return new MergeResult(new ArrayList<>(bySequence.tailMap(before, false).values()), conflicts);
+    }
+
+    /**
+     * Records a change of a synced entity, made on the server or by a merge.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        Object source = event.getSource();
+        String kind = EntityIndex.kindOf(source);
+        if (kind == null) {
+            return;
+        }
+        Map<String, Object> fields = EntityFields.changed(kind, event.getPropertyName(), event.getNewValue());
+        if (fields.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (!index.contains(kind, source)) {
+                return;
+            }
+            String replica = Thread.currentThread() == mergingThread ? mergingReplica : replicaId;
+            String id = EntityIds.of(source);
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                record(kind, id, field.getKey(), EntityFields.toWire(field.getValue()), replica);
+            }
+            if (event.getNewValue() instanceof List) {
+                for (Object referenced : (List<?>) event.getNewValue()) {
+                    if (EntityIndex.kindOf(referenced) != null) {
+                        recordAdded(referenced, replica);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops following the changes of the entities.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    private void recordAdded(Object entity, String replica) {
+        List<Object> added = new ArrayList<>();
+        index.add(entity, added);
+        for (Object newEntity : added) {
+            String kind = EntityIndex.kindOf(newEntity);
+            String id = EntityIds.of(newEntity);
+            for (String property : EntityFields.of(kind)) {
+                record(kind, id, property, EntityFields.read(newEntity, property), replica);
+            }
+        }
+    }
+
+    private void record(String kind, String id, String property, Object value, String replica) {
+        long counter = counters.merge(replica, 1L, Long::sum);
+        FieldChange change = new FieldChange(kind, id, property, value, replica, counter, ++sequence);
+        FieldChange previous = latest.put(key(kind, id, property), change);
+        if (previous != null) {
+            bySequence.remove(previous.getSequence());
+        }
+        bySequence.put(change.getSequence(), change);
+    }
+
+    private static String key(String kind, String id, String property) {
+        return EntityIndex.key(kind, id) + '/' + property;
+    }
+}
@@ -0,0 +1,263 @@
+package Sync;
+
+import Entities.EntityEvents;
+import Entities.Project;
+import Entities.User;
+import Persistence.EntityIds;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The copy of a synced workspace kept by a desktop, which may be edited while offline.
+ * <p>
+ * The replica knows the version of each entity, as a {@link VersionVector} of the changes
+ * it received from the {@link SyncLog}, and records the changes made locally as
+ * {@link Edit}s based on that version. Several edits of a field before a sync are sent as
+ * the last one, based on the version of the first. A sync pushes the edits with
+ * {@link #getPendingEdits()} and {@link #acknowledge(List, MergeResult)}, then pulls the
+ * changes of the other replicas with {@link #apply(Delta)}; the fields with an edit not
+ * yet pushed keep their local value until then.
+ * <p>
+ * Changes are applied on the calling thread, firing the usual entity events: a Swing
+ * client applies them on the event dispatch thread. Only the entities checked out or
+ * created on the server are synced; references to entities created offline are left out
+ * by the server.
+ */
+public class SyncReplica implements PropertyChangeListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(SyncReplica.class.getName());
+
+    private final String replicaId;
+    private final List<User> users;
+    private final List<Project> projects;
+    private final EntityIndex index;
+    private final Map<String, VersionVector> versions = new HashMap<>();
+    private final LinkedHashMap<String, Edit> pending = new LinkedHashMap<>();
+    private long cursor;
+    private Thread applyingThread;
+
+    /**
+     * Constructs a SyncReplica object with the specified parameters.
+     *
+     * @param replicaId The ID of the replica, unique among those syncing the workspace.
+     * @param roots     The users and projects checked out, in the order of
+     *                  {@link Persistence.GraphSerializer}.
+     * @param cursor    The position of the log of the server the checkout reflects.
+     */
+    public SyncReplica(String replicaId, List<Object> roots, long cursor) {
+        this.replicaId = replicaId;
+        this.users = new ArrayList<>();
+        this.projects = new ArrayList<>();
+        for (Object root : roots) {
+            if (root instanceof User) {
+                users.add((User) root);
+            } else if (root instanceof Project) {
+                projects.add((Project) root);
+            }
+        }
+        this.index = new EntityIndex(users);
+        List<Object> added = new ArrayList<>();
+        for (Project project : projects) {
+            index.add(project, added);
+        }
+        this.cursor = cursor;
+        EntityEvents.addListener(this);
+    }
+
+    public String getReplicaId() {
+        return replicaId;
+    }
+
+    /**
+     * Gets the users of the workspace.
+     *
+     * @return The read-only list of the users.
+     */
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    /**
+     * Gets the projects of the workspace, including those created by other replicas.
+     *
+     * @return A copy of the list of the projects.
+     */
+    public synchronized List<Project> getProjects() {
+        return new ArrayList<>(projects);
+    }
+
+    /**
+     * Gets the position of the log of the server up to which the changes were applied.
+     *
+     * @return The position to pull the next changes from.
+     */
+    public synchronized long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Gets the version of an entity known by the replica.
+     *
+     * @param entity The entity.
+     * @return The version, which is empty for an entity not changed since the checkout.
+     */
+    public synchronized VersionVector getVersion(Object entity) {
+        return versions.getOrDefault(EntityIndex.key(EntityIndex.kindOf(entity), EntityIds.of(entity)),
+                VersionVector.EMPTY);
+    }
+
+    /**
+     * Gets the local edits not pushed yet.
+     *
+     * @return The edits, in the order they were first made.
+     */
+    public synchronized List<Edit> getPendingEdits() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Takes the outcome of pushing edits into account. The edits are no longer pending,
+     * unless the field was edited again since they were read, and the fields whose edit
+     * conflicted take the value of the server.
+     *
+     * @param sent   The edits pushed.
+     * @param result The outcome of the merge on the server.
+     */
+    public synchronized void acknowledge(List<Edit> sent, MergeResult result) {
+        for (Edit edit : sent) {
+            String key = key(edit.getKind(), edit.getId(), edit.getProperty());
+            if (pending.get(key) == edit) {
+                pending.remove(key);
+            }
+        }
+        for (FieldChange change : result.getApplied()) {
+            addToVersion(change);
+        }
+        List<FieldChange> serverValues = new ArrayList<>();
+        for (Conflict conflict : result.getConflicts()) {
+            if (conflict.getCurrent() != null) {
+                serverValues.add(conflict.getCurrent());
+            }
+        }
+        applyChanges(serverValues);
+    }
+
+    /**
+     * Applies the changes pulled from the server. Entities unknown to the replica are
+     * created, keeping their ID.
+     *
+     * @param delta The changes after the cursor of the replica.
+     * @return The number of fields changed, including the ones that already had the value.
+     */
+    public synchronized int apply(Delta delta) {
+        int applied = applyChanges(delta.getChanges());
+        cursor = Math.max(cursor, delta.getCursor());
+        return applied;
+    }
+
+    /**
+     * Records a local edit of a synced entity.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        Object source = event.getSource();
+        String kind = EntityIndex.kindOf(source);
+        if (kind == null) {
+            return;
+        }
+        Map<String, Object> fields = EntityFields.changed(kind, event.getPropertyName(), event.getNewValue());
+        if (fields.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (Thread.currentThread() == applyingThread || !index.contains(kind, source)) {
+                return;
+            }
+            String id = EntityIds.of(source);
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                String key = key(kind, id, field.getKey());
+                Edit previous = pending.get(key);
+                VersionVector base = previous != null ? previous.getBase()
+                        : versions.getOrDefault(EntityIndex.key(kind, id), VersionVector.EMPTY);
+                pending.put(key, new Edit(kind, id, field.getKey(), EntityFields.toWire(field.getValue()), base));
+            }
+        }
+    }
+
+    /**
+     * Stops recording the local edits.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+    }
+
+    private int applyChanges(List<FieldChange> changes) {
+        Map<String, Map<String, Object>> byEntity = new LinkedHashMap<>();
+        Map<String, FieldChange> firstChanges = new HashMap<>();
+        for (FieldChange change : changes) {
+            addToVersion(change);
+            String entityKey = EntityIndex.key(change.getKind(), change.getId());
+            byEntity.computeIfAbsent(entityKey, k -> new LinkedHashMap<>())
+                    .put(change.getProperty(), change.getValue());
+            firstChanges.putIfAbsent(entityKey, change);
+        }
+
+        int applied = 0;
+        applyingThread = Thread.currentThread();
+        try {
+            Map<String, Object> entities = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Object>> fields : byEntity.entrySet()) {
+                FieldChange first = firstChanges.get(fields.getKey());
+                Object entity = index.get(first.getKind(), first.getId());
+                if (entity == null) {
+                    try {
+                        entity = EntityFields.create(first.getKind(), first.getId(), fields.getValue());
+                    } catch (IllegalArgumentException | ClassCastException e) {
+                        LOGGER.log(Level.WARNING, "Could not create " + first.getKind() + " " + first.getId(), e);
+                        continue;
+                    }
+                    index.put(first.getKind(), first.getId(), entity);
+                    if (entity instanceof Project) {
+                        projects.add((Project) entity);
+                    }
+                }
+                entities.put(fields.getKey(), entity);
+            }
+            for (Map.Entry<String, Object> entity : entities.entrySet()) {
+                FieldChange first = firstChanges.get(entity.getKey());
+                Map<String, Object> fields = new LinkedHashMap<>(byEntity.get(entity.getKey()));
+                fields.keySet().removeIf(property -> pending.containsKey(key(first.getKind(), first.getId(),
+                        property)));
+                try {
+                    EntityFields.apply(entity.getValue(), fields, index);
+                    applied += fields.size();
+                } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+                    LOGGER.log(Level.WARNING, "Could not apply the changes of " + entity.getKey(), e);
+                }
+            }
+        } finally {
+            applyingThread = null;
+        }
+        return applied;
+    }
+
+    private void addToVersion(FieldChange change) {
+        versions.merge(EntityIndex.key(change.getKind(), change.getId()),
+                VersionVector.EMPTY.with(change.getReplica(), change.getCounter()),
+                (version, added) -> version.with(change.getReplica(), change.getCounter()));
+    }
+
+    private static String key(String kind, String id, String property) {
+        return EntityIndex.key(kind, id) + '/' + property;
+    }
+}
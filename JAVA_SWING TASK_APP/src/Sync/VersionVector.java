@@ -0,0 +1,94 @@
+package Sync;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents what a replica knows of the changes of an entity: for each replica that
+ * changed it, the highest counter of its changes. Version vectors are immutable.
+ */
+public final class VersionVector {
+
+    /**
+     * The version of an entity never changed since it was checked out.
+     */
+    public static final VersionVector EMPTY = new VersionVector(new TreeMap<>());
+
+    private final TreeMap<String, Long> counters;
+
+    private VersionVector(TreeMap<String, Long> counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * Constructs a version vector from the counters of each replica.
+     *
+     * @param counters The highest counter known for each replica.
+     * @return The version vector.
+     */
+    public static VersionVector of(Map<String, Long> counters) {
+        return counters.isEmpty() ? EMPTY : new VersionVector(new TreeMap<>(counters));
+    }
+
+    /**
+     * Gets the highest counter known for a replica.
+     *
+     * @param replica The ID of the replica.
+     * @return The counter, or 0 if no change of the replica is known.
+     */
+    public long get(String replica) {
+        return counters.getOrDefault(replica, 0L);
+    }
+
+    /**
+     * Tells whether a change is known.
+     *
+     * @param replica The replica that made the change.
+     * @param counter The counter of the change.
+     * @return true if the change is covered by this version.
+     */
+    public boolean covers(String replica, long counter) {
+        return get(replica) >= counter;
+    }
+
+    /**
+     * Adds a change.
+     *
+     * @param replica The replica that made the change.
+     * @param counter The counter of the change.
+     * @return The version knowing the change, which is this one if it already did.
+     */
+    public VersionVector with(String replica, long counter) {
+        if (covers(replica, counter)) {
+            return this;
+        }
+        TreeMap<String, Long> merged = new TreeMap<>(counters);
+        merged.put(replica, counter);
+        return new VersionVector(merged);
+    }
+
+    /**
+     * Gets the counters of each replica.
+     *
+     * @return The read-only counters, sorted by replica ID.
+     */
+    public Map<String, Long> toMap() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof VersionVector && counters.equals(((VersionVector) other).counters);
+    }
+
+    @Override
+    public int hashCode() {
+        return counters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return counters.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package UI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the entity changes coalesced during one frame, one {@link EntityDelta} per
+ * modified entity, in the order of their first change.
+ */
+public class EntityChangeBatch {
+
+    private final List<EntityDelta> deltas;
+    private final int eventCount;
+
+    EntityChangeBatch(List<EntityDelta> deltas, int eventCount) {
+        this.deltas = Collections.unmodifiableList(deltas);
+        this.eventCount = eventCount;
+    }
+
+    public List<EntityDelta> getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * Gets the deltas of the entities of a type, such as the rows of a task table.
+     *
+     * @param type The entity type; subclasses are included.
+     * @return The deltas of the entities of that type.
+     */
+    public List<EntityDelta> getDeltas(Class<?> type) {
+        List<EntityDelta> result = new ArrayList<>();
+        for (EntityDelta delta : deltas) {
+            if (type.isInstance(delta.getEntity())) {
+                result.add(delta);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of setter events coalesced into the batch.
+     *
+     * @return The number of events.
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+}
@@ -0,0 +1,146 @@
+package UI;
+
+import Entities.EntityEvents;
+
+import javax.swing.SwingUtilities;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the entity changes made through the setters into one batch per frame,
+ * delivered to Swing views on the event dispatch thread.
+ * <p>
+ * Setter events can come from any thread and in bursts, such as 10k status changes
+ * during an import. The bus only records them: the first event of a frame schedules a
+ * flush on the event dispatch thread at the end of the frame, where the changes recorded
+ * meanwhile are handed to the listeners as one {@link EntityChangeBatch} holding a
+ * single {@link EntityDelta} per entity. A table model can then update only the rows of the changed entities.
+ */
+public class EntityChangeBus implements PropertyChangeListener, AutoCloseable {
+
+    private static final Duration FRAME = Duration.ofMillis(16);
+
+    private final CopyOnWriteArrayList<EntityChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private final long frameNanos;
+    private final ScheduledExecutorService scheduler;
+    private IdentityHashMap<Object, EntityDelta> pending = new IdentityHashMap<>();
+    private List<EntityDelta> order = new ArrayList<>();
+    private int eventCount;
+    private boolean scheduled;
+
+    /**
+     * Constructs an EntityChangeBus delivering at most one batch every 16 ms, about one
+     * per frame at 60 frames per second.
+     */
+    public EntityChangeBus() {
+        this(FRAME);
+    }
+
+    /**
+     * Constructs an EntityChangeBus with the specified frame length.
+     *
+     * @param frame The time during which changes are coalesced before being delivered.
+     */
+    public EntityChangeBus(Duration frame) {
+        this.frameNanos = frame.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-change-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        EntityEvents.addListener(this);
+    }
+
+    /**
+     * Registers a listener called on the event dispatch thread with each batch.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(EntityChangeListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(EntityChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records a setter event for the next batch.
+     *
+     * @param event The change made through an entity setter.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        synchronized (lock) {
+            EntityDelta delta = pending.get(event.getSource());
+            if (delta == null) {
+                delta = new EntityDelta(event.getSource());
+                pending.put(event.getSource(), delta);
+                order.add(delta);
+            }
+            delta.record(event.getPropertyName(), event.getOldValue(), event.getNewValue());
+            eventCount++;
+            if (!scheduled) {
+                scheduled = true;
+                scheduler.schedule(() -> SwingUtilities.invokeLater(this::flush), frameNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Delivers the changes recorded so far without waiting for the end of the frame.
+     *
+     * @throws IllegalStateException if not called on the event dispatch thread.
+     */
+    public void flush() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("Entity changes are delivered on the event dispatch thread.");
+        }
+        List<EntityDelta> deltas;
+        int events;
+        synchronized (lock) {
+            scheduled = false;
+            deltas = order;
+            events = eventCount;
+            pending = new IdentityHashMap<>();
+            order = new ArrayList<>();
+            eventCount = 0;
+        }
+        deltas.removeIf(delta -> !delta.settle());
+        if (deltas.isEmpty()) {
+            return;
+        }
+        EntityChangeBatch batch = new EntityChangeBatch(deltas, events);
+        for (EntityChangeListener listener : listeners) {
+            listener.entitiesChanged(batch);
+        }
+    }
+
+    /**
+     * Stops recording the entity changes. Changes not delivered yet are dropped.
+     */
+    @Override
+    public void close() {
+        EntityEvents.removeListener(this);
+        scheduler.shutdownNow();
+        synchronized (lock) {
+            pending = new IdentityHashMap<>();
+            order = new ArrayList<>();
+            eventCount = 0;
+        }
+    }
+}
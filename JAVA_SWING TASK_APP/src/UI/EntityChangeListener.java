@@ -0,0 +1,15 @@
+package UI;
+
+/**
+ * Receives the entity changes coalesced by an {@link EntityChangeBus}, on the Swing event
+ * dispatch thread.
+ */
+public interface EntityChangeListener {
+
+    /**
+     * Called once per frame in which entities changed.
+     *
+     * @param batch The net changes of the frame.
+     */
+    void entitiesChanged(EntityChangeBatch batch);
+}
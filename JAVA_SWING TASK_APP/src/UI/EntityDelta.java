@@ -0,0 +1,88 @@
+package UI;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents the net changes of one entity during a frame: for each modified property,
+ * its value before the first change and after the last one. A property set back to its
+ * original value is not part of the delta.
+ */
+public class EntityDelta {
+
+    private final Object entity;
+    private final Map<String, Object[]> changes = new LinkedHashMap<>();
+
+    EntityDelta(Object entity) {
+        this.entity = entity;
+    }
+
+    void record(String property, Object oldValue, Object newValue) {
+        Object[] change = changes.get(property);
+        if (change == null) {
+            changes.put(property, new Object[]{oldValue, newValue});
+        } else {
+            change[1] = newValue;
+        }
+    }
+
+    /**
+     * Drops the properties whose last value is their first one.
+     *
+     * @return true if some property still differs.
+     */
+    boolean settle() {
+        changes.values().removeIf(change -> Objects.equals(change[0], change[1]));
+        return !changes.isEmpty();
+    }
+
+    // Getters
+
+    /**
+     * Gets the modified entity, which table models use to find its row.
+     *
+     * @return The entity.
+     */
+    public Object getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets the modified properties, named after the entity fields, in the order of their
+     * first change.
+     *
+     * @return The read-only set of property names.
+     */
+    public Set<String> getProperties() {
+        return Collections.unmodifiableSet(changes.keySet());
+    }
+
+    public boolean hasChanged(String property) {
+        return changes.containsKey(property);
+    }
+
+    /**
+     * Gets the value a property had before the frame.
+     *
+     * @param property The property name.
+     * @return The previous value, or null if the property did not change.
+     */
+    public Object getOldValue(String property) {
+        Object[] change = changes.get(property);
+        return change == null ? null : change[0];
+    }
+
+    /**
+     * Gets the value a property has after the frame.
+     *
+     * @param property The property name.
+     * @return The new value, or null if the property did not change.
+     */
+    public Object getNewValue(String property) {
+        Object[] change = changes.get(property);
+        return change == null ? null : change[1];
+    }
+}
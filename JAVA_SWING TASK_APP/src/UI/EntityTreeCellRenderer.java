@@ -0,0 +1,32 @@
+package UI;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import javax.swing.JTree;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import java.awt.Component;
+
+/**
+ * Shows the nodes of a {@link ProjectTreeModel} by their description.
+ */
+public class EntityTreeCellRenderer extends DefaultTreeCellRenderer {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+                                                  boolean leaf, int row, boolean hasFocus) {
+        Object label = value;
+        if (value instanceof Project) {
+            label = ((Project) value).getDescription();
+        } else if (value instanceof Objective) {
+            label = ((Objective) value).getDescription();
+        } else if (value instanceof Task) {
+            Task task = (Task) value;
+            label = task.getDescription() + " (" + task.getStatus() + ")";
+        }
+        return super.getTreeCellRendererComponent(tree, label, selected, expanded, leaf, row, hasFocus);
+    }
+}
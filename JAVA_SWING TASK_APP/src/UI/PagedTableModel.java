@@ -0,0 +1,241 @@
+package UI;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Table model showing rows fetched page by page from a {@link RowSource}.
+ * <p>
+ * Only the pages holding the rows the table paints are fetched, on a background thread,
+ * and the most recently used ones are kept. A row of a page not loaded yet shows empty
+ * cells until its page arrives, so scrolling through a million rows never blocks the
+ * event dispatch thread. Cell values are read from the row entities themselves.
+ * <p>
+ * Registered on an {@link EntityChangeBus}, the model repaints only the loaded rows whose
+ * entity changed, and refreshes itself when {@link #changesRows(EntityDelta)} says a change
+ * adds or removes rows. Apart from {@link #close()}, the methods must be called on the
+ * event dispatch thread.
+ *
+ * @param <T> The type of the rows.
+ */
+public abstract class PagedTableModel<T> extends AbstractTableModel implements EntityChangeListener, AutoCloseable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(PagedTableModel.class.getName());
+    private static final int PAGE_SIZE = 256;
+    private static final int MAX_CACHED_PAGES = 64;
+    private static final int MAX_SINGLE_ROW_UPDATES = 64;
+
+    private final RowSource<T> source;
+    private final Class<T> rowType;
+    private final String[] columnNames;
+    private final Class<?>[] columnClasses;
+    private final ExecutorService loader;
+    private final LinkedHashMap<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final IdentityHashMap<Object, Integer> rowsByEntity = new IdentityHashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private int rowCount;
+    private int generation;
+
+    /**
+     * Constructs a PagedTableModel and starts counting its rows.
+     *
+     * @param source        The source of the rows.
+     * @param rowType       The type of the rows, used to pick the changes affecting them.
+     * @param columnNames   The names of the columns.
+     * @param columnClasses The classes of the column values.
+     */
+    protected PagedTableModel(RowSource<T> source, Class<T> rowType, String[] columnNames, Class<?>[] columnClasses) {
+        this.source = source;
+        this.rowType = rowType;
+        this.columnNames = columnNames.clone();
+        this.columnClasses = columnClasses.clone();
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "table-page-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresh();
+    }
+
+    /**
+     * Gets the value of a cell from the entity of its row.
+     *
+     * @param row    The entity of the row.
+     * @param column The column index.
+     * @return The value of the cell.
+     */
+    protected abstract Object valueOf(T row, int column);
+
+    /**
+     * Tells whether a change adds or removes rows, in which case the model is refreshed.
+     *
+     * @param delta The changes of an entity.
+     * @return true if the rows must be counted and fetched again.
+     */
+    protected boolean changesRows(EntityDelta delta) {
+        return false;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columnClasses[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row == null ? null : valueOf(row, columnIndex);
+    }
+
+    /**
+     * Gets the entity of a row, fetching its page in the background if needed.
+     *
+     * @param rowIndex The row index.
+     * @return The entity, or null while its page is being fetched.
+     */
+    public T getRow(int rowIndex) {
+        int page = rowIndex / PAGE_SIZE;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        int offset = rowIndex - page * PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Drops the loaded pages and counts the rows again.
+     */
+    public void refresh() {
+        int refreshed = ++generation;
+        pages.clear();
+        rowsByEntity.clear();
+        loading.clear();
+        loader.execute(() -> {
+            try {
+                int size = source.size();
+                SwingUtilities.invokeLater(() -> {
+                    if (refreshed == generation) {
+                        rowCount = size;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Counting the rows failed", e);
+            }
+        });
+    }
+
+    /**
+     * Repaints the loaded rows of the changed entities, or refreshes the model if rows
+     * were added or removed.
+     *
+     * @param batch The changes of the last frame.
+     */
+    @Override
+    public void entitiesChanged(EntityChangeBatch batch) {
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        int count = 0;
+        for (EntityDelta delta : batch.getDeltas()) {
+            if (changesRows(delta)) {
+                refresh();
+                return;
+            }
+            Integer row = rowType.isInstance(delta.getEntity()) ? rowsByEntity.get(delta.getEntity()) : null;
+            if (row != null) {
+                first = Math.min(first, row);
+                last = Math.max(last, row);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        if (count > MAX_SINGLE_ROW_UPDATES) {
+            fireTableRowsUpdated(first, last);
+            return;
+        }
+        for (EntityDelta delta : batch.getDeltas()) {
+            Integer row = rowType.isInstance(delta.getEntity()) ? rowsByEntity.get(delta.getEntity()) : null;
+            if (row != null) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread fetching the pages.
+     */
+    @Override
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    private void request(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        int requested = generation;
+        int from = page * PAGE_SIZE;
+        loader.execute(() -> {
+            try {
+                List<T> rows = source.fetch(from, PAGE_SIZE);
+                SwingUtilities.invokeLater(() -> loaded(requested, page, rows));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Fetching rows " + from + " to " + (from + PAGE_SIZE) + " failed", e);
+                SwingUtilities.invokeLater(() -> loading.remove(page));
+            }
+        });
+    }
+
+    private void loaded(int requested, int page, List<T> rows) {
+        if (requested != generation) {
+            return;
+        }
+        loading.remove(page);
+        pages.put(page, rows);
+        int from = page * PAGE_SIZE;
+        for (int i = 0; i < rows.size(); i++) {
+            rowsByEntity.put(rows.get(i), from + i);
+        }
+        Iterator<Map.Entry<Integer, List<T>>> eldest = pages.entrySet().iterator();
+        while (pages.size() > MAX_CACHED_PAGES) {
+            for (Object entity : eldest.next().getValue()) {
+                rowsByEntity.remove(entity);
+            }
+            eldest.remove();
+        }
+        if (!rows.isEmpty() && from < rowCount) {
+            fireTableRowsUpdated(from, Math.min(rowCount, from + rows.size()) - 1);
+        }
+    }
+}
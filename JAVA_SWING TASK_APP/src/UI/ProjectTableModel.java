@@ -0,0 +1,42 @@
+package UI;
+
+import Entities.Project;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Table of projects, fetched page by page.
+ */
+public class ProjectTableModel extends PagedTableModel<Project> {
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {"Description", "Manager", "Start date", "End date", "Objectives"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, LocalDate.class, LocalDate.class,
+            Integer.class};
+
+    /**
+     * Constructs a ProjectTableModel over the specified projects.
+     *
+     * @param projects The projects shown; the model must be refreshed after adding or removing some.
+     */
+    public ProjectTableModel(List<Project> projects) {
+        super(RowSource.of(projects), Project.class, COLUMN_NAMES, COLUMN_CLASSES);
+    }
+
+    @Override
+    protected Object valueOf(Project project, int column) {
+        switch (column) {
+            case 0:
+                return project.getDescription();
+            case 1:
+                return project.getManager() == null ? null : project.getManager().getFullName();
+            case 2:
+                return project.getStartDate();
+            case 3:
+                return project.getEndDate();
+            default:
+                return project.getObjectiveList().size();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package UI;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree of projects, their objectives and the tasks of each objective.
+ * <p>
+ * Children are read from the read-only lists of the entities without copying them, and a
+ * {@link javax.swing.JTree} only asks for the children of the expanded nodes it paints,
+ * so objectives with 100k tasks open instantly (use {@code setLargeModel(true)} and a
+ * fixed row height on the tree). The parent and index of each node handed to the tree are
+ * remembered, so that, registered on an {@link EntityChangeBus}, the model can notify the
+ * tree of the changed nodes without searching the lists.
+ * <p>
+ * The methods must be called on the event dispatch thread.
+ */
+public class ProjectTreeModel implements TreeModel, EntityChangeListener {
+
+    private final Object root = new Object() {
+        @Override
+        public String toString() {
+            return "Projects";
+        }
+    };
+    private final EventListenerList listeners = new EventListenerList();
+    private final IdentityHashMap<Object, Object> parents = new IdentityHashMap<>();
+    private final IdentityHashMap<Object, Integer> indexes = new IdentityHashMap<>();
+    private List<Project> projects;
+
+    /**
+     * Constructs a ProjectTreeModel over the specified projects.
+     *
+     * @param projects The projects at the top of the tree.
+     */
+    public ProjectTreeModel(List<Project> projects) {
+        this.projects = Collections.unmodifiableList(projects);
+    }
+
+    /**
+     * Replaces the projects at the top of the tree.
+     *
+     * @param projects The new projects.
+     */
+    public void setProjects(List<Project> projects) {
+        this.projects = Collections.unmodifiableList(projects);
+        parents.clear();
+        indexes.clear();
+        fireStructureChanged(new TreePath(root));
+    }
+
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        Object child = childrenOf(parent).get(index);
+        parents.put(child, parent);
+        indexes.put(child, index);
+        return child;
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        return childrenOf(parent).size();
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return node instanceof Task;
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (parent == null || child == null) {
+            return -1;
+        }
+        List<?> children = childrenOf(parent);
+        Integer index = indexes.get(child);
+        if (index != null && index < children.size() && children.get(index) == child) {
+            return index;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // The tree is not editable
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) {
+        listeners.add(TreeModelListener.class, listener);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) {
+        listeners.remove(TreeModelListener.class, listener);
+    }
+
+    /**
+     * Notifies the tree of the nodes it shows whose entity changed. A node whose children
+     * changed is reloaded with its whole subtree.
+     *
+     * @param batch The changes of the last frame.
+     */
+    @Override
+    public void entitiesChanged(EntityChangeBatch batch) {
+        for (EntityDelta delta : batch.getDeltas()) {
+            Object node = delta.getEntity();
+            if (!(node instanceof Project || node instanceof Objective || node instanceof Task)) {
+                continue;
+            }
+            TreePath path = pathTo(node);
+            if (path == null) {
+                continue;
+            }
+            if (delta.hasChanged("objectiveList") || delta.hasChanged("taskList")) {
+                forgetChildren(node);
+                fireStructureChanged(path);
+            } else {
+                TreePath parentPath = path.getParentPath();
+                int index = getIndexOfChild(parentPath.getLastPathComponent(), node);
+                if (index >= 0) {
+                    fireNodeChanged(parentPath, index, node);
+                }
+            }
+        }
+    }
+
+    private List<?> childrenOf(Object parent) {
+        if (parent == root) {
+            return projects;
+        }
+        if (parent instanceof Project) {
+            return ((Project) parent).getObjectiveList();
+        }
+        if (parent instanceof Objective) {
+            return ((Objective) parent).getTaskList();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Builds the path of a node handed to the tree.
+     *
+     * @return The path, or null if the tree never asked for the node.
+     */
+    private TreePath pathTo(Object node) {
+        if (node == root) {
+            return new TreePath(root);
+        }
+        Object parent = parents.get(node);
+        if (parent == null) {
+            return null;
+        }
+        TreePath parentPath = pathTo(parent);
+        return parentPath == null ? null : parentPath.pathByAddingChild(node);
+    }
+
+    private void forgetChildren(Object parent) {
+        Iterator<Map.Entry<Object, Object>> entries = parents.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Object, Object> entry = entries.next();
+            if (entry.getValue() == parent) {
+                indexes.remove(entry.getKey());
+                entries.remove();
+            }
+        }
+    }
+
+    private void fireStructureChanged(TreePath path) {
+        TreeModelEvent event = new TreeModelEvent(this, path);
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeStructureChanged(event);
+        }
+    }
+
+    private void fireNodeChanged(TreePath parentPath, int index, Object node) {
+        TreeModelEvent event = new TreeModelEvent(this, parentPath, new int[]{index}, new Object[]{node});
+        for (TreeModelListener listener : listeners.getListeners(TreeModelListener.class)) {
+            listener.treeNodesChanged(event);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package UI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Supplies the rows of a {@link PagedTableModel} in windows. Both methods are called on
+ * a background thread, never on the event dispatch thread.
+ *
+ * @param <T> The type of the rows.
+ */
+public interface RowSource<T> {
+
+    /**
+     * Counts the rows. The model calls it when it is refreshed and keeps the result until
+     * the next refresh, so it may walk the data.
+     *
+     * @return The number of rows.
+     */
+    int size();
+
+    /**
+     * Fetches a window of rows.
+     *
+     * @param from  The index of the first row.
+     * @param count The maximum number of rows.
+     * @return The rows, fewer than count at the end of the data.
+     */
+    List<T> fetch(int from, int count);
+
+    /**
+     * Creates a source over a list, which must not be modified while rows are fetched.
+     *
+     * @param rows The rows.
+     * @param <T>  The type of the rows.
+     * @return A source fetching windows of the list.
+     */
+    static <T> RowSource<T> of(List<? extends T> rows) {
+        return new RowSource<T>() {
+            @Override
+            public int size() {
+                return rows.size();
+            }
+
+            @Override
+            public List<T> fetch(int from, int count) {
+                int to = Math.min(rows.size(), from + count);
+                return from >= to ? new ArrayList<>() : new ArrayList<T>(rows.subList(from, to));
+            }
+        };
+    }
+}
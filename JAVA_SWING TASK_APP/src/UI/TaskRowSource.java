@@ -0,0 +1,87 @@
+package UI;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The tasks of a list of projects, objective after objective, as table rows.
+ * <p>
+ * {@link #size()} records where the tasks of each objective start. A window is then
+ * located with a binary search and read from the read-only task lists, so fetching a
+ * window of 1M tasks costs the size of the window, not the number of tasks.
+ */
+public class TaskRowSource implements RowSource<Task> {
+
+    private final List<Project> projects;
+    private volatile Layout layout = new Layout(new Objective[0], new int[]{0});
+
+    /**
+     * The objectives and the index of their first task, as of the last count.
+     */
+    private static final class Layout {
+        final Objective[] objectives;
+        final int[] offsets;
+
+        Layout(Objective[] objectives, int[] offsets) {
+            this.objectives = objectives;
+            this.offsets = offsets;
+        }
+    }
+
+    /**
+     * Constructs a TaskRowSource over the tasks of the specified projects.
+     *
+     * @param projects The projects, which the table model must be refreshed after modifying.
+     */
+    public TaskRowSource(List<Project> projects) {
+        this.projects = projects;
+    }
+
+    @Override
+    public int size() {
+        List<Objective> objectives = new ArrayList<>();
+        for (Project project : projects) {
+            objectives.addAll(project.getObjectiveList());
+        }
+        int[] offsets = new int[objectives.size() + 1];
+        for (int i = 0; i < objectives.size(); i++) {
+            offsets[i + 1] = offsets[i] + objectives.get(i).getTaskList().size();
+        }
+        layout = new Layout(objectives.toArray(new Objective[0]), offsets);
+        return offsets[objectives.size()];
+    }
+
+    @Override
+    public List<Task> fetch(int from, int count) {
+        Layout current = layout;
+        List<Task> rows = new ArrayList<>(count);
+        int objective = Arrays.binarySearch(current.offsets, from);
+        if (objective < 0) {
+            objective = -objective - 2;
+        }
+        // Skip the objectives without tasks starting at the same offset
+        while (objective < current.objectives.length && current.offsets[objective + 1] <= from) {
+            objective++;
+        }
+        int index = from;
+        while (rows.size() < count && objective < current.objectives.length) {
+            List<Task> tasks = current.objectives[objective].getTaskList();
+            int start = index - current.offsets[objective];
+            int end = Math.min(tasks.size(), start + count - rows.size());
+            if (start < end) {
+                rows.addAll(tasks.subList(start, end));
+                index += end - start;
+            }
+            objective++;
+            if (objective < current.objectives.length) {
+                index = Math.max(index, current.offsets[objective]);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,53 @@
+package UI;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Table of the tasks of a list of projects, fetched page by page.
+ */
+public class TaskTableModel extends PagedTableModel<Task> {
+
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMN_NAMES = {"Description", "Priority", "Status", "Start date", "End date", "Members"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Integer.class, TaskStatus.class, LocalDate.class,
+            LocalDate.class, Integer.class};
+
+    /**
+     * Constructs a TaskTableModel over the tasks of the specified projects.
+     *
+     * @param projects The projects whose tasks are shown.
+     */
+    public TaskTableModel(List<Project> projects) {
+        super(new TaskRowSource(projects), Task.class, COLUMN_NAMES, COLUMN_CLASSES);
+    }
+
+    @Override
+    protected Object valueOf(Task task, int column) {
+        switch (column) {
+            case 0:
+                return task.getDescription();
+            case 1:
+                return task.getPriority();
+            case 2:
+                return task.getStatus();
+            case 3:
+                return task.getStartDate();
+            case 4:
+                return task.getEndDate();
+            default:
+                return task.getMembers().size();
+        }
+    }
+
+    @Override
+    protected boolean changesRows(EntityDelta delta) {
+        return (delta.getEntity() instanceof Objective && delta.hasChanged("taskList"))
+                || (delta.getEntity() instanceof Project && delta.hasChanged("objectiveList"));
+    }
+}
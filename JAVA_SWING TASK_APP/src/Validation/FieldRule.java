@@ -0,0 +1,16 @@
+package Validation;
+
+/**
+ * A validation rule applied to the value of a text field.
+ */
+@FunctionalInterface
+public interface FieldRule {
+
+    /**
+     * Checks a value.
+     *
+     * @param value The value to check, possibly null.
+     * @return null if the value is valid, otherwise the message describing the violation.
+     */
+    String check(String value);
+}
@@ -0,0 +1,149 @@
+package Validation;
+
+import java.util.regex.Pattern;
+
+/**
+ * Factories of the common {@link FieldRule}s.
+ * <p>
+ * The phone number, email and password rules are single-pass scanners equivalent to the
+ * regular expressions the users were validated with, without their matching cost.
+ */
+public final class Rules {
+
+    private static final String PASSWORD_SPECIAL_CHARACTERS = "@#$%^&+=";
+
+    private Rules() {
+    }
+
+    /**
+     * Rejects null and empty values.
+     *
+     * @param message The violation message.
+     * @return The rule.
+     */
+    public static FieldRule notEmpty(String message) {
+        return value -> value == null || value.isEmpty() ? message : null;
+    }
+
+    /**
+     * Rejects values shorter than the given length. Null values are left to other rules.
+     *
+     * @param length  The minimum length.
+     * @param message The violation message.
+     * @return The rule.
+     */
+    public static FieldRule minLength(int length, String message) {
+        return value -> value != null && value.length() < length ? message : null;
+    }
+
+    /**
+     * Rejects values not matching a regular expression, compiled once.
+     *
+     * @param regex   The regular expression the whole value must match.
+     * @param message The violation message.
+     * @return The rule.
+     */
+    public static FieldRule pattern(String regex, String message) {
+        Pattern pattern = Pattern.compile(regex);
+        return value -> value == null || !pattern.matcher(value).matches() ? message : null;
+    }
+
+    /**
+     * Accepts 10 to 25 digits, dots, spaces, parentheses and dashes, optionally
+     * preceded by a plus sign.
+     *
+     * @param message The violation message.
+     * @return The rule.
+     */
+    public static FieldRule phoneNumber(String message) {
+        return value -> isValidPhoneNumber(value) ? null : message;
+    }
+
+    /**
+     * Accepts a non-empty local part of letters, digits and {@code +_.-}, an at sign and a
+     * non-empty domain of letters, digits, dots and dashes.
+     *
+     * @param message The violation message.
+     * @return The rule.
+     */
+    public static FieldRule email(String message) {
+        return value -> isValidEmail(value) ? null : message;
+    }
+
+    /**
+     * Requires at least one lower case letter, one upper case letter, one digit and one
+     * of {@code @#$%^&+=}, on a single line.
+     *
+     * @param message The violation message.
+     * @return The rule.
+     */
+    public static FieldRule passwordStrength(String message) {
+        return value -> isStrongPassword(value) ? null : message;
+    }
+
+    static boolean isValidPhoneNumber(String value) {
+        if (value == null) {
+            return false;
+        }
+        int start = !value.isEmpty() && value.charAt(0) == '+' ? 1 : 0;
+        int length = value.length() - start;
+        if (length < 10 || length > 25) {
+            return false;
+        }
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != ' ' && c != '(' && c != ')' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isValidEmail(String value) {
+        if (value == null) {
+            return false;
+        }
+        int at = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (!isAsciiLetterOrDigit(c) && c != '.' && c != '-' && (at >= 0 || (c != '+' && c != '_'))) {
+                return false;
+            }
+        }
+        return at > 0 && at < value.length() - 1;
+    }
+
+    static boolean isStrongPassword(String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        boolean lower = false;
+        boolean upper = false;
+        boolean digit = false;
+        boolean special = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (PASSWORD_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                special = true;
+            } else if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return lower && upper && digit && special;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,48 @@
+package Validation;
+
+import Entities.User;
+
+import java.util.function.Function;
+
+/**
+ * The text fields of a {@link User} checked by the {@link UserValidator}.
+ * <p>
+ * The password can only be checked when it is set: users only keep a hash of it.
+ */
+public enum UserField {
+    USERNAME(User::getUsername),
+    PASSWORD(null),
+    FULL_NAME(User::getFullName),
+    PHONE_NUMBER(User::getPhoneNumber),
+    EMAIL(User::getEmail),
+    ROLE(User::getRole);
+
+    private final Function<User, String> getter;
+
+    UserField(Function<User, String> getter) {
+        this.getter = getter;
+    }
+
+    /**
+     * Tells whether the value of this field can be read back from a user.
+     *
+     * @return true if {@link #valueOf(User)} is supported.
+     */
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    /**
+     * Gets the value of this field in a user.
+     *
+     * @param user The user.
+     * @return The value of the field.
+     * @throws UnsupportedOperationException if the field cannot be read back.
+     */
+    public String valueOf(User user) {
+        if (getter == null) {
+            throw new UnsupportedOperationException(name() + " cannot be read from a user");
+        }
+        return getter.apply(user);
+    }
+}
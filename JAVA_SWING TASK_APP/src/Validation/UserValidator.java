@@ -0,0 +1,137 @@
+package Validation;
+
+import Entities.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validates the fields of users against rules configurable per field.
+ * <p>
+ * A validator is immutable: the {@code with} methods return a modified copy, so a
+ * validator can be shared between threads. {@link #DEFAULT} holds the rules enforced by
+ * the {@link User} setters.
+ */
+public final class UserValidator {
+
+    /**
+     * The rules enforced by the {@link User} setters.
+     */
+    public static final UserValidator DEFAULT = new UserValidator(new EnumMap<>(UserField.class))
+            .withRules(UserField.USERNAME, Rules.notEmpty("Username cannot be null or empty"))
+            .withRules(UserField.PASSWORD,
+                    Rules.notEmpty("Password cannot be null or empty"),
+                    Rules.minLength(8, "Password must be at least 8 characters long"),
+                    Rules.passwordStrength("Password must include at least one uppercase letter, one lowercase letter, one digit, and one special character"))
+            .withRules(UserField.FULL_NAME, Rules.notEmpty("Full name cannot be null or empty"))
+            .withRules(UserField.PHONE_NUMBER, Rules.phoneNumber("Invalid phone number"))
+            .withRules(UserField.EMAIL, Rules.email("Invalid email format"));
+
+    private final Map<UserField, List<FieldRule>> rules;
+
+    private UserValidator(Map<UserField, List<FieldRule>> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Returns a copy of this validator checking the given field with the given rules
+     * instead of its current ones.
+     *
+     * @param field The field.
+     * @param rules The rules of the field, checked in order.
+     * @return The modified validator.
+     */
+    public UserValidator withRules(UserField field, FieldRule... rules) {
+        Map<UserField, List<FieldRule>> copy = new EnumMap<>(UserField.class);
+        copy.putAll(this.rules);
+        copy.put(field, Collections.unmodifiableList(Arrays.asList(rules.clone())));
+        return new UserValidator(copy);
+    }
+
+    /**
+     * Returns a copy of this validator checking the given field with one more rule.
+     *
+     * @param field The field.
+     * @param rule  The rule to add after the current rules of the field.
+     * @return The modified validator.
+     */
+    public UserValidator withRule(UserField field, FieldRule rule) {
+        List<FieldRule> fieldRules = new ArrayList<>(rules.getOrDefault(field, List.of()));
+        fieldRules.add(rule);
+        return withRules(field, fieldRules.toArray(new FieldRule[0]));
+    }
+
+    /**
+     * Checks a field value and throws on the first violated rule.
+     *
+     * @param field The field.
+     * @param value The value to check.
+     * @throws IllegalArgumentException if the value violates a rule of the field.
+     */
+    public void require(UserField field, String value) {
+        String message = check(field, value);
+        if (message != null) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Checks a field value against every rule of the field.
+     *
+     * @param field The field.
+     * @param value The value to check.
+     * @return The message of the first violated rule, or null if the value is valid.
+     */
+    public String check(UserField field, String value) {
+        for (FieldRule rule : rules.getOrDefault(field, List.of())) {
+            String message = rule.check(value);
+            if (message != null) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Validates every field of a user.
+     *
+     * @param user The user to validate.
+     * @return The violations, one per invalid field; empty if the user is valid.
+     */
+    public List<Violation> validate(User user) {
+        List<Violation> violations = new ArrayList<>(0);
+        collect(-1, user, violations);
+        return violations;
+    }
+
+    /**
+     * Validates a batch of users and reports all the violations instead of stopping at
+     * the first one.
+     *
+     * @param users The users to validate.
+     * @return The violations, with the position of the invalid users in the list.
+     */
+    public List<Violation> validateAll(List<? extends User> users) {
+        List<Violation> violations = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            collect(i, users.get(i), violations);
+        }
+        return violations;
+    }
+
+    private void collect(int index, User user, List<Violation> violations) {
+        for (Map.Entry<UserField, List<FieldRule>> entry : rules.entrySet()) {
+            if (!entry.getKey().isReadable()) {
+                continue;
+            }
+            String message = check(entry.getKey(), entry.getKey().valueOf(user));
+            if (message != null) {
+                violations.add(new Violation(index, entry.getKey(), message));
+            }
+        }
+    }
+}
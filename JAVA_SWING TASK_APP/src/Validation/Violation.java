@@ -0,0 +1,43 @@
+package Validation;
+
+/**
+ * A rule violated by the value of a field.
+ */
+public class Violation {
+
+    private final int index;
+    private final UserField field;
+    private final String message;
+
+    /**
+     * Constructs a Violation object with the specified parameters.
+     *
+     * @param index   The position of the invalid record in its batch, or -1 outside of a batch.
+     * @param field   The invalid field.
+     * @param message The message of the violated rule.
+     */
+    public Violation(int index, UserField field, String message) {
+        this.index = index;
+        this.field = field;
+        this.message = message;
+    }
+
+    // Getters
+
+    public int getIndex() {
+        return index;
+    }
+
+    public UserField getField() {
+        return field;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return (index >= 0 ? "#" + index + " " : "") + field + ": " + message;
+    }
+}
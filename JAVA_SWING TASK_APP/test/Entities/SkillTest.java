@@ -0,0 +1,60 @@
+package Entities;
+
+import Security.PasswordHasher;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SkillTest {
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @Test
+    void changingTheSkillOfAUserLeavesTheOthersUnchanged() {
+        Member first = member("first", new Skill("Java", "Junior"));
+        Member second = member("second", new Skill("Java", "Junior"));
+        Manager manager = new Manager("manager", "Passw0rd@x", "Manager Name", "+33 6 12 34 56 78",
+                LocalDate.of(1980, 1, 1), "manager@example.com", "Manager", Sex.MALE, new Skill("Java", "Junior"),
+                new ArrayList<>(), new ArrayList<>());
+        assertSame(first.getSkill(), second.getSkill());
+
+        first.setSkillLevel("Senior");
+        manager.setSkillName("Kotlin");
+
+        assertEquals("Senior", first.getSkill().getLevel());
+        assertEquals("Java", first.getSkill().getName());
+        assertTrue(first.getSkill().isShared());
+        assertEquals("Junior", second.getSkill().getLevel());
+        assertEquals("Kotlin", manager.getSkill().getName());
+        assertEquals("Junior", manager.getSkill().getLevel());
+        assertSame(ValueRegistry.skill("Java", "Senior"), first.getSkill());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void deprecatedSettersOnlyChangeSkillsNotHeldYet() {
+        Skill skill = new Skill("Java", "Junior");
+        skill.setLevel("Senior");
+        skill.setName("Kotlin");
+        Member member = member("member", skill);
+
+        assertEquals("Kotlin", member.getSkill().getName());
+        assertEquals("Senior", member.getSkill().getLevel());
+        assertThrows(UnsupportedOperationException.class, () -> member.getSkill().setLevel("Junior"));
+    }
+
+    private static Member member(String username, Skill skill) {
+        return new Member(username, "Passw0rd@x", "Member Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                username + "@example.com", "Developer", Sex.FEMALE, skill);
+    }
+}
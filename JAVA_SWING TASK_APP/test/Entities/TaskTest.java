@@ -0,0 +1,77 @@
+package Entities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    private final List<PropertyChangeEvent> events = new CopyOnWriteArrayList<>();
+    private final PropertyChangeListener listener = events::add;
+
+    @AfterEach
+    void removeListener() {
+        EntityEvents.removeListener(listener);
+    }
+
+    @Test
+    void rescheduleFiresOneDatesChange() {
+        Task task = task();
+        EntityEvents.addListener(listener);
+
+        task.reschedule(LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 25));
+
+        assertEquals(1, events.size());
+        PropertyChangeEvent event = events.get(0);
+        assertEquals("dates", event.getPropertyName());
+        assertEquals(new DateRange(START, END), event.getOldValue());
+        assertEquals(new DateRange(LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 25)), event.getNewValue());
+        assertEquals(event.getNewValue(), task.getDates());
+    }
+
+    @Test
+    void dateSettersFireDatesChanges() {
+        Task task = task();
+        EntityEvents.addListener(listener);
+
+        task.setEndDate(LocalDate.of(2024, 1, 10));
+        task.setStartDate(LocalDate.of(2024, 1, 3));
+
+        assertEquals(2, events.size());
+        assertEquals(new DateRange(START, LocalDate.of(2024, 1, 10)), events.get(0).getNewValue());
+        assertEquals(new DateRange(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 10)),
+                events.get(1).getNewValue());
+    }
+
+    @Test
+    void rejectedDateReleasesTheLock() throws Exception {
+        Task task = task();
+
+        assertThrows(IllegalArgumentException.class, () -> task.setStartDate(LocalDate.of(2024, 2, 1)));
+        assertThrows(NullPointerException.class, () -> task.setEndDate(null));
+
+        // Another thread must still be able to write the task
+        CompletableFuture.runAsync(() -> task.setDescription("Moved")).get(10, TimeUnit.SECONDS);
+        assertEquals("Moved", task.getDescription());
+        assertEquals(new DateRange(START, END), task.getDates());
+    }
+
+    private static Task task() {
+        return new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+    }
+}
@@ -0,0 +1,134 @@
+package Entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkspaceSnapshotTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    @Test
+    void snapshotSeesTheValuesBeforeConcurrentSetters() throws InterruptedException {
+        Task task = task("Write the report");
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        Project project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        Task added = task("Review the report");
+        int threads = 4;
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+
+        try (WorkspaceSnapshot snapshot = WorkspaceSnapshot.open(List.of(project))) {
+            for (int i = 0; i < threads; i++) {
+                int writer = i;
+                Thread thread = new Thread(() -> {
+                    ready.countDown();
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 200; j++) {
+                        task.reschedule(START.plusDays(j), END.plusDays(j + writer));
+                        task.setStatus(TaskStatus.values()[j % TaskStatus.values().length]);
+                        task.setPriority(1 + j % 5);
+                        objective.setDescription("Deliver " + j);
+                        objective.setTaskList(List.of(task, added));
+                        project.setDescription("Reporting " + j);
+                        project.setEndDate(END.plusDays(j + 10));
+                    }
+                }, "snapshot-writer-" + i);
+                writers.add(thread);
+                thread.start();
+            }
+            ready.await();
+            go.countDown();
+            for (int i = 0; i < 200; i++) {
+                assertOriginal(snapshot, project, objective, task);
+            }
+            for (Thread thread : writers) {
+                thread.join();
+            }
+
+            assertOriginal(snapshot, project, objective, task);
+            assertEquals(3, snapshot.getVersionCount());
+            List<TaskVersion> tasks = new ArrayList<>();
+            snapshot.forEachTask(tasks::add);
+            assertEquals(1, tasks.size());
+            assertEquals(List.of(task, added), objective.getTaskList());
+        }
+    }
+
+    @Test
+    void closeReleasesTheVersions() {
+        Task task = task("Write the report");
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        Project project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        WorkspaceSnapshot snapshot = WorkspaceSnapshot.open(List.of(project));
+        assertEquals(0, snapshot.getVersionCount());
+
+        task.setPriority(4);
+        task.setPriority(5);
+        assertEquals(1, snapshot.getVersionCount());
+        objective.setDescription("Present");
+        assertEquals(2, snapshot.getVersionCount());
+        assertEquals(2, snapshot.get(task).getPriority());
+        assertEquals(5, task.getPriority());
+
+        snapshot.close();
+        assertEquals(0, snapshot.getVersionCount());
+        assertThrows(IllegalStateException.class, () -> snapshot.get(task));
+        task.setPriority(3);
+        assertEquals(0, snapshot.getVersionCount());
+    }
+
+    @Test
+    void snapshotNeverClosedIsDroppedOnceCollected() throws InterruptedException {
+        Task task = task("Write the report");
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        Project project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        int open = WorkspaceSnapshot.openCount();
+        WeakReference<WorkspaceSnapshot> reference = new WeakReference<>(WorkspaceSnapshot.open(List.of(project)));
+        task.setPriority(4);
+        assertEquals(open + 1, WorkspaceSnapshot.openCount());
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+        task.setPriority(5);
+
+        assertEquals(open, WorkspaceSnapshot.openCount());
+    }
+
+    private static void assertOriginal(WorkspaceSnapshot snapshot, Project project, Objective objective, Task task) {
+        ProjectVersion projectVersion = snapshot.get(project);
+        assertEquals("Reporting", projectVersion.getDescription());
+        assertEquals(END, projectVersion.getEndDate());
+        assertEquals(List.of(objective), snapshot.getObjectives(project));
+        ObjectiveVersion objectiveVersion = snapshot.get(objective);
+        assertEquals("Deliver", objectiveVersion.getDescription());
+        assertEquals(List.of(task), snapshot.getTasks(objective));
+        TaskVersion taskVersion = snapshot.get(task);
+        assertEquals(START, taskVersion.getStartDate());
+        assertEquals(END, taskVersion.getEndDate());
+        assertEquals(TaskStatus.TO_DO, taskVersion.getStatus());
+        assertEquals(2, taskVersion.getPriority());
+    }
+
+    private static Task task(String description) {
+        return new Task(description, 2, new ArrayList<>(), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+    }
+}
@@ -0,0 +1,64 @@
+package Import;
+
+import Entities.Project;
+import Validation.UserValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rowsReferringToAFailedBatchAreReportedAndNotCommitted() throws IOException {
+        List<ImportSource> sources = List.of(
+                source("projects.csv", ImportKind.PROJECTS, "id,description\nP1,Broken\nP2,Reporting\n"),
+                source("objectives.csv", ImportKind.OBJECTIVES, "id,project,description\nO1,P1,Fix\nO2,P2,Deliver\n"),
+                source("tasks.csv", ImportKind.TASKS, "id,objective,description,priority,status,startDate,endDate\n"
+                        + "T1,O1,Repair,1,TO_DO,2024-01-01,2024-01-05\nT2,O2,Write,1,TO_DO,2024-01-01,2024-01-05\n"),
+                source("materials.csv", ImportKind.MATERIALS, "id,name,type,tasks\nM1,Laptop,Hardware,T1;T2\n"
+                        + "M2,Printer,Hardware,T2\n"));
+        List<Object> committed = new ArrayList<>();
+        ImportSink sink = (kind, entities) -> {
+            for (Object entity : entities) {
+                if (entity instanceof Project && ((Project) entity).getDescription().equals("Broken")) {
+                    throw new IOException("disk full");
+                }
+            }
+            committed.addAll(entities);
+        };
+
+        ImportResult result = new BulkImporter(1, 16, 1, UserValidator.DEFAULT, sink).run(sources);
+
+        assertEquals(1, result.getImportedCount(ImportKind.PROJECTS));
+        assertEquals(1, result.getImportedCount(ImportKind.OBJECTIVES));
+        assertEquals(1, result.getImportedCount(ImportKind.TASKS));
+        assertEquals(1, result.getImportedCount(ImportKind.MATERIALS));
+        assertEquals(4, committed.size());
+        List<String> errors = new ArrayList<>();
+        for (ImportError error : result.getErrors()) {
+            errors.add(error.getSource() + ":" + error.getLine() + ":" + error.getColumn() + ":" + error.getMessage());
+        }
+        assertEquals(List.of(
+                "materials.csv:2:tasks:Not committed: task T1 was not committed",
+                "objectives.csv:2:project:Not committed: project P1 was not committed",
+                "projects.csv:2:null:Commit failed: disk full",
+                "tasks.csv:2:objective:Not committed: objective O1 was not committed"), errors);
+    }
+
+    private ImportSource source(String name, ImportKind kind, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return new ImportSource(file, kind, ImportFormat.CSV);
+    }
+}
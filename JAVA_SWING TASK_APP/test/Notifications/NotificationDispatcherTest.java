@@ -0,0 +1,113 @@
+package Notifications;
+
+import Entities.Notification;
+import Entities.NotificationType;
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationDispatcherTest {
+
+    private static final RetryPolicy QUICK_RETRIES = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    private final Task task = new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(),
+            LocalDate.of(2024, 1, 1), new ArrayList<>(), new ArrayList<>(), LocalDate.of(2024, 1, 5),
+            TaskStatus.TO_DO);
+
+    @Test
+    void failedSessionsAreRetriedThenDropped() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Notification> sent = new ArrayList<>();
+        Transport flaky = batch -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("Gateway unavailable");
+            }
+            sent.addAll(batch);
+        };
+        StubTransport failing = new StubTransport(Duration.ZERO, 1);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(
+                Map.of(NotificationType.EMAIL, flaky, NotificationType.SMS, failing), 16, 1, 8, QUICK_RETRIES);
+        Notification email = notification(NotificationType.EMAIL);
+        dispatcher.dispatch(email);
+        dispatcher.dispatch(notification(NotificationType.SMS));
+        dispatcher.close();
+
+        assertEquals(List.of(email), sent);
+        DispatchMetrics emails = dispatcher.getMetrics(NotificationType.EMAIL);
+        assertEquals(1, emails.getDelivered());
+        assertEquals(1, emails.getRetries());
+        DispatchMetrics texts = dispatcher.getMetrics(NotificationType.SMS);
+        assertEquals(0, texts.getDelivered());
+        assertEquals(1, texts.getFailed());
+        assertEquals(3, failing.getSessions());
+        assertThrows(IllegalStateException.class, () -> dispatcher.dispatch(email));
+    }
+
+    @Test
+    void fullQueueRejectsOffersAndDeliversTheAcceptedOnes() throws Exception {
+        StubTransport slow = new StubTransport(Duration.ofMillis(200), 0);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(Map.of(NotificationType.EMAIL, slow),
+                2, 1, 1, QUICK_RETRIES);
+        int accepted = 0;
+        for (int i = 0; i < 5; i++) {
+            if (dispatcher.offer(notification(NotificationType.EMAIL), Duration.ZERO)) {
+                accepted++;
+            }
+        }
+        DispatchMetrics metrics = dispatcher.getMetrics(NotificationType.EMAIL);
+        assertTrue(accepted <= 3);
+        assertEquals(5 - accepted, metrics.getRejected());
+        dispatcher.close();
+        assertEquals(metrics.getAccepted(), slow.getDelivered().size());
+    }
+
+    @Test
+    void notificationsDispatchedWhileClosingAreDelivered() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            StubTransport transport = new StubTransport();
+            NotificationDispatcher dispatcher = new NotificationDispatcher(Map.of(NotificationType.EMAIL, transport),
+                    4, 1, 2, QUICK_RETRIES);
+            AtomicInteger dispatched = new AtomicInteger();
+            List<Thread> producers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Thread producer = new Thread(() -> {
+                    try {
+                        while (true) {
+                            dispatcher.dispatch(notification(NotificationType.EMAIL));
+                            dispatched.incrementAndGet();
+                        }
+                    } catch (IllegalStateException | InterruptedException e) {
+                        // Closed
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            Thread.sleep(5);
+            dispatcher.close();
+            for (Thread producer : producers) {
+                producer.join(5000);
+                assertFalse(producer.isAlive(), "Producer blocked after close");
+            }
+            assertEquals(dispatched.get(), transport.getDelivered().size());
+        }
+    }
+
+    private Notification notification(NotificationType type) {
+        return new Notification(LocalDateTime.of(2024, 1, 1, 9, 0), type, task, "Starts today");
+    }
+}
@@ -0,0 +1,78 @@
+package Notifications;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReminderSchedulerTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 10);
+
+    private final ReminderScheduler scheduler = new ReminderScheduler(ReminderPolicy.DEFAULT, notification -> {
+    }, Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC));
+
+    @AfterEach
+    void close() {
+        scheduler.close();
+    }
+
+    @Test
+    void taskMovedBetweenObjectivesKeepsItsReminderInEitherOrder() {
+        Task task = task();
+        Objective a = new Objective(END, List.of(task), START, "Deliver");
+        Objective b = new Objective(END, new ArrayList<>(), START, "Present");
+        scheduler.addProject(new Project(null, null, END, List.of(a, b), START, "Reporting"));
+        LocalDateTime reminder = scheduler.getNextReminder(task);
+
+        // The destination list changes first
+        b.setTaskList(List.of(task));
+        a.setTaskList(List.of());
+        assertEquals(reminder, scheduler.getNextReminder(task));
+        // Then the source list changes first
+        b.setTaskList(List.of());
+        a.setTaskList(List.of(task));
+        assertEquals(reminder, scheduler.getNextReminder(task));
+
+        a.setTaskList(List.of());
+        assertNull(scheduler.getNextReminder(task));
+        assertEquals(0, scheduler.getTimerCount());
+    }
+
+    @Test
+    void objectiveMovedBetweenProjectsKeepsItsReminders() {
+        Task task = task();
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        Project source = new Project(null, null, END, List.of(objective), START, "Reporting");
+        Project destination = new Project(null, null, END, new ArrayList<>(), START, "Planning");
+        scheduler.addProject(source);
+        scheduler.addProject(destination);
+        LocalDateTime reminder = scheduler.getNextReminder(task);
+
+        destination.setObjectiveList(List.of(objective));
+        source.setObjectiveList(List.of());
+        assertEquals(reminder, scheduler.getNextReminder(task));
+
+        destination.setObjectiveList(List.of());
+        assertNull(scheduler.getNextReminder(task));
+    }
+
+    private static Task task() {
+        return new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+    }
+}
@@ -0,0 +1,120 @@
+package Notifications;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    @Test
+    void timersOfUpperLevelsCascadeAndExpireOnTheirTick() {
+        long start = 4000;
+        long[] deadlines = {start + 1, start + 63, start + 64, start + 65, start + 100, start + 4095,
+                start + 4096, start + 4097, start + 64 * 64 * 64 + 3, start + 3 * 64 * 64 * 64 + 17};
+        TimerWheel<String> wheel = new TimerWheel<>(start, 4);
+        for (int i = deadlines.length - 1; i >= 0; i--) {
+            wheel.schedule("timer-" + i, deadlines[i]);
+        }
+        List<Long> expired = new ArrayList<>();
+
+        int count = wheel.advance(deadlines[deadlines.length - 1], (key, deadline) -> {
+            assertEquals(deadline, wheel.getTick(), key);
+            expired.add(deadline);
+        });
+
+        assertEquals(deadlines.length, count);
+        for (int i = 0; i < deadlines.length; i++) {
+            assertEquals(deadlines[i], (long) expired.get(i));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersExpireInDeadlineOrderAcrossSteps() {
+        Random random = new Random(42);
+        TimerWheel<Integer> wheel = new TimerWheel<>(0, 16);
+        TreeMap<Integer, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            long deadline = 1 + (long) Math.pow(2, random.nextDouble() * 18);
+            wheel.schedule(i, deadline);
+            expected.put(i, deadline);
+        }
+        for (int i = 0; i < 1000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(key) != null, wheel.cancel(key));
+            } else {
+                long deadline = 1 + random.nextInt(1 << 18);
+                wheel.schedule(key, deadline);
+                expected.put(key, deadline);
+            }
+        }
+
+        long[] last = {0};
+        Map<Integer, Long> expired = new TreeMap<>();
+        while (wheel.getTick() < (1 << 18) + 1) {
+            wheel.advance(wheel.getTick() + 1 + random.nextInt(700), (key, deadline) -> {
+                assertEquals(deadline, wheel.getTick());
+                assertTrue(deadline >= last[0]);
+                last[0] = deadline;
+                expired.put(key, deadline);
+            });
+        }
+
+        assertEquals(expected, expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduledTimerMovesAndCancelledTimerNeverExpires() {
+        TimerWheel<String> wheel = new TimerWheel<>(0, 4);
+        wheel.schedule("moved", 5000);
+        wheel.schedule("cancelled", 70);
+        wheel.schedule("never", TimerWheel.NEVER);
+        wheel.schedule("moved", 30);
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(10_000, (key, deadline) -> expired.add(key + "@" + deadline));
+
+        assertEquals(List.of("moved@30"), expired);
+        assertTrue(wheel.contains("never"));
+        assertEquals(TimerWheel.NEVER, wheel.getDeadline("never"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void callbackMayScheduleTheExpiringKeyAgain() {
+        TimerWheel<String> wheel = new TimerWheel<>(0, 4);
+        wheel.schedule("repeating", 100);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(1000, (key, deadline) -> {
+            expired.add(deadline);
+            wheel.schedule(key, deadline + 300);
+        });
+
+        assertEquals(List.of(100L, 400L, 700L, 1000L), expired);
+        assertEquals(1300, wheel.getDeadline("repeating"));
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(500, 4);
+        wheel.schedule("late", 10);
+        List<Long> ticks = new ArrayList<>();
+
+        wheel.advance(600, (key, deadline) -> ticks.add(wheel.getTick()));
+
+        assertEquals(List.of(501L), ticks);
+    }
+}
@@ -0,0 +1,168 @@
+package Persistence;
+
+import Entities.Manager;
+import Entities.Material;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Skill;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.WorkOrder;
+import Security.PasswordHasher;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @Test
+    void roundTripKeepsFieldsReferencesAndIds() throws IOException {
+        Member member = member("member");
+        Manager manager = new Manager("manager", "Passw0rd@x", "Manager Name", "+33 6 12 34 56 78",
+                LocalDate.of(1980, 1, 1), "manager@example.com", "Manager", Sex.MALE, null,
+                new ArrayList<>(), new ArrayList<>());
+        Task task = new Task("Write the report", 3, new ArrayList<>(), new ArrayList<>(), START,
+                List.of(member), List.of(new WorkOrder("Order", "Order the parts")), END, TaskStatus.IN_PROGRESS);
+        Material material = new Material(List.of(task), "Laptop", "Hardware");
+        task.setMaterials(List.of(material));
+        member.setTasks(List.of(task));
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        Project project = new Project(null, manager, END, List.of(objective), START, "Reporting");
+        manager.setProjects(List.of(project));
+
+        EntityStore.write(directory, List.of(member, manager), List.of(project));
+        EntityStore store = EntityStore.open(directory);
+
+        Project loaded = store.getProjects().findById(project.getId());
+        assertNotNull(loaded);
+        assertEquals("Reporting", loaded.getDescription());
+        assertEquals(manager.getId(), loaded.getManager().getId());
+        Task loadedTask = loaded.getObjectiveList().get(0).getTaskList().get(0);
+        assertEquals(task.getId(), loadedTask.getId());
+        assertEquals(3, loadedTask.getPriority());
+        assertEquals(TaskStatus.IN_PROGRESS, loadedTask.getStatus());
+        assertEquals(START, loadedTask.getStartDate());
+        assertEquals(END, loadedTask.getEndDate());
+        assertEquals("Laptop", loadedTask.getMaterials().get(0).getName());
+        assertEquals("Order", loadedTask.getWorkOrders().get(0).getTitle());
+        Member loadedMember = loadedTask.getMembers().get(0);
+        assertEquals(member.getId(), loadedMember.getId());
+        assertSame(loadedTask, loadedMember.getTasks().get(0));
+        assertSame(loadedMember, store.getUsers().findById(member.getId()));
+        assertTrue(PasswordHasher.verify("Passw0rd@x", loadedMember.getPassword()));
+        assertNull(store.getTasks().findById("missing"));
+    }
+
+    @Test
+    void rewriteReplacesTheWholeGeneration() throws IOException {
+        Project first = project("First");
+        EntityStore.write(directory, List.of(), List.of(first));
+        EntityStore before = EntityStore.open(directory);
+        Project second = project("Second");
+        EntityStore.write(directory, List.of(), List.of(second));
+
+        EntityStore after = EntityStore.open(directory);
+        assertEquals(1, after.getProjects().size());
+        assertEquals("Second", after.getProjects().get(0).getDescription());
+        assertEquals(1, generationCount());
+        // A store opened before the rewrite keeps reading its own generation
+        assertEquals("First", before.getProjects().get(0).getDescription());
+    }
+
+    @Test
+    void interruptedWriteLeavesTheCurrentGeneration() throws IOException {
+        EntityStore.write(directory, List.of(), List.of(project("Kept")));
+        // A write that crashed before replacing the manifest leaves a partial generation
+        Path partial = Files.createDirectory(directory.resolve("generation-99"));
+        Files.write(partial.resolve("projects.seg"), new byte[]{1, 2, 3});
+
+        EntityStore store = EntityStore.open(directory);
+        assertEquals("Kept", store.getProjects().get(0).getDescription());
+
+        EntityStore.write(directory, List.of(), List.of(project("Next")));
+        assertEquals("Next", EntityStore.open(directory).getProjects().get(0).getDescription());
+        assertEquals(1, generationCount());
+    }
+
+    @Test
+    void scanDecodesProjectTreesWithoutCachingThem() throws IOException {
+        Member member = member("member");
+        Project first = project("First");
+        Project second = project("Second");
+        Task task = first.getObjectiveList().get(0).getTaskList().get(0);
+        task.setMembers(List.of(member));
+        member.setTasks(List.of(task, second.getObjectiveList().get(0).getTaskList().get(0)));
+        EntityStore.write(directory, List.of(member), List.of(first, second));
+        EntityStore store = EntityStore.open(directory);
+
+        List<Project> scanned = new ArrayList<>();
+        store.scanProjects().forEach(scanned::add);
+
+        assertEquals(2, scanned.size());
+        Task scannedTask = scanned.get(0).getObjectiveList().get(0).getTaskList().get(0);
+        assertEquals(task.getId(), scannedTask.getId());
+        assertEquals(member.getId(), scannedTask.getMembers().get(0).getId());
+        assertEquals(List.of(scannedTask), scannedTask.getMembers().get(0).getTasks());
+        Project loaded = store.getProjects().get(1);
+        assertNotSame(scanned.get(1), loaded);
+        loaded.setDescription("Renamed");
+        Iterator<Project> rescanned = store.scanProjects().iterator();
+        assertNotSame(scanned.get(0), rescanned.next());
+        assertSame(loaded, rescanned.next());
+        assertFalse(rescanned.hasNext());
+    }
+
+    @Test
+    void oversizedSegmentIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentWriter(64, Integer.MAX_VALUE / 32));
+    }
+
+    private long generationCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("generation-")).count();
+        }
+    }
+
+    private static Project project(String description) {
+        Task task = new Task(description + " task", 1, new ArrayList<>(), new ArrayList<>(), START,
+                new ArrayList<>(), new ArrayList<>(), END, TaskStatus.TO_DO);
+        return new Project(null, null, END, List.of(new Objective(END, List.of(task), START, description)), START,
+                description);
+    }
+
+    private static Member member(String username) {
+        return new Member(username, "Passw0rd@x", "Member Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                username + "@example.com", "Developer", Sex.FEMALE, new Skill("Java", "Senior"));
+    }
+}
@@ -0,0 +1,77 @@
+package Persistence;
+
+import Entities.EntityEvents;
+import Entities.Material;
+import Entities.Notification;
+import Entities.NotificationType;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GraphSerializerTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    @Test
+    void copyGetsNewIdsAndKeepsSharedEntitiesShared() {
+        Project project = project();
+        Task task = project.getObjectiveList().get(0).getTaskList().get(0);
+
+        Project copy = GraphSerializer.copy(List.of(project)).get(0);
+
+        Task copiedTask = copy.getObjectiveList().get(0).getTaskList().get(0);
+        assertNotEquals(project.getId(), copy.getId());
+        assertNotEquals(task.getId(), copiedTask.getId());
+        assertNotEquals(task.getMaterials().get(0).getMaterialId(), copiedTask.getMaterials().get(0).getMaterialId());
+        assertEquals(task.getDescription(), copiedTask.getDescription());
+        assertSame(copiedTask, copiedTask.getMaterials().get(0).getTasks().get(0));
+        assertSame(copiedTask, copiedTask.getNotifications().get(0).getTask());
+    }
+
+    @Test
+    void readingDoesNotNotifyTheListeners() throws IOException {
+        Project project = project();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphSerializer.write(List.of(project), bytes);
+        List<PropertyChangeEvent> events = new ArrayList<>();
+        PropertyChangeListener listener = events::add;
+        EntityEvents.addListener(listener);
+        try {
+            Project read = (Project) GraphSerializer.read(new ByteArrayInputStream(bytes.toByteArray())).get(0);
+            assertEquals(project.getId(), read.getId());
+            assertEquals(List.of(), events);
+
+            read.setDescription("Renamed");
+            assertEquals(1, events.size());
+        } finally {
+            EntityEvents.removeListener(listener);
+        }
+    }
+
+    private static Project project() {
+        Task task = new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+        Material material = new Material(List.of(task), "Laptop", "Hardware");
+        task.setMaterials(List.of(material));
+        task.setNotifications(List.of(new Notification(START.atTime(9, 0), NotificationType.values()[0], task,
+                "Starts today")));
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        return new Project(null, null, END, List.of(objective), START, "Reporting");
+    }
+}
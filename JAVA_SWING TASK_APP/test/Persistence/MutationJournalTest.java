@@ -0,0 +1,253 @@
+package Persistence;
+
+import Entities.DateRange;
+import Entities.EntityEvents;
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Security.PasswordHasher;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.beans.PropertyChangeListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutationJournalTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @Test
+    void rescheduleAfterSnapshotIsRecovered() throws IOException {
+        Task task = task("Write the report");
+        Project project = project(task);
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            journal.compact(List.of(), List.of(project));
+            task.reschedule(LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 25));
+            journal.commit();
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(List.of(), journal.getFailures());
+            Task recovered = journal.getStore().getTasks().findById(task.getId());
+            assertEquals(new DateRange(LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 25)), recovered.getDates());
+        }
+    }
+
+    @Test
+    void editsOfTasksCreatedAfterSnapshotAreRecovered() throws IOException {
+        Task task = task("Write the report");
+        Project project = project(task);
+        Objective objective = project.getObjectiveList().get(0);
+        Task added;
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            journal.compact(List.of(), List.of(project));
+            added = task("Review the report");
+            objective.setTaskList(List.of(task, added));
+            added.setPriority(4);
+            added.setStatus(TaskStatus.IN_PROGRESS);
+            journal.commit();
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(List.of(), journal.getFailures());
+            Objective recovered = journal.getStore().getObjectives().findById(objective.getId());
+            assertEquals(2, recovered.getTaskList().size());
+            Task recoveredTask = recovered.getTaskList().get(1);
+            assertEquals(added.getId(), recoveredTask.getId());
+            assertEquals("Review the report", recoveredTask.getDescription());
+            assertEquals(4, recoveredTask.getPriority());
+            assertEquals(TaskStatus.IN_PROGRESS, recoveredTask.getStatus());
+        }
+    }
+
+    @Test
+    void changesAreReplayedWithoutSnapshot() throws IOException {
+        Member member = new Member("member", "Passw0rd@x", "Member Name", "+33 6 12 34 56 78",
+                LocalDate.of(1990, 1, 1), "member@example.com", "Developer", Sex.FEMALE, null);
+        Project project = new Project(null, null, END, new ArrayList<>(), START, "Reporting");
+        Task task = task("Write the report");
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            journal.add(project);
+            project.setDescription("Quarterly reporting");
+            project.setObjectiveList(List.of(new Objective(END, List.of(task), START, "Deliver")));
+            task.setMembers(List.of(member));
+            task.setStatus(TaskStatus.DONE);
+            journal.commit();
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertNull(journal.getStore());
+            assertEquals(List.of(), journal.getFailures());
+            assertEquals(1, journal.getProjects().size());
+            Project recovered = journal.getProjects().get(0);
+            assertEquals(project.getId(), recovered.getId());
+            assertEquals("Quarterly reporting", recovered.getDescription());
+            Task recoveredTask = recovered.getObjectiveList().get(0).getTaskList().get(0);
+            assertEquals(TaskStatus.DONE, recoveredTask.getStatus());
+            assertEquals(new DateRange(START, END), recoveredTask.getDates());
+            List<User> users = journal.getUsers();
+            assertEquals(1, users.size());
+            assertSame(users.get(0), recoveredTask.getMembers().get(0));
+            assertEquals(member.getPassword(), users.get(0).getPassword());
+        }
+    }
+
+    @Test
+    void failedEntryIsReportedAndRecoveryGoesOn() throws IOException {
+        Task unknown = task("Never recorded");
+        Project project = new Project(null, null, END, new ArrayList<>(), START, "Reporting");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        log.write(JournalCodec.encode(1, unknown, "priority", 3));
+        log.write(JournalCodec.encodeCreation(2, project));
+        log.write(JournalCodec.encode(3, project, "description", "Renamed"));
+        Files.write(directory.resolve(String.format("journal-%020d.log", 1)), log.toByteArray());
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(1, journal.getFailures().size());
+            assertTrue(journal.getFailures().get(0).contains(unknown.getId()));
+            assertEquals(2, journal.getReplayedEntries());
+            assertEquals("Renamed", journal.getProjects().get(0).getDescription());
+        }
+    }
+
+    @Test
+    void tornEntryIsTruncated() throws IOException {
+        Project project = new Project(null, null, END, new ArrayList<>(), START, "Reporting");
+        byte[] creation = JournalCodec.encodeCreation(1, project);
+        byte[] torn = JournalCodec.encode(2, project, "description", "Renamed");
+        Path file = directory.resolve(String.format("journal-%020d.log", 1));
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        log.write(creation);
+        log.write(torn, 0, torn.length - 3);
+        Files.write(file, log.toByteArray());
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(List.of(), journal.getFailures());
+            assertNotNull(journal.getProjects().get(0));
+            assertEquals("Reporting", journal.getProjects().get(0).getDescription());
+        }
+        assertEquals(creation.length, Files.size(file));
+    }
+
+    @Test
+    void readOnlySessionLeavesTheJournalEmpty() throws IOException {
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            projects.add(project(task("Write report " + i)));
+        }
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            journal.compact(List.of(), projects);
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            for (Project project : journal.getStore().getProjects()) {
+                assertEquals(1, project.getObjectiveList().get(0).getTaskList().size());
+            }
+            journal.commit();
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(0, journal.getReplayedEntries());
+            assertEquals(50, journal.getStore().getProjects().size());
+        }
+    }
+
+    @Test
+    void concurrentSettersLeaveTheLastWrittenValue() throws Exception {
+        Task task = task("Write the report");
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch overtaken = new CountDownLatch(1);
+        // Holds the event of the first setter until the second one is recorded
+        PropertyChangeListener delay = event -> {
+            if (event.getSource() == task && Integer.valueOf(3).equals(event.getNewValue())) {
+                delivering.countDown();
+                try {
+                    overtaken.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        EntityEvents.addListener(delay);
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            journal.add(project(task));
+            Thread first = new Thread(() -> task.setPriority(3), "first-setter");
+            first.start();
+            assertTrue(delivering.await(10, TimeUnit.SECONDS));
+            task.setPriority(4);
+            overtaken.countDown();
+            first.join();
+            journal.commit();
+        } finally {
+            EntityEvents.removeListener(delay);
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(4, journal.getProjects().get(0).getObjectiveList().get(0).getTaskList().get(0).getPriority());
+        }
+    }
+
+    @Test
+    void newUserIsJournaledWithoutWaitingForItsHash() throws IOException {
+        Member member;
+        PasswordHasher.setDefault(new PasswordHasher(3_000_000));
+        try {
+            member = new Member("member", "Passw0rd@x", "Member Name", "+33 6 12 34 56 78",
+                    LocalDate.of(1990, 1, 1), "member@example.com", "Developer", Sex.FEMALE, null);
+        } finally {
+            PasswordHasher.setDefault(new PasswordHasher(1000));
+        }
+        Task task = task("Write the report");
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            journal.compact(List.of(), List.of(project(task)));
+            task.setMembers(List.of(member));
+            assertFalse(member.getPasswordHash().isDone());
+            journal.commit();
+        }
+
+        try (MutationJournal journal = MutationJournal.open(directory)) {
+            assertEquals(List.of(), journal.getFailures());
+            Task recovered = journal.getStore().getTasks().findById(task.getId());
+            assertEquals(member.getPassword(), recovered.getMembers().get(0).getPassword());
+        }
+    }
+
+    private static Task task(String description) {
+        return new Task(description, 2, new ArrayList<>(), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+    }
+
+    private static Project project(Task task) {
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        return new Project(null, null, END, List.of(objective), START, "Reporting");
+    }
+}
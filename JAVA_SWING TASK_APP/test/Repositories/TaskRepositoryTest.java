@@ -0,0 +1,135 @@
+package Repositories;
+
+import Entities.DateRange;
+import Entities.Member;
+import Entities.Sex;
+import Entities.Task;
+import Entities.TaskStatus;
+import Security.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.beans.PropertyChangeEvent;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskRepositoryTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    private final TaskRepository repository = new TaskRepository();
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+    }
+
+    @Test
+    void eventsOutOfOrderLeaveTheCurrentValuesIndexed() {
+        Member member = new Member("member", "Passw0rd@x", "Member Name", "+33 6 12 34 56 78",
+                LocalDate.of(1990, 1, 1), "member@example.com", "Developer", Sex.FEMALE, null);
+        Task task = task(START, END);
+        repository.add(task);
+
+        task.setStatus(TaskStatus.DONE);
+        task.setMembers(List.of(member));
+        task.reschedule(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 2));
+        repository.propertyChange(new PropertyChangeEvent(task, "status", TaskStatus.IN_PROGRESS, TaskStatus.TO_DO));
+        repository.propertyChange(new PropertyChangeEvent(task, "members", List.of(member), List.of()));
+        repository.propertyChange(new PropertyChangeEvent(task, "dates",
+                new DateRange(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 2)), new DateRange(START, END)));
+
+        assertEquals(0, repository.query().withStatus(TaskStatus.TO_DO).count());
+        assertEquals(List.of(task), repository.query().withStatus(TaskStatus.DONE).list());
+        assertEquals(List.of(task), repository.query().assignedTo(member).list());
+        assertEquals(0, repository.query().startingBetween(START, END).count());
+        LocalDate end = LocalDate.of(2024, 3, 2);
+        assertEquals(List.of(task), repository.query().endingBetween(end, end).list());
+
+        repository.remove(task);
+        assertEquals(0, repository.query().withStatus(TaskStatus.DONE).count());
+        assertEquals(0, repository.query().assignedTo(member).count());
+        assertEquals(0, repository.query().activeBetween(LocalDate.MIN, LocalDate.MAX).count());
+    }
+
+    @Test
+    void dateQueriesMatchAScanOfTheTasks() {
+        Random random = new Random(7);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            LocalDate start = START.plusDays(random.nextInt(400));
+            Task task = task(random.nextInt(20) == 0 ? null : start, start.plusDays(random.nextInt(30)));
+            tasks.add(task);
+            repository.add(task);
+        }
+        for (int i = 0; i < 3000; i++) {
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            if (random.nextInt(4) == 0) {
+                repository.remove(task);
+                tasks.remove(task);
+            } else {
+                LocalDate start = START.plusDays(random.nextInt(400));
+                task.reschedule(start, start.plusDays(random.nextInt(30)));
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            LocalDate from = START.plusDays(random.nextInt(430) - 10);
+            LocalDate to = from.plusDays(random.nextInt(60));
+            assertMatches(tasks, repository.query().startingBetween(from, to),
+                    t -> t.getStartDate() != null && !t.getStartDate().isBefore(from) && !t.getStartDate().isAfter(to));
+            assertMatches(tasks, repository.query().endingBetween(from, to),
+                    t -> !t.getEndDate().isBefore(from) && !t.getEndDate().isAfter(to));
+            assertMatches(tasks, repository.query().activeBetween(from, to),
+                    t -> t.getStartDate() != null && !t.getStartDate().isAfter(to) && !t.getEndDate().isBefore(from));
+            assertMatches(tasks, repository.query().overdueOn(from), t -> t.getEndDate().isBefore(from));
+        }
+    }
+
+    @Test
+    void longTaskIsActiveFarFromItsStart() {
+        Task longTask = task(START, START.plusDays(300));
+        Task undated = task(null, START.plusDays(300));
+        repository.add(task(START, END));
+        repository.add(longTask);
+        repository.add(undated);
+        LocalDate day = START.plusDays(200);
+        assertEquals(List.of(longTask), repository.query().activeBetween(day, day).list());
+
+        longTask.reschedule(START, END);
+        assertEquals(0, repository.query().activeBetween(day, day).count());
+        longTask.reschedule(day.minusDays(150), day);
+        assertEquals(List.of(longTask), repository.query().activeBetween(day, day.plusDays(1)).list());
+        repository.remove(longTask);
+        assertEquals(1, repository.query().activeBetween(START, END).count());
+    }
+
+    private static void assertMatches(List<Task> tasks, TaskQuery query, Predicate<Task> expected) {
+        Set<Task> matching = new HashSet<>();
+        for (Task task : tasks) {
+            if (expected.test(task)) {
+                matching.add(task);
+            }
+        }
+        assertEquals(matching, new HashSet<>(query.list()));
+    }
+
+    private static Task task(LocalDate start, LocalDate end) {
+        return new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), start, new ArrayList<>(),
+                new ArrayList<>(), end, TaskStatus.TO_DO);
+    }
+}
@@ -0,0 +1,112 @@
+package Repositories;
+
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskTableTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private TaskTable table;
+
+    @AfterEach
+    void close() {
+        table.close();
+    }
+
+    @Test
+    void columnsFollowTheSetters() {
+        Random random = new Random(5);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDate start = TODAY.minusDays(random.nextInt(60));
+            tasks.add(new Task("Task " + i, 1 + random.nextInt(5), new ArrayList<>(), new ArrayList<>(), start,
+                    new ArrayList<>(), new ArrayList<>(), start.plusDays(random.nextInt(40)), TaskStatus.TO_DO));
+        }
+        table = new TaskTable(tasks);
+        assertMatches(tasks);
+
+        TaskStatus[] statuses = TaskStatus.values();
+        for (int i = 0; i < 1000; i++) {
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    task.setStatus(statuses[random.nextInt(statuses.length)]);
+                    break;
+                case 1:
+                    task.setPriority(1 + random.nextInt(5));
+                    break;
+                case 2:
+                    LocalDate start = TODAY.minusDays(random.nextInt(60));
+                    task.reschedule(start, start.plusDays(random.nextInt(40)));
+                    break;
+                default:
+                    task.reschedule(null, random.nextBoolean() ? null : TODAY.minusDays(random.nextInt(10)));
+                    break;
+            }
+        }
+        assertMatches(tasks);
+
+        // Past the dense limit, the overdue tasks are counted by priority in a map
+        tasks.get(0).setPriority(10_000);
+        tasks.get(0).setStatus(TaskStatus.IN_PROGRESS);
+        tasks.get(0).reschedule(TODAY.minusDays(3), TODAY.minusDays(1));
+        assertMatches(tasks);
+    }
+
+    @Test
+    void closedTableNoLongerFollowsTheTasks() {
+        Task task = new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), TODAY.minusDays(5),
+                new ArrayList<>(), new ArrayList<>(), TODAY.minusDays(1), TaskStatus.TO_DO);
+        table = new TaskTable(List.of(task));
+        task.setStatus(TaskStatus.DONE);
+        assertEquals(TaskStatus.DONE, table.getStatus(0));
+        assertEquals(0, table.countOverdue(TODAY));
+
+        table.close();
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        task.setPriority(4);
+        assertEquals(TaskStatus.DONE, table.getStatus(0));
+        assertEquals(2, table.getPriority(0));
+    }
+
+    private void assertMatches(List<Task> tasks) {
+        EnumMap<TaskStatus, Integer> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, 0);
+        }
+        SortedMap<Integer, Integer> overdueByPriority = new TreeMap<>();
+        List<Integer> overdue = new ArrayList<>();
+        assertEquals(tasks.size(), table.size());
+        for (int row = 0; row < tasks.size(); row++) {
+            Task task = tasks.get(row);
+            assertEquals(task.getStatus(), table.getStatus(row));
+            assertEquals(task.getPriority(), table.getPriority(row));
+            assertEquals(task.getStartDate(), table.getStartDate(row));
+            assertEquals(task.getEndDate(), table.getEndDate(row));
+            byStatus.merge(task.getStatus(), 1, Integer::sum);
+            if (task.getEndDate() != null && task.getEndDate().isBefore(TODAY)
+                    && task.getStatus() != TaskStatus.DONE && task.getStatus() != TaskStatus.CANCELED) {
+                overdueByPriority.merge(task.getPriority(), 1, Integer::sum);
+                overdue.add(row);
+            }
+        }
+        assertEquals(byStatus, table.countByStatus());
+        assertEquals(overdue.size(), table.countOverdue(TODAY));
+        assertEquals(overdueByPriority, table.countOverdueByPriority(TODAY));
+        assertArrayEquals(overdue.stream().mapToInt(Integer::intValue).toArray(), table.findOverdue(TODAY));
+    }
+}
@@ -0,0 +1,88 @@
+package Scheduling;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProgressRollupTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    private final ProgressRollup rollup = new ProgressRollup();
+
+    @AfterEach
+    void close() {
+        rollup.close();
+    }
+
+    @Test
+    void taskMovedBetweenObjectivesIsCountedOnceInEitherOrder() {
+        Task moved = task(START, END);
+        Task other = task(START, LocalDate.of(2024, 2, 1));
+        Objective a = new Objective(END, List.of(moved), START, "Deliver");
+        Objective b = new Objective(END, List.of(other), START, "Present");
+        Project project = new Project(null, null, END, List.of(a, b), START, "Reporting");
+        rollup.addProject(project);
+
+        // The destination list changes first
+        b.setTaskList(List.of(other, moved));
+        assertEquals(1, rollup.getProgress(a).getTaskCount());
+        assertEquals(1, rollup.getProgress(b).getTaskCount());
+        a.setTaskList(List.of());
+        assertEquals(0, rollup.getProgress(a).getTaskCount());
+        assertEquals(2, rollup.getProgress(b).getTaskCount());
+        assertEquals(2, rollup.getProgress(project).getTaskCount());
+
+        moved.setStatus(TaskStatus.DONE);
+        assertEquals(1, rollup.getProgress(b).getCount(TaskStatus.DONE));
+        assertEquals(1, rollup.getProgress(project).getCount(TaskStatus.DONE));
+
+        // Then the source list changes first
+        a.setTaskList(List.of(other));
+        b.setTaskList(List.of(moved));
+        assertEquals(1, rollup.getProgress(a).getTaskCount());
+        assertEquals(1, rollup.getProgress(b).getTaskCount());
+        assertEquals(2, rollup.getProgress(project).getTaskCount());
+        assertEquals(LocalDate.of(2024, 2, 1), rollup.getProgress(a).getLatestEnd());
+        assertEquals(END, rollup.getProgress(b).getLatestEnd());
+    }
+
+    @Test
+    void objectiveMovedBetweenProjectsIsCountedOnceInEitherOrder() {
+        Objective moved = new Objective(END, List.of(task(START, END), task(START, END)), START, "Deliver");
+        Project source = new Project(null, null, END, List.of(moved), START, "Reporting");
+        Project destination = new Project(null, null, END, new ArrayList<>(), START, "Planning");
+        rollup.addProject(source);
+        rollup.addProject(destination);
+
+        destination.setObjectiveList(List.of(moved));
+        assertEquals(2, rollup.getProgress(source).getTaskCount());
+        assertEquals(0, rollup.getProgress(destination).getTaskCount());
+        source.setObjectiveList(List.of());
+        assertEquals(0, rollup.getProgress(source).getTaskCount());
+        assertEquals(2, rollup.getProgress(destination).getTaskCount());
+        assertEquals(START, rollup.getProgress(destination).getEarliestStart());
+        assertEquals(2, rollup.getProgress(moved).getTaskCount());
+
+        moved.getTaskList().get(0).setStatus(TaskStatus.DONE);
+        assertEquals(1, rollup.getProgress(destination).getCount(TaskStatus.DONE));
+
+        rollup.removeProject(destination);
+        assertEquals(0, rollup.getProgress(source).getTaskCount());
+    }
+
+    private static Task task(LocalDate start, LocalDate end) {
+        return new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), start, new ArrayList<>(),
+                new ArrayList<>(), end, TaskStatus.TO_DO);
+    }
+}
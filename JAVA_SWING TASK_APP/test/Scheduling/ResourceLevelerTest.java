@@ -0,0 +1,118 @@
+package Scheduling;
+
+import Entities.Material;
+import Entities.Member;
+import Entities.Sex;
+import Entities.Task;
+import Entities.TaskStatus;
+import Security.PasswordHasher;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceLevelerTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @Test
+    void lowerPriorityTaskMovesAfterTheTasksSharingItsResources() {
+        Member member = member(0);
+        Material laptop = new Material(List.of(), "Laptop", "Hardware");
+        Task report = task(1, START, START.plusDays(4), List.of(member), List.of());
+        Task slides = task(2, START, START.plusDays(2), List.of(), List.of(laptop));
+        Task review = task(3, START.plusDays(1), START.plusDays(3), List.of(member), List.of(laptop));
+        Task other = task(1, START, START.plusDays(4), List.of(member(1)), List.of());
+
+        LevelingPlan plan = new ResourceLeveler().level(List.of(review, other, slides, report));
+
+        assertEquals(2, plan.getConflicts().size());
+        ResourceConflict conflict = plan.getConflicts().stream()
+                .filter(c -> c.getResource() == member).findFirst().orElseThrow();
+        assertSame(report, conflict.getFirst());
+        assertSame(review, conflict.getSecond());
+        assertEquals(START.plusDays(1), conflict.getFrom());
+        assertEquals(START.plusDays(3), conflict.getTo());
+        assertEquals(List.of(report, review), plan.getTimeline(member));
+
+        assertEquals(Set.of(review), plan.getShiftedTasks());
+        assertEquals(START.plusDays(4), plan.getProposedStart(review));
+        assertEquals(START.plusDays(6), plan.getProposedEnd(review));
+        assertEquals(START, plan.getProposedStart(other));
+        assertEquals(START.plusDays(1), review.getStartDate());
+    }
+
+    @Test
+    void appliedPlanHasNoConflictLeft() {
+        Random random = new Random(11);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(member(i));
+        }
+        List<Material> materials = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            materials.add(new Material(List.of(), "Kit " + i, "Hardware"));
+        }
+        List<Task> tasks = new ArrayList<>();
+        Map<Task, LocalDate> starts = new IdentityHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDate start = START.plusDays(random.nextInt(60));
+            List<Material> used = random.nextInt(4) == 0
+                    ? List.of(materials.get(random.nextInt(materials.size()))) : List.of();
+            Task task = task(1 + random.nextInt(5), start, start.plusDays(random.nextInt(5)),
+                    List.of(members.get(random.nextInt(members.size()))), used);
+            tasks.add(task);
+            starts.put(task, start);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ResourceLeveler leveler = new ResourceLeveler(pool);
+            LevelingPlan plan = leveler.level(tasks);
+            assertFalse(plan.getConflicts().isEmpty());
+            Map<Task, Long> durations = new IdentityHashMap<>();
+            for (Task task : tasks) {
+                durations.put(task, ChronoUnit.DAYS.between(task.getStartDate(), task.getEndDate()));
+            }
+            plan.apply();
+
+            LevelingPlan leveled = leveler.level(tasks);
+            assertEquals(List.of(), leveled.getConflicts());
+            assertTrue(leveled.getShiftedTasks().isEmpty());
+            for (Task task : tasks) {
+                assertFalse(task.getStartDate().isBefore(starts.get(task)));
+                assertEquals(durations.get(task), ChronoUnit.DAYS.between(task.getStartDate(), task.getEndDate()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Member member(int number) {
+        return new Member("member" + number, "Passw0rd@x", "Member Name", "+33 6 12 34 56 78",
+                LocalDate.of(1990, 1, 1), "member" + number + "@example.com", "Developer", Sex.FEMALE, null);
+    }
+
+    private static Task task(int priority, LocalDate start, LocalDate end, List<Member> members,
+                             List<Material> materials) {
+        return new Task("Write the report", priority, new ArrayList<>(materials), new ArrayList<>(), start,
+                new ArrayList<>(members), new ArrayList<>(), end, TaskStatus.TO_DO);
+    }
+}
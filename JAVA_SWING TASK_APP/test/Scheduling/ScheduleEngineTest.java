@@ -0,0 +1,112 @@
+package Scheduling;
+
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScheduleEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    private final ScheduleEngine engine = new ScheduleEngine();
+
+    @AfterEach
+    void close() {
+        engine.close();
+    }
+
+    @Test
+    void chainIsCriticalAndShorterBranchHasSlack() {
+        Task design = task(START, START.plusDays(3));
+        Task build = task(null, null);
+        Task test = task(START, START.plusDays(2));
+        Task release = task(START.plusDays(5), START.plusDays(6));
+        engine.addDependency(design, build);
+        engine.addDependency(build, release);
+        engine.addDependency(test, release);
+
+        assertEquals(START.plusDays(3), engine.getEarliestStart(build));
+        assertEquals(START.plusDays(5), engine.getEarliestStart(release));
+        assertEquals(START.plusDays(6), engine.getProjectFinish());
+        assertEquals(2, engine.getSlack(design));
+        assertEquals(3, engine.getSlack(test));
+        assertEquals(List.of(release), engine.getCriticalPath());
+        assertThrows(IllegalArgumentException.class, () -> engine.addDependency(release, design));
+    }
+
+    @Test
+    void firstStartDateReplacesTodayAsTheOrigin() {
+        Task first = task(null, null);
+        Task second = task(null, null);
+        Task other = task(null, null);
+        engine.addDependency(first, second);
+        engine.addTask(other);
+        assertEquals(LocalDate.now(), engine.getEarliestStart(other));
+
+        LocalDate later = LocalDate.now().plusDays(10);
+        first.reschedule(later, later.plusDays(2));
+        assertEquals(later, engine.getEarliestStart(first));
+        assertEquals(later.plusDays(2), engine.getEarliestStart(second));
+        assertEquals(later, engine.getEarliestStart(other));
+        assertEquals(later.plusDays(2), engine.getProjectFinish());
+    }
+
+    @Test
+    void followedDateChangesMatchAFreshSchedule() {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>();
+        List<Task[]> dependencies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(task(null, null));
+            engine.addTask(tasks.get(i));
+        }
+        for (int i = 0; i < 400; i++) {
+            int from = random.nextInt(tasks.size() - 1);
+            int to = from + 1 + random.nextInt(tasks.size() - from - 1);
+            dependencies.add(new Task[]{tasks.get(from), tasks.get(to)});
+            engine.addDependency(tasks.get(from), tasks.get(to));
+        }
+        engine.getProjectFinish();
+
+        for (int change = 0; change < 300; change++) {
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            if (random.nextInt(4) == 0) {
+                task.reschedule(null, null);
+            } else {
+                LocalDate start = LocalDate.now().plusDays(random.nextInt(60) - 20);
+                task.reschedule(start, start.plusDays(random.nextInt(10)));
+            }
+            if (change % 10 != 0) {
+                continue;
+            }
+            try (ScheduleEngine fresh = new ScheduleEngine()) {
+                for (Task each : tasks) {
+                    fresh.addTask(each);
+                }
+                for (Task[] dependency : dependencies) {
+                    fresh.addDependency(dependency[0], dependency[1]);
+                }
+                assertEquals(fresh.getProjectFinish(), engine.getProjectFinish());
+                for (Task each : tasks) {
+                    assertEquals(fresh.getEarliestStart(each), engine.getEarliestStart(each));
+                    assertEquals(fresh.getLatestFinish(each), engine.getLatestFinish(each));
+                    assertEquals(fresh.getSlack(each), engine.getSlack(each));
+                }
+            }
+        }
+    }
+
+    private static Task task(LocalDate start, LocalDate end) {
+        return new Task("Prepare the release", 2, new ArrayList<>(), new ArrayList<>(), start, new ArrayList<>(),
+                new ArrayList<>(), end, TaskStatus.TO_DO);
+    }
+}
@@ -0,0 +1,139 @@
+package Search;
+
+import Entities.Material;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.WorkOrder;
+import Security.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    private final List<SearchIndex> indexes = new ArrayList<>();
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @AfterEach
+    void close() {
+        for (SearchIndex index : indexes) {
+            index.close();
+        }
+    }
+
+    @Test
+    void childrenAddedToIndexedListsAreIndexedAndRemovedOnesDropped() {
+        Task report = task("Write the report", List.of());
+        Objective objective = new Objective(END, List.of(report), START, "Deliver");
+        Project project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        SearchIndex index = index();
+        index.addAll(List.of(project));
+        assertEquals(3, index.size());
+
+        WorkOrder order = new WorkOrder("Print binders", "Bind the printed copies");
+        Task review = task("Review the slides", List.of(new Material(new ArrayList<>(), "Projector", "Device")));
+        review.setWorkOrders(List.of(order));
+        objective.setTaskList(List.of(report, review));
+        assertEquals(6, index.size());
+        assertEquals(List.of(review), entities(index, "slides"));
+        assertEquals(List.of(order), entities(index, "binders"));
+        assertEquals(1, entities(index, "projector").size());
+
+        objective.setTaskList(List.of(report));
+        assertEquals(3, index.size());
+        assertEquals(List.of(), entities(index, "slides"));
+        assertEquals(List.of(), entities(index, "binders"));
+        assertEquals(List.of(), entities(index, "projector"));
+
+        project.setObjectiveList(List.of());
+        assertEquals(1, index.size());
+        assertEquals(List.of(), entities(index, "report"));
+    }
+
+    @Test
+    void movedTasksAndSharedMaterialsStayIndexed() {
+        Material projector = new Material(new ArrayList<>(), "Projector", "Device");
+        Task report = task("Write the report", List.of(projector));
+        Task review = task("Review the slides", List.of(projector));
+        Objective first = new Objective(END, List.of(report, review), START, "Deliver");
+        Objective second = new Objective(END, List.of(), START, "Present");
+        SearchIndex index = index();
+        index.addAll(List.of(new Project(null, null, END, List.of(first, second), START, "Reporting")));
+        assertEquals(6, index.size());
+
+        // The task is removed from its objective before it is added to the other one
+        first.setTaskList(List.of(report));
+        second.setTaskList(List.of(review));
+        assertEquals(List.of(review), entities(index, "slides"));
+
+        report.setMaterials(List.of());
+        assertEquals(List.of(projector), entities(index, "projector"));
+        review.setMaterials(List.of());
+        assertEquals(List.of(), entities(index, "projector"));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void listsOfSavedEntitiesAreFollowed(@TempDir Path directory) throws IOException {
+        Task report = task("Write the report", List.of());
+        Task review = task("Review the slides", List.of());
+        Objective objective = new Objective(END, List.of(report, review), START, "Deliver");
+        Project project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        Path file = directory.resolve("search.idx");
+        SearchIndex saved = index();
+        saved.addAll(List.of(project));
+        saved.save(file);
+        saved.close();
+        indexes.remove(saved);
+
+        SearchIndex index = SearchIndex.open(file, null);
+        indexes.add(index);
+        Task summary = task("Summarize the feedback", List.of());
+        objective.setTaskList(List.of(report, summary));
+        assertEquals(4, index.size());
+        assertEquals(List.of(summary), entities(index, "feedback"));
+        assertEquals(0, index.search("slides ", 10).size());
+
+        project.setObjectiveList(List.of());
+        assertEquals(1, index.size());
+        assertEquals(0, index.search("report ", 10).size());
+        assertEquals(0, index.search("feedback ", 10).size());
+    }
+
+    private SearchIndex index() {
+        SearchIndex index = new SearchIndex();
+        indexes.add(index);
+        return index;
+    }
+
+    private static List<Object> entities(SearchIndex index, String query) {
+        List<Object> entities = new ArrayList<>();
+        for (SearchHit hit : index.search(query + " ", 10)) {
+            entities.add(hit.getEntity());
+        }
+        return entities;
+    }
+
+    private static Task task(String description, List<Material> materials) {
+        return new Task(description, 2, new ArrayList<>(materials), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+    }
+}
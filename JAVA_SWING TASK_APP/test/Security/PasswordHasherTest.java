@@ -0,0 +1,84 @@
+package Security;
+
+import Entities.Sex;
+import Entities.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private static final String PASSWORD = "Passw0rd@x";
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @Test
+    void malformedHashesAreRejectedWithoutThrowing() {
+        String valid = PasswordHasher.getDefault().hash(PASSWORD);
+        String[] parts = valid.split("\\$");
+        String[] malformed = {
+                PasswordHasher.PREFIX + "abc$" + parts[3] + "$" + parts[4],
+                PasswordHasher.PREFIX + "99999999999$" + parts[3] + "$" + parts[4],
+                PasswordHasher.PREFIX + "2000000000$" + parts[3] + "$" + parts[4],
+                PasswordHasher.PREFIX + "1$" + parts[3] + "$" + parts[4],
+                PasswordHasher.PREFIX + "1000$not base64!$" + parts[4],
+                PasswordHasher.PREFIX + "1000$" + parts[3] + "$%%%",
+                PasswordHasher.PREFIX + "1000$$" + parts[4],
+                PasswordHasher.PREFIX + "1000$" + parts[3] + "$" + parts[4] + "$extra",
+        };
+        for (String encoded : malformed) {
+            assertFalse(PasswordHasher.isEncoded(encoded), encoded);
+            assertFalse(PasswordHasher.verify(PASSWORD, encoded), encoded);
+            assertTrue(PasswordHasher.getDefault().needsRehash(encoded), encoded);
+        }
+        assertTrue(PasswordHasher.verify(PASSWORD, valid));
+        assertFalse(PasswordHasher.verify("Wr0ngPass@x", valid));
+    }
+
+    @Test
+    void setPasswordHashesEncodedLookingValues() {
+        String hash = PasswordHasher.getDefault().hash(PASSWORD);
+        User user = user(hash);
+        String chosen = PasswordHasher.getDefault().hash("An0ther@pass");
+
+        user.setPassword(chosen);
+
+        assertNotEquals(chosen, user.getPassword());
+        assertTrue(PasswordHasher.verify(chosen, user.getPassword()));
+    }
+
+    @Test
+    void restoreRequiresEncodedHash() {
+        assertThrows(IllegalArgumentException.class, () -> user(PASSWORD));
+        String hash = PasswordHasher.getDefault().hash(PASSWORD);
+        assertEquals(hash, user(hash).getPassword());
+    }
+
+    @Test
+    void passwordIsHashedOffTheCallerThread() {
+        User user = new User("user", PASSWORD, "User Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                "user@example.com", "Developer", Sex.MALE, null);
+
+        try (CredentialService credentials = new CredentialService(1, Duration.ZERO)) {
+            assertTrue(credentials.authenticate(user, PASSWORD).join());
+            assertFalse(credentials.authenticate(user, "Wr0ngPass@x").join());
+        }
+        assertTrue(user.getPasswordHash().isDone());
+    }
+
+    private static User user(String passwordHash) {
+        return User.restore(null, "user", passwordHash, "User Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                "user@example.com", "Developer", Sex.MALE);
+    }
+}
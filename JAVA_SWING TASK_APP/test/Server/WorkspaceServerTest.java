@@ -0,0 +1,108 @@
+package Server;
+
+import Entities.Member;
+import Entities.Objective;
+import Entities.Project;
+import Entities.Sex;
+import Entities.Task;
+import Entities.TaskStatus;
+import Entities.User;
+import Security.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkspaceServerTest {
+
+    private static final String PASSWORD = "Passw0rd@x";
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    private WorkspaceServer server;
+    private InetSocketAddress address;
+    private Task task;
+
+    @BeforeAll
+    static void fastHashes() {
+        PasswordHasher.setDefault(new PasswordHasher(1000));
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        Member member = new Member("member", PASSWORD, "Member Name", "+33 6 12 34 56 78", LocalDate.of(1990, 1, 1),
+                "member@example.com", "Developer", Sex.FEMALE, null);
+        task = new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), START, List.of(member),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        Project project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        server = new WorkspaceServer(List.of(member), List.of(project));
+        address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void requestsBeforeLoginAreRefused() throws IOException {
+        try (WorkspaceClient client = WorkspaceClient.connect(address)) {
+            client.ping().join();
+            assertRefused(client.fetch(), "Not logged in");
+            assertRefused(client.setStatus(task.getId(), TaskStatus.DONE), "Not logged in");
+            assertRefused(client.login("member", "Wr0ngPass@x"), "Invalid username or password");
+            assertRefused(client.login("nobody", PASSWORD), "Invalid username or password");
+            assertRefused(client.fetch(), "Not logged in");
+        }
+        assertEquals(TaskStatus.TO_DO, task.getStatus());
+    }
+
+    @Test
+    void fetchLeavesPasswordHashesOut() throws IOException {
+        try (WorkspaceClient client = WorkspaceClient.connect(address)) {
+            CompletableFuture<Void> login = client.login("member", PASSWORD);
+            CompletableFuture<List<Object>> fetched = client.fetch();
+            CompletableFuture<Void> changed = client.setStatus(task.getId(), TaskStatus.DONE);
+            login.join();
+            List<Object> roots = fetched.join();
+            changed.join();
+
+            User user = (User) roots.get(0);
+            assertEquals("member", user.getUsername());
+            assertNull(user.getPassword());
+            Project project = (Project) roots.get(1);
+            assertEquals(TaskStatus.TO_DO, project.getObjectiveList().get(0).getTaskList().get(0).getStatus());
+            assertEquals(TaskStatus.DONE, task.getStatus());
+        }
+    }
+
+    @Test
+    void onlyLoopbackAddressesAreAccepted() {
+        WorkspaceServer other = new WorkspaceServer(List.of(), List.of());
+        assertThrows(IllegalArgumentException.class, () -> other.start(new InetSocketAddress(0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> other.start(InetSocketAddress.createUnresolved("localhost", 0)));
+        assertThrows(IllegalArgumentException.class, () -> other.start(null));
+    }
+
+    private static void assertRefused(CompletableFuture<?> response, String message) {
+        CompletionException e = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals(message, e.getCause().getMessage());
+    }
+}
@@ -0,0 +1,151 @@
+package Sync;
+
+import Entities.Objective;
+import Entities.Project;
+import Entities.Task;
+import Entities.TaskStatus;
+import Persistence.GraphSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SyncLogTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 5);
+
+    private Project project;
+    private SyncLog log;
+    private final List<SyncReplica> replicas = new ArrayList<>();
+
+    @BeforeEach
+    void createWorkspace() {
+        Task task = new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), START, new ArrayList<>(),
+                new ArrayList<>(), END, TaskStatus.TO_DO);
+        Objective objective = new Objective(END, List.of(task), START, "Deliver");
+        project = new Project(null, null, END, List.of(objective), START, "Reporting");
+        log = new SyncLog("server", List.of(), List.of(project));
+    }
+
+    @AfterEach
+    void close() {
+        for (SyncReplica replica : replicas) {
+            replica.close();
+        }
+        log.close();
+    }
+
+    @Test
+    void concurrentEditOfFieldConflicts() throws IOException {
+        SyncReplica first = checkout("first");
+        SyncReplica second = checkout("second");
+        taskOf(first).setPriority(4);
+        taskOf(second).setPriority(5);
+
+        assertEquals(List.of(), push(first).getConflicts());
+        MergeResult result = push(second);
+
+        assertEquals(1, result.getConflicts().size());
+        Conflict conflict = result.getConflicts().get(0);
+        assertEquals("priority", conflict.getEdit().getProperty());
+        assertEquals("first", conflict.getCurrent().getReplica());
+        assertEquals(4, taskOf(project).getPriority());
+        assertEquals(4, taskOf(second).getPriority());
+        assertEquals(List.of(), second.getPendingEdits());
+    }
+
+    @Test
+    void editAfterPullingChangeDoesNotConflict() throws IOException {
+        SyncReplica first = checkout("first");
+        SyncReplica second = checkout("second");
+        taskOf(first).setPriority(4);
+        push(first);
+
+        second.apply(log.changesSince(second.getCursor()));
+        assertEquals(4, taskOf(second).getPriority());
+        taskOf(second).setPriority(5);
+
+        assertEquals(List.of(), push(second).getConflicts());
+        assertEquals(5, taskOf(project).getPriority());
+    }
+
+    @Test
+    void editsOfDifferentFieldsDoNotConflict() throws IOException {
+        SyncReplica first = checkout("first");
+        SyncReplica second = checkout("second");
+        taskOf(first).setPriority(4);
+        taskOf(second).setStatus(TaskStatus.DONE);
+
+        assertEquals(List.of(), push(first).getConflicts());
+        assertEquals(List.of(), push(second).getConflicts());
+        assertEquals(4, taskOf(project).getPriority());
+        assertEquals(TaskStatus.DONE, taskOf(project).getStatus());
+    }
+
+    @Test
+    void serverEditConflictsWithStaleReplicaEdit() throws IOException {
+        SyncReplica replica = checkout("desktop");
+        taskOf(project).setDescription("Write the yearly report");
+        taskOf(replica).setDescription("Write the monthly report");
+
+        MergeResult result = push(replica);
+
+        assertEquals(1, result.getConflicts().size());
+        assertEquals("server", result.getConflicts().get(0).getCurrent().getReplica());
+        assertEquals("Write the yearly report", taskOf(project).getDescription());
+        assertEquals("Write the yearly report", taskOf(replica).getDescription());
+    }
+
+    @Test
+    void refusedEditIsReportedAsConflict() throws IOException {
+        SyncReplica replica = checkout("desktop");
+        Task task = taskOf(replica);
+        task.reschedule(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 3));
+        List<Edit> edits = new ArrayList<>();
+        for (Edit edit : replica.getPendingEdits()) {
+            Object value = edit.getProperty().equals("endDate") ? EntityFields.toWire(START) : edit.getValue();
+            edits.add(new Edit(edit.getKind(), edit.getId(), edit.getProperty(), value, edit.getBase()));
+        }
+
+        MergeResult result = log.merge("desktop", edits);
+
+        assertEquals(2, result.getConflicts().size());
+        assertNull(result.getConflicts().get(0).getCurrent());
+        assertEquals(START, taskOf(project).getStartDate());
+        assertEquals(END, taskOf(project).getEndDate());
+    }
+
+    private SyncReplica checkout(String replicaId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphSerializer.write(List.of(project), bytes);
+        SyncReplica replica = new SyncReplica(replicaId,
+                GraphSerializer.read(new ByteArrayInputStream(bytes.toByteArray())), log.getSequence());
+        replicas.add(replica);
+        return replica;
+    }
+
+    private MergeResult push(SyncReplica replica) {
+        List<Edit> edits = replica.getPendingEdits();
+        MergeResult result = log.merge(replica.getReplicaId(), edits);
+        replica.acknowledge(edits, result);
+        return result;
+    }
+
+    private static Task taskOf(SyncReplica replica) {
+        return taskOf(replica.getProjects().get(0));
+    }
+
+    private static Task taskOf(Project project) {
+        return project.getObjectiveList().get(0).getTaskList().get(0);
+    }
+}
@@ -0,0 +1,101 @@
+package UI;
+
+import Entities.Task;
+import Entities.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityChangeBusTest {
+
+    @Test
+    void changesOfAFrameAreCoalescedPerEntity() throws Exception {
+        Task first = task();
+        Task second = task();
+        List<EntityChangeBatch> batches = new ArrayList<>();
+        try (EntityChangeBus bus = new EntityChangeBus(Duration.ofMinutes(1))) {
+            bus.addListener(batches::add);
+            first.setStatus(TaskStatus.IN_PROGRESS);
+            second.setPriority(4);
+            first.setPriority(1);
+            first.setStatus(TaskStatus.DONE);
+            SwingUtilities.invokeAndWait(bus::flush);
+        }
+
+        assertEquals(1, batches.size());
+        EntityChangeBatch batch = batches.get(0);
+        assertEquals(4, batch.getEventCount());
+        assertEquals(2, batch.getDeltas().size());
+        EntityDelta delta = batch.getDeltas().get(0);
+        assertSame(first, delta.getEntity());
+        assertEquals(List.of("status", "priority"), new ArrayList<>(delta.getProperties()));
+        assertEquals(TaskStatus.TO_DO, delta.getOldValue("status"));
+        assertEquals(TaskStatus.DONE, delta.getNewValue("status"));
+        assertEquals(2, delta.getOldValue("priority"));
+        assertEquals(1, delta.getNewValue("priority"));
+        assertSame(second, batch.getDeltas().get(1).getEntity());
+    }
+
+    @Test
+    void propertiesSetBackToTheirValueAreDropped() throws Exception {
+        Task reverted = task();
+        Task changed = task();
+        List<EntityChangeBatch> batches = new ArrayList<>();
+        try (EntityChangeBus bus = new EntityChangeBus(Duration.ofMinutes(1))) {
+            bus.addListener(batches::add);
+            reverted.setStatus(TaskStatus.DONE);
+            reverted.setStatus(TaskStatus.TO_DO);
+            SwingUtilities.invokeAndWait(bus::flush);
+            assertTrue(batches.isEmpty());
+
+            reverted.setPriority(5);
+            reverted.setPriority(2);
+            changed.setPriority(5);
+            changed.setStatus(TaskStatus.CANCELED);
+            changed.setPriority(2);
+            SwingUtilities.invokeAndWait(bus::flush);
+        }
+
+        assertEquals(1, batches.size());
+        EntityDelta delta = batches.get(0).getDeltas().get(0);
+        assertEquals(1, batches.get(0).getDeltas().size());
+        assertSame(changed, delta.getEntity());
+        assertFalse(delta.hasChanged("priority"));
+        assertTrue(delta.hasChanged("status"));
+        assertEquals(5, batches.get(0).getEventCount());
+    }
+
+    @Test
+    void batchIsDeliveredOnTheEventDispatchThreadAtTheEndOfTheFrame() throws Exception {
+        Task task = task();
+        CountDownLatch delivered = new CountDownLatch(1);
+        boolean[] onDispatchThread = new boolean[1];
+        try (EntityChangeBus bus = new EntityChangeBus(Duration.ofMillis(10))) {
+            bus.addListener(batch -> {
+                onDispatchThread[0] = SwingUtilities.isEventDispatchThread();
+                delivered.countDown();
+            });
+            task.setStatus(TaskStatus.IN_PROGRESS);
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertThrows(IllegalStateException.class, bus::flush);
+        }
+        assertTrue(onDispatchThread[0]);
+    }
+
+    private static Task task() {
+        return new Task("Write the report", 2, new ArrayList<>(), new ArrayList<>(), LocalDate.of(2024, 1, 1),
+                new ArrayList<>(), new ArrayList<>(), LocalDate.of(2024, 1, 5), TaskStatus.TO_DO);
+    }
+}
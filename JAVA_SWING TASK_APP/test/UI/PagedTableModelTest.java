@@ -0,0 +1,159 @@
+package UI;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class PagedTableModelTest {
+
+    private static final int PAGE_SIZE = 256;
+
+    private final List<String> rows = new ArrayList<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<TableModelEvent> events = new ArrayList<>();
+    private PagedTableModel<String> model;
+
+    @AfterEach
+    void close() {
+        model.close();
+    }
+
+    @Test
+    void pagesAreFetchedOnceWhenFirstPainted() throws Exception {
+        open(100_000);
+        assertEquals(100_000, (int) onDispatchThread(model::getRowCount));
+
+        // Both rows are asked for before the page can arrive
+        assertEquals(List.of(), onDispatchThread(() -> {
+            List<Object> values = new ArrayList<>();
+            values.add(model.getValueAt(1000, 0));
+            values.add(model.getRow(1001));
+            values.removeIf(value -> value == null);
+            return values;
+        }));
+        assertEquals("row 1000", await(() -> model.getValueAt(1000, 0)));
+        assertEquals(1, fetches.get());
+        assertEquals("row 1023", onDispatchThread(() -> model.getRow(1023)));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void leastRecentlyUsedPagesAreEvicted() throws Exception {
+        open(70 * PAGE_SIZE);
+        for (int page = 0; page < 64; page++) {
+            int row = page * PAGE_SIZE;
+            await(() -> model.getRow(row));
+        }
+        // Page 0 is used again, so page 1 is the least recently used when page 64 arrives
+        onDispatchThread(() -> model.getRow(0));
+        await(() -> model.getRow(64 * PAGE_SIZE));
+        assertEquals(65, fetches.get());
+
+        assertEquals("row 0", onDispatchThread(() -> model.getRow(0)));
+        assertNull(onDispatchThread(() -> model.getRow(PAGE_SIZE)));
+        await(() -> model.getRow(PAGE_SIZE));
+        assertEquals(66, fetches.get());
+    }
+
+    @Test
+    void changesRepaintTheLoadedRowsOrRefreshTheModel() throws Exception {
+        open(1000);
+        await(() -> model.getRow(10));
+        events.clear();
+
+        EntityDelta loaded = delta(rows.get(10), "status");
+        EntityDelta notLoaded = delta(rows.get(900), "status");
+        EntityDelta notARow = delta(new Object(), "status");
+        onDispatchThread(() -> {
+            model.entitiesChanged(new EntityChangeBatch(List.of(loaded, notLoaded, notARow), 3));
+            return null;
+        });
+        assertEquals(1, events.size());
+        assertEquals(10, events.get(0).getFirstRow());
+        assertEquals(10, events.get(0).getLastRow());
+
+        rows.add("row 1000");
+        onDispatchThread(() -> {
+            model.entitiesChanged(new EntityChangeBatch(List.of(delta(rows.get(0), "objective")), 1));
+            return null;
+        });
+        assertEquals(1001, (int) await(() -> model.getRowCount() == 1001 ? 1001 : null));
+        assertNull(onDispatchThread(() -> model.getRow(10)));
+    }
+
+    private void open(int rowCount) throws Exception {
+        for (int i = 0; i < rowCount; i++) {
+            rows.add("row " + i);
+        }
+        RowSource<String> all = RowSource.of(rows);
+        RowSource<String> counted = new RowSource<String>() {
+            @Override
+            public int size() {
+                return all.size();
+            }
+
+            @Override
+            public List<String> fetch(int from, int count) {
+                fetches.incrementAndGet();
+                return all.fetch(from, count);
+            }
+        };
+        model = onDispatchThread(() -> new PagedTableModel<String>(counted, String.class, new String[]{"Row"},
+                new Class<?>[]{String.class}) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected Object valueOf(String row, int column) {
+                return row;
+            }
+
+            @Override
+            protected boolean changesRows(EntityDelta delta) {
+                return delta.hasChanged("objective");
+            }
+        });
+        onDispatchThread(() -> {
+            model.addTableModelListener(events::add);
+            return null;
+        });
+        await(() -> model.getRowCount() == 0 ? null : model.getRowCount());
+    }
+
+    private static EntityDelta delta(Object entity, String property) {
+        EntityDelta delta = new EntityDelta(entity);
+        delta.record(property, "before", "after");
+        return delta;
+    }
+
+    private static <V> V onDispatchThread(Supplier<V> action) throws Exception {
+        List<V> result = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> result.add(action.get()));
+        return result.get(0);
+    }
+
+    /**
+     * Calls an action on the event dispatch thread until it gives a value.
+     */
+    private static <V> V await(Supplier<V> action) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            V value = onDispatchThread(action);
+            if (value != null) {
+                return value;
+            }
+            Thread.sleep(1);
+        }
+        fail("Timed out");
+        return null;
+    }
+}